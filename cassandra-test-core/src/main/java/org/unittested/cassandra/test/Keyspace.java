@@ -20,10 +20,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.unittested.cassandra.test.connect.pool.LazySession;
 import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.util.SchemaDigest;
 import org.unittested.cassandra.test.util.Utils;
 
 import com.datastax.driver.core.Cluster;
@@ -51,7 +54,6 @@ public class Keyspace {
     public Keyspace(Session session, String name) {
         this.session = session;
         this.name = name;
-        this.cluster = session.getCluster();
     }
 
     /**
@@ -69,6 +71,10 @@ public class Keyspace {
      * @return {@link Cluster}
      */
     public Cluster getCluster() {
+        if (this.cluster == null && this.session != null) {
+            this.cluster = this.session.getCluster();
+        }
+
         return this.cluster;
     }
 
@@ -226,13 +232,38 @@ public class Keyspace {
             .build();
     }
 
+    /**
+     * Get this keyspace's schema digest, a 128-bit digest of this keyspace's schema.
+     * <p>
+     * Unlike {@link #getSchemaSignature()}, the digest is maintained incrementally from per-table digests, so it is
+     * cheap to compute when the schema has not changed.
+     *
+     * @return Schema digest or null if this keyspace does not exist.
+     */
+    public UUID getSchemaDigest() {
+        return SchemaDigest.digest(getKeyspaceMetadata(this.name));
+    }
+
+    /**
+     * Export this keyspace's schema as CQL statements, starting with the CREATE KEYSPACE statement.
+     *
+     * @return Schema CQL or null if this keyspace does not exist.
+     */
+    public String exportSchema() {
+        KeyspaceMetadata keyspaceMetadata = getKeyspaceMetadata(this.name);
+
+        return (keyspaceMetadata != null ? keyspaceMetadata.exportAsString() : null);
+    }
+
     /**
      * Close the connection.
      */
     public void close() {
         try {
-            if (this.cluster != null) {
-                this.cluster.close();
+            Cluster cluster = LazySession.isResolved(this.session) ? getCluster() : null;
+
+            if (cluster != null) {
+                cluster.close();
             }
         } catch (Exception e) {
             // LOG.warn("Failed to close cluster.", e);
@@ -252,8 +283,14 @@ public class Keyspace {
         return keyspaceMetadata.getTables();
     }
 
+    void updateName(String name) {
+        this.name = name;
+    }
+
     private KeyspaceMetadata getKeyspaceMetadata(String name) {
-        if (this.cluster == null || this.cluster.isClosed()) {
+        Cluster cluster = getCluster();
+
+        if (cluster == null || cluster.isClosed()) {
             throw new CassandraTestException("Connection is closed. Cannot get keyspace info.");
         }
 
@@ -261,6 +298,6 @@ public class Keyspace {
             return null;
         }
 
-        return this.cluster.getMetadata().getKeyspace(Utils.quote(name));
+        return cluster.getMetadata().getKeyspace(Utils.quote(name));
     }
 }
@@ -16,16 +16,27 @@
 
 package org.unittested.cassandra.test;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.unittested.cassandra.test.annotation.CassandraBean;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.pool.BasicSessionPool;
+import org.unittested.cassandra.test.connect.pool.LazySession;
+import org.unittested.cassandra.test.connect.pool.SessionPool;
+import org.unittested.cassandra.test.connect.pool.SessionPoolPrewarmer;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.keyspace.state.BasicKeyspaceStateManager;
+import org.unittested.cassandra.test.keyspace.state.FileKeyspaceStateManager;
 import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.properties.PropertyResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,11 +60,18 @@ import com.datastax.driver.core.Session;
 public class TestEnvironmentAdapter {
 
     private static final Logger LOG = LoggerFactory.getLogger(TestEnvironmentAdapter.class);
-    private static final KeyspaceStateManager KEYSPACE_STATE_MANAGER_INSTANCE = new BasicKeyspaceStateManager();
+    private static final KeyspaceStateManager KEYSPACE_STATE_MANAGER_INSTANCE =
+            createKeyspaceStateManager(PropertiesPropertyResolver.DEFAULT);
+
+    static {
+        SessionPoolPrewarmer.start();
+    }
 
     private TestSettings testSettings;
     private KeyspaceStateManager keyspaceStateManager;
+    private SessionPool sessionPool;
     private TestRuntime runtime;
+    private List<Field> deferredClusterFields = new ArrayList<Field>();
 
     public TestEnvironmentAdapter(TestSettings settings) {
         this(settings, KEYSPACE_STATE_MANAGER_INSTANCE);
@@ -61,8 +79,15 @@ public class TestEnvironmentAdapter {
 
     public TestEnvironmentAdapter(TestSettings settings,
                                   KeyspaceStateManager keyspaceStateManager) {
+        this(settings, keyspaceStateManager, BasicSessionPool.DEFAULT);
+    }
+
+    public TestEnvironmentAdapter(TestSettings settings,
+                                  KeyspaceStateManager keyspaceStateManager,
+                                  SessionPool sessionPool) {
         this.testSettings = settings;
         this.keyspaceStateManager = keyspaceStateManager;
+        this.sessionPool = sessionPool;
     }
 
     /**
@@ -134,7 +159,7 @@ public class TestEnvironmentAdapter {
      * Handle clean up of the test instance and class.
      * <p>
      * The test environment calls this once after all test methods have run. The Cassandra keyspace is cleaned up and
-     * the connection is closed.
+     * the connection is released.
      *
      * @param testClass Test class.
      * @param testEnvironmentContext Test environment specific context. Can be null.
@@ -148,10 +173,13 @@ public class TestEnvironmentAdapter {
         }
 
         try {
-            rollbackAfterClass(this.runtime);
+            if (LazySession.isResolved(this.runtime.getKeyspace().getSession())) {
+                rollbackAfterClass(this.runtime);
+            }
         } finally {
             closeConnection(this.runtime);
             this.runtime = null;
+            this.deferredClusterFields.clear();
         }
     }
 
@@ -159,7 +187,7 @@ public class TestEnvironmentAdapter {
      * Handle clean up of the test instance and class.
      * <p>
      * The test environment calls this once after all test methods have run. The Cassandra keyspace is cleaned up and
-     * the connection is closed.
+     * the connection is released.
      *
      * @param testClass Test class.
      * @throws Exception on test clean up failure
@@ -191,6 +219,7 @@ public class TestEnvironmentAdapter {
         syncSchema(this.runtime, this.keyspaceStateManager);
         loadData(this.runtime);
         this.runtime.getKeyspace().use();
+        populateDeferredClusterFields(test, this.runtime);
     }
 
     /**
@@ -245,6 +274,25 @@ public class TestEnvironmentAdapter {
         onAfterMethod(test, testMethod, null);
     }
 
+    /**
+     * Create the default {@link KeyspaceStateManager}.
+     * <p>
+     * If the {@value FileKeyspaceStateManager#STATE_FILE_PROPERTY} property is set, keyspace state is persisted to
+     * that file. Otherwise, keyspace state is kept in memory.
+     *
+     * @param propertyResolver Properties.
+     * @return {@link KeyspaceStateManager}
+     */
+    static KeyspaceStateManager createKeyspaceStateManager(PropertyResolver propertyResolver) {
+        String stateFile = propertyResolver.getProperty(FileKeyspaceStateManager.STATE_FILE_PROPERTY, "").trim();
+
+        if (stateFile.isEmpty()) {
+            return new BasicKeyspaceStateManager();
+        }
+
+        return new FileKeyspaceStateManager(new File(stateFile));
+    }
+
     /**
      * Get Cassandra Test runtime state.
      *
@@ -255,15 +303,24 @@ public class TestEnvironmentAdapter {
     }
 
     protected TestRuntime openConnection(Class<?> testClass, Object testEnvironmentContext, TestSettings config) {
-        return new TestRuntime(
-                testClass,
-                testEnvironmentContext,
-                config.getConnectSettings().connect(),
-                config);
+        ConnectSettings connectSettings = config.getConnectSettings();
+        Session session;
+
+        if (connectSettings.isLazy()) {
+            session = LazySession.create(this.sessionPool, connectSettings);
+        } else {
+            session = this.sessionPool.acquire(connectSettings);
+        }
+
+        return new TestRuntime(testClass, testEnvironmentContext, session, config);
     }
 
     protected void closeConnection(TestRuntime runtime) {
-        runtime.getKeyspace().close();
+        Session session = LazySession.unwrap(runtime.getKeyspace().getSession());
+
+        if (session != null) {
+            this.sessionPool.release(session);
+        }
     }
 
     protected void rollbackAfterMethod(TestRuntime runtime) {
@@ -284,6 +341,7 @@ public class TestEnvironmentAdapter {
 
     protected void populateCassandraBeanFields(Object test, TestRuntime runtime) {
         Map<Class<?>, Object> beanMap = null;
+        boolean connected = LazySession.isResolved(runtime.getKeyspace().getSession());
 
         for (Class<?> c = test.getClass(); c != null && !c.equals(Object.class); c = c.getSuperclass()) {
             for (Field field : c.getDeclaredFields()) {
@@ -302,9 +360,10 @@ public class TestEnvironmentAdapter {
                 }
 
                 if (beanMap == null) {
+                    Session session = runtime.getKeyspace().getSession();
                     beanMap = new HashMap<Class<?>, Object>();
-                    beanMap.put(Session.class, runtime.getKeyspace().getSession());
-                    beanMap.put(Cluster.class, runtime.getKeyspace().getSession().getCluster());
+                    beanMap.put(Session.class, session);
+                    beanMap.put(Cluster.class, connected ? session.getCluster() : null);
                     beanMap.put(Keyspace.class, runtime.getKeyspace());
                     beanMap.put(TestSettings.class, runtime.getTestSettings());
                 }
@@ -314,14 +373,38 @@ public class TestEnvironmentAdapter {
                             field.getType().getCanonicalName());
                 }
 
-                field.setAccessible(true);
-
-                try {
-                    field.set(test, beanMap.get(field.getType()));
-                } catch (IllegalAccessException e) {
-                    throw new CassandraTestException("Cannot set CassandraBean field '%s'", field.getName(), e);
+                if (field.getType().equals(Cluster.class) && !connected) {
+                    // Cluster cannot be proxied. Set the field when the lazy session connects.
+                    this.deferredClusterFields.add(field);
+                    continue;
                 }
+
+                setCassandraBeanField(test, field, beanMap.get(field.getType()));
             }
         }
     }
+
+    private void populateDeferredClusterFields(Object test, TestRuntime runtime) {
+        if (this.deferredClusterFields.isEmpty() || test == null) {
+            return;
+        }
+
+        Cluster cluster = runtime.getKeyspace().getSession().getCluster();
+
+        for (Field field : this.deferredClusterFields) {
+            setCassandraBeanField(test, field, cluster);
+        }
+
+        this.deferredClusterFields.clear();
+    }
+
+    private static void setCassandraBeanField(Object test, Field field, Object value) {
+        field.setAccessible(true);
+
+        try {
+            field.set(test, value);
+        } catch (IllegalAccessException e) {
+            throw new CassandraTestException("Cannot set CassandraBean field '%s'", field.getName(), e);
+        }
+    }
 }
@@ -100,6 +100,19 @@ public class TestRuntime {
         return this.testSettings;
     }
 
+    /**
+     * Switch the test keyspace to another keyspace on the same connection.
+     * <p>
+     * Used by keyspace settings that lease keyspaces, such as
+     * {@link org.unittested.cassandra.test.keyspace.pool.PoolKeyspaceSettings}. The {@link Keyspace} instance is kept,
+     * so references to it see the new keyspace.
+     *
+     * @param keyspace Keyspace name.
+     */
+    public void updateKeyspace(String keyspace) {
+        this.keyspace.updateName(keyspace);
+    }
+
     void updateTestMethod(Method testMethod) {
         this.testMethod = testMethod;
     }
@@ -76,6 +76,139 @@ public @interface CassandraConnect {
      */
     String password() default "";
 
+    /**
+     * How long, in milliseconds, an idle connection is kept open for reuse by other test classes with the same
+     * connect settings.
+     * <p>
+     * By default, an idle connection stays open for 5 seconds, so test classes that run one after another share it.
+     * With 0, the connection is closed as soon as the last test class using it finishes. A negative value keeps the
+     * connection open until the JVM exits. Connections still open when the JVM exits are closed then.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Long}
+     */
+    String keepAlive() default "5000";
+
+    /**
+     * Defer connecting to Cassandra until the first test method runs or the {@link com.datastax.driver.core.Session}
+     * is first used.
+     * <p>
+     * Test classes whose methods are all skipped or filtered out will not connect to Cassandra. {@link CassandraBean}
+     * fields of type {@link com.datastax.driver.core.Cluster} are set when the connection is opened.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String lazy() default "false";
+
+    /**
+     * Protocol compression: NONE, LZ4 or SNAPPY.
+     * <p>
+     * The compression library (lz4 or snappy-java) must be on the class path.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link com.datastax.driver.core.ProtocolOptions.Compression}
+     */
+    String compression() default "NONE";
+
+    /**
+     * Core connections per local host. 0 uses the driver default.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String coreConnectionsPerHost() default "0";
+
+    /**
+     * Max connections per local host. 0 uses the driver default.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String maxConnectionsPerHost() default "0";
+
+    /**
+     * Max requests per connection to a local host. 0 uses the driver default.
+     * <p>
+     * With driver 2.x, this sets the max simultaneous requests per connection threshold.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String maxRequestsPerConnection() default "0";
+
+    /**
+     * Socket connect timeout in milliseconds. 0 uses the driver default.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String connectTimeoutMillis() default "0";
+
+    /**
+     * Socket read timeout in milliseconds. 0 uses the driver default.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String readTimeoutMillis() default "0";
+
+    /**
+     * Enable JMX reporting of driver metrics.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String jmxReporting() default "true";
+
+    /**
+     * Enable driver metrics.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String metrics() default "true";
+
+    /**
+     * NettyOptions shared by all connections: "shared" or the class name of a com.datastax.driver.core.NettyOptions
+     * subclass.
+     * <p>
+     * "shared" uses {@link org.unittested.cassandra.test.connect.SharedNettyOptions}, which gives every
+     * {@link com.datastax.driver.core.Cluster} the same event loop group and timer and shuts them down when the last
+     * cluster closes. For a class name, one instance of the class is created per JVM and set on every cluster. The
+     * driver calls onClusterClose for every cluster that closes; the implementation should only shut down shared
+     * resources when the last cluster using them closes. Requires driver 2.1.6 or later.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return NettyOptions class name.
+     */
+    String nettyOptions() default "";
+
+    /**
+     * Total time, in milliseconds, allowed for checking that a contact point responds before connecting.
+     * <p>
+     * When set, each contact point is probed with a native protocol request before the driver connects. If no
+     * contact point responds within this time, the connection fails immediately instead of waiting for the driver's
+     * connect timeouts. Unreachable contact points are remembered for one minute, so other test classes using them
+     * fail without probing again. By default (0), probing is disabled.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Integer}
+     */
+    String probeTimeoutMillis() default "0";
+
     /**
      * PRIVATE - DO NOT SET.
      * <p>
@@ -47,6 +47,10 @@ public @interface CassandraData {
      * CQL statements in CassandraData should be limited to data insertion (INSERT, BATCH, USE, etc are OK). Schema
      * altering statements should appear in CassandraKeyspace schema.
      * <p>
+     * A URL with a .csv extension or a format=csv parameter points to CSV rows of a table, streamed into the table
+     * with a prepared INSERT. {@link org.unittested.cassandra.test.resource.Resource.ContentType#CSV} contains more
+     * info on the format. With parallelism greater than 1, the rows are pipelined.
+     * <p>
      * Example Data Source Strings
      * <ul>
      *     <li>INSERT INTO x(id) VALUES (1);</li>
@@ -55,6 +59,8 @@ public @interface CassandraData {
      *     <li>file://data.cql</li>
      *     <li>classpath:data.cql</li>
      *     <li>classpath://data.cql</li>
+     *     <li>classpath:users.csv</li>
+     *     <li>classpath:reference.txt?format=csv&amp;table=ks.users</li>
      * </ul>
      * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
      *
@@ -62,6 +68,44 @@ public @interface CassandraData {
      */
     String [] value();
 
+    /**
+     * Max number of data statements in flight.
+     * <p>
+     * If greater than 1, statements are sent with executeAsync, up to this many at a time. Batches and schema
+     * statements wait for the statements before them and run one at a time, as does the first statement after a
+     * CONSISTENCY change. If 1, statements are sent one at a time.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Max statements in flight.
+     */
+    String parallelism() default "1";
+
+    /**
+     * Prepare repeated INSERTs?
+     * <p>
+     * If true, INSERTs that differ only in their literal values are prepared once per session and run as bound
+     * statements. INSERTs whose values cannot be bound safely, such as collection literals, run as text.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return "true" to prepare repeated INSERTs.
+     */
+    String prepareStatements() default "true";
+
+    /**
+     * Max number of writes per partition batch.
+     * <p>
+     * If greater than 1, consecutive INSERT, UPDATE and DELETE statements to the same table and partition key are
+     * sent as one UNLOGGED batch, or COUNTER batch for counter tables, of up to this many statements. Explicit
+     * batches, conditional writes and CONSISTENCY changes end a partition batch. If 1, writes are not batched.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Max writes per partition batch.
+     */
+    String partitionBatchSize() default "1";
+
     /**
      * PRIVATE - DO NOT SET.
      * <p>
@@ -26,6 +26,7 @@ import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetection;
 import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
 import org.unittested.cassandra.test.keyspace.importer.ImportKeyspaceSettingsFactory;
+import org.unittested.cassandra.test.keyspace.importer.SchemaVerification;
 
 /**
  * Test keyspace that has been setup outside of the Cassandra Test environment.
@@ -71,6 +72,27 @@ public @interface CassandraImportKeyspace {
      */
     String schemaChangeDetection() default SchemaChangeDetection.KEYSPACE;
 
+    /**
+     * When the schema is verified with {@link #schemaChangeDetection()}. The schema is always verified before the
+     * first test method of a test class.
+     * <p>
+     * Supported Values: String values in {@link SchemaVerification}
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link org.unittested.cassandra.test.keyspace.importer.SchemaVerificationEnum}
+     */
+    String schemaVerification() default SchemaVerification.METHOD;
+
+    /**
+     * With {@link SchemaVerification#METHOD}, verify the schema every N test methods of a test class.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Interval in test methods.
+     */
+    String schemaVerificationInterval() default "1";
+
     /**
      * Tables that should never be truncated on a rollback.
      * <p>
@@ -110,6 +110,35 @@ public @interface CassandraKeyspace {
      */
     String schemaChangeDetection() default SchemaChangeDetection.KEYSPACE;
 
+    /**
+     * Wait for schema agreement once per schema resource instead of after each schema statement.
+     * <p>
+     * If true, schema statements are sent without waiting for the cluster to agree on the schema. Cassandra Test
+     * waits for schema agreement only before statements that depend on earlier schema and at the end of each schema
+     * resource. This speeds up schema installs on multi-node clusters. The statements are sent through a separate
+     * connection to the cluster, so other sessions keep waiting for schema agreement. Requires driver 3.0 or later.
+     * <p>
+     * Supported Values: "true", "false"
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String deferSchemaAgreement() default "false";
+
+    /**
+     * Max number of schema statements sent concurrently.
+     * <p>
+     * Schema statements that do not depend on each other, such as the CREATE TABLE statements of a keyspace, are
+     * sent concurrently. User types, functions and aggregates are created before tables, and tables before indexes and
+     * materialized views. Requires deferSchemaAgreement. If 1, schema statements are sent one at a time.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Max concurrent schema statements.
+     */
+    String schemaParallelism() default "1";
+
     /**
      * Tables that should never be truncated on a rollback.
      *
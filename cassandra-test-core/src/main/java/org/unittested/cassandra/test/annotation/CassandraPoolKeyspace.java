@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetection;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
+import org.unittested.cassandra.test.keyspace.pool.PoolKeyspaceSettingsFactory;
+
+/**
+ * Test keyspaces leased from a pool of identical keyspaces that are prepared in the background.
+ *
+ * Cassandra Test creates poolSize keyspaces named after this keyspace with a _N suffix, such as ks_0 and ks_1, and
+ * installs the schema into each. A test class leases a clean keyspace before a test method runs. When the test method
+ * or class is done, {@link CassandraPoolRollback} returns the keyspace to the pool, where a background worker
+ * truncates it, or re-creates it if its schema changed, while the next test runs. This annotation is a good choice
+ * when truncating tables after each test method dominates the build time.
+ * <p>
+ * Must be used with {@link CassandraPoolRollback}. Schema sources must not contain a create keyspace statement or refer
+ * to the test keyspace by name. Pooled keyspaces are created with a replication_factor = 1.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface CassandraPoolKeyspace {
+
+    /**
+     * The test keyspace.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return The test keyspace.
+     */
+    String value();
+
+    /**
+     * Is the keyspace ID case sensitive?
+     * <p>
+     * Supported Values: "true", "false"
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String isCaseSensitiveKeyspace() default "false";
+
+    /**
+     * Schema source list.
+     * <p>
+     * Each schema source string entry can be either CQL statements or a URL pointing to a text file with CQL statements.
+     * The format for the CQL statements is similar to cql files accepted by cqlsh. {@link org.unittested.cassandra.test.resource.Resource.ContentType#CQL}
+     * contains more info on the format.
+     * <p>
+     * CQL statements in CassandraPoolKeyspace should be limited to schema creation (CREATE TABLE, CREATE TYPE, etc).
+     * Data inserted by schema sources is truncated when a keyspace is recycled.
+     * <p>
+     * Example Data Source Strings
+     * <ul>
+     *     <li>create table t (id int primary key, value text);</li>
+     *     <li>file:schema.cql</li>
+     *     <li>file://schema.cql</li>
+     *     <li>classpath:schema.cql</li>
+     *     <li>classpath://schema.cql</li>
+     * </ul>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Data source list.
+     */
+    String [] schema() default {};
+
+    /**
+     * Schema change detection method.
+     * <p>
+     * Supported Values: String values in {@link SchemaChangeDetection}
+     *
+     * @return {@link org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum}
+     */
+    String schemaChangeDetection() default SchemaChangeDetection.KEYSPACE;
+
+    /**
+     * Wait for schema agreement once per schema resource instead of after each schema statement.
+     * <p>
+     * If true, schema statements are sent without waiting for the cluster to agree on the schema. Cassandra Test
+     * waits for schema agreement only before statements that depend on earlier schema and at the end of each schema
+     * resource. This speeds up schema installs on multi-node clusters. The statements are sent through a separate
+     * connection to the cluster, so other sessions keep waiting for schema agreement. Requires driver 3.0 or later.
+     * <p>
+     * Supported Values: "true", "false"
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String deferSchemaAgreement() default "false";
+
+    /**
+     * Number of keyspaces in the pool.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Pool size.
+     */
+    String poolSize() default "2";
+
+    /**
+     * Max number of keyspaces recycled per second by the background worker. Limits the load recycling puts on Cassandra
+     * while tests run. If 0, the rate is not limited.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Refill rate.
+     */
+    String refillRate() default "0";
+
+    /**
+     * Tables that should never be truncated on a rollback.
+     *
+     * @return List of protected tables.
+     */
+    String [] protectedTables() default {};
+
+    /**
+     * PRIVATE - DO NOT SET.
+     * <p>
+     * Binds this annotation to a {@link KeyspaceSettings}, allowing for custom
+     * keyspace settings annotations.
+     *
+     * @return {@link KeyspaceSettingsFactory} class.
+     */
+    Class<? extends KeyspaceSettingsFactory> __keyspaceSettingsFactory() default PoolKeyspaceSettingsFactory.class;
+}
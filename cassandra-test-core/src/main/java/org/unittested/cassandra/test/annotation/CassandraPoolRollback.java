@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.unittested.cassandra.test.rollback.RollbackStrategy;
+import org.unittested.cassandra.test.rollback.RollbackSettingsFactory;
+import org.unittested.cassandra.test.rollback.pool.PoolRollbackSettingsFactory;
+
+/**
+ * Rollback for {@link CassandraPoolKeyspace} test keyspaces.
+ *
+ * A rollback returns the leased keyspace to its pool instead of truncating it in the test thread. The pool truncates
+ * the keyspace in the background, or drops and re-creates it for {@link RollbackStrategy#DROP}. The next test method
+ * leases another clean keyspace.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface CassandraPoolRollback {
+
+    /**
+     * The {@link RollbackStrategy} to execute after each test method in the test class.
+     * <p>
+     * If {@link RollbackStrategy#NONE}, the test class keeps its keyspace until all test methods have run. Otherwise,
+     * the keyspace is returned to the pool after each test method.
+     *
+     * @return {@link RollbackStrategy}
+     */
+    RollbackStrategy afterMethod() default RollbackStrategy.TRUNCATE;
+
+    /**
+     * The {@link RollbackStrategy} to execute after all test methods in the test class have run.
+     * <p>
+     * The keyspace must be returned to the pool after the test class, so {@link RollbackStrategy#NONE} is not allowed.
+     *
+     * @return {@link RollbackStrategy}
+     */
+    RollbackStrategy afterClass() default RollbackStrategy.TRUNCATE;
+
+    /**
+     * PRIVATE - DO NOT SET.
+     * <p>
+     * Binds this annotation to a {@link org.unittested.cassandra.test.rollback.RollbackSettings}, allowing for custom
+     * rollback settings annotations.
+     *
+     * @return {@link RollbackSettingsFactory} class.
+     */
+    Class<? extends RollbackSettingsFactory> __rollbackSettingsFactory() default PoolRollbackSettingsFactory.class;
+}
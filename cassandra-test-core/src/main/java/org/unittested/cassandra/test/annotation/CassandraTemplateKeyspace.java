@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetection;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
+import org.unittested.cassandra.test.keyspace.template.TemplateKeyspaceSettingsFactory;
+
+/**
+ * Test keyspace that is under the control of Cassandra Test, with schema cloned from a template keyspace.
+ *
+ * Behaves like {@link CassandraKeyspace}, except for how schema is installed. The schema sources are installed once
+ * into a template keyspace, named cassandra_test_template_ followed by a fingerprint of the schema content. Later
+ * installs replay the template's schema, exported from the driver's keyspace metadata and parsed once per JVM, with the
+ * keyspace name rewritten. Test classes with the same schema content share a template. This annotation is a good
+ * choice for large schemas or test suites that re-install schema often.
+ * <p>
+ * Templates are kept between test runs and shared by parallel test JVMs. Templates of old schema are not dropped
+ * automatically. Drop them with
+ * {@link org.unittested.cassandra.test.keyspace.template.TemplateKeyspaceSettings#dropTemplates(com.datastax.driver.core.Session)}.
+ * <p>
+ * The test keyspace is always created by Cassandra Test with a replication_factor = 1. Schema sources must not contain
+ * a create keyspace statement or refer to the test keyspace by name.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface CassandraTemplateKeyspace {
+
+    /**
+     * The test keyspace.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return The test keyspace.
+     */
+    String value();
+
+    /**
+     * Is the keyspace ID case sensitive?
+     * <p>
+     * Supported Values: "true", "false"
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String isCaseSensitiveKeyspace() default "false";
+
+    /**
+     * Schema source list.
+     * <p>
+     * Each schema source string entry can be either CQL statements or a URL pointing to a text file with CQL statements.
+     * The format for the CQL statements is similar to cql files accepted by cqlsh. {@link org.unittested.cassandra.test.resource.Resource.ContentType#CQL}
+     * contains more info on the format.
+     * <p>
+     * CQL statements in CassandraTemplateKeyspace should be limited to schema creation (CREATE TABLE, CREATE TYPE, etc).
+     * Only the schema is cloned from the template keyspace. Data inserted by schema sources is not.
+     * <p>
+     * Example Data Source Strings
+     * <ul>
+     *     <li>create table t (id int primary key, value text);</li>
+     *     <li>file:schema.cql</li>
+     *     <li>file://schema.cql</li>
+     *     <li>classpath:schema.cql</li>
+     *     <li>classpath://schema.cql</li>
+     * </ul>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Data source list.
+     */
+    String [] schema() default {};
+
+    /**
+     * Schema change detection method.
+     * <p>
+     * Supported Values: String values in {@link SchemaChangeDetection}
+     *
+     * @return {@link org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum}
+     */
+    String schemaChangeDetection() default SchemaChangeDetection.KEYSPACE;
+
+    /**
+     * Wait for schema agreement once per schema resource instead of after each schema statement.
+     * <p>
+     * If true, schema statements are sent without waiting for the cluster to agree on the schema. Cassandra Test
+     * waits for schema agreement only before statements that depend on earlier schema and at the end of each schema
+     * resource. This speeds up schema installs on multi-node clusters. The statements are sent through a separate
+     * connection to the cluster, so other sessions keep waiting for schema agreement. Requires driver 3.0 or later.
+     * <p>
+     * Supported Values: "true", "false"
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return {@link Boolean}
+     */
+    String deferSchemaAgreement() default "false";
+
+    /**
+     * Max number of schema statements sent concurrently.
+     * <p>
+     * Schema statements that do not depend on each other, such as the CREATE TABLE statements of a keyspace, are
+     * sent concurrently. User types, functions and aggregates are created before tables, and tables before indexes and
+     * materialized views. Requires deferSchemaAgreement. If 1, schema statements are sent one at a time.
+     * <p>
+     * Property references can appear in this value. For more information on properties, see {@link CassandraProperties}.
+     *
+     * @return Max concurrent schema statements.
+     */
+    String schemaParallelism() default "1";
+
+    /**
+     * Tables that should never be truncated on a rollback.
+     *
+     * @return List of protected tables.
+     */
+    String [] protectedTables() default {};
+
+    /**
+     * PRIVATE - DO NOT SET.
+     * <p>
+     * Binds this annotation to a {@link KeyspaceSettings}, allowing for custom
+     * keyspace settings annotations.
+     *
+     * @return {@link KeyspaceSettingsFactory} class.
+     */
+    Class<? extends KeyspaceSettingsFactory> __keyspaceSettingsFactory() default TemplateKeyspaceSettingsFactory.class;
+}
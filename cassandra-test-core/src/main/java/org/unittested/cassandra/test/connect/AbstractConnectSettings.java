@@ -28,7 +28,13 @@ public abstract class AbstractConnectSettings implements ConnectSettings {
 
     @Override
     public Session connect() {
-        Cluster cluster = getClusterBuilder().build();
+        Cluster.Builder builder = getClusterBuilder();
+
+        if (getProbeTimeoutMillis() > 0) {
+            ContactPointProbe.DEFAULT.probe(builder.getContactPoints(), getProbeTimeoutMillis());
+        }
+
+        Cluster cluster = builder.build();
 
         try {
             return cluster.connect();
@@ -41,4 +47,23 @@ public abstract class AbstractConnectSettings implements ConnectSettings {
             throw new CassandraTestException("Failed to connect to Cassandra", e);
         }
     }
+
+    @Override
+    public long getKeepAlive() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLazy() {
+        return false;
+    }
+
+    /**
+     * Total time, in milliseconds, allowed for probing contact points before connecting. 0 disables probing.
+     *
+     * @return Probe timeout in milliseconds.
+     */
+    public int getProbeTimeoutMillis() {
+        return 0;
+    }
 }
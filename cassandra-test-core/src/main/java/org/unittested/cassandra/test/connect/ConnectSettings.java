@@ -37,4 +37,21 @@ public interface ConnectSettings {
      * @return {@link Session}
      */
     Session connect();
+
+    /**
+     * How long, in milliseconds, an idle connection is kept open for reuse by other tests.
+     * <p>
+     * 0 closes the connection as soon as the last test using it finishes. A negative value keeps the connection
+     * open until the JVM exits.
+     *
+     * @return Keep alive time in milliseconds.
+     */
+    long getKeepAlive();
+
+    /**
+     * Should the connection be deferred until a test method runs or the {@link Session} is first used?
+     *
+     * @return {@link Boolean}
+     */
+    boolean isLazy();
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that a Cassandra contact point is reachable before the driver tries to connect.
+ * <p>
+ * A probe opens a socket to each contact point, sends a native protocol OPTIONS request and waits for a response
+ * frame, all within a total time budget. Unreachable contact points are remembered, so later probes of the same
+ * contact points fail immediately until the retry interval has passed.
+ */
+public class ContactPointProbe {
+
+    /**
+     * JVM wide probe.
+     */
+    public static final ContactPointProbe DEFAULT = new ContactPointProbe(60000);
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContactPointProbe.class);
+
+    // Protocol v2 OPTIONS request: version, flags, stream, opcode, 4 byte body length.
+    private static final byte[] OPTIONS_REQUEST = new byte[] { 0x02, 0x00, 0x00, 0x05, 0x00, 0x00, 0x00, 0x00 };
+    private static final int RESPONSE_FLAG = 0x80;
+
+    private final long retryIntervalMillis;
+    private final ConcurrentMap<InetSocketAddress, Long> unreachable = new ConcurrentHashMap<InetSocketAddress, Long>();
+
+    /**
+     * @param retryIntervalMillis How long an unreachable contact point is skipped before it is probed again.
+     */
+    public ContactPointProbe(long retryIntervalMillis) {
+        this.retryIntervalMillis = retryIntervalMillis;
+    }
+
+    /**
+     * Probe contact points until one responds.
+     *
+     * @param contactPoints Contact points.
+     * @param budgetMillis Total time allowed for probing.
+     * @throws CassandraTestException if no contact point responds within the budget.
+     */
+    public void probe(Collection<InetSocketAddress> contactPoints, int budgetMillis) {
+        long now = System.currentTimeMillis();
+        List<InetSocketAddress> candidates = new ArrayList<InetSocketAddress>(contactPoints.size());
+
+        for (InetSocketAddress contactPoint : contactPoints) {
+            Long failedAt = this.unreachable.get(contactPoint);
+
+            if (failedAt == null || now - failedAt >= this.retryIntervalMillis) {
+                candidates.add(contactPoint);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            throw new CassandraTestException("Cassandra is unreachable at %s. Probe failed less than %d ms ago.",
+                    contactPoints, this.retryIntervalMillis);
+        }
+
+        long deadline = now + budgetMillis;
+
+        for (int i = 0; i < candidates.size(); i++) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                break;
+            }
+
+            InetSocketAddress contactPoint = candidates.get(i);
+            int timeout = (int) Math.max(1, remaining / (candidates.size() - i));
+
+            if (probe(contactPoint, timeout)) {
+                this.unreachable.remove(contactPoint);
+                return;
+            }
+
+            this.unreachable.put(contactPoint, System.currentTimeMillis());
+        }
+
+        throw new CassandraTestException("Cassandra is unreachable at %s. No response within %d ms.",
+                contactPoints, budgetMillis);
+    }
+
+    /**
+     * Forget all unreachable contact points.
+     */
+    public void reset() {
+        this.unreachable.clear();
+    }
+
+    private boolean probe(InetSocketAddress contactPoint, int timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Socket socket = new Socket();
+
+        try {
+            socket.connect(contactPoint, timeoutMillis);
+            socket.setSoTimeout((int) Math.max(1, deadline - System.currentTimeMillis()));
+
+            OutputStream out = socket.getOutputStream();
+            out.write(OPTIONS_REQUEST);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            int version = in.read();
+
+            return version != -1 && (version & RESPONSE_FLAG) != 0;
+        } catch (IOException e) {
+            LOG.debug("Probe of {} failed: {}", contactPoint, e.toString());
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect;
+
+import java.util.concurrent.ThreadFactory;
+
+import com.datastax.driver.core.NettyOptions;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.Timer;
+
+/**
+ * {@link NettyOptions} that shares one event loop group and one timer between all clusters.
+ * <p>
+ * Each cluster built with this class takes a reference to the JVM wide event loop group and timer. They are shut down
+ * when the last cluster using them closes, and created again for the next cluster. The threads are named after the
+ * first cluster that created them.
+ * <p>
+ * Set with {@link org.unittested.cassandra.test.annotation.CassandraConnect#nettyOptions()}. Requires driver 2.1.6
+ * or later.
+ */
+public class SharedNettyOptions extends NettyOptions {
+
+    private static final Object LOCK = new Object();
+
+    private static EventLoopGroup eventLoopGroup;
+    private static int eventLoopGroupReferences;
+    private static Timer timer;
+    private static int timerReferences;
+
+    @Override
+    public EventLoopGroup eventLoopGroup(ThreadFactory threadFactory) {
+        synchronized (LOCK) {
+            if (eventLoopGroup == null) {
+                eventLoopGroup = super.eventLoopGroup(threadFactory);
+            }
+
+            eventLoopGroupReferences++;
+
+            return eventLoopGroup;
+        }
+    }
+
+    @Override
+    public void onClusterClose(EventLoopGroup closedEventLoopGroup) {
+        synchronized (LOCK) {
+            if (closedEventLoopGroup != eventLoopGroup || --eventLoopGroupReferences > 0) {
+                return;
+            }
+
+            eventLoopGroup = null;
+        }
+
+        super.onClusterClose(closedEventLoopGroup);
+    }
+
+    @Override
+    public Timer timer(ThreadFactory threadFactory) {
+        synchronized (LOCK) {
+            if (timer == null) {
+                timer = super.timer(threadFactory);
+            }
+
+            timerReferences++;
+
+            return timer;
+        }
+    }
+
+    @Override
+    public void onClusterClose(Timer closedTimer) {
+        synchronized (LOCK) {
+            if (closedTimer != timer || --timerReferences > 0) {
+                return;
+            }
+
+            timer = null;
+        }
+
+        super.onClusterClose(closedTimer);
+    }
+}
@@ -18,19 +18,48 @@ package org.unittested.cassandra.test.connect.basic;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.unittested.cassandra.test.connect.AbstractConnectSettings;
 import org.unittested.cassandra.test.util.DriverCompatibility;
 
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.ProtocolOptions;
 import com.datastax.driver.core.QueryOptions;
+import com.datastax.driver.core.SocketOptions;
 
 public class BasicConnectSettings extends AbstractConnectSettings {
 
+    /**
+     * Default time, in milliseconds, an idle connection stays open for reuse.
+     */
+    public static final long DEFAULT_KEEP_ALIVE = 5000;
+
+    /**
+     * nettyOptions value for the built-in {@link org.unittested.cassandra.test.connect.SharedNettyOptions}.
+     */
+    public static final String SHARED_NETTY_OPTIONS = "shared";
+
+    private static final String SHARED_NETTY_OPTIONS_CLASS = "org.unittested.cassandra.test.connect.SharedNettyOptions";
+
     private String[] host;
     private int port;
     private String username;
     private String password;
+    private long keepAlive = DEFAULT_KEEP_ALIVE;
+    private boolean lazy;
+    private ProtocolOptions.Compression compression = ProtocolOptions.Compression.NONE;
+    private int coreConnectionsPerHost;
+    private int maxConnectionsPerHost;
+    private int maxRequestsPerConnection;
+    private int connectTimeoutMillis;
+    private int readTimeoutMillis;
+    private boolean jmxReporting = true;
+    private boolean metrics = true;
+    private String nettyOptions = StringUtils.EMPTY;
+    private int probeTimeoutMillis;
 
     public BasicConnectSettings() {
         this(ArrayUtils.EMPTY_STRING_ARRAY, ProtocolOptions.DEFAULT_PORT, StringUtils.EMPTY, StringUtils.EMPTY);
@@ -65,8 +94,179 @@ public class BasicConnectSettings extends AbstractConnectSettings {
             builder.withCredentials(this.username, this.password);
         }
 
+        if (this.compression != ProtocolOptions.Compression.NONE) {
+            builder.withCompression(this.compression);
+        }
+
+        if (this.coreConnectionsPerHost > 0 || this.maxConnectionsPerHost > 0 || this.maxRequestsPerConnection > 0) {
+            PoolingOptions poolingOptions = new PoolingOptions();
+
+            DriverCompatibility.setConnectionsPerHost(poolingOptions, HostDistance.LOCAL,
+                    this.coreConnectionsPerHost, this.maxConnectionsPerHost);
+
+            if (this.maxRequestsPerConnection > 0) {
+                DriverCompatibility.setMaxRequestsPerConnection(poolingOptions, HostDistance.LOCAL,
+                        this.maxRequestsPerConnection);
+            }
+
+            builder.withPoolingOptions(poolingOptions);
+        }
+
+        if (this.connectTimeoutMillis > 0 || this.readTimeoutMillis > 0) {
+            SocketOptions socketOptions = new SocketOptions();
+
+            if (this.connectTimeoutMillis > 0) {
+                socketOptions.setConnectTimeoutMillis(this.connectTimeoutMillis);
+            }
+
+            if (this.readTimeoutMillis > 0) {
+                socketOptions.setReadTimeoutMillis(this.readTimeoutMillis);
+            }
+
+            builder.withSocketOptions(socketOptions);
+        }
+
+        if (!this.jmxReporting) {
+            builder.withoutJMXReporting();
+        }
+
+        if (!this.metrics) {
+            builder.withoutMetrics();
+        }
+
+        if (!this.nettyOptions.isEmpty()) {
+            // Refer to SharedNettyOptions by name, so this class still loads with drivers that lack NettyOptions.
+            DriverCompatibility.setNettyOptions(builder,
+                    this.nettyOptions.equals(SHARED_NETTY_OPTIONS) ? SHARED_NETTY_OPTIONS_CLASS : this.nettyOptions);
+        }
+
         QueryOptions queryOptions = DriverCompatibility.setRefreshSchemaIntervalMillis(new QueryOptions(), 0);
 
         return builder.withQueryOptions(queryOptions);
     }
+
+    @Override
+    public long getKeepAlive() {
+        return this.keepAlive;
+    }
+
+    public BasicConnectSettings withKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    @Override
+    public boolean isLazy() {
+        return this.lazy;
+    }
+
+    public BasicConnectSettings withLazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    public BasicConnectSettings withCompression(ProtocolOptions.Compression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public BasicConnectSettings withConnectionsPerHost(int core, int max) {
+        this.coreConnectionsPerHost = core;
+        this.maxConnectionsPerHost = max;
+        return this;
+    }
+
+    public BasicConnectSettings withMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        return this;
+    }
+
+    public BasicConnectSettings withConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    public BasicConnectSettings withReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    public BasicConnectSettings withJMXReporting(boolean jmxReporting) {
+        this.jmxReporting = jmxReporting;
+        return this;
+    }
+
+    public BasicConnectSettings withMetrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public BasicConnectSettings withNettyOptions(String nettyOptions) {
+        this.nettyOptions = nettyOptions;
+        return this;
+    }
+
+    @Override
+    public int getProbeTimeoutMillis() {
+        return this.probeTimeoutMillis;
+    }
+
+    public BasicConnectSettings withProbeTimeoutMillis(int probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        BasicConnectSettings that = (BasicConnectSettings) o;
+
+        return new EqualsBuilder()
+                .append(this.host, that.host)
+                .append(this.port, that.port)
+                .append(this.username, that.username)
+                .append(this.password, that.password)
+                .append(this.keepAlive, that.keepAlive)
+                .append(this.lazy, that.lazy)
+                .append(this.compression, that.compression)
+                .append(this.coreConnectionsPerHost, that.coreConnectionsPerHost)
+                .append(this.maxConnectionsPerHost, that.maxConnectionsPerHost)
+                .append(this.maxRequestsPerConnection, that.maxRequestsPerConnection)
+                .append(this.connectTimeoutMillis, that.connectTimeoutMillis)
+                .append(this.readTimeoutMillis, that.readTimeoutMillis)
+                .append(this.jmxReporting, that.jmxReporting)
+                .append(this.metrics, that.metrics)
+                .append(this.nettyOptions, that.nettyOptions)
+                .append(this.probeTimeoutMillis, that.probeTimeoutMillis)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(this.host)
+                .append(this.port)
+                .append(this.username)
+                .append(this.password)
+                .append(this.keepAlive)
+                .append(this.lazy)
+                .append(this.compression)
+                .append(this.coreConnectionsPerHost)
+                .append(this.maxConnectionsPerHost)
+                .append(this.maxRequestsPerConnection)
+                .append(this.connectTimeoutMillis)
+                .append(this.readTimeoutMillis)
+                .append(this.jmxReporting)
+                .append(this.metrics)
+                .append(this.nettyOptions)
+                .append(this.probeTimeoutMillis)
+                .toHashCode();
+    }
 }
@@ -25,6 +25,8 @@ import org.unittested.cassandra.test.connect.ConnectSettingsFactory;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.properties.PropertyResolver;
 
+import com.datastax.driver.core.ProtocolOptions;
+
 public class BasicConnectSettingsFactory implements ConnectSettingsFactory {
 
     public BasicConnectSettingsFactory() {
@@ -43,6 +45,35 @@ public class BasicConnectSettingsFactory implements ConnectSettingsFactory {
                 Utils.expandCommaDelimitedEntries(propertyResolver.resolveReferences(cassandraConnect.host())),
                 Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.port())),
                 propertyResolver.resolveReferences(cassandraConnect.username()),
-                propertyResolver.resolveReferences(cassandraConnect.password()));
+                propertyResolver.resolveReferences(cassandraConnect.password()))
+                .withKeepAlive(Long.parseLong(propertyResolver.resolveReferences(cassandraConnect.keepAlive())))
+                .withLazy(Boolean.parseBoolean(propertyResolver.resolveReferences(cassandraConnect.lazy())))
+                .withCompression(parseCompression(propertyResolver.resolveReferences(cassandraConnect.compression())))
+                .withConnectionsPerHost(
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.coreConnectionsPerHost())),
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.maxConnectionsPerHost())))
+                .withMaxRequestsPerConnection(
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.maxRequestsPerConnection())))
+                .withConnectTimeoutMillis(
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.connectTimeoutMillis())))
+                .withReadTimeoutMillis(
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.readTimeoutMillis())))
+                .withJMXReporting(Boolean.parseBoolean(propertyResolver.resolveReferences(cassandraConnect.jmxReporting())))
+                .withMetrics(Boolean.parseBoolean(propertyResolver.resolveReferences(cassandraConnect.metrics())))
+                .withNettyOptions(propertyResolver.resolveReferences(cassandraConnect.nettyOptions()).trim())
+                .withProbeTimeoutMillis(
+                        Integer.parseInt(propertyResolver.resolveReferences(cassandraConnect.probeTimeoutMillis())));
+    }
+
+    private static ProtocolOptions.Compression parseCompression(String compression) {
+        if (compression.trim().isEmpty()) {
+            return ProtocolOptions.Compression.NONE;
+        }
+
+        try {
+            return ProtocolOptions.Compression.valueOf(compression.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new CassandraTestException("Unsupported compression '%s'. Expected NONE, LZ4 or SNAPPY.", compression);
+        }
     }
 }
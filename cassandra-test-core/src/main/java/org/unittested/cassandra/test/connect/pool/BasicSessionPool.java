@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+
+/**
+ * Reference counted {@link SessionPool}.
+ * <p>
+ * One {@link Cluster} is opened per distinct {@link ConnectSettings}. Each acquire gets its own {@link Session}, so
+ * test classes running concurrently do not change each other's current keyspace. Released sessions are kept for
+ * reuse until the cluster is closed.
+ */
+public class BasicSessionPool implements SessionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BasicSessionPool.class);
+
+    /**
+     * JVM wide session pool. Connections are closed at JVM exit.
+     */
+    public static final SessionPool DEFAULT = new BasicSessionPool().registerShutdownHook();
+
+    private final Map<ConnectSettings, Entry> entries = new HashMap<ConnectSettings, Entry>();
+    private final Map<Session, Entry> leases = new IdentityHashMap<Session, Entry>();
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public Session acquire(ConnectSettings connectSettings) {
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.entries.get(connectSettings);
+
+            if (entry == null) {
+                entry = new Entry(connectSettings);
+                this.entries.put(connectSettings, entry);
+            }
+
+            entry.retain();
+        }
+
+        Session session;
+
+        try {
+            session = entry.open();
+        } catch (RuntimeException e) {
+            boolean unused;
+
+            synchronized (this) {
+                unused = --entry.leased == 0 && this.entries.remove(connectSettings) != null;
+            }
+
+            if (unused) {
+                entry.close();
+            }
+
+            throw e;
+        }
+
+        synchronized (this) {
+            this.leases.put(session, entry);
+        }
+
+        return session;
+    }
+
+    @Override
+    public void release(Session session) {
+        Entry closeEntry = null;
+
+        synchronized (this) {
+            Entry entry = this.leases.remove(session);
+
+            if (entry == null) {
+                LOG.debug("Closing session that was not acquired from this pool.");
+                closeQuietly(session.getCluster());
+                return;
+            }
+
+            entry.release(session);
+
+            if (entry.leased > 0) {
+                return;
+            }
+
+            long keepAlive = entry.connectSettings.getKeepAlive();
+
+            if (keepAlive == 0) {
+                this.entries.remove(entry.connectSettings);
+                closeEntry = entry;
+            } else if (keepAlive > 0) {
+                entry.expiry = getScheduler().schedule(new Expire(entry), keepAlive, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (closeEntry != null) {
+            closeEntry.close();
+        }
+    }
+
+    @Override
+    public void prewarm(ConnectSettings connectSettings) {
+        final Entry entry;
+
+        synchronized (this) {
+            if (this.entries.containsKey(connectSettings)) {
+                return;
+            }
+
+            entry = new Entry(connectSettings);
+            this.entries.put(connectSettings, entry);
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                entry.warm();
+            }
+        }, "cassandra-test-session-pool-prewarm");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        List<Entry> closeEntries;
+
+        synchronized (this) {
+            closeEntries = new ArrayList<Entry>(this.entries.values());
+            this.entries.clear();
+            this.leases.clear();
+
+            if (this.scheduler != null) {
+                this.scheduler.shutdownNow();
+                this.scheduler = null;
+            }
+        }
+
+        for (Entry entry : closeEntries) {
+            entry.close();
+        }
+    }
+
+    /**
+     * Close all pooled connections when the JVM exits.
+     *
+     * @return this
+     */
+    public BasicSessionPool registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread("cassandra-test-session-pool-shutdown") {
+            @Override
+            public void run() {
+                BasicSessionPool.this.close();
+            }
+        });
+        return this;
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "cassandra-test-session-pool");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return this.scheduler;
+    }
+
+    private static void closeQuietly(Cluster cluster) {
+        try {
+            cluster.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close Cassandra connection.", e);
+        }
+    }
+
+    private class Expire implements Runnable {
+
+        private final Entry entry;
+
+        Expire(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void run() {
+            synchronized (BasicSessionPool.this) {
+                if (this.entry.leased > 0 || entries.get(this.entry.connectSettings) != this.entry) {
+                    return;
+                }
+
+                entries.remove(this.entry.connectSettings);
+            }
+
+            LOG.debug("Closing idle Cassandra connection.");
+            this.entry.close();
+        }
+    }
+
+    private static class Entry {
+
+        private final ConnectSettings connectSettings;
+        private final LinkedList<Session> idle = new LinkedList<Session>();
+        private Cluster cluster;
+        private int leased;
+        private ScheduledFuture<?> expiry;
+        private boolean closed;
+
+        Entry(ConnectSettings connectSettings) {
+            this.connectSettings = connectSettings;
+        }
+
+        void retain() {
+            this.leased++;
+
+            if (this.expiry != null) {
+                this.expiry.cancel(false);
+                this.expiry = null;
+            }
+        }
+
+        synchronized void release(Session session) {
+            this.leased--;
+            this.idle.addFirst(session);
+        }
+
+        synchronized Session open() {
+            Session session;
+
+            while ((session = this.idle.poll()) != null) {
+                if (!session.isClosed()) {
+                    return session;
+                }
+            }
+
+            if (this.cluster == null || this.cluster.isClosed()) {
+                session = this.connectSettings.connect();
+                this.cluster = session.getCluster();
+                return session;
+            }
+
+            try {
+                return this.cluster.connect();
+            } catch (Exception e) {
+                throw new CassandraTestException("Failed to connect to Cassandra", e);
+            }
+        }
+
+        synchronized void warm() {
+            if (this.closed || this.cluster != null) {
+                return;
+            }
+
+            try {
+                Session session = this.connectSettings.connect();
+                this.cluster = session.getCluster();
+                this.cluster.getMetadata();
+                this.idle.add(session);
+                LOG.debug("Pre-warmed Cassandra connection.");
+            } catch (Exception e) {
+                LOG.warn("Failed to pre-warm Cassandra connection.", e);
+            }
+        }
+
+        synchronized void close() {
+            this.closed = true;
+
+            if (this.cluster != null) {
+                closeQuietly(this.cluster);
+                this.cluster = null;
+            }
+
+            this.idle.clear();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.unittested.cassandra.test.connect.ConnectSettings;
+
+import com.datastax.driver.core.Session;
+
+/**
+ * {@link Session} proxy that acquires a connection from a {@link SessionPool} on first use.
+ */
+public final class LazySession implements InvocationHandler {
+
+    private final SessionPool sessionPool;
+    private final ConnectSettings connectSettings;
+    private Session session;
+
+    private LazySession(SessionPool sessionPool, ConnectSettings connectSettings) {
+        this.sessionPool = sessionPool;
+        this.connectSettings = connectSettings;
+    }
+
+    /**
+     * Create a {@link Session} that connects on first use.
+     *
+     * @param sessionPool Pool to acquire the session from.
+     * @param connectSettings Connection settings.
+     * @return Lazy {@link Session} proxy.
+     */
+    public static Session create(SessionPool sessionPool, ConnectSettings connectSettings) {
+        return (Session) Proxy.newProxyInstance(
+                Session.class.getClassLoader(),
+                new Class<?>[] { Session.class },
+                new LazySession(sessionPool, connectSettings));
+    }
+
+    /**
+     * Has the connection been opened?
+     *
+     * @param session Session or lazy session proxy.
+     * @return True if session is not a lazy session or the lazy session has connected.
+     */
+    public static boolean isResolved(Session session) {
+        LazySession lazySession = getLazySession(session);
+
+        return (lazySession == null) ? session != null : lazySession.getSession() != null;
+    }
+
+    /**
+     * Get the connected {@link Session} behind a lazy session proxy without connecting.
+     *
+     * @param session Session or lazy session proxy.
+     * @return Connected {@link Session} or null if the lazy session has not connected.
+     */
+    public static Session unwrap(Session session) {
+        LazySession lazySession = getLazySession(session);
+
+        return (lazySession == null) ? session : lazySession.getSession();
+    }
+
+    /**
+     * Connect a lazy session proxy.
+     *
+     * @param session Session or lazy session proxy.
+     * @return Connected {@link Session}.
+     */
+    public static Session resolve(Session session) {
+        LazySession lazySession = getLazySession(session);
+
+        return (lazySession == null) ? session : lazySession.resolve();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass().equals(Object.class)) {
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return "LazySession[" + getSession() + "]";
+            }
+        }
+
+        try {
+            return method.invoke(resolve(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private synchronized Session getSession() {
+        return this.session;
+    }
+
+    private synchronized Session resolve() {
+        if (this.session == null) {
+            this.session = this.sessionPool.acquire(this.connectSettings);
+        }
+
+        return this.session;
+    }
+
+    private static LazySession getLazySession(Session session) {
+        if (session != null && Proxy.isProxyClass(session.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(session);
+
+            if (handler instanceof LazySession) {
+                return (LazySession) handler;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import org.unittested.cassandra.test.connect.ConnectSettings;
+
+import com.datastax.driver.core.Session;
+
+/**
+ * Shares Cassandra connections between test classes with the same {@link ConnectSettings}.
+ */
+public interface SessionPool {
+
+    /**
+     * Acquire a {@link Session} for the given connection settings.
+     * <p>
+     * If a {@link com.datastax.driver.core.Cluster} for equal connection settings is already open, it is reused.
+     * Otherwise, a new connection is opened with {@link ConnectSettings#connect()}.
+     *
+     * @param connectSettings Connection settings.
+     * @return {@link Session}
+     */
+    Session acquire(ConnectSettings connectSettings);
+
+    /**
+     * Return a {@link Session} acquired from this pool.
+     * <p>
+     * When the last {@link Session} of a {@link com.datastax.driver.core.Cluster} is released, the cluster is
+     * closed according to {@link ConnectSettings#getKeepAlive()}.
+     *
+     * @param session Session to release.
+     */
+    void release(Session session);
+
+    /**
+     * Start connecting to Cassandra in the background.
+     * <p>
+     * The next {@link #acquire(ConnectSettings)} with equal connection settings uses the pre-warmed {@link Session},
+     * waiting for the background connection to finish if necessary.
+     *
+     * @param connectSettings Connection settings.
+     */
+    void prewarm(ConnectSettings connectSettings);
+
+    /**
+     * Close all connections held by this pool.
+     */
+    void close();
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.unittested.cassandra.test.TestSettingsBuilder;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in background connection pre-warming.
+ * <p>
+ * When the {@value #PREWARM_PROPERTY} property is set, a connection is opened on a background thread so that it is
+ * ready when the first test class runs. The property value is either "true", to use the default
+ * {@link org.unittested.cassandra.test.annotation.CassandraConnect} settings, or the name of a test class whose
+ * connect settings should be pre-warmed.
+ */
+public final class SessionPoolPrewarmer {
+
+    /**
+     * Property that enables pre-warming.
+     */
+    public static final String PREWARM_PROPERTY = "cassandra.test.prewarm";
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionPoolPrewarmer.class);
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    private SessionPoolPrewarmer() {
+
+    }
+
+    /**
+     * Pre-warm {@link BasicSessionPool#DEFAULT} if enabled in {@link PropertiesPropertyResolver#DEFAULT}.
+     * <p>
+     * Only the first call has any effect.
+     */
+    public static void start() {
+        if (STARTED.compareAndSet(false, true)) {
+            start(BasicSessionPool.DEFAULT, PropertiesPropertyResolver.DEFAULT);
+        }
+    }
+
+    /**
+     * Pre-warm a session pool if enabled by the given properties.
+     *
+     * @param sessionPool Session pool to pre-warm.
+     * @param propertyResolver Properties.
+     * @return True if pre-warming was started.
+     */
+    public static boolean start(SessionPool sessionPool, PropertyResolver propertyResolver) {
+        String value = propertyResolver.getProperty(PREWARM_PROPERTY, "").trim();
+
+        if (value.isEmpty() || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+
+        Class<?> testClass = SessionPoolPrewarmer.class;
+
+        if (!value.equalsIgnoreCase("true")) {
+            try {
+                testClass = Class.forName(value, false, SessionPoolPrewarmer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                LOG.warn("Cannot pre-warm connection. Class '{}' not found.", value);
+                return false;
+            }
+        }
+
+        TestSettingsBuilder builder = new TestSettingsBuilder()
+                .withDefaultPropertyResolver(propertyResolver)
+                .withTestClass(testClass);
+
+        ConnectSettings connectSettings;
+
+        try {
+            connectSettings = builder.build().getConnectSettings();
+        } catch (RuntimeException e) {
+            LOG.warn("Cannot pre-warm connection. Invalid connect settings.", e);
+            return false;
+        }
+
+        sessionPool.prewarm(connectSettings);
+
+        return true;
+    }
+}
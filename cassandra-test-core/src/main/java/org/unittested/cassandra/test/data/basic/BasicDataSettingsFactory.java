@@ -21,7 +21,9 @@ import java.lang.annotation.Annotation;
 import org.unittested.cassandra.test.annotation.CassandraData;
 import org.unittested.cassandra.test.data.DataSettings;
 import org.unittested.cassandra.test.data.DataSettingsFactory;
+import org.unittested.cassandra.test.data.cql.AsyncCqlResourceLoader;
 import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.data.cql.CqlStatementCache;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.properties.PropertyResolver;
 
@@ -38,6 +40,13 @@ public class BasicDataSettingsFactory implements DataSettingsFactory {
 
         CassandraData cassandraData = (CassandraData)annotation;
 
-        return new BasicDataSettings(cassandraData.value(), new BasicCqlResourceLoader());
+        int parallelism = Integer.parseInt(propertyResolver.resolveReferences(cassandraData.parallelism()));
+        boolean prepareStatements = Boolean.parseBoolean(
+                propertyResolver.resolveReferences(cassandraData.prepareStatements()));
+        int partitionBatchSize = Integer.parseInt(propertyResolver.resolveReferences(cassandraData.partitionBatchSize()));
+
+        return new BasicDataSettings(cassandraData.value(), parallelism > 1
+                ? new AsyncCqlResourceLoader(CqlStatementCache.SHARED, parallelism, prepareStatements, partitionBatchSize)
+                : new BasicCqlResourceLoader(CqlStatementCache.SHARED, prepareStatements, partitionBatchSize));
     }
 }
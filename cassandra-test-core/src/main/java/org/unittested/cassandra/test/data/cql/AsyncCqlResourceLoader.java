@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.resource.Resource;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+/**
+ * {@link BasicCqlResourceLoader} that pipelines statements with executeAsync.
+ * <p>
+ * Up to window statements are in flight at once. Statements that must run in order are barriers: the statements in
+ * flight complete before a barrier runs. Explicit batches, schema statements (CREATE, ALTER, DROP, TRUNCATE and USE)
+ * and access control statements (GRANT, REVOKE, LIST and user or role statements) are barriers, and run
+ * synchronously.
+ * <p>
+ * A CONSISTENCY change is a barrier for the statement after it. Partition batches are pipelined like the writes they
+ * group.
+ * <p>
+ * A failed statement fails the load with the statement's CQL. When several statements fail, the first in resource
+ * order is reported. Statements in flight complete before the load fails.
+ */
+public class AsyncCqlResourceLoader extends BasicCqlResourceLoader {
+
+    private final int window;
+    private final ThreadLocal<Pipeline> pipeline = new ThreadLocal<Pipeline>();
+
+    public AsyncCqlResourceLoader(int window) {
+        this(CqlStatementCache.SHARED, window);
+    }
+
+    public AsyncCqlResourceLoader(CqlStatementCache cache, int window) {
+        this(cache, window, false);
+    }
+
+    public AsyncCqlResourceLoader(CqlStatementCache cache, int window, boolean prepareStatements) {
+        this(cache, window, prepareStatements, 1);
+    }
+
+    public AsyncCqlResourceLoader(CqlStatementCache cache, int window, boolean prepareStatements, int partitionBatchSize) {
+        super(cache, prepareStatements, partitionBatchSize);
+
+        if (window < 1) {
+            throw new CassandraTestException("Async window must be at least 1, but got %d", window);
+        }
+
+        this.window = window;
+    }
+
+    @Override
+    public void loadCqlResource(TestRuntime runtime, Resource resource) throws IOException {
+        Pipeline pipeline = begin();
+        boolean loaded = false;
+
+        try {
+            super.loadCqlResource(runtime, resource);
+            loaded = true;
+        } finally {
+            end(pipeline, loaded);
+        }
+    }
+
+    @Override
+    public void loadStatements(TestRuntime runtime, Collection<? extends Statement> statements) {
+        Pipeline pipeline = begin();
+        boolean loaded = false;
+
+        try {
+            super.loadStatements(runtime, statements);
+            loaded = true;
+        } finally {
+            end(pipeline, loaded);
+        }
+    }
+
+    @Override
+    protected void execute(Session session, Statement statement) {
+        Pipeline pipeline = this.pipeline.get();
+
+        if (pipeline == null) {
+            super.execute(session, statement);
+        } else {
+            pipeline.execute(session, statement);
+        }
+    }
+
+    /**
+     * Get the maximum number of statements in flight.
+     *
+     * @return Window size.
+     */
+    public int getWindow() {
+        return this.window;
+    }
+
+    private Pipeline begin() {
+        if (this.pipeline.get() != null) {
+            throw new CassandraTestException("Nested load in AsyncCqlResourceLoader.");
+        }
+
+        Pipeline pipeline = new Pipeline();
+        this.pipeline.set(pipeline);
+        return pipeline;
+    }
+
+    private void end(Pipeline pipeline, boolean loaded) {
+        this.pipeline.remove();
+
+        if (loaded) {
+            pipeline.drain();
+        } else {
+            // Report the exception already thrown by the load.
+            pipeline.drainQuietly();
+        }
+    }
+
+    private static boolean isBarrier(Statement statement) {
+        if (statement instanceof BatchStatement) {
+            return !(statement instanceof PartitionBatcher.PartitionBatch);
+        }
+
+        CqlStatementInfo info = CqlStatementInfo.of(statement);
+
+        return info.isDdl() || info.isDcl();
+    }
+
+    private static String describe(Statement statement) {
+        if (statement instanceof RegularStatement) {
+            return ((RegularStatement)statement).getQueryString();
+        } else if (statement instanceof BoundStatement) {
+            return ((BoundStatement)statement).preparedStatement().getQueryString();
+        }
+
+        return statement.toString();
+    }
+
+    private class Pipeline {
+
+        private final LinkedList<InFlight> inFlight = new LinkedList<InFlight>();
+        private ConsistencyLevel consistency;
+        private boolean started;
+
+        void execute(Session session, Statement statement) {
+            if (isBarrier(statement)) {
+                drain();
+                session.execute(statement);
+                return;
+            }
+
+            if (this.started && this.consistency != statement.getConsistencyLevel()) {
+                drain();
+            }
+
+            this.started = true;
+            this.consistency = statement.getConsistencyLevel();
+
+            if (this.inFlight.size() >= AsyncCqlResourceLoader.this.window) {
+                complete(this.inFlight.removeFirst());
+            }
+
+            this.inFlight.addLast(new InFlight(statement, session.executeAsync(statement)));
+        }
+
+        void drain() {
+            while (!this.inFlight.isEmpty()) {
+                complete(this.inFlight.removeFirst());
+            }
+        }
+
+        void drainQuietly() {
+            while (!this.inFlight.isEmpty()) {
+                try {
+                    this.inFlight.removeFirst().future.getUninterruptibly();
+                } catch (RuntimeException e) {
+                    // Ignore.
+                }
+            }
+        }
+
+        private void complete(InFlight statement) {
+            try {
+                statement.future.getUninterruptibly();
+            } catch (RuntimeException e) {
+                drainQuietly();
+                throw new CassandraTestException("Failed to execute statement: %s", describe(statement.statement), e);
+            }
+        }
+    }
+
+    private static class InFlight {
+        private final Statement statement;
+        private final ResultSetFuture future;
+
+        InFlight(Statement statement, ResultSetFuture future) {
+            this.statement = statement;
+            this.future = future;
+        }
+    }
+}
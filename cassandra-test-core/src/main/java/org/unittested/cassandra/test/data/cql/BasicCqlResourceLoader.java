@@ -18,48 +18,97 @@ package org.unittested.cassandra.test.data.cql;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.resource.Resource;
 
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
 
+/**
+ * Loads CQL resources by executing their statements one at a time.
+ * <p>
+ * Parsed statements are cached in a {@link CqlStatementCache}. By default, the process-wide
+ * {@link CqlStatementCache#SHARED} cache is used, so a resource is parsed once for all test classes.
+ * <p>
+ * If statement preparation is enabled, repeated INSERTs run as bound statements of the session's
+ * {@link PreparedStatementCache}. If the partition batch size is greater than 1, consecutive writes to the same
+ * partition are sent as UNLOGGED (or COUNTER) batches of up to that many statements.
+ * <p>
+ * {@link Resource.ContentType#CSV} resources are streamed a record at a time. Each row runs as a bound statement of
+ * a prepared INSERT, whatever the statement preparation setting.
+ */
 public class BasicCqlResourceLoader implements CqlResourceLoader {
 
-    private Map<Resource, Collection<Statement>> cache;
+    private CqlStatementCache cache;
+    private boolean prepareStatements;
+    private int partitionBatchSize;
 
     public BasicCqlResourceLoader() {
-        this(true);
+        this(CqlStatementCache.SHARED);
     }
 
+    /**
+     * @param enableCache If true, parsed statements are cached in a cache private to this loader.
+     */
     public BasicCqlResourceLoader(boolean enableCache) {
-        this.cache = (enableCache ? new HashMap<Resource, Collection<Statement>>() : null);
+        this(enableCache ? new CqlStatementCache() : null);
+    }
+
+    /**
+     * @param cache Cache of parsed statements or null to parse resources every time they are loaded.
+     */
+    public BasicCqlResourceLoader(CqlStatementCache cache) {
+        this(cache, false);
+    }
+
+    /**
+     * @param cache Cache of parsed statements or null to parse resources every time they are loaded.
+     * @param prepareStatements If true, repeated INSERTs are prepared and run as bound statements.
+     */
+    public BasicCqlResourceLoader(CqlStatementCache cache, boolean prepareStatements) {
+        this(cache, prepareStatements, 1);
+    }
+
+    /**
+     * @param cache Cache of parsed statements or null to parse resources every time they are loaded.
+     * @param prepareStatements If true, repeated INSERTs are prepared and run as bound statements.
+     * @param partitionBatchSize Max writes per partition batch. If 1, writes are not batched.
+     */
+    public BasicCqlResourceLoader(CqlStatementCache cache, boolean prepareStatements, int partitionBatchSize) {
+        if (partitionBatchSize < 1) {
+            throw new CassandraTestException("Partition batch size must be at least 1, but got %d", partitionBatchSize);
+        }
+
+        this.cache = cache;
+        this.prepareStatements = prepareStatements;
+        this.partitionBatchSize = partitionBatchSize;
     }
 
     @Override
     public void loadCqlResource(TestRuntime runtime, Resource resource) throws IOException {
+        if (resource.getContentType() == Resource.ContentType.CSV) {
+            loadCsvResource(runtime.getKeyspace().getSession(), resource);
+            return;
+        }
+
         StatementReader reader = null;
         ConsistencyStatement consistency = null;
 
         try {
             if (this.cache == null) {
+                PartitionBatcher batcher = createBatcher(runtime.getKeyspace().getSession());
                 reader = new CqlStatementReader(resource.getReader());
 
                 while (reader.hasMore()) {
-                    consistency = executeStatement(runtime.getKeyspace().getSession(), reader.one(), consistency);
-                }
-            } else {
-                if (!this.cache.containsKey(resource)) {
-                    reader = new CqlStatementReader(resource.getReader());
-                    this.cache.put(resource, reader.all());
+                    consistency = executeStatement(batcher, reader.one(), consistency);
                 }
 
-                for (Statement statement : this.cache.get(resource)) {
-                    consistency = executeStatement(runtime.getKeyspace().getSession(), statement, consistency);
-                }
+                batcher.flush();
+            } else {
+                executeStatements(runtime.getKeyspace().getSession(), readCqlResource(resource));
             }
         } finally {
             if (reader != null) {
@@ -68,7 +117,92 @@ public class BasicCqlResourceLoader implements CqlResourceLoader {
         }
     }
 
-    private ConsistencyStatement executeStatement(Session session, Statement statement, ConsistencyStatement consistency) {
+    /**
+     * Read the statements of a CQL resource without executing them.
+     * <p>
+     * If caching is enabled, the parsed statements are cached and shared with {@link #loadCqlResource(TestRuntime, Resource)}.
+     *
+     * @param resource CQL resource.
+     * @return Statements in resource order.
+     * @throws IOException if the resource cannot be read.
+     */
+    public Collection<Statement> readCqlResource(Resource resource) throws IOException {
+        if (resource.getContentType() != Resource.ContentType.CQL) {
+            throw new CassandraTestException("Cannot read %s resource '%s' as CQL.", resource.getContentType(), resource.getPath());
+        }
+
+        if (this.cache != null) {
+            return this.cache.get(resource);
+        }
+
+        StatementReader reader = new CqlStatementReader(resource.getReader());
+
+        try {
+            return reader.all();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Execute already parsed statements, as if they were read from a CQL resource.
+     *
+     * @param runtime Cassandra Test runtime.
+     * @param statements Statements to execute, in order.
+     */
+    public void loadStatements(TestRuntime runtime, Collection<? extends Statement> statements) {
+        executeStatements(runtime.getKeyspace().getSession(), statements);
+    }
+
+    private void executeStatements(Session session, Collection<? extends Statement> statements) {
+        PartitionBatcher batcher = createBatcher(session);
+        ConsistencyStatement consistency = null;
+
+        for (Statement statement : statements) {
+            consistency = executeStatement(batcher, statement, consistency);
+        }
+
+        batcher.flush();
+    }
+
+    private void loadCsvResource(Session session, Resource resource) throws IOException {
+        CsvReader reader = new CsvReader(resource.getReader());
+
+        try {
+            String[] header = reader.next();
+
+            if (header == null) {
+                return;
+            }
+
+            CsvInsert insert = CsvInsert.prepare(session, PreparedStatementCache.forSession(session), getCsvTable(resource), header);
+            String[] record;
+
+            while ((record = reader.next()) != null) {
+                execute(session, insert.bind(record, reader.getRecordNumber()));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String getCsvTable(Resource resource) {
+        String table = resource.getParameter("table");
+
+        if (table == null) {
+            // The file name without the extension.
+            table = StringUtils.substringAfterLast("/" + resource.getPath(), "/");
+            table = table.contains(".") ? StringUtils.substringBeforeLast(table, ".") : table;
+        }
+
+        if (StringUtils.isBlank(table)) {
+            throw new CassandraTestException("CSV resource '%s' requires a table parameter.", resource.getPath());
+        }
+
+        return table;
+    }
+
+    private ConsistencyStatement executeStatement(PartitionBatcher batcher, Statement statement, ConsistencyStatement consistency) {
         if (statement instanceof ConsistencyStatement) {
             return (ConsistencyStatement)statement;
         }
@@ -77,8 +211,46 @@ public class BasicCqlResourceLoader implements CqlResourceLoader {
             consistency.applyConsistency(statement);
         }
 
-        session.execute(statement);
+        batcher.add(statement);
 
         return consistency;
     }
+
+    private PartitionBatcher createBatcher(final Session session) {
+        return new PartitionBatcher(session, this.partitionBatchSize,
+                this.prepareStatements ? PreparedStatementCache.forSession(session) : null) {
+            @Override
+            protected void execute(Statement statement) {
+                BasicCqlResourceLoader.this.execute(session, statement);
+            }
+        };
+    }
+
+    /**
+     * Are repeated INSERTs prepared?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isPrepareStatements() {
+        return this.prepareStatements;
+    }
+
+    /**
+     * Get the max number of writes per partition batch.
+     *
+     * @return Partition batch size. 1 if writes are not batched.
+     */
+    public int getPartitionBatchSize() {
+        return this.partitionBatchSize;
+    }
+
+    /**
+     * Execute a statement from a CQL resource.
+     *
+     * @param session {@link Session}
+     * @param statement Statement with consistency applied. Bound statement or batch of writes if enabled.
+     */
+    protected void execute(Session session, Statement statement) {
+        session.execute(statement);
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import com.datastax.driver.core.SimpleStatement;
+
+/**
+ * A statement read from a CQL resource, with its {@link CqlStatementInfo}.
+ */
+class ClassifiedStatement extends SimpleStatement {
+
+    private final CqlStatementInfo info;
+
+    public ClassifiedStatement(String query, CqlStatementInfo info) {
+        super(query);
+        this.info = info;
+    }
+
+    public CqlStatementInfo getInfo() {
+        return this.info;
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.Locale;
+
+/**
+ * Scans the keywords, names, symbols and literals of a single CQL statement.
+ * <p>
+ * The statement must not contain comments, as returned by {@link CqlStatementReader}. Each read skips leading
+ * whitespace and leaves the position unchanged if the expected token is not next.
+ */
+class CqlScanner {
+
+    /**
+     * A simple literal value.
+     */
+    static final class Literal {
+
+        enum Type { STRING, INTEGER, FLOAT, BOOLEAN, UUID, BLOB }
+
+        private final Type type;
+        private final String value;
+
+        Literal(Type type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * Get the literal type.
+         *
+         * @return {@link Type}
+         */
+        Type getType() {
+            return this.type;
+        }
+
+        /**
+         * Get the literal value: unquoted and unescaped for strings, without 0x for blobs and as written otherwise.
+         *
+         * @return Value.
+         */
+        String getValue() {
+            return this.value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Literal)) {
+                return false;
+            }
+
+            Literal literal = (Literal)o;
+
+            return this.type == literal.type && this.value.equals(literal.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.type.hashCode() + this.value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.type + ":" + this.value;
+        }
+    }
+
+    private final String cql;
+    private int position;
+
+    CqlScanner(String cql) {
+        this.cql = cql;
+    }
+
+    /**
+     * Normalize a name as Cassandra does: quoted names are unquoted, other names are lower cased.
+     *
+     * @param name Name as it appears in CQL.
+     * @return Case sensitive name.
+     */
+    static String normalizeName(String name) {
+        if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        }
+
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Read a keyword, ignoring case.
+     *
+     * @param keyword Keyword in upper case.
+     * @return True if the keyword was read.
+     */
+    boolean keyword(String keyword) {
+        skipWhitespace();
+
+        int end = this.position + keyword.length();
+
+        if (this.cql.regionMatches(true, this.position, keyword, 0, keyword.length()) && !isNameChar(end)) {
+            this.position = end;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Read a symbol.
+     *
+     * @param symbol Symbol.
+     * @return True if the symbol was read.
+     */
+    boolean symbol(char symbol) {
+        skipWhitespace();
+
+        if (this.position < this.cql.length() && this.cql.charAt(this.position) == symbol) {
+            this.position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Read a name.
+     *
+     * @return The name as written, including quotes, or null if the next token is not a name.
+     */
+    String name() {
+        skipWhitespace();
+
+        int start = this.position;
+
+        if (start < this.cql.length() && this.cql.charAt(start) == '"') {
+            int end = endOfQuoted(start, '"');
+
+            if (end == -1) {
+                return null;
+            }
+
+            this.position = end;
+        } else if (start < this.cql.length() && Character.isLetter(this.cql.charAt(start))) {
+            while (isNameChar(this.position)) {
+                this.position++;
+            }
+        } else {
+            return null;
+        }
+
+        return this.cql.substring(start, this.position);
+    }
+
+    /**
+     * Read a string, integer, float, boolean, UUID or blob literal.
+     *
+     * @return {@link Literal} or null if the next token is not one of these literals.
+     */
+    Literal literal() {
+        skipWhitespace();
+
+        int start = this.position;
+        Literal literal = readLiteral();
+
+        if (literal == null || isNameChar(this.position)) {
+            this.position = start;
+            return null;
+        }
+
+        return literal;
+    }
+
+    /**
+     * Skip to after a keyword outside of literals, quoted names and brackets.
+     *
+     * @param keyword Keyword in upper case.
+     * @return True if the keyword was found. If not, the position is unchanged.
+     */
+    boolean skipTo(String keyword) {
+        int start = this.position;
+        int depth = 0;
+
+        while (this.position < this.cql.length()) {
+            char ch = this.cql.charAt(this.position);
+
+            if (ch == '\'' || ch == '"') {
+                int end = endOfQuoted(this.position, ch);
+
+                if (end == -1) {
+                    break;
+                }
+
+                this.position = end;
+            } else if (this.cql.startsWith("$$", this.position)) {
+                int end = this.cql.indexOf("$$", this.position + 2);
+
+                if (end == -1) {
+                    break;
+                }
+
+                this.position = end + 2;
+            } else if (ch == '(' || ch == '[' || ch == '{') {
+                depth++;
+                this.position++;
+            } else if (ch == ')' || ch == ']' || ch == '}') {
+                depth--;
+                this.position++;
+            } else if (isNameChar(this.position)) {
+                int wordStart = this.position;
+
+                while (isNameChar(this.position)) {
+                    this.position++;
+                }
+
+                if (depth == 0 && this.position - wordStart == keyword.length()
+                        && this.cql.regionMatches(true, wordStart, keyword, 0, keyword.length())) {
+                    return true;
+                }
+            } else {
+                this.position++;
+            }
+        }
+
+        this.position = start;
+        return false;
+    }
+
+    /**
+     * Skip a term, such as a collection literal or function call, up to the next ',' or ')' outside of literals,
+     * quoted names and brackets.
+     *
+     * @return True if a term was skipped. If not, the position is unchanged.
+     */
+    boolean skipTerm() {
+        int start = this.position;
+        int depth = 0;
+
+        while (this.position < this.cql.length()) {
+            char ch = this.cql.charAt(this.position);
+
+            if (ch == '\'' || ch == '"') {
+                int end = endOfQuoted(this.position, ch);
+
+                if (end == -1) {
+                    break;
+                }
+
+                this.position = end;
+                continue;
+            }
+
+            if (this.cql.startsWith("$$", this.position)) {
+                int end = this.cql.indexOf("$$", this.position + 2);
+
+                if (end == -1) {
+                    break;
+                }
+
+                this.position = end + 2;
+                continue;
+            }
+
+            if (depth == 0 && (ch == ',' || ch == ')')) {
+                if (this.cql.substring(start, this.position).trim().isEmpty()) {
+                    break;
+                }
+
+                return true;
+            }
+
+            if (ch == '(' || ch == '[' || ch == '{') {
+                depth++;
+            } else if (ch == ')' || ch == ']' || ch == '}') {
+                depth--;
+            }
+
+            this.position++;
+        }
+
+        this.position = start;
+        return false;
+    }
+
+    /**
+     * Get the unread CQL.
+     *
+     * @return The CQL after the current position, as is.
+     */
+    String remainder() {
+        return this.cql.substring(this.position);
+    }
+
+    /**
+     * Get the rest of the statement.
+     *
+     * @return The unread CQL, trimmed and without the closing ';'.
+     */
+    String rest() {
+        String rest = this.cql.substring(this.position).trim();
+
+        if (rest.endsWith(";")) {
+            rest = rest.substring(0, rest.length() - 1).trim();
+        }
+
+        return rest;
+    }
+
+    private Literal readLiteral() {
+        int start = this.position;
+
+        if (start >= this.cql.length()) {
+            return null;
+        }
+
+        char ch = this.cql.charAt(start);
+
+        if (ch == '\'') {
+            int end = endOfQuoted(start, '\'');
+
+            if (end == -1) {
+                return null;
+            }
+
+            this.position = end;
+            return new Literal(Literal.Type.STRING, this.cql.substring(start + 1, end - 1).replace("''", "'"));
+        }
+
+        if (this.cql.startsWith("$$", start)) {
+            int end = this.cql.indexOf("$$", start + 2);
+
+            if (end == -1) {
+                return null;
+            }
+
+            this.position = end + 2;
+            return new Literal(Literal.Type.STRING, this.cql.substring(start + 2, end));
+        }
+
+        if (isUuid(start)) {
+            this.position = start + 36;
+            return new Literal(Literal.Type.UUID, this.cql.substring(start, this.position));
+        }
+
+        if (ch == '0' && start + 1 < this.cql.length() && Character.toLowerCase(this.cql.charAt(start + 1)) == 'x') {
+            this.position = start + 2;
+
+            while (this.position < this.cql.length() && Character.digit(this.cql.charAt(this.position), 16) != -1) {
+                this.position++;
+            }
+
+            return new Literal(Literal.Type.BLOB, this.cql.substring(start + 2, this.position));
+        }
+
+        if (ch == '-' || Character.isDigit(ch)) {
+            return readNumber();
+        }
+
+        if (keyword("TRUE") || keyword("FALSE")) {
+            return new Literal(Literal.Type.BOOLEAN, this.cql.substring(start, this.position).toLowerCase(Locale.ENGLISH));
+        }
+
+        return null;
+    }
+
+    private Literal readNumber() {
+        int start = this.position;
+        Literal.Type type = Literal.Type.INTEGER;
+
+        if (this.cql.charAt(this.position) == '-') {
+            this.position++;
+        }
+
+        if (skipDigits() == 0) {
+            return null;
+        }
+
+        if (this.position < this.cql.length() && this.cql.charAt(this.position) == '.') {
+            this.position++;
+            skipDigits();
+            type = Literal.Type.FLOAT;
+        }
+
+        if (this.position < this.cql.length() && Character.toLowerCase(this.cql.charAt(this.position)) == 'e') {
+            this.position++;
+
+            if (this.position < this.cql.length()
+                    && (this.cql.charAt(this.position) == '-' || this.cql.charAt(this.position) == '+')) {
+                this.position++;
+            }
+
+            if (skipDigits() == 0) {
+                return null;
+            }
+
+            type = Literal.Type.FLOAT;
+        }
+
+        return new Literal(type, this.cql.substring(start, this.position));
+    }
+
+    private int skipDigits() {
+        int start = this.position;
+
+        while (this.position < this.cql.length() && Character.isDigit(this.cql.charAt(this.position))) {
+            this.position++;
+        }
+
+        return this.position - start;
+    }
+
+    private boolean isUuid(int start) {
+        if (start + 36 > this.cql.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < 36; i++) {
+            char ch = this.cql.charAt(start + i);
+
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (ch != '-') {
+                    return false;
+                }
+            } else if (Character.digit(ch, 16) == -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Returns the position after the closing quote or -1 if there is none. Doubled quotes are escaped quotes.
+    private int endOfQuoted(int start, char quote) {
+        int position = start + 1;
+
+        while (position < this.cql.length()) {
+            if (this.cql.charAt(position) == quote) {
+                if (position + 1 < this.cql.length() && this.cql.charAt(position + 1) == quote) {
+                    position += 2;
+                    continue;
+                }
+
+                return position + 1;
+            }
+
+            position++;
+        }
+
+        return -1;
+    }
+
+    private boolean isNameChar(int position) {
+        if (position >= this.cql.length()) {
+            return false;
+        }
+
+        char ch = this.cql.charAt(position);
+
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.cql.length() && Character.isWhitespace(this.cql.charAt(this.position))) {
+            this.position++;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.resource.ResourceFingerprinter;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Thread safe cache of parsed CQL resources.
+ * <p>
+ * The cache is bounded by weight, the length of the cached statements' CQL. When the cache is full, the least
+ * recently used resources are evicted. When the last modified time or length of a cached resource has changed, its
+ * content fingerprint is checked and the resource is parsed again if the content changed, so a touched file is not
+ * parsed again. An edit that keeps both the length and the last modified time, which is possible within the file
+ * system's time resolution, is not detected. Call {@link #invalidate(Resource)} after such an edit.
+ */
+public class CqlStatementCache {
+
+    /**
+     * Property with the maximum weight of {@link #SHARED}, in bytes of CQL.
+     */
+    public static final String CACHE_SIZE_PROPERTY = "cassandra.test.cql.cache.size";
+
+    /**
+     * Default maximum weight, in bytes of CQL.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Process-wide cache, sized by the {@value #CACHE_SIZE_PROPERTY} property.
+     */
+    public static final CqlStatementCache SHARED = fromProperties(PropertiesPropertyResolver.DEFAULT);
+
+    // Estimated weight of a statement object, excluding its CQL.
+    private static final int STATEMENT_WEIGHT = 64;
+
+    private final long maxWeight;
+    private final Map<Resource, Entry> entries = new LinkedHashMap<Resource, Entry>(16, 0.75f, true);
+    private long weight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CqlStatementCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public CqlStatementCache(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new CassandraTestException("CQL cache size must not be negative, but got %d", maxWeight);
+        }
+
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Create a cache sized by the {@value #CACHE_SIZE_PROPERTY} property.
+     *
+     * @param propertyResolver Properties.
+     * @return {@link CqlStatementCache}
+     */
+    public static CqlStatementCache fromProperties(PropertyResolver propertyResolver) {
+        String size = propertyResolver.getProperty(CACHE_SIZE_PROPERTY, "").trim();
+
+        try {
+            return new CqlStatementCache(size.isEmpty() ? DEFAULT_CACHE_SIZE : Long.parseLong(size));
+        } catch (NumberFormatException e) {
+            throw new CassandraTestException("Invalid %s = '%s'", CACHE_SIZE_PROPERTY, size, e);
+        }
+    }
+
+    /**
+     * Get the parsed statements of a resource, parsing the resource if it is not cached or has changed.
+     *
+     * @param resource CQL resource.
+     * @return Unmodifiable statements in resource order.
+     * @throws IOException if the resource cannot be read.
+     */
+    public Collection<Statement> get(Resource resource) throws IOException {
+        boolean isText = (resource.getSource() == Resource.Source.TEXT);
+        long lastModified = isText ? 0 : resource.getLastModified();
+        long length = isText ? -1 : resource.getLength();
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.entries.get(resource);
+        }
+
+        if (entry != null && (isText || (lastModified != 0 && length != -1
+                && entry.lastModified == lastModified && entry.length == length))) {
+            this.hits.incrementAndGet();
+            return entry.statements;
+        }
+
+        String fingerprint = isText ? null : ResourceFingerprinter.DEFAULT.fingerprint(resource);
+
+        if (entry != null && !isText && entry.fingerprint.equals(fingerprint)) {
+            // Touched, but not edited.
+            this.hits.incrementAndGet();
+            put(resource, new Entry(lastModified, length, fingerprint, entry.statements, entry.weight));
+            return entry.statements;
+        }
+
+        this.misses.incrementAndGet();
+
+        Collection<Statement> statements = parse(resource);
+
+        put(resource, new Entry(lastModified, length, fingerprint, statements, weigh(statements)));
+
+        return statements;
+    }
+
+    /**
+     * Remove a resource from the cache.
+     *
+     * @param resource Resource.
+     */
+    public synchronized void invalidate(Resource resource) {
+        Entry entry = this.entries.remove(resource);
+
+        if (entry != null) {
+            this.weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Remove all resources from the cache. Statistics are kept.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    /**
+     * Number of resources in the cache.
+     *
+     * @return Resource count.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Current weight of the cache.
+     *
+     * @return Weight, in bytes of CQL.
+     */
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Maximum weight of the cache.
+     *
+     * @return Maximum weight, in bytes of CQL.
+     */
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * Number of {@link #get(Resource)} calls served from the cache.
+     *
+     * @return Hit count.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Number of {@link #get(Resource)} calls that parsed the resource.
+     *
+     * @return Miss count.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Number of resources evicted to make room for other resources.
+     *
+     * @return Eviction count.
+     */
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    private synchronized void put(Resource resource, Entry entry) {
+        Entry previous = this.entries.remove(resource);
+
+        if (previous != null) {
+            this.weight -= previous.weight;
+        }
+
+        if (entry.weight > this.maxWeight) {
+            return;
+        }
+
+        this.entries.put(resource, entry);
+        this.weight += entry.weight;
+
+        Iterator<Entry> eldest = this.entries.values().iterator();
+
+        while (this.weight > this.maxWeight) {
+            this.weight -= eldest.next().weight;
+            eldest.remove();
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    private static Collection<Statement> parse(Resource resource) throws IOException {
+        StatementReader reader = new CqlStatementReader(resource.getReader());
+
+        try {
+            return Collections.unmodifiableCollection(new ArrayList<Statement>(reader.all()));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static long weigh(Collection<Statement> statements) {
+        long weight = 0;
+
+        for (Statement statement : statements) {
+            weight += STATEMENT_WEIGHT;
+
+            if (statement instanceof BatchStatement) {
+                weight += weigh(((BatchStatement)statement).getStatements());
+            } else if (statement instanceof RegularStatement) {
+                String cql = ((RegularStatement)statement).getQueryString();
+                weight += (cql == null) ? 0 : cql.length();
+            }
+        }
+
+        return weight;
+    }
+
+    private static class Entry {
+        private final long lastModified;
+        private final long length;
+        private final String fingerprint;
+        private final Collection<Statement> statements;
+        private final long weight;
+
+        Entry(long lastModified, long length, String fingerprint, Collection<Statement> statements, long weight) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.fingerprint = fingerprint;
+            this.statements = statements;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * What a CQL statement is, read from its keywords.
+ * <p>
+ * The classifier reads the leading keywords and the target names of a statement. It does not validate the statement,
+ * which is left to Cassandra. Statements read by {@link CqlStatementReader} carry their classification, so loaders
+ * can look at a statement without parsing its CQL again.
+ */
+public final class CqlStatementInfo {
+
+    /**
+     * Schema element created, altered or dropped by a schema statement.
+     */
+    public enum SchemaObject { KEYSPACE, TYPE, FUNCTION, AGGREGATE, TABLE, INDEX, MATERIALIZED_VIEW, TRIGGER, USER, ROLE }
+
+    private static final CqlStatementInfo UNKNOWN = new CqlStatementInfo(CqlStatementKind.UNKNOWN);
+    private static final CqlStatementInfo BATCH = new CqlStatementInfo(CqlStatementKind.BATCH);
+
+    private CqlStatementKind kind;
+    private SchemaObject schemaObject;
+    private String keyspace;
+    private String table;
+    private BatchStatement.Type batchType;
+    private Long timestamp;
+    private String batchBody;
+    private String consistency;
+
+    private CqlStatementInfo(CqlStatementKind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Classify a CQL statement.
+     *
+     * @param cql A single CQL statement without comments.
+     * @return {@link CqlStatementInfo}
+     */
+    public static CqlStatementInfo classify(String cql) {
+        CqlScanner scanner = new CqlScanner(cql);
+        CqlStatementInfo info = new CqlStatementInfo(CqlStatementKind.fromKeyword(scanner.name()));
+
+        switch (info.kind) {
+            case SELECT:
+            case DELETE:
+                if (scanner.skipTo("FROM")) {
+                    info.readTable(scanner);
+                }
+                break;
+            case INSERT:
+                if (scanner.keyword("INTO")) {
+                    info.readTable(scanner);
+                }
+                break;
+            case UPDATE:
+                info.readTable(scanner);
+                break;
+            case TRUNCATE:
+                scanner.keyword("TABLE");
+                info.readTable(scanner);
+                break;
+            case USE:
+                info.keyspace = scanner.name();
+                break;
+            case CREATE:
+            case ALTER:
+            case DROP:
+                info.readSchemaObject(scanner);
+                break;
+            case BATCH:
+                info.readBatch(scanner);
+                break;
+            case APPLY_BATCH:
+                if (!scanner.keyword("BATCH") || !scanner.rest().isEmpty()) {
+                    info.kind = CqlStatementKind.UNKNOWN;
+                }
+                break;
+            case CONSISTENCY:
+                info.consistency = scanner.name();
+
+                if (!scanner.rest().isEmpty()) {
+                    info.consistency = null;
+                }
+                break;
+            default:
+                break;
+        }
+
+        return info;
+    }
+
+    /**
+     * Get the classification of a statement.
+     * <p>
+     * Statements read by {@link CqlStatementReader} are not classified again. Other regular statements are
+     * classified from their CQL.
+     *
+     * @param statement {@link Statement}
+     * @return {@link CqlStatementInfo}. The info of a {@link BatchStatement} only has a kind.
+     */
+    public static CqlStatementInfo of(Statement statement) {
+        if (statement instanceof ClassifiedStatement) {
+            return ((ClassifiedStatement)statement).getInfo();
+        } else if (statement instanceof BatchStatement) {
+            return BATCH;
+        } else if (statement instanceof RegularStatement && ((RegularStatement)statement).getQueryString() != null) {
+            return classify(((RegularStatement)statement).getQueryString());
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Get the statement kind.
+     *
+     * @return {@link CqlStatementKind}
+     */
+    public CqlStatementKind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Get the schema element of a CREATE, ALTER or DROP statement.
+     *
+     * @return {@link SchemaObject} or null.
+     */
+    public SchemaObject getSchemaObject() {
+        return this.schemaObject;
+    }
+
+    /**
+     * Get the keyspace the statement targets, as it appears in the statement.
+     *
+     * @return Keyspace or null if the statement does not name one.
+     */
+    public String getKeyspace() {
+        return this.keyspace;
+    }
+
+    /**
+     * Get the table the statement targets, as it appears in the statement. For materialized views, the view.
+     *
+     * @return Table or null if the statement does not name one.
+     */
+    public String getTable() {
+        return this.table;
+    }
+
+    /**
+     * Get the type of a BEGIN BATCH statement.
+     *
+     * @return {@link BatchStatement.Type} or null.
+     */
+    public BatchStatement.Type getBatchType() {
+        return this.batchType;
+    }
+
+    /**
+     * Get the USING TIMESTAMP of a BEGIN BATCH statement.
+     *
+     * @return Timestamp or null.
+     */
+    public Long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Get the level of a CONSISTENCY command.
+     *
+     * @return {@link ConsistencyLevel} or null if the statement is not a CONSISTENCY command.
+     * @throws IllegalArgumentException if the level is not a {@link ConsistencyLevel}.
+     */
+    public ConsistencyLevel getConsistencyLevel() {
+        return (this.consistency != null) ? ConsistencyLevel.valueOf(this.consistency.toUpperCase(Locale.ENGLISH)) : null;
+    }
+
+    /**
+     * Is the statement a schema statement: CREATE, ALTER or DROP (except of users and roles), TRUNCATE or USE?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isDdl() {
+        switch (this.kind) {
+            case CREATE:
+            case ALTER:
+            case DROP:
+                return this.schemaObject != SchemaObject.USER && this.schemaObject != SchemaObject.ROLE;
+            case TRUNCATE:
+            case USE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Is the statement a data statement: SELECT, INSERT, UPDATE, DELETE or BEGIN BATCH?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isDml() {
+        return this.kind == CqlStatementKind.SELECT || isWrite();
+    }
+
+    /**
+     * Is the statement an access control statement: GRANT, REVOKE, LIST or a user or role statement?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isDcl() {
+        switch (this.kind) {
+            case GRANT:
+            case REVOKE:
+            case LIST:
+                return true;
+            case CREATE:
+            case ALTER:
+            case DROP:
+                return this.schemaObject == SchemaObject.USER || this.schemaObject == SchemaObject.ROLE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Is the statement a write: INSERT, UPDATE, DELETE or BEGIN BATCH?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isWrite() {
+        return this.kind == CqlStatementKind.INSERT
+                || this.kind == CqlStatementKind.UPDATE
+                || this.kind == CqlStatementKind.DELETE
+                || this.kind == CqlStatementKind.BATCH;
+    }
+
+    /**
+     * Get the first statement of a BEGIN BATCH statement, as cqlsh allows a statement after BEGIN BATCH.
+     *
+     * @return First statement, ";" if there is none, or null if the BEGIN BATCH statement is not complete.
+     */
+    String getBatchBody() {
+        return this.batchBody;
+    }
+
+    private void readTable(CqlScanner scanner) {
+        String name = scanner.name();
+
+        if (name != null && scanner.symbol('.')) {
+            this.keyspace = name;
+            this.table = scanner.name();
+        } else {
+            this.table = name;
+        }
+    }
+
+    private void readSchemaObject(CqlScanner scanner) {
+        if (this.kind == CqlStatementKind.CREATE && scanner.keyword("OR")) {
+            scanner.keyword("REPLACE");
+        }
+
+        scanner.keyword("CUSTOM");
+
+        String object = StringUtils.upperCase(scanner.name());
+
+        if (object == null) {
+            return;
+        } else if (object.equals("KEYSPACE") || object.equals("SCHEMA")) {
+            this.schemaObject = SchemaObject.KEYSPACE;
+        } else if (object.equals("TABLE") || object.equals("COLUMNFAMILY")) {
+            this.schemaObject = SchemaObject.TABLE;
+        } else if (object.equals("MATERIALIZED")) {
+            scanner.keyword("VIEW");
+            this.schemaObject = SchemaObject.MATERIALIZED_VIEW;
+        } else {
+            for (SchemaObject schemaObject : SchemaObject.values()) {
+                if (schemaObject.name().equals(object)) {
+                    this.schemaObject = schemaObject;
+                }
+            }
+        }
+
+        if (this.schemaObject == null) {
+            return;
+        }
+
+        if (scanner.keyword("IF")) {
+            scanner.keyword("NOT");
+            scanner.keyword("EXISTS");
+        }
+
+        switch (this.schemaObject) {
+            case KEYSPACE:
+                this.keyspace = scanner.name();
+                break;
+            case TABLE:
+            case MATERIALIZED_VIEW:
+                readTable(scanner);
+                break;
+            case TYPE:
+            case FUNCTION:
+            case AGGREGATE:
+                readTable(scanner);
+                this.table = null;
+                break;
+            case INDEX:
+                if (this.kind == CqlStatementKind.CREATE) {
+                    if (!scanner.keyword("ON")) {
+                        scanner.name();
+                        scanner.keyword("ON");
+                    }
+
+                    readTable(scanner);
+                } else {
+                    readTable(scanner);
+                    this.table = null;
+                }
+                break;
+            case TRIGGER:
+                scanner.name();
+
+                if (scanner.keyword("ON")) {
+                    readTable(scanner);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void readBatch(CqlScanner scanner) {
+        if (scanner.keyword("UNLOGGED")) {
+            this.batchType = BatchStatement.Type.UNLOGGED;
+        } else if (scanner.keyword("COUNTER")) {
+            this.batchType = BatchStatement.Type.COUNTER;
+        } else {
+            this.batchType = BatchStatement.Type.LOGGED;
+        }
+
+        if (!scanner.keyword("BATCH")) {
+            this.batchType = null;
+            return;
+        }
+
+        if (scanner.keyword("USING")) {
+            CqlScanner.Literal timestamp = scanner.keyword("TIMESTAMP") ? scanner.literal() : null;
+
+            if (timestamp == null
+                    || timestamp.getType() != CqlScanner.Literal.Type.INTEGER
+                    || timestamp.getValue().startsWith("-")) {
+                return;
+            }
+
+            this.timestamp = Long.parseLong(timestamp.getValue());
+        }
+
+        // The statement ends with ';' unless it is the last in the resource.
+        String body = StringUtils.stripStart(scanner.remainder(), null);
+
+        if (!body.endsWith(";")) {
+            return;
+        }
+
+        this.batchBody = (body.startsWith(";") && body.length() > 1) ? StringUtils.stripStart(body.substring(1), null) : body;
+    }
+}
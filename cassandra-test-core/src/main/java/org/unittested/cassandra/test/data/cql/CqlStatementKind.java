@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kind of a CQL statement or cqlsh command, named by its first keyword.
+ */
+public enum CqlStatementKind {
+    SELECT("SELECT"),
+    INSERT("INSERT"),
+    UPDATE("UPDATE"),
+    DELETE("DELETE"),
+    /** BEGIN BATCH. */
+    BATCH("BEGIN"),
+    APPLY_BATCH("APPLY"),
+    TRUNCATE("TRUNCATE"),
+    USE("USE"),
+    CREATE("CREATE"),
+    ALTER("ALTER"),
+    DROP("DROP"),
+    GRANT("GRANT"),
+    REVOKE("REVOKE"),
+    LIST("LIST"),
+    /** cqlsh CONSISTENCY command. */
+    CONSISTENCY("CONSISTENCY"),
+    /** cqlsh SERIAL CONSISTENCY command. */
+    SERIAL_CONSISTENCY("SERIAL"),
+    UNKNOWN(null);
+
+    private static final Map<String, CqlStatementKind> KEYWORDS = new HashMap<String, CqlStatementKind>();
+
+    static {
+        for (CqlStatementKind kind : values()) {
+            if (kind.keyword != null) {
+                KEYWORDS.put(kind.keyword, kind);
+            }
+        }
+    }
+
+    private final String keyword;
+
+    CqlStatementKind(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /**
+     * Get the kind of statement that starts with a keyword.
+     *
+     * @param keyword First keyword of a statement, in any case.
+     * @return {@link CqlStatementKind} or {@link #UNKNOWN}.
+     */
+    public static CqlStatementKind fromKeyword(String keyword) {
+        CqlStatementKind kind = (keyword != null) ? KEYWORDS.get(keyword.toUpperCase(Locale.ENGLISH)) : null;
+
+        return (kind != null) ? kind : UNKNOWN;
+    }
+}
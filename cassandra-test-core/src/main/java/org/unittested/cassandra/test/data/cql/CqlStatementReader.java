@@ -17,20 +17,14 @@
 package org.unittested.cassandra.test.data.cql;
 
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.unittested.cassandra.test.util.DriverCompatibility;
-import org.unittested.cassandra.test.util.Utils;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 
 import com.datastax.driver.core.BatchStatement;
-import com.datastax.driver.core.ConsistencyLevel;
-import com.datastax.driver.core.SimpleStatement;
 import com.datastax.driver.core.Statement;
 
 /**
@@ -40,24 +34,30 @@ import com.datastax.driver.core.Statement;
  * The CQL parsing is loose to keep the parser simple. CQL statement validation leverages the Cassandra server.
  * <p>
  * The parser supports batch statements and consistency commands.
+ * <p>
+ * The reader scans a block buffer of characters, copying runs of plain characters into the statement at once, so
+ * the underlying {@link Reader} does not need to be buffered.
+ * <p>
+ * Each statement is classified once by {@link CqlStatementInfo}. The statements returned carry their classification.
  */
 class CqlStatementReader implements StatementReader {
 
-    private static final Pattern CONSISTENCY = Pattern.compile("^CONSISTENCY\\s+(\\w+)\\s*;?$",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    private static final Pattern BEGIN_BATCH = Pattern.compile("^BEGIN\\s+(UNLOGGED\\s+|COUNTER\\s+)?BATCH(\\s+USING\\s+TIMESTAMP\\s+(\\d+))?\\s*;?\\s*(.*;)$",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
+    static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
 
-    private static final Pattern END_BATCH = Pattern.compile("^APPLY\\s+BATCH\\s*;?$",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
-
-    private PushbackReader reader;
+    private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
     private StringBuilder cqlStringBuilder = new StringBuilder();
     private boolean atBeginningOfNextStatement;
 
     public CqlStatementReader(Reader reader) {
-        this.reader = new PushbackReader(reader);
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    CqlStatementReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
     }
 
     @Override
@@ -71,19 +71,18 @@ class CqlStatementReader implements StatementReader {
 
         while (skipToBeginningOfNextStatement()) {
             String cql = readNextStatement();
+            CqlStatementInfo info = CqlStatementInfo.classify(cql);
 
-            Matcher consistency = CONSISTENCY.matcher(cql);
-
-            if (consistency.matches()) {
+            if (info.getKind() == CqlStatementKind.CONSISTENCY && info.getConsistencyLevel() != null) {
                 if (batchStatement != null) {
                     throw new CassandraTestException("CONSISTENCY command cannot appear in a BATCH statement.");
                 }
 
-                return new ConsistencyStatement(ConsistencyLevel.valueOf(consistency.group(1).toUpperCase()));
+                return new ConsistencyStatement(info.getConsistencyLevel());
             }
 
             // Close an open batch statement.
-            if (END_BATCH.matcher(cql).matches()) {
+            if (info.getKind() == CqlStatementKind.APPLY_BATCH) {
                 if (batchStatement == null) {
                     throw new CassandraTestException("APPLY BATCH without matching BEGIN BATCH.");
                 }
@@ -96,25 +95,23 @@ class CqlStatementReader implements StatementReader {
             }
 
             // Open a new batch statement.
-            Matcher beginBatch = BEGIN_BATCH.matcher(cql);
-
-            if (beginBatch.matches()) {
+            if (info.getKind() == CqlStatementKind.BATCH && info.getBatchBody() != null) {
                 if (batchStatement != null) {
                     throw new CassandraTestException("Nested BEGIN BATCH in batch statement %s", batchStatement.toString());
                 }
 
-                batchStatement = createBatchStatement(beginBatch.group(1), beginBatch.group(4), beginBatch.group(3));
+                batchStatement = createBatchStatement(info);
                 continue;
             }
 
             // Append to an open batch statement.
             if (batchStatement != null) {
-                batchStatement.add(createSimpleStatement(cql));
+                batchStatement.add(createSimpleStatement(cql, info));
                 continue;
             }
 
             // Not processing a batch statement, so return the statement.
-            return createSimpleStatement(cql);
+            return createSimpleStatement(cql, info);
         }
 
         return batchStatement;
@@ -150,7 +147,7 @@ class CqlStatementReader implements StatementReader {
                 return false;
             } else if (ch != ';' && !Character.isWhitespace(ch)) {
                 this.cqlStringBuilder.setLength(0);
-                this.cqlStringBuilder.appendCodePoint(ch);
+                this.cqlStringBuilder.append((char)ch);
                 this.atBeginningOfNextStatement = true;
                 return true;
             }
@@ -161,10 +158,12 @@ class CqlStatementReader implements StatementReader {
         StringBuilder cql = this.cqlStringBuilder;
 
         while (true) {
+            copyPlainCharacters(cql);
+
             int ch = next();
 
             if (ch == '\'' || ch == '"') {
-                cql.appendCodePoint(ch);
+                cql.append((char)ch);
                 readQuotedString(ch, cql);
             } else if (ch == '/') {
                 skipComment(ch);
@@ -173,18 +172,18 @@ class CqlStatementReader implements StatementReader {
                 int next = next();
 
                 if (Character.digit(next, 16) != -1) {
-                    cql.appendCodePoint(ch);
-                    cql.appendCodePoint(next);
+                    cql.append((char)ch);
+                    cql.append((char)next);
                 } else {
                     skipComment(ch, next);
                 }
             } else if (ch == ';') {
-                cql.appendCodePoint(ch);
+                cql.append((char)ch);
                 break;
             } else if (ch == -1) {
                 break;
             } else {
-                cql.appendCodePoint(ch);
+                cql.append((char)ch);
             }
         }
 
@@ -208,13 +207,22 @@ class CqlStatementReader implements StatementReader {
 
     private void readQuotedString(int quoteCodePoint, StringBuilder target) throws IOException {
         while (true) {
+            // Copy up to the next quote from the buffer.
+            int start = this.position;
+
+            while (this.position < this.limit && this.buffer[this.position] != quoteCodePoint) {
+                this.position++;
+            }
+
+            target.append(this.buffer, start, this.position - start);
+
             int ch = next();
 
             if (ch == -1) {
                 throw new CassandraTestException("No closing '%s'.", codePointToString(quoteCodePoint));
             }
 
-            target.appendCodePoint(ch);
+            target.append((char)ch);
 
             if (ch == quoteCodePoint) {
                 int p = peek();
@@ -229,10 +237,14 @@ class CqlStatementReader implements StatementReader {
 
     private void skipToLineSeparator() throws IOException {
         while (true) {
-            int ch = next();
+            while (this.position < this.limit) {
+                if (this.buffer[this.position++] == '\n') {
+                    return;
+                }
+            }
 
-            if (ch == '\n' || ch == -1) {
-                break;
+            if (!fill()) {
+                return;
             }
         }
     }
@@ -255,45 +267,78 @@ class CqlStatementReader implements StatementReader {
         }
     }
 
+    // Copy characters that need no special handling, up to the end of the buffer.
+    private void copyPlainCharacters(StringBuilder cql) {
+        int start = this.position;
+
+        while (this.position < this.limit) {
+            char ch = this.buffer[this.position];
+
+            if (ch == '\'' || ch == '"' || ch == '/' || ch == '-' || ch == ';') {
+                break;
+            }
+
+            this.position++;
+        }
+
+        cql.append(this.buffer, start, this.position - start);
+    }
+
     private int next() throws IOException {
-        return this.reader.read();
+        if (this.position == this.limit && !fill()) {
+            return -1;
+        }
+
+        return this.buffer[this.position++];
     }
 
     private int peek() throws IOException {
-        int ch = this.reader.read();
-
-        if (ch != -1) {
-            this.reader.unread(ch);
+        if (this.position == this.limit && !fill()) {
+            return -1;
         }
 
-        return ch;
+        return this.buffer[this.position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+
+        do {
+            read = this.reader.read(this.buffer, 0, this.buffer.length);
+        } while (read == 0);
+
+        this.position = 0;
+        this.limit = Math.max(read, 0);
+
+        return read > 0;
     }
 
-    private BatchStatement createBatchStatement(String batchType, String firstStatement, String timestamp) {
-        BatchStatement.Type type = (batchType != null ? BatchStatement.Type.valueOf(batchType.trim().toUpperCase()) : BatchStatement.Type.LOGGED);
-        BatchStatement batchStatement = new BatchStatement(type);
+    private BatchStatement createBatchStatement(CqlStatementInfo info) {
+        BatchStatement batchStatement = new BatchStatement(info.getBatchType());
+        String firstStatement = info.getBatchBody();
+        CqlStatementInfo firstStatementInfo = CqlStatementInfo.classify(firstStatement);
 
-        if (firstStatement == null || END_BATCH.matcher(firstStatement).matches()) {
+        if (firstStatementInfo.getKind() == CqlStatementKind.APPLY_BATCH) {
             throw new CassandraTestException("Empty batch statement.");
         }
 
         if (!firstStatement.trim().equals(";")) {
-            batchStatement.add(createSimpleStatement(firstStatement));
+            batchStatement.add(createSimpleStatement(firstStatement, firstStatementInfo));
         }
 
-        if (timestamp != null) {
-            DriverCompatibility.setDefaultTimestamp(batchStatement, Long.parseLong(timestamp));
+        if (info.getTimestamp() != null) {
+            DriverCompatibility.setDefaultTimestamp(batchStatement, info.getTimestamp());
         }
 
         return batchStatement;
     }
 
-    private Statement createSimpleStatement(String cql) {
-        if (!Utils.isCqlLike(cql)) {
+    private Statement createSimpleStatement(String cql, CqlStatementInfo info) {
+        if (info.getKind() == CqlStatementKind.UNKNOWN || info.getKind() == CqlStatementKind.APPLY_BATCH) {
             throw new CassandraTestException("Illegal CQL statement: %s", cql);
         }
 
-        return new SimpleStatement(cql);
+        return new ClassifiedStatement(cql, info);
     }
 
     private String codePointToString(int codePoint) {
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.util.Utils;
+
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+
+/**
+ * Prepared INSERT for the rows of a CSV resource.
+ * <p>
+ * The CSV header is mapped to the columns of the table's {@link TableMetadata}. Each record is bound with its values
+ * converted to the column types. Text, numeric, boolean, uuid, timeuuid, timestamp, blob and inet columns are
+ * supported. Timestamps are milliseconds since the epoch or ISO 8601 dates, in UTC unless the date has a zone.
+ * Blobs are hex digits with an optional 0x prefix.
+ */
+final class CsvInsert {
+
+    private static final String[] TIMESTAMP_PATTERNS = {
+            "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+            "yyyy-MM-dd'T'HH:mm:ssZ",
+            "yyyy-MM-dd'T'HH:mmZ",
+            "yyyy-MM-dd HH:mm:ss.SSSZ",
+            "yyyy-MM-dd HH:mm:ssZ",
+            "yyyy-MM-dd HH:mmZ",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS",
+            "yyyy-MM-dd'T'HH:mm:ss",
+            "yyyy-MM-dd'T'HH:mm",
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy-MM-dd HH:mm",
+            "yyyy-MM-dd",
+    };
+
+    private final PreparedStatement prepared;
+    private final String[] columns;
+    private final DataType[] types;
+    private DateFormat[] timestampFormats;
+
+    private CsvInsert(PreparedStatement prepared, String[] columns, DataType[] types) {
+        this.prepared = prepared;
+        this.columns = columns;
+        this.types = types;
+    }
+
+    /**
+     * Prepare the INSERT for the rows of a CSV resource.
+     *
+     * @param session {@link Session}
+     * @param preparedStatements Cache to prepare the INSERT with.
+     * @param table Table, optionally qualified with a keyspace, as it appears in CQL.
+     * @param header Column names, as they appear in CQL.
+     * @return {@link CsvInsert}
+     * @throws CassandraTestException if the table or a column is not known.
+     */
+    static CsvInsert prepare(Session session, PreparedStatementCache preparedStatements, String table, String[] header) {
+        CqlScanner scanner = new CqlScanner(table);
+        String keyspaceName = null;
+        String tableName = scanner.name();
+
+        if (tableName != null && scanner.symbol('.')) {
+            keyspaceName = tableName;
+            tableName = scanner.name();
+        }
+
+        if (tableName == null || !scanner.rest().isEmpty()) {
+            throw new CassandraTestException("Invalid CSV table name '%s'", table);
+        }
+
+        TableMetadata tableMetadata = Utils.getTableMetadata(session, keyspaceName, tableName);
+
+        if (tableMetadata == null) {
+            throw new CassandraTestException("Table '%s' of CSV resource does not exist.", table);
+        }
+
+        String[] columns = new String[header.length];
+        DataType[] types = new DataType[header.length];
+        StringBuilder cql = new StringBuilder("INSERT INTO ")
+                .append(quote(tableMetadata.getKeyspace().getName()))
+                .append('.')
+                .append(quote(tableMetadata.getName()))
+                .append(" (");
+
+        for (int i = 0; i < header.length; i++) {
+            String name = StringUtils.trimToEmpty(header[i]);
+            ColumnMetadata column = name.isEmpty() ? null : tableMetadata.getColumn(name);
+
+            if (column == null) {
+                throw new CassandraTestException("Unknown column '%s' in CSV header of table '%s'", name, table);
+            }
+
+            columns[i] = column.getName();
+            types[i] = column.getType();
+            cql.append(i > 0 ? ", " : "").append(quote(column.getName()));
+        }
+
+        cql.append(") VALUES (");
+
+        for (int i = 0; i < header.length; i++) {
+            cql.append(i > 0 ? ", ?" : "?");
+        }
+
+        cql.append(')');
+
+        return new CsvInsert(preparedStatements.prepare(session, cql.toString(), tableMetadata), columns, types);
+    }
+
+    /**
+     * Bind the values of a CSV record.
+     *
+     * @param record Record values. Null values are bound as null.
+     * @param recordNumber Record number, for error messages.
+     * @return Bound INSERT.
+     * @throws CassandraTestException if the record does not match the header or a value cannot be converted.
+     */
+    Statement bind(String[] record, long recordNumber) {
+        if (record.length != this.columns.length) {
+            throw new CassandraTestException("CSV record %d has %d values, but the header has %d columns.",
+                    recordNumber, record.length, this.columns.length);
+        }
+
+        Object[] values = new Object[record.length];
+
+        for (int i = 0; i < record.length; i++) {
+            if (record[i] == null) {
+                continue;
+            }
+
+            try {
+                values[i] = convert(record[i], this.types[i]);
+            } catch (IllegalArgumentException e) {
+                throw new CassandraTestException("Invalid %s value '%s' for column '%s' in CSV record %d",
+                        this.types[i], record[i], this.columns[i], recordNumber, e);
+            }
+        }
+
+        return this.prepared.bind(values);
+    }
+
+    /**
+     * Convert a CSV value to the Java type of a column.
+     *
+     * @param value CSV value.
+     * @param type Column type.
+     * @return Converted value.
+     * @throws IllegalArgumentException if the value is not valid for the type or the type is not supported.
+     */
+    Object convert(String value, DataType type) {
+        // Compare names, as driver 2.0 does not have the newer types.
+        String name = type.getName().name();
+
+        if (name.equals("TEXT") || name.equals("VARCHAR") || name.equals("ASCII")) {
+            return value;
+        }
+
+        String trimmed = value.trim();
+
+        if (name.equals("INT")) {
+            return Integer.valueOf(trimmed);
+        } else if (name.equals("BIGINT") || name.equals("COUNTER")) {
+            return Long.valueOf(trimmed);
+        } else if (name.equals("VARINT")) {
+            return new BigInteger(trimmed);
+        } else if (name.equals("SMALLINT")) {
+            return Short.valueOf(trimmed);
+        } else if (name.equals("TINYINT")) {
+            return Byte.valueOf(trimmed);
+        } else if (name.equals("DOUBLE")) {
+            return Double.valueOf(trimmed);
+        } else if (name.equals("FLOAT")) {
+            return Float.valueOf(trimmed);
+        } else if (name.equals("DECIMAL")) {
+            return new BigDecimal(trimmed);
+        } else if (name.equals("BOOLEAN")) {
+            if (trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(trimmed);
+            }
+
+            throw new IllegalArgumentException("Invalid boolean.");
+        } else if (name.equals("UUID") || name.equals("TIMEUUID")) {
+            return UUID.fromString(trimmed);
+        } else if (name.equals("TIMESTAMP")) {
+            return parseTimestamp(trimmed);
+        } else if (name.equals("BLOB")) {
+            return ParameterizedInsert.decodeHex(StringUtils.startsWithIgnoreCase(trimmed, "0x") ? trimmed.substring(2) : trimmed);
+        } else if (name.equals("INET")) {
+            try {
+                return InetAddress.getByName(trimmed);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Unknown host.", e);
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported CSV column type.");
+    }
+
+    private Date parseTimestamp(String value) {
+        if (!value.isEmpty() && StringUtils.isNumeric(StringUtils.removeStart(value, "-"))) {
+            return new Date(Long.parseLong(value));
+        }
+
+        // SimpleDateFormat reads RFC 822 zones. Accept the Z and +hh:mm zones of ISO 8601.
+        String date = value;
+
+        if (date.endsWith("Z")) {
+            date = date.substring(0, date.length() - 1) + "+0000";
+        } else if (date.length() > 6 && date.charAt(date.length() - 3) == ':'
+                && (date.charAt(date.length() - 6) == '+' || date.charAt(date.length() - 6) == '-')) {
+            date = date.substring(0, date.length() - 3) + date.substring(date.length() - 2);
+        }
+
+        if (this.timestampFormats == null) {
+            this.timestampFormats = new DateFormat[TIMESTAMP_PATTERNS.length];
+
+            for (int i = 0; i < TIMESTAMP_PATTERNS.length; i++) {
+                this.timestampFormats[i] = new SimpleDateFormat(TIMESTAMP_PATTERNS[i]);
+                this.timestampFormats[i].setLenient(false);
+                this.timestampFormats[i].setTimeZone(TimeZone.getTimeZone("UTC"));
+            }
+        }
+
+        for (DateFormat format : this.timestampFormats) {
+            ParsePosition position = new ParsePosition(0);
+            Date parsed = format.parse(date, position);
+
+            if (parsed != null && position.getIndex() == date.length()) {
+                return parsed;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid timestamp.");
+    }
+
+    private static String quote(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+
+/**
+ * Streaming CSV record reader.
+ * <p>
+ * Records are comma separated values, one per line, as in RFC 4180. Quoted values can contain commas, line
+ * separators and doubled quotes. Both CRLF and LF end a record. Blank lines and a leading byte order mark are skipped.
+ * <p>
+ * Like {@link CqlStatementReader}, the reader scans a block buffer of characters and only holds the current record.
+ */
+final class CsvReader implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean started;
+    private long recordNumber;
+    private StringBuilder value = new StringBuilder();
+    private List<String> values = new ArrayList<String>();
+
+    CsvReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return Values of the record or null if there are no more records. Unquoted empty values are null.
+     * @throws IOException if the underlying reader fails.
+     */
+    String[] next() throws IOException {
+        if (!this.started) {
+            this.started = true;
+
+            if (peek() == '\uFEFF') {
+                this.position++;
+            }
+        }
+
+        int ch = peek();
+
+        while (ch == '\r' || ch == '\n') {
+            this.position++;
+            ch = peek();
+        }
+
+        if (ch == -1) {
+            return null;
+        }
+
+        this.recordNumber++;
+        this.values.clear();
+
+        while (true) {
+            this.values.add(peek() == '"' ? readQuoted() : readUnquoted());
+
+            ch = read();
+
+            if (ch == ',') {
+                continue;
+            }
+
+            if (ch == '\r' && peek() == '\n') {
+                this.position++;
+            } else if (ch != '\r' && ch != '\n' && ch != -1) {
+                throw new CassandraTestException("Unexpected character '%c' after quoted value in CSV record %d.",
+                        (char)ch, this.recordNumber);
+            }
+
+            return this.values.toArray(new String[this.values.size()]);
+        }
+    }
+
+    /**
+     * Get the number of the last record read. The first record is 1.
+     *
+     * @return Record number.
+     */
+    long getRecordNumber() {
+        return this.recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private String readUnquoted() throws IOException {
+        this.value.setLength(0);
+
+        while (ensure()) {
+            int start = this.position;
+
+            while (this.position < this.limit && !isSeparator(this.buffer[this.position])) {
+                this.position++;
+            }
+
+            this.value.append(this.buffer, start, this.position - start);
+
+            if (this.position < this.limit) {
+                break;
+            }
+        }
+
+        return (this.value.length() == 0) ? null : this.value.toString();
+    }
+
+    private String readQuoted() throws IOException {
+        // Skip the opening quote.
+        this.position++;
+        this.value.setLength(0);
+
+        while (true) {
+            if (!ensure()) {
+                throw new CassandraTestException("Unterminated quoted value in CSV record %d.", this.recordNumber);
+            }
+
+            int start = this.position;
+
+            while (this.position < this.limit && this.buffer[this.position] != '"') {
+                this.position++;
+            }
+
+            this.value.append(this.buffer, start, this.position - start);
+
+            if (this.position < this.limit) {
+                this.position++;
+
+                if (peek() != '"') {
+                    return this.value.toString();
+                }
+
+                // Doubled quote.
+                this.value.append('"');
+                this.position++;
+            }
+        }
+    }
+
+    private static boolean isSeparator(char ch) {
+        return ch == ',' || ch == '\n' || ch == '\r';
+    }
+
+    private int read() throws IOException {
+        return ensure() ? this.buffer[this.position++] : -1;
+    }
+
+    private int peek() throws IOException {
+        return ensure() ? this.buffer[this.position] : -1;
+    }
+
+    private boolean ensure() throws IOException {
+        return this.position < this.limit || fill();
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+
+        do {
+            read = this.reader.read(this.buffer, 0, this.buffer.length);
+        } while (read == 0);
+
+        this.position = 0;
+        this.limit = Math.max(read, 0);
+
+        return read > 0;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+
+/**
+ * An INSERT statement with its literal values replaced by bind markers.
+ * <p>
+ * Only INSERT INTO table (columns) VALUES (values) statements are parameterized. String, integer, float, boolean,
+ * UUID and blob literals become bind markers and NULL stays in the statement. INSERTs with any other value, such as a
+ * collection, tuple, function call or bind marker, are not parameterized.
+ * <p>
+ * INSERTs that differ only in their literal values have the same shape, the parameterized CQL.
+ */
+final class ParameterizedInsert {
+
+    private final String shape;
+    private final String keyspace;
+    private final String table;
+    private final List<CqlScanner.Literal> literals;
+
+    private ParameterizedInsert(String shape, String keyspace, String table, List<CqlScanner.Literal> literals) {
+        this.shape = shape;
+        this.keyspace = keyspace;
+        this.table = table;
+        this.literals = literals;
+    }
+
+    /**
+     * Parameterize an INSERT statement.
+     *
+     * @param cql CQL statement.
+     * @return {@link ParameterizedInsert} or null if the statement cannot be parameterized.
+     */
+    static ParameterizedInsert parse(String cql) {
+        CqlScanner scanner = new CqlScanner(cql);
+
+        if (!scanner.keyword("INSERT") || !scanner.keyword("INTO")) {
+            return null;
+        }
+
+        String keyspace = null;
+        String table = scanner.name();
+
+        if (table != null && scanner.symbol('.')) {
+            keyspace = table;
+            table = scanner.name();
+        }
+
+        if (table == null || !scanner.symbol('(')) {
+            return null;
+        }
+
+        List<String> columns = new ArrayList<String>();
+
+        do {
+            String column = scanner.name();
+
+            if (column == null) {
+                return null;
+            }
+
+            columns.add(column);
+        } while (scanner.symbol(','));
+
+        if (!scanner.symbol(')') || !scanner.keyword("VALUES") || !scanner.symbol('(')) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<String>();
+        List<CqlScanner.Literal> literals = new ArrayList<CqlScanner.Literal>();
+
+        do {
+            CqlScanner.Literal literal;
+
+            if (scanner.keyword("NULL")) {
+                values.add("null");
+            } else if ((literal = scanner.literal()) != null) {
+                values.add("?");
+                literals.add(literal);
+            } else {
+                return null;
+            }
+        } while (scanner.symbol(','));
+
+        if (!scanner.symbol(')') || values.size() != columns.size()) {
+            return null;
+        }
+
+        String options = scanner.rest();
+
+        // Only options without literals or bind markers, such as IF NOT EXISTS or USING TTL 10, are kept.
+        if (StringUtils.containsAny(options, "'\"$?:;")) {
+            return null;
+        }
+
+        options = StringUtils.join(StringUtils.split(options), ' ');
+
+        StringBuilder shape = new StringBuilder("INSERT INTO ");
+
+        if (keyspace != null) {
+            shape.append(keyspace).append('.');
+        }
+
+        shape.append(table)
+                .append(" (").append(StringUtils.join(columns, ", "))
+                .append(") VALUES (").append(StringUtils.join(values, ", ")).append(')');
+
+        if (!options.isEmpty()) {
+            shape.append(' ').append(options);
+        }
+
+        return new ParameterizedInsert(shape.toString(), keyspace, table, literals);
+    }
+
+    /**
+     * Get the parameterized CQL.
+     *
+     * @return CQL with a bind marker for each literal.
+     */
+    String getShape() {
+        return this.shape;
+    }
+
+    /**
+     * Get the keyspace of the table, as it appears in the statement.
+     *
+     * @return Keyspace or null if the table is not qualified.
+     */
+    String getKeyspace() {
+        return this.keyspace;
+    }
+
+    /**
+     * Get the table, as it appears in the statement.
+     *
+     * @return Table.
+     */
+    String getTable() {
+        return this.table;
+    }
+
+    /**
+     * Convert the literals to values for the bind markers of the prepared shape.
+     *
+     * @param variables Bind marker definitions of the prepared shape.
+     * @return Values or null if a literal cannot be converted to the type of its column.
+     */
+    Object[] bind(ColumnDefinitions variables) {
+        if (variables.size() != this.literals.size()) {
+            return null;
+        }
+
+        Object[] values = new Object[this.literals.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = convert(this.literals.get(i), variables.getType(i));
+            } catch (IllegalArgumentException e) {
+                // Includes NumberFormatException. Let Cassandra report the bad literal.
+                return null;
+            }
+
+            if (values[i] == null) {
+                return null;
+            }
+        }
+
+        return values;
+    }
+
+    private static Object convert(CqlScanner.Literal value, DataType type) {
+        // Compare names, as driver 2.0 does not have the newer types.
+        String name = type.getName().name();
+        String literal = value.getValue();
+
+        switch (value.getType()) {
+            case STRING:
+                return (name.equals("TEXT") || name.equals("VARCHAR") || name.equals("ASCII")) ? literal : null;
+            case BOOLEAN:
+                return name.equals("BOOLEAN") ? Boolean.valueOf(literal) : null;
+            case UUID:
+                return (name.equals("UUID") || name.equals("TIMEUUID")) ? UUID.fromString(literal) : null;
+            case BLOB:
+                return name.equals("BLOB") ? decodeHex(literal) : null;
+            case INTEGER:
+                if (name.equals("INT")) {
+                    return Integer.valueOf(literal);
+                } else if (name.equals("BIGINT") || name.equals("COUNTER")) {
+                    return Long.valueOf(literal);
+                } else if (name.equals("VARINT")) {
+                    return new BigInteger(literal);
+                } else if (name.equals("SMALLINT")) {
+                    return Short.valueOf(literal);
+                } else if (name.equals("TINYINT")) {
+                    return Byte.valueOf(literal);
+                } else if (name.equals("TIMESTAMP")) {
+                    return new Date(Long.parseLong(literal));
+                }
+                // An integer is also a valid float literal.
+                return convertFloat(name, literal);
+            case FLOAT:
+                return convertFloat(name, literal);
+            default:
+                return null;
+        }
+    }
+
+    private static Object convertFloat(String name, String literal) {
+        if (name.equals("DOUBLE")) {
+            return Double.valueOf(literal);
+        } else if (name.equals("FLOAT")) {
+            return Float.valueOf(literal);
+        } else if (name.equals("DECIMAL")) {
+            return new BigDecimal(literal);
+        }
+
+        return null;
+    }
+
+    /**
+     * Decode the hex digits of a blob.
+     *
+     * @param hex Hex digits without the 0x prefix.
+     * @return {@link ByteBuffer}
+     * @throws IllegalArgumentException if hex is not an even number of hex digits.
+     */
+    static ByteBuffer decodeHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd number of hex digits in blob.");
+        }
+
+        byte[] bytes = new byte[hex.length() / 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+
+            if (high == -1 || low == -1) {
+                throw new IllegalArgumentException("Invalid hex digit in blob.");
+            }
+
+            bytes[i] = (byte)((high << 4) + low);
+        }
+
+        return ByteBuffer.wrap(bytes);
+    }
+}
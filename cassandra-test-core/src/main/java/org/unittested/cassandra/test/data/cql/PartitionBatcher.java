@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.unittested.cassandra.test.util.Utils;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+
+/**
+ * Groups consecutive writes to the same partition into batches.
+ * <p>
+ * Consecutive INSERT, UPDATE and DELETE statements with the same table, partition key and consistency are sent as one
+ * UNLOGGED batch, or COUNTER batch for counter tables. The table's {@link TableMetadata} defines the partition key. A
+ * batch holds up to a max number of statements and {@link #MAX_BATCH_CQL_LENGTH} characters of CQL. Any other
+ * statement, including an explicit batch, conditional write or write with an unknown partition key, sends the
+ * pending batch first and then runs as is.
+ * <p>
+ * All statements of a batch get the same write timestamp, so Cassandra does not apply them in statement order. To keep
+ * the result of the statements in order, a write to a row that is already in the pending batch starts a new batch.
+ * DELETE statements are not batched with INSERT and UPDATE statements, and a DELETE of a whole partition is sent on its
+ * own. Rows are told apart by their primary key, except in tables with static columns, where every write to a
+ * partition starts a new batch.
+ * <p>
+ * If a {@link PreparedStatementCache} is set, statements are bound before they are sent.
+ */
+abstract class PartitionBatcher {
+
+    /**
+     * Max CQL characters in a batch, well below Cassandra's default batch size failure threshold of 50KB.
+     */
+    static final int MAX_BATCH_CQL_LENGTH = 32 * 1024;
+
+    private final Session session;
+    private final int maxBatchSize;
+    private final PreparedStatementCache preparedStatements;
+    private final List<Statement> pending = new ArrayList<Statement>();
+    private final Set<String> pendingRows = new HashSet<String>();
+    private String pendingKey;
+    private boolean pendingDelete;
+    private BatchStatement.Type pendingType;
+    private int pendingLength;
+
+    /**
+     * @param session {@link Session}
+     * @param maxBatchSize Max statements per batch. If less than 2, statements are sent as is.
+     * @param preparedStatements Cache to bind statements with or null to send statements as text.
+     */
+    PartitionBatcher(Session session, int maxBatchSize, PreparedStatementCache preparedStatements) {
+        this.session = session;
+        this.maxBatchSize = maxBatchSize;
+        this.preparedStatements = preparedStatements;
+    }
+
+    /**
+     * Add the next statement.
+     *
+     * @param statement Statement with consistency applied.
+     */
+    void add(Statement statement) {
+        if (this.maxBatchSize < 2
+                || !(statement instanceof RegularStatement)
+                || !CqlStatementInfo.of(statement).isWrite()) {
+            flush();
+            send(statement);
+            return;
+        }
+
+        String cql = ((RegularStatement)statement).getQueryString();
+        WriteStatement write = WriteStatement.parse(cql);
+        TableMetadata table = (write != null)
+                ? Utils.getTableMetadata(this.session, write.getKeyspace(), write.getTable()) : null;
+        String partitionKey = (table != null) ? write.getPartitionKey(table) : null;
+        boolean counter = (table != null) && isCounterTable(table);
+
+        // Counter batches only accept counter updates.
+        if (partitionKey == null || (counter && write.getKind() != WriteStatement.Kind.UPDATE)) {
+            flush();
+            send(statement);
+            return;
+        }
+
+        String key = table.getKeyspace().getName() + '.' + table.getName() + '\u0000' + partitionKey + '\u0000'
+                + statement.getConsistencyLevel() + '\u0000' + statement.getSerialConsistencyLevel();
+        String row = hasStaticColumns(table) ? partitionKey : write.getPrimaryKey(table);
+        boolean delete = write.getKind() == WriteStatement.Kind.DELETE;
+
+        if (!key.equals(this.pendingKey)
+                || this.pending.size() >= this.maxBatchSize
+                || this.pendingLength + cql.length() > MAX_BATCH_CQL_LENGTH
+                // Counter updates add up, so their order does not matter.
+                || (!counter && isOrdered(row, delete))) {
+            flush();
+        }
+
+        this.pending.add(statement);
+        this.pendingRows.add(row);
+        this.pendingKey = key;
+        this.pendingDelete = delete;
+        this.pendingType = counter ? BatchStatement.Type.COUNTER : BatchStatement.Type.UNLOGGED;
+        this.pendingLength += cql.length();
+    }
+
+    /**
+     * Send the pending batch.
+     */
+    void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        if (this.pending.size() == 1) {
+            send(this.pending.get(0));
+        } else {
+            Statement first = this.pending.get(0);
+            BatchStatement batch = new PartitionBatch(this.pendingType);
+
+            for (Statement statement : this.pending) {
+                batch.add(bind(statement));
+            }
+
+            if (first.getConsistencyLevel() != null) {
+                batch.setConsistencyLevel(first.getConsistencyLevel());
+            }
+
+            if (first.getSerialConsistencyLevel() != null) {
+                batch.setSerialConsistencyLevel(first.getSerialConsistencyLevel());
+            }
+
+            execute(batch);
+        }
+
+        this.pending.clear();
+        this.pendingRows.clear();
+        this.pendingKey = null;
+        this.pendingLength = 0;
+    }
+
+    /**
+     * Execute a statement or batch.
+     *
+     * @param statement Statement to execute.
+     */
+    protected abstract void execute(Statement statement);
+
+    private void send(Statement statement) {
+        execute(bind(statement));
+    }
+
+    private Statement bind(Statement statement) {
+        return (this.preparedStatements != null) ? this.preparedStatements.bind(this.session, statement) : statement;
+    }
+
+    // Must the write run after the pending batch to keep statement order?
+    private boolean isOrdered(String row, boolean delete) {
+        return !this.pending.isEmpty() && (row == null
+                || delete != this.pendingDelete
+                || this.pendingRows.contains(row)
+                || this.pendingRows.contains(null));
+    }
+
+    private static boolean hasStaticColumns(TableMetadata table) {
+        for (ColumnMetadata column : table.getColumns()) {
+            if (column.isStatic()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isCounterTable(TableMetadata table) {
+        for (ColumnMetadata column : table.getColumns()) {
+            if (column.getType().getName() == DataType.Name.COUNTER) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A batch of writes to one partition. Like the writes it replaces, it can run concurrently with other writes.
+     */
+    static class PartitionBatch extends BatchStatement {
+
+        private final BatchStatement.Type type;
+
+        PartitionBatch(BatchStatement.Type type) {
+            super(type);
+            this.type = type;
+        }
+
+        BatchStatement.Type getType() {
+            return this.type;
+        }
+    }
+}
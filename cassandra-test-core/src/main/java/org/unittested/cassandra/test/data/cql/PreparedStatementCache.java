@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.util.Utils;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+
+/**
+ * Prepared statements for the INSERTs of CQL resources, per {@link Session}.
+ * <p>
+ * INSERTs that differ only in their literal values share a shape, the INSERT with bind markers in place of its
+ * literals. The first time a shape is seen, the INSERT runs as text. When the shape repeats, it is prepared once for
+ * the session and later INSERTs of the shape run as bound statements. INSERTs that cannot be bound safely, such as
+ * INSERTs with collection literals or with literals that do not match their column type, run as text.
+ * <p>
+ * A shape is prepared again when the metadata of its table changes. The cache holds up to a max number of shapes,
+ * evicting the least recently used.
+ */
+public class PreparedStatementCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final Map<Session, PreparedStatementCache> CACHES = new WeakHashMap<Session, PreparedStatementCache>();
+
+    private final int maxSize;
+    private final Map<String, Shape> shapes;
+    private long prepares;
+
+    public PreparedStatementCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize Max number of shapes.
+     */
+    public PreparedStatementCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new CassandraTestException("Prepared statement cache size must be at least 1, but got %d", maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.shapes = new LinkedHashMap<String, Shape>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Shape> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the cache of a session, creating a new cache on first use.
+     *
+     * @param session {@link Session}
+     * @return {@link PreparedStatementCache}
+     */
+    public static PreparedStatementCache forSession(Session session) {
+        synchronized (CACHES) {
+            PreparedStatementCache cache = CACHES.get(session);
+
+            if (cache == null) {
+                cache = new PreparedStatementCache();
+                CACHES.put(session, cache);
+            }
+
+            return cache;
+        }
+    }
+
+    /**
+     * Get a statement to execute in place of a statement from a CQL resource.
+     *
+     * @param session {@link Session} the statement will be executed with.
+     * @param statement Statement with consistency applied.
+     * @return A bound statement of the statement's shape or the passed in statement if it is not bound.
+     */
+    public Statement bind(Session session, Statement statement) {
+        if (!(statement instanceof RegularStatement)
+                || statement instanceof ConsistencyStatement
+                || CqlStatementInfo.of(statement).getKind() != CqlStatementKind.INSERT) {
+            return statement;
+        }
+
+        ParameterizedInsert insert = ParameterizedInsert.parse(((RegularStatement)statement).getQueryString());
+
+        if (insert == null) {
+            return statement;
+        }
+
+        TableMetadata table = Utils.getTableMetadata(session, insert.getKeyspace(), insert.getTable());
+        PreparedStatement prepared;
+        Shape shape;
+
+        synchronized (this.shapes) {
+            shape = this.shapes.get(insert.getShape());
+
+            if (shape == null) {
+                this.shapes.put(insert.getShape(), shape = new Shape());
+            }
+
+            if (shape.count < 2) {
+                shape.count++;
+            }
+
+            if (shape.count < 2) {
+                return statement;
+            }
+
+            if (shape.table != table) {
+                shape.prepared = null;
+                shape.failed = false;
+            }
+
+            if (shape.failed) {
+                return statement;
+            }
+
+            prepared = shape.prepared;
+        }
+
+        if (prepared == null) {
+            try {
+                prepared = session.prepare(insert.getShape());
+            } catch (RuntimeException e) {
+                prepared = null;
+            }
+
+            synchronized (this.shapes) {
+                shape.prepared = prepared;
+                shape.table = table;
+                shape.failed = (prepared == null);
+                this.prepares++;
+            }
+
+            if (prepared == null) {
+                // Cassandra reports the error when the statement runs as text.
+                return statement;
+            }
+        }
+
+        Object[] values = insert.bind(prepared.getVariables());
+
+        if (values == null) {
+            return statement;
+        }
+
+        BoundStatement boundStatement;
+
+        try {
+            boundStatement = prepared.bind(values);
+        } catch (RuntimeException e) {
+            return statement;
+        }
+
+        if (statement.getConsistencyLevel() != null) {
+            boundStatement.setConsistencyLevel(statement.getConsistencyLevel());
+        }
+
+        if (statement.getSerialConsistencyLevel() != null) {
+            boundStatement.setSerialConsistencyLevel(statement.getSerialConsistencyLevel());
+        }
+
+        return boundStatement;
+    }
+
+    /**
+     * Get the prepared statement of a CQL statement with bind markers, preparing it on first use.
+     * <p>
+     * Unlike {@link #bind(Session, Statement)}, the statement is prepared the first time it is seen. It is prepared
+     * again when the metadata of its table changes.
+     *
+     * @param session {@link Session}
+     * @param cql CQL statement with bind markers.
+     * @param table Metadata of the statement's table.
+     * @return {@link PreparedStatement}
+     * @throws CassandraTestException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(Session session, String cql, TableMetadata table) {
+        Shape shape;
+
+        synchronized (this.shapes) {
+            shape = this.shapes.get(cql);
+
+            if (shape == null) {
+                this.shapes.put(cql, shape = new Shape());
+            }
+
+            shape.count = 2;
+
+            if (shape.prepared != null && shape.table == table) {
+                return shape.prepared;
+            }
+        }
+
+        PreparedStatement prepared;
+
+        try {
+            prepared = session.prepare(cql);
+        } catch (RuntimeException e) {
+            throw new CassandraTestException("Failed to prepare '%s'", cql, e);
+        }
+
+        synchronized (this.shapes) {
+            shape.prepared = prepared;
+            shape.table = table;
+            shape.failed = false;
+            this.prepares++;
+        }
+
+        return prepared;
+    }
+
+    /**
+     * Get the number of shapes in the cache.
+     *
+     * @return Number of shapes.
+     */
+    public int size() {
+        synchronized (this.shapes) {
+            return this.shapes.size();
+        }
+    }
+
+    /**
+     * Get the max number of shapes in the cache.
+     *
+     * @return Max number of shapes.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Get the number of times a shape has been prepared.
+     *
+     * @return Number of prepares.
+     */
+    public long getPrepares() {
+        synchronized (this.shapes) {
+            return this.prepares;
+        }
+    }
+
+    /**
+     * Remove all shapes.
+     */
+    public void clear() {
+        synchronized (this.shapes) {
+            this.shapes.clear();
+        }
+    }
+
+    private static class Shape {
+        private int count;
+        private PreparedStatement prepared;
+        private TableMetadata table;
+        private boolean failed;
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.pool.BasicSessionPool;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.util.DriverCompatibility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+/**
+ * {@link CqlResourceLoader} for installing schema.
+ * <p>
+ * By default, the driver waits up to 10 seconds for all nodes to agree on the schema after each schema altering
+ * statement. This loader sends schema through a dedicated cluster connection with the per statement wait cut to one
+ * second and waits for full schema agreement only at dependency barriers and once at the end of the resource. The test
+ * session is not changed, so its schema altering statements still wait for agreement, and USE statements in the
+ * resource do not change its keyspace. After the install, the loader waits until the test cluster's metadata shows the
+ * installed schema, so schema digests and table metadata read through the test session are current.
+ * <p>
+ * A barrier is reached when a statement may depend on schema that has not been agreed on yet, such as a table using a
+ * user type created earlier in the resource. Statements of the same kind, like a list of CREATE TABLE statements, are
+ * sent without waiting. User types can use other user types, so each CREATE TYPE waits for agreement on the user types
+ * created before it.
+ * <p>
+ * With a parallelism greater than 1, CREATE statements between two barriers are independent of each other and are
+ * sent concurrently, at most parallelism at a time. The barriers order the statements by dependency: keyspaces, then
+ * user types one at a time, functions and aggregates, then tables, then indexes, materialized views and triggers.
+ * Failed statements are not retried. ALTER, DROP and data statements run one at a time, after all earlier statements
+ * have completed, so the resulting schema is the same as with a sequential install.
+ * <p>
+ * Changing the per statement wait requires driver 3.0 or later. With older drivers, statements are sent through the
+ * test session and the driver waits for schema agreement after each of them.
+ */
+public class SchemaCqlResourceLoader extends BasicCqlResourceLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaCqlResourceLoader.class);
+
+    private static final int DEFAULT_MAX_SCHEMA_AGREEMENT_WAIT_SECONDS = 10;
+    // Per statement wait of the install cluster. The driver logs a warning after each statement when the wait is 0.
+    private static final int INSTALL_MAX_SCHEMA_AGREEMENT_WAIT_SECONDS = 1;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    // Schema dependency levels. A statement must wait for agreement on pending schema of a lower level.
+    private static final int KEYSPACE = 0;
+    private static final int TYPE = 1;
+    private static final int FUNCTION = 2;
+    private static final int AGGREGATE = 3;
+    private static final int TABLE = 4;
+    private static final int TABLE_DEPENDENT = 5;
+    private static final int DATA = 6;
+    private static final int NONE_PENDING = Integer.MAX_VALUE;
+
+    private final int parallelism;
+    private final ThreadLocal<Install> install = new ThreadLocal<Install>();
+    private final AtomicInteger schemaAgreementWaits = new AtomicInteger();
+    private final AtomicLong schemaAgreementWaitNanos = new AtomicLong();
+
+    public SchemaCqlResourceLoader() {
+        this(CqlStatementCache.SHARED, 1);
+    }
+
+    public SchemaCqlResourceLoader(boolean enableCache) {
+        this(enableCache, 1);
+    }
+
+    public SchemaCqlResourceLoader(boolean enableCache, int parallelism) {
+        this(enableCache ? new CqlStatementCache() : null, parallelism);
+    }
+
+    public SchemaCqlResourceLoader(CqlStatementCache cache, int parallelism) {
+        super(cache);
+
+        if (parallelism < 1) {
+            throw new CassandraTestException("Schema parallelism must be at least 1, but got %d", parallelism);
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void loadCqlResource(TestRuntime runtime, Resource resource) throws IOException {
+        Install current = begin(runtime);
+
+        try {
+            super.loadCqlResource(runtime, resource);
+            finish(current);
+        } finally {
+            end(current);
+        }
+
+        LOG.debug("Installed schema from {}. Waited for schema agreement {} times, {} ms in total.",
+                resource.getPath(), current.waits, TimeUnit.NANOSECONDS.toMillis(current.waitNanos));
+    }
+
+    @Override
+    public void loadStatements(TestRuntime runtime, Collection<? extends Statement> statements) {
+        Install current = begin(runtime);
+
+        try {
+            super.loadStatements(runtime, statements);
+            finish(current);
+        } finally {
+            end(current);
+        }
+
+        LOG.debug("Installed {} schema statements. Waited for schema agreement {} times, {} ms in total.",
+                statements.size(), current.waits, TimeUnit.NANOSECONDS.toMillis(current.waitNanos));
+    }
+
+    private Install begin(TestRuntime runtime) {
+        Session session = runtime.getKeyspace().getSession();
+        Integer maxWaitSeconds = DriverCompatibility.getMaxSchemaAgreementWaitSeconds(session.getCluster());
+        ConnectSettings connectSettings = runtime.getTestSettings() != null
+                ? runtime.getTestSettings().getConnectSettings() : null;
+        Install current;
+
+        if (maxWaitSeconds != null && connectSettings != null) {
+            Session pooledSession = BasicSessionPool.DEFAULT.acquire(new InstallConnectSettings(connectSettings));
+            Session installSession;
+
+            try {
+                // A session per install, so USE statements of one install do not affect another.
+                String keyspace = session.getLoggedKeyspace();
+                installSession = keyspace != null
+                        ? pooledSession.getCluster().connect(keyspace) : pooledSession.getCluster().connect();
+            } catch (RuntimeException e) {
+                BasicSessionPool.DEFAULT.release(pooledSession);
+                throw e;
+            }
+
+            current = new Install(pooledSession, installSession, session.getCluster(), maxWaitSeconds);
+        } else {
+            current = new Install(session.getCluster(), DEFAULT_MAX_SCHEMA_AGREEMENT_WAIT_SECONDS);
+        }
+
+        this.install.set(current);
+
+        return current;
+    }
+
+    private void finish(Install current) {
+        complete(current);
+
+        if (current.pendingLevel != NONE_PENDING) {
+            awaitSchemaAgreement(current);
+        }
+
+        awaitTestClusterMetadata(current);
+    }
+
+    private void end(Install current) {
+        try {
+            // If loading failed, do not leave statements running.
+            while (!current.inFlight.isEmpty()) {
+                try {
+                    current.inFlight.remove(0).getUninterruptibly();
+                } catch (RuntimeException e) {
+                    LOG.debug("Schema statement failed after an earlier failure.", e);
+                }
+            }
+        } finally {
+            this.install.remove();
+
+            if (current.pooledSession != null) {
+                try {
+                    current.session.close();
+                } finally {
+                    BasicSessionPool.DEFAULT.release(current.pooledSession);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of times this loader waited for schema agreement.
+     *
+     * @return Schema agreement wait count.
+     */
+    public int getSchemaAgreementWaits() {
+        return this.schemaAgreementWaits.get();
+    }
+
+    /**
+     * Get the total time this loader spent waiting for schema agreement.
+     *
+     * @return Wait time in milliseconds.
+     */
+    public long getSchemaAgreementWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.schemaAgreementWaitNanos.get());
+    }
+
+    @Override
+    protected void execute(Session session, Statement statement) {
+        Install current = this.install.get();
+
+        if (current == null) {
+            super.execute(session, statement);
+            return;
+        }
+
+        if (current.session != null) {
+            session = current.session;
+        }
+
+        CqlStatementInfo info = CqlStatementInfo.of(statement);
+        int level = getSchemaLevel(info);
+        boolean create = level != DATA && info.getKind() == CqlStatementKind.CREATE;
+
+        // CREATE waits for lower levels. ALTER, DROP and CREATE TYPE also wait for pending schema of the same level.
+        int requiredLevel = create && level != TYPE ? level : level + 1;
+
+        if (current.pendingLevel < requiredLevel) {
+            complete(current);
+
+            if (current.pendingLevel < requiredLevel) {
+                awaitSchemaAgreement(current);
+            }
+        }
+
+        if (this.parallelism > 1 && create) {
+            // Limit the number of concurrent statements by completing the oldest one.
+            while (current.inFlight.size() >= this.parallelism) {
+                current.inFlight.remove(0).getUninterruptibly();
+            }
+
+            current.inFlight.add(session.executeAsync(statement));
+        } else {
+            complete(current);
+            session.execute(statement);
+        }
+
+        if (level == DATA) {
+            return;
+        }
+
+        if (current.session != null) {
+            String keyspace = info.getKeyspace() != null ? info.getKeyspace() : session.getLoggedKeyspace();
+
+            if (keyspace != null) {
+                current.keyspaces.add(keyspace);
+            }
+        }
+
+        if (info.getKind() == CqlStatementKind.DROP) {
+            // Anything after a DROP may re-create the dropped schema. Wait before the next statement.
+            current.pendingLevel = -1;
+        } else {
+            current.pendingLevel = Math.min(current.pendingLevel, level);
+        }
+    }
+
+    // Wait for all concurrent statements.
+    private void complete(Install current) {
+        while (!current.inFlight.isEmpty()) {
+            current.inFlight.remove(0).getUninterruptibly();
+        }
+    }
+
+    private void awaitSchemaAgreement(Install current) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(current.maxWaitSeconds);
+        Boolean agreement = DriverCompatibility.checkSchemaAgreement(current.cluster);
+
+        while (agreement != null && !agreement && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            agreement = DriverCompatibility.checkSchemaAgreement(current.cluster);
+        }
+
+        if (agreement != null && !agreement) {
+            LOG.warn("Schema agreement was not reached after {} seconds.", current.maxWaitSeconds);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        current.pendingLevel = NONE_PENDING;
+        current.waits++;
+        current.waitNanos += elapsed;
+        this.schemaAgreementWaits.incrementAndGet();
+        this.schemaAgreementWaitNanos.addAndGet(elapsed);
+    }
+
+    // The test cluster learns about the install from schema change events. Wait until its metadata has caught up.
+    private void awaitTestClusterMetadata(Install current) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(current.maxWaitSeconds);
+
+        while (!isTestClusterMetadataCurrent(current)) {
+            if (System.nanoTime() >= deadline) {
+                LOG.warn("Test cluster metadata did not show the installed schema after {} seconds.",
+                        current.maxWaitSeconds);
+                return;
+            }
+
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static boolean isTestClusterMetadataCurrent(Install current) {
+        for (String keyspace : current.keyspaces) {
+            KeyspaceMetadata installed = current.cluster.getMetadata().getKeyspace(keyspace);
+            KeyspaceMetadata test = current.testCluster.getMetadata().getKeyspace(keyspace);
+
+            if (!StringUtils.equals(installed != null ? installed.exportAsString() : null,
+                    test != null ? test.exportAsString() : null)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static int getSchemaLevel(CqlStatementInfo info) {
+        if (info.getKind() != CqlStatementKind.CREATE
+                && info.getKind() != CqlStatementKind.ALTER
+                && info.getKind() != CqlStatementKind.DROP) {
+            return DATA;
+        }
+
+        if (info.getSchemaObject() == null) {
+            return DATA;
+        }
+
+        switch (info.getSchemaObject()) {
+            case KEYSPACE:
+                return KEYSPACE;
+            case TYPE:
+                return TYPE;
+            case FUNCTION:
+                return FUNCTION;
+            case AGGREGATE:
+                return AGGREGATE;
+            case TABLE:
+                return TABLE;
+            case INDEX:
+            case MATERIALIZED_VIEW:
+            case TRIGGER:
+                return TABLE_DEPENDENT;
+            default:
+                // Users and roles do not affect the schema.
+                return DATA;
+        }
+    }
+
+    /**
+     * Connection settings of the dedicated cluster used for schema installs.
+     * <p>
+     * Equal to other install settings with equal test connection settings, so installs of all test classes share one
+     * pooled cluster. The cluster is separate from the test cluster, because the schema agreement wait is a cluster
+     * wide setting.
+     */
+    private static class InstallConnectSettings implements ConnectSettings {
+
+        private final ConnectSettings connectSettings;
+
+        InstallConnectSettings(ConnectSettings connectSettings) {
+            this.connectSettings = connectSettings;
+        }
+
+        @Override
+        public Cluster.Builder getClusterBuilder() {
+            return this.connectSettings.getClusterBuilder();
+        }
+
+        @Override
+        public Session connect() {
+            Session session = this.connectSettings.connect();
+            DriverCompatibility.setMaxSchemaAgreementWaitSeconds(
+                    session.getCluster(), INSTALL_MAX_SCHEMA_AGREEMENT_WAIT_SECONDS);
+            return session;
+        }
+
+        @Override
+        public long getKeepAlive() {
+            return this.connectSettings.getKeepAlive();
+        }
+
+        @Override
+        public boolean isLazy() {
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof InstallConnectSettings
+                    && this.connectSettings.equals(((InstallConnectSettings)o).connectSettings);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.connectSettings.hashCode() + 1;
+        }
+    }
+
+    private static class Install {
+        private final Session pooledSession;
+        private final Session session;
+        private final Cluster cluster;
+        private final Cluster testCluster;
+        private final int maxWaitSeconds;
+        private final List<ResultSetFuture> inFlight = new ArrayList<ResultSetFuture>();
+        // Keyspaces changed through the install session.
+        private final Set<String> keyspaces = new LinkedHashSet<String>();
+        private int pendingLevel = NONE_PENDING;
+        private int waits;
+        private long waitNanos;
+
+        Install(Cluster cluster, int maxWaitSeconds) {
+            this(null, null, cluster, cluster, maxWaitSeconds);
+        }
+
+        Install(Session pooledSession, Session session, Cluster testCluster, int maxWaitSeconds) {
+            this(pooledSession, session, session.getCluster(), testCluster, maxWaitSeconds);
+        }
+
+        private Install(Session pooledSession, Session session, Cluster cluster, Cluster testCluster,
+                        int maxWaitSeconds) {
+            this.pooledSession = pooledSession;
+            this.session = session;
+            this.cluster = cluster;
+            this.testCluster = testCluster;
+            this.maxWaitSeconds = maxWaitSeconds;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.TableMetadata;
+
+/**
+ * The table and key of an INSERT, UPDATE or DELETE statement.
+ * <p>
+ * Only columns set to, or compared with =, a simple literal are known. Conditional (IF) writes are not parsed.
+ */
+final class WriteStatement {
+
+    enum Kind { INSERT, UPDATE, DELETE }
+
+    private final Kind kind;
+    private final String keyspace;
+    private final String table;
+    private final Map<String, CqlScanner.Literal> values;
+
+    private WriteStatement(Kind kind, String keyspace, String table, Map<String, CqlScanner.Literal> values) {
+        this.kind = kind;
+        this.keyspace = keyspace;
+        this.table = table;
+        this.values = values;
+    }
+
+    /**
+     * Parse a write statement.
+     *
+     * @param cql CQL statement.
+     * @return {@link WriteStatement} or null if the statement is not an unconditional INSERT, UPDATE or DELETE.
+     */
+    static WriteStatement parse(String cql) {
+        CqlScanner scanner = new CqlScanner(cql);
+        WriteStatement write = null;
+
+        if (scanner.keyword("INSERT")) {
+            write = parseInsert(scanner);
+        } else if (scanner.keyword("UPDATE")) {
+            write = parseUpdateOrDelete(scanner, Kind.UPDATE);
+        } else if (scanner.keyword("DELETE")) {
+            write = scanner.skipTo("FROM") ? parseUpdateOrDelete(scanner, Kind.DELETE) : null;
+        }
+
+        // Conditional writes are not batched.
+        return (write != null && !new CqlScanner(cql).skipTo("IF")) ? write : null;
+    }
+
+    /**
+     * Get the statement kind.
+     *
+     * @return {@link Kind}
+     */
+    Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Get the keyspace of the table, as it appears in the statement.
+     *
+     * @return Keyspace or null if the table is not qualified.
+     */
+    String getKeyspace() {
+        return this.keyspace;
+    }
+
+    /**
+     * Get the table, as it appears in the statement.
+     *
+     * @return Table.
+     */
+    String getTable() {
+        return this.table;
+    }
+
+    /**
+     * Get the partition key of the write.
+     *
+     * @param tableMetadata Metadata of the statement's table.
+     * @return Partition key column values, in partition key order, or null if a value is not known.
+     */
+    String getPartitionKey(TableMetadata tableMetadata) {
+        return getKey(tableMetadata.getPartitionKey());
+    }
+
+    /**
+     * Get the primary key of the row written.
+     *
+     * @param tableMetadata Metadata of the statement's table.
+     * @return Partition key and clustering column values, in primary key order, or null if a value is not known, such
+     * as for a DELETE of a whole partition.
+     */
+    String getPrimaryKey(TableMetadata tableMetadata) {
+        String partitionKey = getPartitionKey(tableMetadata);
+        String clusteringKey = getKey(tableMetadata.getClusteringColumns());
+
+        return (partitionKey != null && clusteringKey != null) ? partitionKey + clusteringKey : null;
+    }
+
+    private String getKey(List<ColumnMetadata> columns) {
+        StringBuilder key = new StringBuilder();
+
+        for (ColumnMetadata column : columns) {
+            CqlScanner.Literal value = this.values.get(column.getName());
+
+            if (value == null) {
+                return null;
+            }
+
+            key.append(value).append('\u0000');
+        }
+
+        return key.toString();
+    }
+
+    private static WriteStatement parseInsert(CqlScanner scanner) {
+        if (!scanner.keyword("INTO")) {
+            return null;
+        }
+
+        String[] table = readTable(scanner);
+
+        if (table == null || !scanner.symbol('(')) {
+            return null;
+        }
+
+        List<String> columns = new ArrayList<String>();
+
+        do {
+            String column = scanner.name();
+
+            if (column == null) {
+                return null;
+            }
+
+            columns.add(CqlScanner.normalizeName(column));
+        } while (scanner.symbol(','));
+
+        if (!scanner.symbol(')') || !scanner.keyword("VALUES") || !scanner.symbol('(')) {
+            return null;
+        }
+
+        Map<String, CqlScanner.Literal> values = new HashMap<String, CqlScanner.Literal>();
+        int index = 0;
+
+        do {
+            CqlScanner.Literal literal = scanner.literal();
+
+            if (literal != null) {
+                if (index < columns.size()) {
+                    values.put(columns.get(index), literal);
+                }
+            } else if (!scanner.skipTerm()) {
+                return null;
+            }
+
+            index++;
+        } while (scanner.symbol(','));
+
+        if (!scanner.symbol(')') || index != columns.size()) {
+            return null;
+        }
+
+        return new WriteStatement(Kind.INSERT, table[0], table[1], values);
+    }
+
+    private static WriteStatement parseUpdateOrDelete(CqlScanner scanner, Kind kind) {
+        String[] table = readTable(scanner);
+
+        if (table == null || !scanner.skipTo("WHERE")) {
+            return null;
+        }
+
+        Map<String, CqlScanner.Literal> values = new HashMap<String, CqlScanner.Literal>();
+
+        do {
+            String column = scanner.name();
+
+            if (column != null && scanner.symbol('=')) {
+                CqlScanner.Literal literal = scanner.literal();
+
+                if (literal != null) {
+                    values.put(CqlScanner.normalizeName(column), literal);
+                }
+            }
+        } while (scanner.skipTo("AND"));
+
+        return new WriteStatement(kind, table[0], table[1], values);
+    }
+
+    private static String[] readTable(CqlScanner scanner) {
+        String keyspace = null;
+        String table = scanner.name();
+
+        if (table != null && scanner.symbol('.')) {
+            keyspace = table;
+            table = scanner.name();
+        }
+
+        return (table != null) ? new String[] { keyspace, table } : null;
+    }
+}
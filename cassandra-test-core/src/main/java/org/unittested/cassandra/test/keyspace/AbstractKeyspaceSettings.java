@@ -18,28 +18,64 @@ package org.unittested.cassandra.test.keyspace;
 
 /**
  * Common code for {@link KeyspaceSettings} implementations.
+ * <p>
+ * The keyspace name is sharded by {@link KeyspaceSharding}, so parallel test workers use different keyspaces.
  */
 public abstract class AbstractKeyspaceSettings implements KeyspaceSettings {
 
     private String keyspace;
     private boolean canDropKeyspace;
     private String [] protectedTables;
+    private KeyspaceSharding keyspaceSharding;
 
     public AbstractKeyspaceSettings(
             String keyspace, boolean
             isCaseSensitiveKeyspace,
             boolean canDropKeyspace,
             String[] protectedTables) {
+        this(keyspace, isCaseSensitiveKeyspace, canDropKeyspace, protectedTables, KeyspaceSharding.DEFAULT);
+    }
+
+    public AbstractKeyspaceSettings(
+            String keyspace, boolean
+            isCaseSensitiveKeyspace,
+            boolean canDropKeyspace,
+            String[] protectedTables,
+            KeyspaceSharding keyspaceSharding) {
         this.keyspace = isCaseSensitiveKeyspace ? keyspace : keyspace.toLowerCase();
         this.protectedTables = protectedTables;
         this.canDropKeyspace = canDropKeyspace;
+        this.keyspaceSharding = keyspaceSharding;
     }
 
+    /**
+     * Keyspace name of the current test worker.
+     *
+     * @return Keyspace name.
+     */
     @Override
     public String getKeyspace() {
+        return this.keyspaceSharding.shard(this.keyspace);
+    }
+
+    /**
+     * Keyspace name, as configured, without the worker suffix.
+     *
+     * @return Keyspace name.
+     */
+    public String getUnshardedKeyspace() {
         return this.keyspace;
     }
 
+    /**
+     * Keyspace sharding of these settings.
+     *
+     * @return {@link KeyspaceSharding}
+     */
+    public KeyspaceSharding getKeyspaceSharding() {
+        return this.keyspaceSharding;
+    }
+
     @Override
     public boolean canDropKeyspace() {
         return this.canDropKeyspace;
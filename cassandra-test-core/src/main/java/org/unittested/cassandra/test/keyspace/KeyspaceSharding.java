@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Suffixes keyspace names with a worker id, so parallel test workers each get their own keyspaces.
+ * <p>
+ * Sharding is configured with the {@value #SHARD_PROPERTY} property:
+ * <ul>
+ *     <li>"thread": Each test thread is a worker. Threads are numbered from 1 in the order they first use a keyspace.</li>
+ *     <li>"fork": Each Surefire fork is a worker. The fork number is read from the {@value #FORK_NUMBER_PROPERTY}
+ *     system property. If Surefire does not set it, pass it with &lt;systemPropertyVariables&gt;.</li>
+ *     <li>Any other value is used as the worker id, such as a CI executor number.</li>
+ *     <li>Empty or "none": Sharding is off.</li>
+ * </ul>
+ * With sharding on, @CassandraKeyspace("orders") uses keyspace orders_1 in worker 1 and orders_2 in worker 2.
+ * Schema sources must not refer to the keyspace by name.
+ */
+public final class KeyspaceSharding {
+
+    /**
+     * Property that configures keyspace sharding.
+     */
+    public static final String SHARD_PROPERTY = "cassandra.test.keyspace.shard";
+
+    /**
+     * System property with the Surefire fork number.
+     */
+    public static final String FORK_NUMBER_PROPERTY = "surefire.forkNumber";
+
+    /**
+     * No sharding. Keyspace names are used as is.
+     */
+    public static final KeyspaceSharding NONE = new KeyspaceSharding(null, false);
+
+    /**
+     * Sharding configured by {@link PropertiesPropertyResolver#DEFAULT}.
+     */
+    public static final KeyspaceSharding DEFAULT = fromProperties(PropertiesPropertyResolver.DEFAULT);
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyspaceSharding.class);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ThreadLocal<String> THREAD_ID = new ThreadLocal<String>() {
+        @Override
+        protected String initialValue() {
+            return Integer.toString(THREAD_COUNT.incrementAndGet());
+        }
+    };
+
+    private final String workerId;
+    private final boolean perThread;
+
+    private KeyspaceSharding(String workerId, boolean perThread) {
+        this.workerId = workerId;
+        this.perThread = perThread;
+    }
+
+    /**
+     * Create keyspace sharding from the {@value #SHARD_PROPERTY} property.
+     *
+     * @param propertyResolver Properties.
+     * @return {@link KeyspaceSharding}
+     */
+    public static KeyspaceSharding fromProperties(PropertyResolver propertyResolver) {
+        String value = propertyResolver.getProperty(SHARD_PROPERTY, "").trim();
+
+        if (value.isEmpty() || value.equalsIgnoreCase("none")) {
+            return NONE;
+        } else if (value.equalsIgnoreCase("thread")) {
+            return new KeyspaceSharding(null, true);
+        } else if (value.equalsIgnoreCase("fork")) {
+            String forkNumber = propertyResolver.getProperty(FORK_NUMBER_PROPERTY, "").trim();
+
+            if (forkNumber.isEmpty()) {
+                LOG.warn("Keyspace sharding by fork is off. System property {} is not set.", FORK_NUMBER_PROPERTY);
+                return NONE;
+            }
+
+            return new KeyspaceSharding(forkNumber, false);
+        }
+
+        return new KeyspaceSharding(value, false);
+    }
+
+    /**
+     * Is sharding on?
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isEnabled() {
+        return this.perThread || this.workerId != null;
+    }
+
+    /**
+     * Get the worker id of the current thread.
+     *
+     * @return Worker id or null if sharding is off.
+     */
+    public String getWorkerId() {
+        return this.perThread ? THREAD_ID.get() : this.workerId;
+    }
+
+    /**
+     * Get the keyspace name of the current worker.
+     *
+     * @param keyspace Keyspace name.
+     * @return The keyspace name with the worker id suffix. If sharding is off or the keyspace is empty, the keyspace
+     *         name is returned as is.
+     */
+    public String shard(String keyspace) {
+        if (!isEnabled() || keyspace == null || keyspace.isEmpty()) {
+            return keyspace;
+        }
+
+        return keyspace + "_" + getWorkerId().replaceAll("\\W", "_");
+    }
+}
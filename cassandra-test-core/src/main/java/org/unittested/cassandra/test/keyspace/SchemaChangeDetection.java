@@ -27,10 +27,16 @@ public final class SchemaChangeDetection {
     public final static String CLUSTER = "CLUSTER";
 
     /**
-     * Use the keyspace's schema (hashCode of CQL) to detect schema changes.
+     * Use the keyspace's schema (digest of the driver's schema metadata) to detect schema changes.
      */
     public final static String KEYSPACE = "KEYSPACE";
 
+    /**
+     * Use driver schema change events to detect schema changes. The keyspace's schema is only compared after an
+     * event for the keyspace is received. Requires driver 3.0 or later.
+     */
+    public final static String EVENT = "EVENT";
+
     /**
      * Disable schema change detection.
      */
@@ -8,5 +8,6 @@ package org.unittested.cassandra.test.keyspace;
 public enum SchemaChangeDetectionEnum {
     CLUSTER,
     KEYSPACE,
+    EVENT,
     NONE;
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.TableMetadata;
+
+/**
+ * Tracks schema change events of a {@link Cluster}.
+ * <p>
+ * A monitor registers a driver SchemaChangeListener on its cluster and counts schema events per keyspace. A keyspace
+ * is clean when no event has been received for it since it was marked clean. Checking whether a keyspace is clean
+ * does not query Cassandra. Used by {@link SchemaChangeDetectionEnum#EVENT}.
+ * <p>
+ * SchemaChangeListener requires driver 3.0 or later. The listener is a reflection proxy, so this class still runs with
+ * 2.x drivers, where registering a monitor fails with a clear error.
+ */
+public class SchemaChangeMonitor {
+
+    private static final String LISTENER_CLASS_NAME = "com.datastax.driver.core.SchemaChangeListener";
+    private static final Map<Cluster, SchemaChangeMonitor> MONITORS = new WeakHashMap<Cluster, SchemaChangeMonitor>();
+
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> keyspaceVersions = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, Long> cleanVersions = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Get the monitor of a cluster, registering a new monitor on first use.
+     *
+     * @param cluster {@link Cluster}
+     * @return {@link SchemaChangeMonitor}
+     */
+    public static SchemaChangeMonitor forCluster(Cluster cluster) {
+        synchronized (MONITORS) {
+            SchemaChangeMonitor monitor = MONITORS.get(cluster);
+
+            if (monitor == null) {
+                monitor = new SchemaChangeMonitor();
+                monitor.register(cluster);
+                MONITORS.put(cluster, monitor);
+            }
+
+            return monitor;
+        }
+    }
+
+    /**
+     * Get the current event version of a keyspace. The version changes whenever a schema event for the keyspace
+     * is received.
+     *
+     * @param keyspace Case sensitive keyspace name.
+     * @return Event version.
+     */
+    public long getVersion(String keyspace) {
+        AtomicLong keyspaceVersion = this.keyspaceVersions.get(keyspace);
+
+        return this.globalVersion.get() + (keyspaceVersion != null ? keyspaceVersion.get() : 0);
+    }
+
+    /**
+     * Has no schema event been received for a keyspace since it was marked clean?
+     *
+     * @param keyspace Case sensitive keyspace name.
+     * @return {@link Boolean}
+     */
+    public boolean isClean(String keyspace) {
+        Long cleanVersion = this.cleanVersions.get(keyspace);
+
+        return cleanVersion != null && cleanVersion == getVersion(keyspace);
+    }
+
+    /**
+     * Mark a keyspace clean as of an event version.
+     * <p>
+     * Pass the version read before checking the keyspace schema, so that events received during the check leave
+     * the keyspace dirty.
+     *
+     * @param keyspace Case sensitive keyspace name.
+     * @param version Event version from {@link #getVersion(String)}.
+     */
+    public void markClean(String keyspace, long version) {
+        this.cleanVersions.put(keyspace, version);
+    }
+
+    /**
+     * Record a schema event.
+     *
+     * @param metadata The schema element of the event.
+     */
+    void onSchemaChange(Object metadata) {
+        String keyspace = getKeyspaceName(metadata);
+
+        if (keyspace == null) {
+            this.globalVersion.incrementAndGet();
+            return;
+        }
+
+        AtomicLong keyspaceVersion = this.keyspaceVersions.get(keyspace);
+
+        if (keyspaceVersion == null) {
+            AtomicLong existing = this.keyspaceVersions.putIfAbsent(keyspace, keyspaceVersion = new AtomicLong());
+
+            if (existing != null) {
+                keyspaceVersion = existing;
+            }
+        }
+
+        keyspaceVersion.incrementAndGet();
+    }
+
+    private void register(Cluster cluster) {
+        Class<?> listenerClass;
+        Method register;
+
+        try {
+            listenerClass = Class.forName(LISTENER_CLASS_NAME);
+            register = Cluster.class.getMethod("register", listenerClass);
+        } catch (Exception e) {
+            throw new CassandraTestException(
+                    "EVENT schema change detection requires a driver with SchemaChangeListener (3.0 or later).", e);
+        }
+
+        Object listener = Proxy.newProxyInstance(
+                listenerClass.getClassLoader(), new Class<?>[] { listenerClass }, new ListenerHandler(this));
+
+        try {
+            register.invoke(cluster, listener);
+        } catch (Exception e) {
+            throw new CassandraTestException("Failed to register SchemaChangeListener.", e);
+        }
+    }
+
+    private static String getKeyspaceName(Object metadata) {
+        if (metadata instanceof KeyspaceMetadata) {
+            return ((KeyspaceMetadata)metadata).getName();
+        }
+
+        if (metadata instanceof TableMetadata) {
+            return ((TableMetadata)metadata).getKeyspace().getName();
+        }
+
+        // User types, functions, aggregates and materialized views (driver 3.0+).
+        try {
+            Object keyspace = metadata.getClass().getMethod("getKeyspace").invoke(metadata);
+
+            if (keyspace instanceof KeyspaceMetadata) {
+                return ((KeyspaceMetadata)keyspace).getName();
+            } else if (keyspace instanceof String) {
+                return (String)keyspace;
+            }
+        } catch (Exception e) {
+            // Unknown schema element. Treat the event as a change to every keyspace.
+        }
+
+        return null;
+    }
+
+    private static class ListenerHandler implements InvocationHandler {
+
+        // Strong reference from the cluster's listener to the monitor. The monitor must not reference the cluster.
+        private final SchemaChangeMonitor monitor;
+
+        ListenerHandler(SchemaChangeMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "SchemaChangeMonitor listener";
+            } else if (name.equals("onRegister") || name.equals("onUnregister")) {
+                return null;
+            }
+
+            if (args != null) {
+                for (Object arg : args) {
+                    if (arg != null) {
+                        this.monitor.onSchemaChange(arg);
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+}
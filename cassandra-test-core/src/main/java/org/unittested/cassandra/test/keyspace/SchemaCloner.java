@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.util.Utils;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Copies the schema of one keyspace to another keyspace.
+ * <p>
+ * The source schema is exported from the driver's keyspace metadata. Cloning rewrites the keyspace name in the
+ * CREATE KEYSPACE statement and in keyspace qualified names, such as ks.table. Other occurrences of the keyspace name,
+ * such as a column with the same name, are left alone.
+ */
+public final class SchemaCloner {
+
+    private SchemaCloner() {
+
+    }
+
+    /**
+     * Export the schema of a keyspace as CQL statements.
+     *
+     * @param keyspace Keyspace to export.
+     * @param cqlResourceLoader Loader used to parse the exported schema.
+     * @return Schema statements, starting with the CREATE KEYSPACE statement.
+     * @throws CassandraTestException if the keyspace does not exist.
+     */
+    public static List<String> exportSchema(Keyspace keyspace, BasicCqlResourceLoader cqlResourceLoader) {
+        String export = keyspace.exportSchema();
+
+        if (export == null) {
+            throw new CassandraTestException("Cannot export schema. Keyspace '%s' does not exist.", keyspace.getName());
+        }
+
+        List<String> schema = new ArrayList<String>();
+
+        try {
+            for (Statement statement : cqlResourceLoader.readCqlResource(new Resource(Resource.Source.TEXT, export))) {
+                if (!(statement instanceof RegularStatement)) {
+                    throw new CassandraTestException("Unexpected statement in schema of keyspace '%s': %s",
+                            keyspace.getName(), statement);
+                }
+
+                schema.add(((RegularStatement)statement).getQueryString());
+            }
+        } catch (IOException e) {
+            throw new CassandraTestException("Failed to read schema of keyspace '%s'", keyspace.getName(), e);
+        }
+
+        return Collections.unmodifiableList(schema);
+    }
+
+    /**
+     * Rewrite exported schema statements to create the schema in another keyspace.
+     *
+     * @param schema Exported schema statements.
+     * @param sourceKeyspace Keyspace the schema was exported from.
+     * @param targetKeyspace Keyspace to create the schema in.
+     * @param targetExists If true, CREATE KEYSPACE statements are left out.
+     * @return Statements that create the schema in the target keyspace.
+     */
+    public static List<Statement> cloneSchema(List<String> schema,
+                                              String sourceKeyspace,
+                                              String targetKeyspace,
+                                              boolean targetExists) {
+        String name = "(?:" + Pattern.quote(Utils.quote(sourceKeyspace)) + "|" + Pattern.quote(sourceKeyspace) + ")";
+        Pattern qualifiedName = Pattern.compile("(?<![\\w\"])" + name + "(?=\\s*\\.)");
+        Pattern createKeyspace = Pattern.compile(
+                "^(\\s*(?i:create)\\s+(?i:keyspace|schema)\\s+(?:(?i:if)\\s+(?i:not)\\s+(?i:exists)\\s+)?)" + name + "(?![\\w\"])");
+        String replacement = Matcher.quoteReplacement(Utils.quote(targetKeyspace));
+        List<Statement> statements = new ArrayList<Statement>(schema.size());
+
+        for (String cql : schema) {
+            Matcher create = createKeyspace.matcher(cql);
+
+            if (create.find()) {
+                if (!targetExists) {
+                    statements.add(new SimpleStatement(create.replaceFirst("$1" + replacement)));
+                }
+            } else {
+                statements.add(new SimpleStatement(qualifiedName.matcher(cql).replaceAll(replacement)));
+            }
+        }
+
+        return statements;
+    }
+}
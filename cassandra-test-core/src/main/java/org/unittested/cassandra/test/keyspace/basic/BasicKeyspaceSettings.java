@@ -17,6 +17,8 @@
 package org.unittested.cassandra.test.keyspace.basic;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -24,16 +26,22 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.unittested.cassandra.test.TestRuntime;
 import org.unittested.cassandra.test.Keyspace;
 import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.resource.ResourceFingerprinter;
 import org.unittested.cassandra.test.util.Utils;
 import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
 import org.unittested.cassandra.test.data.cql.CqlResourceLoader;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.keyspace.AbstractKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.KeyspaceSharding;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.SchemaChangeMonitor;
+import org.unittested.cassandra.test.keyspace.migration.SchemaMigration;
 import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datastax.driver.core.Statement;
+
 public class BasicKeyspaceSettings extends AbstractKeyspaceSettings {
 
     private static final Logger LOG = LoggerFactory.getLogger(BasicKeyspaceSettings.class);
@@ -56,7 +64,19 @@ public class BasicKeyspaceSettings extends AbstractKeyspaceSettings {
                                  SchemaChangeDetectionEnum schemaChangeDetection,
                                  String[] protectedTables,
                                  CqlResourceLoader cqlResourceLoader) {
-        super(keyspace, isCaseSensitiveKeyspace, true, protectedTables);
+        this(keyspace, isCaseSensitiveKeyspace, autoCreateKeyspace, schema, schemaChangeDetection, protectedTables,
+                cqlResourceLoader, KeyspaceSharding.DEFAULT);
+    }
+
+    public BasicKeyspaceSettings(String keyspace,
+                                 boolean isCaseSensitiveKeyspace,
+                                 boolean autoCreateKeyspace,
+                                 String[] schema,
+                                 SchemaChangeDetectionEnum schemaChangeDetection,
+                                 String[] protectedTables,
+                                 CqlResourceLoader cqlResourceLoader,
+                                 KeyspaceSharding keyspaceSharding) {
+        super(keyspace, isCaseSensitiveKeyspace, true, protectedTables, keyspaceSharding);
         this.schema = schema;
         this.autoCreateKeyspace = autoCreateKeyspace;
         this.schemaChangeDetection = schemaChangeDetection;
@@ -72,15 +92,30 @@ public class BasicKeyspaceSettings extends AbstractKeyspaceSettings {
     }
 
     @Override
-    public void sync(TestRuntime runtime, KeyspaceStateManager keyspaceStateManager) {
-        Keyspace keyspace = runtime.getKeyspace();
-
-        if (keyspace.isNull()) {
+    public void sync(final TestRuntime runtime, final KeyspaceStateManager keyspaceStateManager) {
+        if (runtime.getKeyspace().isNull()) {
             return;
         }
 
-        Integer key = runtime.getTestSettings().getKeyspaceSettings().hashCode();
+        final List<Resource> schemaResources = getSchemaResources();
+        // The runtime's keyspace name, as a sharded name depends on the calling thread.
+        final String key = getStateKey(runtime.getKeyspace().getName(), schemaResources);
+
+        keyspaceStateManager.sync(runtime.getKeyspace().getName(), key, new Runnable() {
+            @Override
+            public void run() {
+                sync(runtime, keyspaceStateManager, schemaResources, key);
+            }
+        });
+    }
+
+    private void sync(TestRuntime runtime,
+                      KeyspaceStateManager keyspaceStateManager,
+                      List<Resource> schemaResources,
+                      String key) {
+        Keyspace keyspace = runtime.getKeyspace();
         boolean installSchema = false;
+        boolean migrated = false;
 
         if (!keyspaceStateManager.isTracked(key)) {
             keyspace.dropIfExists();
@@ -90,14 +125,27 @@ public class BasicKeyspaceSettings extends AbstractKeyspaceSettings {
         } else if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.CLUSTER)) {
             UUID schemaVesion = Utils.getSchemaVersion(keyspace.getSession());
             if (keyspaceStateManager.hasClusterSchemaVersionChanged(key, schemaVesion)) {
-                keyspace.drop();
-                installSchema = true;
+                migrated = migrate(runtime, keyspaceStateManager, schemaResources, key);
+                installSchema = !migrated;
             }
         } else if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.KEYSPACE)) {
-            Integer keyspaceSchemaSignature = keyspace.getSchemaSignature();
-            if (keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspaceSchemaSignature)) {
-                keyspace.drop();
-                installSchema = true;
+            UUID keyspaceSchemaDigest = keyspace.getSchemaDigest();
+            if (keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspaceSchemaDigest)) {
+                migrated = migrate(runtime, keyspaceStateManager, schemaResources, key);
+                installSchema = !migrated;
+            }
+        } else if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.EVENT)) {
+            SchemaChangeMonitor monitor = SchemaChangeMonitor.forCluster(keyspace.getCluster());
+
+            if (!monitor.isClean(keyspace.getName())) {
+                long version = monitor.getVersion(keyspace.getName());
+
+                if (keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspace.getSchemaDigest())) {
+                    migrated = migrate(runtime, keyspaceStateManager, schemaResources, key);
+                    installSchema = !migrated;
+                } else {
+                    monitor.markClean(keyspace.getName(), version);
+                }
             }
         } else if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.NONE)) {
             installSchema = false;
@@ -112,26 +160,149 @@ public class BasicKeyspaceSettings extends AbstractKeyspaceSettings {
         keyspace.use();
 
         if (installSchema) {
-            for (String cqlOrUrl : this.schema) {
-                LOG.trace("Loading cql source.");
-                Resource resource = Resource.fromCqlOrUrl(cqlOrUrl);
-
-                try {
-                    this.cqlResourceLoader.loadCqlResource(runtime, resource);
-                } catch (IOException e) {
-                    throw new CassandraTestException("Failed to load schema from '%s'", cqlOrUrl, e);
-                }
-            }
+            installSchema(runtime, keyspaceStateManager, schemaResources);
+        }
 
+        if (installSchema || migrated) {
             keyspaceStateManager.track(
                     key,
                     Utils.getSchemaVersion(keyspace.getSession()),
-                    keyspace.getSchemaSignature());
+                    keyspace.getSchemaDigest());
+
+            if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.EVENT)) {
+                SchemaChangeMonitor monitor = SchemaChangeMonitor.forCluster(keyspace.getCluster());
+                monitor.markClean(keyspace.getName(), monitor.getVersion(keyspace.getName()));
+            }
 
             keyspace.use();
         }
     }
 
+    // SchemaMigration does not compare everything, such as table options. If the migrated keyspace's digest differs
+    // from the digest tracked after the last install, drop the keyspace so that the schema is installed again.
+    private boolean migrate(TestRuntime runtime,
+                            KeyspaceStateManager keyspaceStateManager,
+                            List<Resource> schemaResources,
+                            String key) {
+        if (!migrateSchema(runtime, schemaResources)) {
+            return false;
+        }
+
+        Keyspace keyspace = runtime.getKeyspace();
+
+        if (keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspace.getSchemaDigest())) {
+            LOG.debug("Reinstalling schema of keyspace {}. The migrated schema differs from the installed schema.",
+                    keyspace.getName());
+            keyspace.drop();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Migrate a changed keyspace back to the schema resources. Only the ALTER, CREATE and DROP statements needed are
+     * executed. If the changes cannot be migrated, such as a changed primary key, the keyspace is dropped instead.
+     *
+     * @param runtime Cassandra Test runtime.
+     * @param schemaResources Schema resources.
+     * @return True if the schema was migrated. False if the keyspace was dropped and the schema must be installed.
+     */
+    protected boolean migrateSchema(TestRuntime runtime, List<Resource> schemaResources) {
+        Keyspace keyspace = runtime.getKeyspace();
+        SchemaMigration migration = SchemaMigration.diff(keyspace, schemaResources);
+
+        if (migration.isFullReinstallRequired()) {
+            LOG.debug("Reinstalling schema of keyspace {}. {}", keyspace.getName(), migration.getReason());
+            keyspace.drop();
+            return false;
+        }
+
+        LOG.debug("Migrating schema of keyspace {} with {} statements.", keyspace.getName(), migration.getStatements().size());
+        keyspace.use();
+
+        for (Statement statement : migration.getStatements()) {
+            keyspace.getSession().execute(statement);
+        }
+
+        return true;
+    }
+
+    /**
+     * Install schema into the test keyspace. The test keyspace exists, unless autoCreateKeyspace is off, and is in use.
+     *
+     * @param runtime Cassandra Test runtime.
+     * @param keyspaceStateManager Keyspace schema state manager.
+     * @param schemaResources Schema resources.
+     */
+    protected void installSchema(TestRuntime runtime,
+                                 KeyspaceStateManager keyspaceStateManager,
+                                 List<Resource> schemaResources) {
+        for (Resource resource : schemaResources) {
+            LOG.trace("Loading cql source.");
+
+            try {
+                this.cqlResourceLoader.loadCqlResource(runtime, resource);
+            } catch (IOException e) {
+                throw new CassandraTestException("Failed to load schema from '%s'", resource.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Get the SHA-256 fingerprint of the schema content.
+     *
+     * @param schemaResources Schema resources.
+     * @return Hex fingerprint.
+     */
+    protected String getSchemaFingerprint(List<Resource> schemaResources) {
+        try {
+            return ResourceFingerprinter.DEFAULT.fingerprint(schemaResources);
+        } catch (IOException e) {
+            throw new CassandraTestException("Failed to read schema of keyspace '%s'", getKeyspace(), e);
+        }
+    }
+
+    /**
+     * Get the key used to track the state of this keyspace.
+     * <p>
+     * The key is made of the keyspace name and a SHA-256 fingerprint of the schema content. Editing a schema file
+     * changes the key, which forces the schema to be re-installed. Settings listing identical schema content under
+     * different URLs share a key, so the schema is installed only once.
+     * <p>
+     * The keyspace name is {@link #getKeyspace()} of the calling thread. With keyspace sharding, use
+     * {@link #getStateKey(String)} with the name of the runtime's keyspace.
+     *
+     * @return State key.
+     */
+    public String getStateKey() {
+        return getStateKey(getKeyspace());
+    }
+
+    /**
+     * Get the key used to track the state of a keyspace with the schema of these settings.
+     *
+     * @param keyspace Keyspace name, such as the name of the runtime's keyspace.
+     * @return State key.
+     */
+    public String getStateKey(String keyspace) {
+        return getStateKey(keyspace, getSchemaResources());
+    }
+
+    private String getStateKey(String keyspace, List<Resource> schemaResources) {
+        return keyspace + ":" + getSchemaFingerprint(schemaResources);
+    }
+
+    private List<Resource> getSchemaResources() {
+        List<Resource> schemaResources = new ArrayList<Resource>(this.schema.length);
+
+        for (String cqlOrUrl : this.schema) {
+            schemaResources.add(Resource.fromCqlOrUrl(cqlOrUrl));
+        }
+
+        return schemaResources;
+    }
+
     @Override
     public int hashCode() {
         return this.hashCode;
@@ -20,6 +20,8 @@ import java.lang.annotation.Annotation;
 
 import org.unittested.cassandra.test.annotation.CassandraKeyspace;
 import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.data.cql.CqlStatementCache;
+import org.unittested.cassandra.test.data.cql.SchemaCqlResourceLoader;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.properties.PropertyResolver;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
@@ -39,6 +41,10 @@ public class BasicKeyspaceSettingsFactory implements KeyspaceSettingsFactory {
         }
 
         CassandraKeyspace cassandraKeyspace = (CassandraKeyspace)annotation;
+        boolean deferSchemaAgreement = Boolean.parseBoolean(
+                propertyResolver.resolveReferences(cassandraKeyspace.deferSchemaAgreement()));
+        int schemaParallelism = Integer.parseInt(
+                propertyResolver.resolveReferences(cassandraKeyspace.schemaParallelism()));
 
         return new BasicKeyspaceSettings(
                 propertyResolver.resolveReferences(cassandraKeyspace.value()),
@@ -47,6 +53,7 @@ public class BasicKeyspaceSettingsFactory implements KeyspaceSettingsFactory {
                 propertyResolver.resolveReferences(cassandraKeyspace.schema()),
                 SchemaChangeDetectionEnum.valueOf(propertyResolver.resolveReferences(cassandraKeyspace.schemaChangeDetection())),
                 propertyResolver.resolveReferences(cassandraKeyspace.protectedTables()),
-                new BasicCqlResourceLoader());
+                deferSchemaAgreement
+                        ? new SchemaCqlResourceLoader(CqlStatementCache.SHARED, schemaParallelism) : new BasicCqlResourceLoader());
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.importer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.exceptions.DriverException;
+
+/**
+ * Runs schema verifications in the background and holds the failure of the last one.
+ * <p>
+ * At most one verification is pending at a time. Requests made while a verification is pending are dropped. Driver
+ * errors, such as a lost connection, say nothing about the schema. They are logged and not held as failures.
+ */
+class AsyncSchemaVerifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncSchemaVerifier.class);
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cassandra-test-schema-verifier");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Executor executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile RuntimeException failure;
+
+    AsyncSchemaVerifier() {
+        this(EXECUTOR);
+    }
+
+    AsyncSchemaVerifier(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a verification in the background, unless one is already pending.
+     *
+     * @param verification Verification that throws if the schema has changed.
+     */
+    void verify(final Runnable verification) {
+        if (!this.pending.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    verification.run();
+                } catch (DriverException e) {
+                    LOG.warn("Background schema verification could not query Cassandra.", e);
+                } catch (RuntimeException e) {
+                    AsyncSchemaVerifier.this.failure = e;
+                } finally {
+                    AsyncSchemaVerifier.this.pending.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Throw the failure of the last background verification, if any. The failure is thrown once.
+     */
+    void throwFailure() {
+        RuntimeException failure = this.failure;
+
+        if (failure != null) {
+            this.failure = null;
+            throw failure;
+        }
+    }
+}
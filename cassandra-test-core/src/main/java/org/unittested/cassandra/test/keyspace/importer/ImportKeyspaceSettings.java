@@ -16,31 +16,90 @@
 
 package org.unittested.cassandra.test.keyspace.importer;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.unittested.cassandra.test.TestRuntime;
 import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.pool.BasicSessionPool;
 import org.unittested.cassandra.test.util.Utils;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.keyspace.AbstractKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.KeyspaceSharding;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.SchemaChangeMonitor;
+import org.unittested.cassandra.test.keyspace.SchemaCloner;
 import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
 
+import com.datastax.driver.core.Session;
+
+/**
+ * Settings for an existing keyspace whose schema must not change.
+ * <p>
+ * With {@link KeyspaceSharding}, each worker gets a copy of the imported keyspace's schema (without data) in its own
+ * keyspace. The copy is made the first time a worker uses the keyspace.
+ * <p>
+ * The schema is verified before the first test method of each test class. {@link SchemaVerificationEnum} sets when
+ * it is verified after that: every N test methods, never, or in the background.
+ */
 public class ImportKeyspaceSettings extends AbstractKeyspaceSettings {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ImportKeyspaceSettings.class);
+
     private int hashCode;
     private SchemaChangeDetectionEnum schemaChangeDetection;
+    private SchemaVerificationEnum schemaVerification;
+    private int schemaVerificationInterval;
+    private final Map<TestRuntime, Integer> methodCounts =
+            Collections.synchronizedMap(new WeakHashMap<TestRuntime, Integer>());
+    private final ConcurrentMap<String, AsyncSchemaVerifier> verifiers =
+            new ConcurrentHashMap<String, AsyncSchemaVerifier>();
 
     public ImportKeyspaceSettings(String keyspace,
                                   boolean isCaseSensitiveKeyspace,
                                   SchemaChangeDetectionEnum schemaChangeDetection,
                                   String[] protectedTables) {
-        super(keyspace, isCaseSensitiveKeyspace, false, protectedTables);
+        this(keyspace, isCaseSensitiveKeyspace, schemaChangeDetection, protectedTables, KeyspaceSharding.DEFAULT);
+    }
+
+    public ImportKeyspaceSettings(String keyspace,
+                                  boolean isCaseSensitiveKeyspace,
+                                  SchemaChangeDetectionEnum schemaChangeDetection,
+                                  String[] protectedTables,
+                                  KeyspaceSharding keyspaceSharding) {
+        this(keyspace, isCaseSensitiveKeyspace, schemaChangeDetection, protectedTables, keyspaceSharding,
+                SchemaVerificationEnum.METHOD, 1);
+    }
+
+    public ImportKeyspaceSettings(String keyspace,
+                                  boolean isCaseSensitiveKeyspace,
+                                  SchemaChangeDetectionEnum schemaChangeDetection,
+                                  String[] protectedTables,
+                                  KeyspaceSharding keyspaceSharding,
+                                  SchemaVerificationEnum schemaVerification,
+                                  int schemaVerificationInterval) {
+        super(keyspace, isCaseSensitiveKeyspace, false, protectedTables, keyspaceSharding);
 
         if (keyspace.isEmpty()) {
             throw new CassandraTestException("CassandraImportKeyspace requires a keyspace.");
         }
 
+        if (schemaVerificationInterval < 1) {
+            throw new CassandraTestException("Schema verification interval must be at least 1, but got %d",
+                    schemaVerificationInterval);
+        }
+
         this.schemaChangeDetection = schemaChangeDetection;
+        this.schemaVerification = schemaVerification;
+        this.schemaVerificationInterval = schemaVerificationInterval;
         this.hashCode = new HashCodeBuilder(17, 37)
                 .append(keyspace)
                 .append(isCaseSensitiveKeyspace)
@@ -55,19 +114,170 @@ public class ImportKeyspaceSettings extends AbstractKeyspaceSettings {
     }
 
     @Override
-    public void sync(final TestRuntime runtime, KeyspaceStateManager keyspaceStateManager) {
-        if (!runtime.getKeyspace().exists()) {
-            throw new CassandraTestException("Import keyspace does not exists!");
+    public void sync(final TestRuntime runtime, final KeyspaceStateManager keyspaceStateManager) {
+        final String key = runtime.getKeyspace().getName() + ":" + runtime.getTestSettings().getKeyspaceSettings().hashCode();
+        final Runnable sync = new Runnable() {
+            @Override
+            public void run() {
+                if (getKeyspaceSharding().isEnabled() && !runtime.getKeyspace().exists()) {
+                    cloneShard(runtime);
+                }
+
+                if (!runtime.getKeyspace().exists()) {
+                    throw new CassandraTestException("Import keyspace does not exists!");
+                }
+
+                sync(runtime.getKeyspace(), keyspaceStateManager, key);
+            }
+        };
+        int method = nextMethod(runtime);
+
+        switch (this.schemaVerification) {
+            case METHOD:
+                if (method % this.schemaVerificationInterval != 0) {
+                    return;
+                }
+                break;
+            case CLASS:
+                if (method > 0) {
+                    return;
+                }
+                break;
+            case ASYNC:
+                AsyncSchemaVerifier verifier = getVerifier(key);
+
+                verifier.throwFailure();
+
+                if (method > 0) {
+                    final ConnectSettings connectSettings = runtime.getTestSettings().getConnectSettings();
+                    final Keyspace keyspace = runtime.getKeyspace();
+
+                    verifier.verify(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (connectSettings == null) {
+                                keyspaceStateManager.sync(keyspace.getName(), key, sync);
+                            } else {
+                                verifyAsync(connectSettings, keyspace, keyspaceStateManager, key);
+                            }
+                        }
+                    });
+                    return;
+                }
+                break;
+            default:
+                throw new CassandraTestException("Unsupported SchemaVerification = %s", this.schemaVerification);
+        }
+
+        keyspaceStateManager.sync(runtime.getKeyspace().getName(), key, sync);
+    }
+
+    /**
+     * Get the schema verification policy.
+     *
+     * @return {@link SchemaVerificationEnum}
+     */
+    public SchemaVerificationEnum getSchemaVerification() {
+        return this.schemaVerification;
+    }
+
+    /**
+     * Get the number of test methods between schema verifications, for {@link SchemaVerificationEnum#METHOD}.
+     *
+     * @return Interval in test methods.
+     */
+    public int getSchemaVerificationInterval() {
+        return this.schemaVerificationInterval;
+    }
+
+    private AsyncSchemaVerifier getVerifier(String key) {
+        AsyncSchemaVerifier verifier = this.verifiers.get(key);
+
+        if (verifier == null) {
+            AsyncSchemaVerifier newVerifier = new AsyncSchemaVerifier();
+            verifier = this.verifiers.putIfAbsent(key, newVerifier);
+
+            if (verifier == null) {
+                verifier = newVerifier;
+            }
+        }
+
+        return verifier;
+    }
+
+    // Count the test methods of a test class. Returns 0 for the first test method.
+    private int nextMethod(TestRuntime runtime) {
+        synchronized (this.methodCounts) {
+            Integer count = this.methodCounts.get(runtime);
+            int method = (count == null) ? 0 : count;
+
+            this.methodCounts.put(runtime, method + 1);
+
+            return method;
+        }
+    }
+
+    // Runs after the test method returned, when the test class may have released its session. Verify through a session
+    // acquired for the verification. A failed connect says nothing about the schema, so it is logged, not held.
+    private void verifyAsync(ConnectSettings connectSettings,
+                             Keyspace keyspace,
+                             final KeyspaceStateManager keyspaceStateManager,
+                             final String key) {
+        Session session;
+
+        try {
+            session = BasicSessionPool.DEFAULT.acquire(connectSettings);
+        } catch (RuntimeException e) {
+            LOG.warn("Background schema verification of keyspace {} could not connect to Cassandra.",
+                    keyspace.getName(), e);
+            return;
         }
 
+        try {
+            final Keyspace verified = new Keyspace(session, keyspace.getName());
+
+            keyspaceStateManager.sync(keyspace.getName(), key, new Runnable() {
+                @Override
+                public void run() {
+                    if (!verified.exists()) {
+                        throw new CassandraTestException("Import keyspace does not exists!");
+                    }
+
+                    sync(verified, keyspaceStateManager, key);
+                }
+            });
+        } finally {
+            BasicSessionPool.DEFAULT.release(session);
+        }
+    }
+
+    private void cloneShard(TestRuntime runtime) {
         Keyspace keyspace = runtime.getKeyspace();
-        Integer key = runtime.getTestSettings().getKeyspaceSettings().hashCode();
+        Keyspace source = new Keyspace(keyspace.getSession(), getUnshardedKeyspace());
+
+        if (!source.exists()) {
+            throw new CassandraTestException("Import keyspace does not exists!");
+        }
 
+        BasicCqlResourceLoader cqlResourceLoader = new BasicCqlResourceLoader(false);
+
+        cqlResourceLoader.loadStatements(runtime, SchemaCloner.cloneSchema(
+                SchemaCloner.exportSchema(source, cqlResourceLoader), source.getName(), keyspace.getName(), false));
+    }
+
+    private void sync(Keyspace keyspace, KeyspaceStateManager keyspaceStateManager, String key) {
         if (!keyspaceStateManager.isTracked(key)) {
+            long version = this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.EVENT)
+                    ? SchemaChangeMonitor.forCluster(keyspace.getCluster()).getVersion(keyspace.getName()) : 0;
+
             keyspaceStateManager.track(
                     key,
                     Utils.getSchemaVersion(keyspace.getSession()),
-                    keyspace.getSchemaSignature());
+                    keyspace.getSchemaDigest());
+
+            if (this.schemaChangeDetection.equals(SchemaChangeDetectionEnum.EVENT)) {
+                SchemaChangeMonitor.forCluster(keyspace.getCluster()).markClean(keyspace.getName(), version);
+            }
         } else {
             boolean changed;
 
@@ -76,7 +286,21 @@ public class ImportKeyspaceSettings extends AbstractKeyspaceSettings {
                     changed = keyspaceStateManager.hasClusterSchemaVersionChanged(key, Utils.getSchemaVersion(keyspace.getSession()));
                     break;
                 case KEYSPACE:
-                    changed = keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspace.getSchemaSignature());
+                    changed = keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspace.getSchemaDigest());
+                    break;
+                case EVENT:
+                    SchemaChangeMonitor monitor = SchemaChangeMonitor.forCluster(keyspace.getCluster());
+
+                    if (monitor.isClean(keyspace.getName())) {
+                        changed = false;
+                    } else {
+                        long version = monitor.getVersion(keyspace.getName());
+                        changed = keyspaceStateManager.hasKeyspaceCqlSignatureChanged(key, keyspace.getSchemaDigest());
+
+                        if (!changed) {
+                            monitor.markClean(keyspace.getName(), version);
+                        }
+                    }
                     break;
                 case NONE:
                     changed = false;
@@ -21,6 +21,7 @@ import java.lang.annotation.Annotation;
 import org.unittested.cassandra.test.annotation.CassandraImportKeyspace;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.unittested.cassandra.test.keyspace.KeyspaceSharding;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
 import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
 import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
@@ -39,6 +40,9 @@ public class ImportKeyspaceSettingsFactory implements KeyspaceSettingsFactory {
                 propertyResolver.resolveReferences(schema.value()),
                 Boolean.parseBoolean(propertyResolver.resolveReferences(schema.isCaseSensitiveKeyspace())),
                 SchemaChangeDetectionEnum.valueOf(propertyResolver.resolveReferences(schema.schemaChangeDetection().toUpperCase())),
-                propertyResolver.resolveReferences(schema.protectedTables()));
+                propertyResolver.resolveReferences(schema.protectedTables()),
+                KeyspaceSharding.DEFAULT,
+                SchemaVerificationEnum.valueOf(propertyResolver.resolveReferences(schema.schemaVerification()).toUpperCase()),
+                Integer.parseInt(propertyResolver.resolveReferences(schema.schemaVerificationInterval())));
     }
 }
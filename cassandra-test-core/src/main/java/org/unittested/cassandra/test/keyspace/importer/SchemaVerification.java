@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.importer;
+
+/**
+ * When the schema of an imported keyspace is verified.
+ */
+public final class SchemaVerification {
+
+    /**
+     * Verify the schema before test methods. By default, before every test method.
+     */
+    public final static String METHOD = "METHOD";
+
+    /**
+     * Verify the schema before the first test method of each test class.
+     */
+    public final static String CLASS = "CLASS";
+
+    /**
+     * Verify the schema in the background after each test method starts. If the schema has changed, the next test
+     * method fails.
+     */
+    public final static String ASYNC = "ASYNC";
+
+    private SchemaVerification() {
+
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CQL statement into words, quoted names, string literals and symbols. Comments and whitespace are skipped.
+ */
+final class CqlTokenizer {
+
+    enum Type {
+        WORD,
+        QUOTED_NAME,
+        STRING,
+        SYMBOL
+    }
+
+    static final class Token {
+
+        private final Type type;
+        private final String text;
+        private final int start;
+        private final int end;
+
+        Token(Type type, String text, int start, int end) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        Type getType() {
+            return this.type;
+        }
+
+        /**
+         * Token text. Quotes are removed from quoted names and string literals.
+         */
+        String getText() {
+            return this.text;
+        }
+
+        int getStart() {
+            return this.start;
+        }
+
+        int getEnd() {
+            return this.end;
+        }
+
+        /**
+         * Is this token the given keyword or symbol? Keywords are case insensitive.
+         */
+        boolean is(String keywordOrSymbol) {
+            return (this.type == Type.WORD && this.text.equalsIgnoreCase(keywordOrSymbol))
+                    || (this.type == Type.SYMBOL && this.text.equals(keywordOrSymbol));
+        }
+
+        boolean isName() {
+            return this.type == Type.WORD || this.type == Type.QUOTED_NAME;
+        }
+
+        /**
+         * Name as stored by Cassandra. Unquoted names are case insensitive.
+         */
+        String getName() {
+            return this.type == Type.WORD ? this.text.toLowerCase() : this.text;
+        }
+
+        @Override
+        public String toString() {
+            return this.text;
+        }
+    }
+
+    private CqlTokenizer() {
+
+    }
+
+    static List<Token> tokenize(String cql) {
+        List<Token> tokens = new ArrayList<Token>();
+        int length = cql.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = cql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if ((c == '-' && next(cql, i) == '-') || (c == '/' && next(cql, i) == '/')) {
+                while (i < length && cql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next(cql, i) == '*') {
+                int end = cql.indexOf("*/", i + 2);
+                i = (end < 0) ? length : end + 2;
+            } else if (c == '"' || c == '\'') {
+                int start = i;
+                StringBuilder text = new StringBuilder();
+
+                i++;
+
+                while (i < length) {
+                    char q = cql.charAt(i++);
+
+                    if (q == c) {
+                        if (i < length && cql.charAt(i) == c) {
+                            text.append(c);
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        text.append(q);
+                    }
+                }
+
+                tokens.add(new Token(c == '"' ? Type.QUOTED_NAME : Type.STRING, text.toString(), start, i));
+            } else if (c == '$' && next(cql, i) == '$') {
+                int end = cql.indexOf("$$", i + 2);
+                int stop = (end < 0) ? length : end + 2;
+
+                tokens.add(new Token(Type.STRING, cql.substring(i + 2, Math.max(i + 2, stop - 2)), i, stop));
+                i = stop;
+            } else if (isWordChar(c)) {
+                int start = i;
+
+                while (i < length && isWordChar(cql.charAt(i))) {
+                    i++;
+                }
+
+                tokens.add(new Token(Type.WORD, cql.substring(start, i), start, i));
+            } else {
+                tokens.add(new Token(Type.SYMBOL, String.valueOf(c), i, i + 1));
+                i++;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static char next(String cql, int i) {
+        return (i + 1 < cql.length()) ? cql.charAt(i + 1) : '\0';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '+';
+    }
+}
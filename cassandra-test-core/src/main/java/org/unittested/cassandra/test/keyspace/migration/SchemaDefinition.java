@@ -0,0 +1,586 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.migration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.unittested.cassandra.test.keyspace.migration.CqlTokenizer.Token;
+
+/**
+ * Tables, user types and indexes of a keyspace, parsed from CREATE statements.
+ * <p>
+ * Only the parts of the schema that {@link SchemaMigration} compares are parsed. Table options, other than compact
+ * storage and clustering order, are ignored. Statements that cannot be migrated, such as CREATE FUNCTION or INSERT,
+ * are recorded as unsupported.
+ */
+final class SchemaDefinition {
+
+    private final String keyspace;
+    private final Map<String, Table> tables = new LinkedHashMap<String, Table>();
+    private final Map<String, UserType> userTypes = new LinkedHashMap<String, UserType>();
+    private final Map<String, Index> indexes = new LinkedHashMap<String, Index>();
+    private boolean createsKeyspace;
+    private String unsupported;
+
+    private SchemaDefinition(String keyspace) {
+        this.keyspace = keyspace;
+    }
+
+    /**
+     * Parse schema statements.
+     *
+     * @param keyspace Keyspace the statements belong to. Names qualified with another keyspace are unsupported.
+     * @param statements CQL statements.
+     * @return {@link SchemaDefinition}
+     */
+    static SchemaDefinition parse(String keyspace, Collection<String> statements) {
+        SchemaDefinition schema = new SchemaDefinition(keyspace);
+
+        for (String cql : statements) {
+            try {
+                schema.add(cql);
+            } catch (IllegalArgumentException e) {
+                schema.unsupported = e.getMessage() + ": " + cql;
+                break;
+            }
+        }
+
+        return schema;
+    }
+
+    Map<String, Table> getTables() {
+        return this.tables;
+    }
+
+    Map<String, UserType> getUserTypes() {
+        return this.userTypes;
+    }
+
+    Map<String, Index> getIndexes() {
+        return this.indexes;
+    }
+
+    /**
+     * Does the schema contain a CREATE KEYSPACE statement?
+     */
+    boolean createsKeyspace() {
+        return this.createsKeyspace;
+    }
+
+    /**
+     * Description of the first statement that cannot be migrated or null if all statements can be migrated.
+     */
+    String getUnsupported() {
+        return this.unsupported;
+    }
+
+    private void add(String cql) {
+        Parser parser = new Parser(cql);
+
+        if (parser.atEnd()) {
+            return;
+        }
+
+        if (parser.accept("USE")) {
+            if (!parser.next().getName().equals(this.keyspace)) {
+                throw new IllegalArgumentException("USE of another keyspace");
+            }
+        } else if (parser.accept("CREATE")) {
+            if (parser.accept("KEYSPACE") || parser.accept("SCHEMA")) {
+                this.createsKeyspace = true;
+            } else if (parser.accept("TABLE") || parser.accept("COLUMNFAMILY")) {
+                Table table = parseTable(parser, cql);
+                this.tables.put(table.getName(), table);
+            } else if (parser.accept("TYPE")) {
+                UserType userType = parseUserType(parser, cql);
+                this.userTypes.put(userType.getName(), userType);
+            } else if (parser.accept("INDEX") || (parser.accept("CUSTOM") && parser.accept("INDEX"))) {
+                Index index = parseIndex(parser, cql);
+                this.indexes.put(index.getName(), index);
+            } else {
+                throw new IllegalArgumentException("Unsupported CREATE statement");
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported statement");
+        }
+    }
+
+    private Table parseTable(Parser parser, String cql) {
+        parser.acceptIfNotExists();
+
+        Table table = new Table(parseQualifiedName(parser), cql);
+
+        parser.expect("(");
+
+        do {
+            if (parser.accept("PRIMARY")) {
+                parser.expect("KEY");
+                parsePrimaryKey(parser, table);
+            } else {
+                Column column = parseColumn(parser);
+
+                table.columns.put(column.getName(), column);
+
+                if (parser.accept("PRIMARY")) {
+                    parser.expect("KEY");
+                    table.partitionKey.add(column.getName());
+                }
+            }
+        } while (parser.accept(","));
+
+        parser.expect(")");
+
+        while (!parser.atEnd()) {
+            if (parser.accept("COMPACT")) {
+                parser.expect("STORAGE");
+                table.compactStorage = true;
+            } else if (parser.accept("CLUSTERING")) {
+                parser.expect("ORDER");
+                parser.expect("BY");
+                parser.expect("(");
+
+                do {
+                    String name = parser.nextName();
+                    boolean descending = parser.accept("DESC");
+
+                    if (!descending) {
+                        parser.accept("ASC");
+                    }
+
+                    table.descending.put(name, descending);
+                } while (parser.accept(","));
+
+                parser.expect(")");
+            } else {
+                parser.next();
+            }
+        }
+
+        for (String name : table.partitionKey) {
+            if (!table.columns.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown primary key column " + name);
+            }
+        }
+
+        for (String name : table.clusteringColumns) {
+            if (!table.columns.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown clustering column " + name);
+            }
+        }
+
+        if (table.partitionKey.isEmpty()) {
+            throw new IllegalArgumentException("Missing primary key");
+        }
+
+        return table;
+    }
+
+    private void parsePrimaryKey(Parser parser, Table table) {
+        parser.expect("(");
+
+        if (parser.accept("(")) {
+            do {
+                table.partitionKey.add(parser.nextName());
+            } while (parser.accept(","));
+
+            parser.expect(")");
+        } else {
+            table.partitionKey.add(parser.nextName());
+        }
+
+        while (parser.accept(",")) {
+            table.clusteringColumns.add(parser.nextName());
+        }
+
+        parser.expect(")");
+    }
+
+    private UserType parseUserType(Parser parser, String cql) {
+        parser.acceptIfNotExists();
+
+        UserType userType = new UserType(parseQualifiedName(parser), cql);
+
+        parser.expect("(");
+
+        do {
+            Column field = parseColumn(parser);
+            userType.fields.put(field.getName(), field);
+        } while (parser.accept(","));
+
+        parser.expect(")");
+
+        return userType;
+    }
+
+    private Index parseIndex(Parser parser, String cql) {
+        parser.acceptIfNotExists();
+
+        String name = parser.peek().is("ON") ? null : parser.nextName();
+
+        parser.expect("ON");
+
+        String table = parseQualifiedName(parser);
+        StringBuilder signature = new StringBuilder(table).append('(');
+        String column = null;
+        int depth = 0;
+
+        parser.expect("(");
+
+        // Cassandra 3.0 reports the default target of a collection index as values(column).
+        boolean values = parser.peek().is("VALUES");
+
+        while (depth > 0 || !parser.peek().is(")")) {
+            Token token = parser.next();
+
+            if (token.is("(")) {
+                depth++;
+            } else if (token.is(")")) {
+                depth--;
+            } else if (token.isName()) {
+                column = token.getName();
+            }
+
+            if (!values) {
+                signature.append(token.isName() ? token.getName() : normalize(token));
+            }
+        }
+
+        parser.expect(")");
+
+        if (column == null) {
+            throw new IllegalArgumentException("Missing index target");
+        }
+
+        if (values) {
+            signature.append(column);
+        }
+
+        signature.append(')');
+
+        if (parser.accept("USING")) {
+            signature.append(" USING ").append(parser.next().getText());
+        }
+
+        return new Index(name == null ? table + "_" + column + "_idx" : name, table, signature.toString(), cql);
+    }
+
+    private Column parseColumn(Parser parser) {
+        String name = parser.nextName();
+        StringBuilder type = new StringBuilder();
+        Token first = parser.peek();
+        Token last = null;
+        int depth = 0;
+
+        while (!parser.atEnd()) {
+            Token token = parser.peek();
+
+            if (depth == 0 && (token.is(",") || token.is(")") || token.is("STATIC") || token.is("PRIMARY"))) {
+                break;
+            }
+
+            parser.next();
+
+            if (token.is("<")) {
+                depth++;
+            } else if (token.is(">")) {
+                depth--;
+            }
+
+            if (token.isName() && token.getName().equals(this.keyspace) && parser.peek().is(".")) {
+                // Drop the keyspace from qualified user type names.
+                parser.next();
+                continue;
+            }
+
+            type.append(normalize(token));
+            last = token;
+        }
+
+        if (last == null) {
+            throw new IllegalArgumentException("Missing type of column " + name);
+        }
+
+        boolean isStatic = parser.accept("STATIC");
+
+        return new Column(name, type.toString(), parser.substring(first, last), isStatic);
+    }
+
+    private String parseQualifiedName(Parser parser) {
+        String name = parser.nextName();
+
+        if (parser.accept(".")) {
+            if (!name.equals(this.keyspace)) {
+                throw new IllegalArgumentException("Name qualified with another keyspace");
+            }
+
+            name = parser.nextName();
+        }
+
+        return name;
+    }
+
+    private static String normalize(Token token) {
+        switch (token.getType()) {
+            case WORD:
+                String word = token.getText().toLowerCase();
+                return word.equals("varchar") ? "text" : word;
+            case QUOTED_NAME:
+                return '"' + token.getText() + '"';
+            case STRING:
+                return '\'' + token.getText() + '\'';
+            default:
+                return token.getText();
+        }
+    }
+
+    /**
+     * Column of a table or field of a user type.
+     */
+    static final class Column {
+
+        private final String name;
+        private final String type;
+        private final String cqlType;
+        private final boolean isStatic;
+
+        Column(String name, String type, String cqlType, boolean isStatic) {
+            this.name = name;
+            this.type = type;
+            this.cqlType = cqlType;
+            this.isStatic = isStatic;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        /**
+         * Normalized type, for comparison.
+         */
+        String getType() {
+            return this.type;
+        }
+
+        /**
+         * Type as written in the CREATE statement.
+         */
+        String getCqlType() {
+            return this.cqlType;
+        }
+
+        boolean isStatic() {
+            return this.isStatic;
+        }
+
+        boolean isCompatible(Column other) {
+            return this.type.equals(other.type) && this.isStatic == other.isStatic;
+        }
+    }
+
+    static final class Table {
+
+        private final String name;
+        private final String cql;
+        private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+        private final List<String> partitionKey = new ArrayList<String>();
+        private final List<String> clusteringColumns = new ArrayList<String>();
+        private final Map<String, Boolean> descending = new LinkedHashMap<String, Boolean>();
+        private boolean compactStorage;
+
+        Table(String name, String cql) {
+            this.name = name;
+            this.cql = cql;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        String getCql() {
+            return this.cql;
+        }
+
+        Map<String, Column> getColumns() {
+            return this.columns;
+        }
+
+        boolean isCompactStorage() {
+            return this.compactStorage;
+        }
+
+        boolean isPrimaryKey(String column) {
+            return this.partitionKey.contains(column) || this.clusteringColumns.contains(column);
+        }
+
+        /**
+         * Do both tables have the same primary key, clustering order and storage format?
+         */
+        boolean hasSameKey(Table other) {
+            return this.compactStorage == other.compactStorage
+                    && getKeyLayout().equals(other.getKeyLayout());
+        }
+
+        private List<String> getKeyLayout() {
+            List<String> layout = new ArrayList<String>();
+
+            for (String column : this.partitionKey) {
+                layout.add(column + " " + this.columns.get(column).getType());
+            }
+
+            layout.add(")");
+
+            for (String column : this.clusteringColumns) {
+                layout.add(column + " " + this.columns.get(column).getType()
+                        + (Boolean.TRUE.equals(this.descending.get(column)) ? " DESC" : " ASC"));
+            }
+
+            return layout;
+        }
+    }
+
+    static final class UserType {
+
+        private final String name;
+        private final String cql;
+        private final Map<String, Column> fields = new LinkedHashMap<String, Column>();
+
+        UserType(String name, String cql) {
+            this.name = name;
+            this.cql = cql;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        String getCql() {
+            return this.cql;
+        }
+
+        Map<String, Column> getFields() {
+            return this.fields;
+        }
+    }
+
+    static final class Index {
+
+        private final String name;
+        private final String table;
+        private final String signature;
+        private final String cql;
+
+        Index(String name, String table, String signature, String cql) {
+            this.name = name;
+            this.table = table;
+            this.signature = signature;
+            this.cql = cql;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        String getTable() {
+            return this.table;
+        }
+
+        String getCql() {
+            return this.cql;
+        }
+
+        boolean isSame(Index other) {
+            return this.signature.equals(other.signature);
+        }
+    }
+
+    private static final class Parser {
+
+        private final String cql;
+        private final List<Token> tokens;
+        private int position;
+
+        Parser(String cql) {
+            this.cql = cql;
+            this.tokens = CqlTokenizer.tokenize(cql);
+
+            // Ignore the statement terminator.
+            if (!this.tokens.isEmpty() && this.tokens.get(this.tokens.size() - 1).is(";")) {
+                this.tokens.remove(this.tokens.size() - 1);
+            }
+        }
+
+        boolean atEnd() {
+            return this.position >= this.tokens.size();
+        }
+
+        Token peek() {
+            if (atEnd()) {
+                throw new IllegalArgumentException("Unexpected end of statement");
+            }
+
+            return this.tokens.get(this.position);
+        }
+
+        Token next() {
+            Token token = peek();
+            this.position++;
+            return token;
+        }
+
+        String nextName() {
+            Token token = next();
+
+            if (!token.isName()) {
+                throw new IllegalArgumentException("Expected a name, but got " + token);
+            }
+
+            return token.getName();
+        }
+
+        boolean accept(String keywordOrSymbol) {
+            if (!atEnd() && peek().is(keywordOrSymbol)) {
+                this.position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        void acceptIfNotExists() {
+            if (accept("IF")) {
+                expect("NOT");
+                expect("EXISTS");
+            }
+        }
+
+        void expect(String keywordOrSymbol) {
+            Token token = next();
+
+            if (!token.is(keywordOrSymbol)) {
+                throw new IllegalArgumentException("Expected " + keywordOrSymbol + ", but got " + token);
+            }
+        }
+
+        String substring(Token first, Token last) {
+            return this.cql.substring(first.getStart(), last.getEnd());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.migration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.SchemaCloner;
+import org.unittested.cassandra.test.keyspace.migration.SchemaDefinition.Column;
+import org.unittested.cassandra.test.keyspace.migration.SchemaDefinition.Index;
+import org.unittested.cassandra.test.keyspace.migration.SchemaDefinition.Table;
+import org.unittested.cassandra.test.keyspace.migration.SchemaDefinition.UserType;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.util.Utils;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Statements that migrate a live keyspace to the schema in CQL resources.
+ * <p>
+ * The tables, user types and indexes of the schema resources are compared with the live keyspace's exported schema.
+ * Missing elements are created, extra elements are dropped, and tables and user types are altered to add or drop
+ * columns and fields. Data in unchanged tables and columns is kept.
+ * <p>
+ * Changes that ALTER cannot make require a full reinstall of the schema. These include primary key, clustering order
+ * and column type changes, dropped user type fields and schema resources with statements other than CREATE TABLE,
+ * CREATE TYPE and CREATE INDEX. Table options, such as compaction, are not compared. Callers that know the schema
+ * digest of a clean install should check the migrated keyspace against it.
+ */
+public final class SchemaMigration {
+
+    private final List<Statement> statements;
+    private final String reason;
+
+    private SchemaMigration(List<Statement> statements, String reason) {
+        this.statements = statements;
+        this.reason = reason;
+    }
+
+    /**
+     * Compare the schema resources with a live keyspace.
+     *
+     * @param keyspace Live keyspace.
+     * @param schemaResources Schema resources.
+     * @return {@link SchemaMigration}
+     * @throws CassandraTestException if a schema resource cannot be read.
+     */
+    public static SchemaMigration diff(Keyspace keyspace, List<Resource> schemaResources) {
+        BasicCqlResourceLoader cqlResourceLoader = new BasicCqlResourceLoader(false);
+        List<String> schema = new ArrayList<String>();
+
+        for (Resource resource : schemaResources) {
+            try {
+                for (Statement statement : cqlResourceLoader.readCqlResource(resource)) {
+                    if (!(statement instanceof RegularStatement)) {
+                        return fullReinstall("Schema contains a batch statement.");
+                    }
+
+                    String cql = ((RegularStatement)statement).getQueryString();
+
+                    // CONSISTENCY commands have no query string.
+                    if (cql != null) {
+                        schema.add(cql);
+                    }
+                }
+            } catch (IOException e) {
+                throw new CassandraTestException("Failed to load schema from '%s'", resource.getPath(), e);
+            }
+        }
+
+        return diff(keyspace.getName(), schema, SchemaCloner.exportSchema(keyspace, cqlResourceLoader));
+    }
+
+    /**
+     * Compare schema statements with the exported schema of a live keyspace.
+     *
+     * @param keyspace Keyspace name.
+     * @param schema Schema statements.
+     * @param liveSchema Exported schema of the live keyspace.
+     * @return {@link SchemaMigration}
+     */
+    public static SchemaMigration diff(String keyspace, Collection<String> schema, Collection<String> liveSchema) {
+        SchemaDefinition target = SchemaDefinition.parse(keyspace, schema);
+        SchemaDefinition live = SchemaDefinition.parse(keyspace, liveSchema);
+
+        if (target.getUnsupported() != null) {
+            return fullReinstall("Schema statement cannot be migrated. " + target.getUnsupported());
+        }
+
+        if (live.getUnsupported() != null) {
+            return fullReinstall("Live schema cannot be migrated. " + live.getUnsupported());
+        }
+
+        if (target.createsKeyspace()) {
+            return fullReinstall("Schema creates the keyspace.");
+        }
+
+        String qualifier = Utils.quote(keyspace) + ".";
+        List<Statement> statements = new ArrayList<Statement>();
+        List<Statement> dropTypes = new ArrayList<Statement>();
+        List<Statement> createIndexes = new ArrayList<Statement>();
+
+        // Indexes are dropped first, so indexed columns can be dropped.
+        for (Index index : live.getIndexes().values()) {
+            Index targetIndex = target.getIndexes().get(index.getName());
+
+            if ((targetIndex == null || !targetIndex.isSame(index))
+                    && target.getTables().containsKey(index.getTable())) {
+                statements.add(new SimpleStatement("DROP INDEX " + qualifier + Utils.quote(index.getName())));
+            }
+        }
+
+        for (UserType userType : target.getUserTypes().values()) {
+            UserType liveType = live.getUserTypes().get(userType.getName());
+
+            if (liveType == null) {
+                statements.add(new SimpleStatement(userType.getCql()));
+                continue;
+            }
+
+            Iterator<Column> fields = userType.getFields().values().iterator();
+
+            for (Column liveField : liveType.getFields().values()) {
+                if (!fields.hasNext() || !fields.next().isCompatible(liveField)) {
+                    return fullReinstall("User type " + userType.getName() + " has changed fields.");
+                }
+            }
+
+            while (fields.hasNext()) {
+                Column field = fields.next();
+                statements.add(new SimpleStatement("ALTER TYPE " + qualifier + Utils.quote(userType.getName())
+                        + " ADD " + Utils.quote(field.getName()) + " " + field.getCqlType()));
+            }
+        }
+
+        for (Table table : live.getTables().values()) {
+            if (!target.getTables().containsKey(table.getName())) {
+                statements.add(new SimpleStatement("DROP TABLE " + qualifier + Utils.quote(table.getName())));
+            }
+        }
+
+        for (Table table : target.getTables().values()) {
+            Table liveTable = live.getTables().get(table.getName());
+
+            if (liveTable == null) {
+                statements.add(new SimpleStatement(table.getCql()));
+                continue;
+            }
+
+            if (!table.hasSameKey(liveTable)) {
+                return fullReinstall("Table " + table.getName() + " has a changed primary key or storage format.");
+            }
+
+            List<Statement> alterTable = alterTable(qualifier, table, liveTable);
+
+            if (alterTable == null) {
+                return fullReinstall("Table " + table.getName() + " has incompatible column changes.");
+            }
+
+            statements.addAll(alterTable);
+        }
+
+        for (UserType userType : live.getUserTypes().values()) {
+            if (!target.getUserTypes().containsKey(userType.getName())) {
+                dropTypes.add(0, new SimpleStatement("DROP TYPE " + qualifier + Utils.quote(userType.getName())));
+            }
+        }
+
+        for (Index index : target.getIndexes().values()) {
+            Index liveIndex = live.getIndexes().get(index.getName());
+
+            if (liveIndex == null || !liveIndex.isSame(index)) {
+                createIndexes.add(new SimpleStatement(index.getCql()));
+            }
+        }
+
+        statements.addAll(dropTypes);
+        statements.addAll(createIndexes);
+
+        return new SchemaMigration(Collections.unmodifiableList(statements), null);
+    }
+
+    private static List<Statement> alterTable(String qualifier, Table table, Table liveTable) {
+        String alter = "ALTER TABLE " + qualifier + Utils.quote(table.getName());
+        List<Statement> statements = new ArrayList<Statement>();
+        Map<String, Column> columns = table.getColumns();
+        Map<String, Column> liveColumns = liveTable.getColumns();
+
+        for (Column liveColumn : liveColumns.values()) {
+            Column column = columns.get(liveColumn.getName());
+
+            if (column == null) {
+                statements.add(new SimpleStatement(alter + " DROP " + Utils.quote(liveColumn.getName())));
+            } else if (!column.isCompatible(liveColumn)) {
+                return null;
+            }
+        }
+
+        for (Column column : columns.values()) {
+            if (!liveColumns.containsKey(column.getName())) {
+                statements.add(new SimpleStatement(alter + " ADD " + Utils.quote(column.getName()) + " "
+                        + column.getCqlType() + (column.isStatic() ? " static" : "")));
+            }
+        }
+
+        if (!statements.isEmpty() && table.isCompactStorage()) {
+            return null;
+        }
+
+        return statements;
+    }
+
+    private static SchemaMigration fullReinstall(String reason) {
+        return new SchemaMigration(Collections.<Statement>emptyList(), reason);
+    }
+
+    /**
+     * Can ALTER, CREATE and DROP statements not migrate the keyspace?
+     *
+     * @return True if the keyspace must be dropped and the schema installed again.
+     */
+    public boolean isFullReinstallRequired() {
+        return this.reason != null;
+    }
+
+    /**
+     * Why the schema must be installed again.
+     *
+     * @return Reason or null if the keyspace can be migrated.
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Statements that migrate the keyspace, in order. Unqualified names in the statements refer to the migrated
+     * keyspace, so the keyspace must be in use.
+     *
+     * @return Migration statements. Empty if the keyspace matches the schema or a full reinstall is required.
+     */
+    public List<Statement> getStatements() {
+        return this.statements;
+    }
+}
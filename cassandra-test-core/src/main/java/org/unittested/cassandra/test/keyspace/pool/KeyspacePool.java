@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.pool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.TestSettings;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.pool.BasicSessionPool;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.basic.BasicKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.state.BasicKeyspaceStateManager;
+import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+
+/**
+ * Pool of identical keyspaces, prepared in the background.
+ * <p>
+ * A test leases a clean keyspace from the pool and returns it when done. Returned keyspaces are recycled by a
+ * background worker: tables are truncated and, if the test changed the schema, the keyspace is re-created. Recycling
+ * runs while the next test runs, so tests only wait when every keyspace in the pool is dirty.
+ * <p>
+ * Pools are shared by all test classes with the same {@link PoolKeyspaceSettings} and live until {@link #closeAll()}
+ * or JVM exit. The worker holds its own connection from {@link BasicSessionPool#DEFAULT} for the life of the pool, so
+ * recycling is not affected by test classes closing their connections. Pooled keyspaces are named after the pool
+ * keyspace with a _N suffix and are not dropped at exit.
+ */
+public class KeyspacePool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyspacePool.class);
+
+    private static final Map<String, KeyspacePool> POOLS = new HashMap<String, KeyspacePool>();
+    private static final int MAX_RECYCLE_ATTEMPTS = 2;
+    private static boolean shutdownHookRegistered;
+
+    private final String name;
+    private final int settingsHashCode;
+    private final long refillIntervalNanos;
+    private final BlockingQueue<Member> clean = new LinkedBlockingQueue<Member>();
+    private final BlockingQueue<Member> dirty = new LinkedBlockingQueue<Member>();
+    private final Map<TestRuntime, Member> leases = new HashMap<TestRuntime, Member>();
+    private final AtomicInteger leaseCount = new AtomicInteger();
+    private final AtomicInteger waitCount = new AtomicInteger();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private volatile Cluster cluster;
+    private Thread worker;
+    private Session pooledSession;
+    private Session workerSession;
+    private long lastRefillNanos;
+
+    KeyspacePool(PoolKeyspaceSettings settings) {
+        this.name = settings.getKeyspace();
+        this.settingsHashCode = settings.hashCode();
+        this.refillIntervalNanos = (settings.getRefillRate() > 0
+                ? TimeUnit.SECONDS.toNanos(1) / settings.getRefillRate() : 0);
+
+        for (int i = 0; i < settings.getPoolSize(); i++) {
+            this.dirty.add(new Member(settings.createMemberSettings(this.name + "_" + i)));
+        }
+    }
+
+    /**
+     * Get the pool for keyspace settings, creating the pool if necessary.
+     *
+     * @param settings Pool keyspace settings.
+     * @return {@link KeyspacePool}
+     * @throws CassandraTestException if a pool with the same keyspace exists with different settings.
+     */
+    static KeyspacePool forSettings(PoolKeyspaceSettings settings) {
+        synchronized (POOLS) {
+            KeyspacePool pool = POOLS.get(settings.getKeyspace());
+
+            if (pool == null) {
+                pool = new KeyspacePool(settings);
+                POOLS.put(settings.getKeyspace(), pool);
+                registerShutdownHook();
+            } else if (pool.settingsHashCode != settings.hashCode()) {
+                throw new CassandraTestException("Keyspace pool '%s' is already in use with different settings.",
+                        settings.getKeyspace());
+            }
+
+            return pool;
+        }
+    }
+
+    /**
+     * Lease a clean keyspace for a test runtime, switch the runtime to it and sync its schema.
+     * <p>
+     * If the runtime already holds a lease, the leased keyspace is kept. Otherwise, this method waits until a clean
+     * keyspace is available.
+     *
+     * @param runtime Cassandra Test runtime.
+     */
+    void lease(TestRuntime runtime) {
+        Member member;
+
+        synchronized (this.leases) {
+            member = this.leases.get(runtime);
+        }
+
+        if (member == null) {
+            bind(runtime);
+            member = take();
+
+            synchronized (this.leases) {
+                this.leases.put(runtime, member);
+            }
+
+            this.leaseCount.incrementAndGet();
+        }
+
+        runtime.updateKeyspace(member.settings.getKeyspace());
+        member.settings.sync(runtime, member.stateManager);
+    }
+
+    /**
+     * Return the keyspace leased by a runtime to the pool for recycling. If the runtime does not hold a lease, do
+     * nothing.
+     *
+     * @param runtime Cassandra Test runtime.
+     * @param drop If true, the keyspace is dropped and re-created instead of truncated.
+     */
+    public void release(TestRuntime runtime, boolean drop) {
+        Member member;
+
+        synchronized (this.leases) {
+            member = this.leases.remove(runtime);
+        }
+
+        if (member != null) {
+            member.used = true;
+            member.drop |= drop;
+            this.dirty.add(member);
+        }
+    }
+
+    /**
+     * Pool keyspace name.
+     *
+     * @return Keyspace name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Number of keyspace leases.
+     *
+     * @return Lease count.
+     */
+    public int getLeases() {
+        return this.leaseCount.get();
+    }
+
+    /**
+     * Number of leases that had to wait for a clean keyspace.
+     *
+     * @return Wait count.
+     */
+    public int getWaits() {
+        return this.waitCount.get();
+    }
+
+    /**
+     * Total time leases waited for a clean keyspace.
+     *
+     * @return Wait time in milliseconds.
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get());
+    }
+
+    /**
+     * Stop recycling, close the worker's connection and remove this pool. Leased keyspaces stay usable, but are not
+     * recycled anymore. A later lease from equal settings creates a new pool.
+     */
+    public void close() {
+        synchronized (POOLS) {
+            if (POOLS.get(this.name) == this) {
+                POOLS.remove(this.name);
+            }
+        }
+
+        Thread stopWorker;
+        Session closeSession;
+        Session releaseSession;
+
+        synchronized (this) {
+            stopWorker = this.worker;
+            closeSession = this.workerSession;
+            releaseSession = this.pooledSession;
+            this.worker = null;
+            this.workerSession = null;
+            this.pooledSession = null;
+        }
+
+        if (stopWorker != null) {
+            stopWorker.interrupt();
+
+            try {
+                stopWorker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (closeSession != null) {
+            closeSession.closeAsync();
+        }
+
+        if (releaseSession != null) {
+            BasicSessionPool.DEFAULT.release(releaseSession);
+        }
+    }
+
+    /**
+     * Close all keyspace pools. Called when the JVM exits.
+     */
+    public static void closeAll() {
+        List<KeyspacePool> pools;
+
+        synchronized (POOLS) {
+            pools = new ArrayList<KeyspacePool>(POOLS.values());
+        }
+
+        for (KeyspacePool pool : pools) {
+            pool.close();
+        }
+    }
+
+    private static void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            shutdownHookRegistered = true;
+            Runtime.getRuntime().addShutdownHook(new Thread("cassandra-test-keyspace-pool-shutdown") {
+                @Override
+                public void run() {
+                    closeAll();
+                }
+            });
+        }
+    }
+
+    private Member take() {
+        while (true) {
+            Member member = poll();
+
+            if (member.failure == null) {
+                return member;
+            }
+
+            this.dirty.add(member);
+
+            if (member.failures >= MAX_RECYCLE_ATTEMPTS) {
+                throw new CassandraTestException("Failed to prepare keyspace '%s' of pool '%s'",
+                        member.settings.getKeyspace(), this.name, member.failure);
+            }
+
+            // Recycle the keyspace again and take the next clean one, which may be the same keyspace.
+            LOG.debug("Recycling keyspace {} of pool {} again after a failure.", member.settings.getKeyspace(), this.name);
+        }
+    }
+
+    private Member poll() {
+        Member member = this.clean.poll();
+
+        if (member == null) {
+            long start = System.nanoTime();
+
+            try {
+                member = this.clean.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CassandraTestException("Interrupted while waiting for a clean keyspace from pool '%s'",
+                        this.name, e);
+            }
+
+            long waited = System.nanoTime() - start;
+
+            this.waitCount.incrementAndGet();
+            this.waitNanos.addAndGet(waited);
+            LOG.debug("Waited {} ms for a clean keyspace from pool {}. Waited {} times, {} ms in total.",
+                    TimeUnit.NANOSECONDS.toMillis(waited), this.name, getWaits(), getWaitMillis());
+        }
+
+        return member;
+    }
+
+    private synchronized void bind(TestRuntime runtime) {
+        ConnectSettings connectSettings = runtime.getTestSettings().getConnectSettings();
+
+        if (connectSettings == null) {
+            // No connection settings to open a connection of our own. Recycle through the runtime's cluster.
+            this.cluster = runtime.getKeyspace().getCluster();
+        } else if (this.pooledSession == null) {
+            this.pooledSession = BasicSessionPool.DEFAULT.acquire(connectSettings);
+            this.cluster = this.pooledSession.getCluster();
+        }
+
+        if (this.worker == null) {
+            this.worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    refill();
+                }
+            }, "cassandra-test-keyspace-pool-" + this.name);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+    }
+
+    private void refill() {
+        while (true) {
+            Member member;
+
+            try {
+                member = this.dirty.take();
+                throttle();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                recycle(member);
+                member.failure = null;
+                member.failures = 0;
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to prepare keyspace {} of pool {}.", member.settings.getKeyspace(), this.name, e);
+                member.failure = e;
+                member.failures++;
+            }
+
+            this.clean.add(member);
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        if (this.refillIntervalNanos > 0) {
+            long waitNanos = this.lastRefillNanos + this.refillIntervalNanos - System.nanoTime();
+
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+
+            this.lastRefillNanos = System.nanoTime();
+        }
+    }
+
+    private void recycle(Member member) {
+        TestRuntime runtime = new TestRuntime(KeyspacePool.class, null, getWorkerSession(),
+                new TestSettings(null, member.settings, null, null));
+        Keyspace keyspace = runtime.getKeyspace();
+
+        if (member.drop) {
+            keyspace.dropIfExists();
+        } else if (member.used && keyspace.exists()) {
+            Set<String> tables = new HashSet<String>(keyspace.allTableNames());
+
+            tables.removeAll(Arrays.asList(member.settings.getProtectedTables()));
+            keyspace.truncateTables(tables);
+        }
+
+        member.settings.sync(runtime, member.stateManager);
+        member.used = false;
+        member.drop = false;
+    }
+
+    private synchronized Session getWorkerSession() {
+        Cluster current = this.cluster;
+
+        if (this.worker == null) {
+            throw new CassandraTestException("Keyspace pool '%s' is closed.", this.name);
+        }
+
+        if (this.workerSession == null || this.workerSession.isClosed() || this.workerSession.getCluster() != current) {
+            if (this.workerSession != null) {
+                this.workerSession.closeAsync();
+            }
+
+            // The worker has its own session, so USE statements do not affect test sessions.
+            this.workerSession = current.connect();
+        }
+
+        return this.workerSession;
+    }
+
+    private static class Member {
+        private final BasicKeyspaceSettings settings;
+        // A keyspace is owned by either the worker or a single lease, so it has its own state manager.
+        private final KeyspaceStateManager stateManager = new BasicKeyspaceStateManager();
+        private volatile boolean used;
+        private volatile boolean drop;
+        private volatile RuntimeException failure;
+        private volatile int failures;
+
+        Member(BasicKeyspaceSettings settings) {
+            this.settings = settings;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.pool;
+
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.data.cql.SchemaCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.AbstractKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.KeyspaceSharding;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.basic.BasicKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.unittested.cassandra.test.rollback.pool.PoolRollbackSettings;
+
+/**
+ * Keyspace settings backed by a {@link KeyspacePool}.
+ * <p>
+ * Each test class or test method leases a clean keyspace from the pool. {@link PoolRollbackSettings} returns the
+ * keyspace to the pool, where it is recycled in the background. The keyspace name of these settings is the name of the
+ * pool. Tests see the name of the leased keyspace through {@link TestRuntime#getKeyspace()}.
+ * <p>
+ * Schema resources must not refer to the keyspace by name, as each pooled keyspace has its own name.
+ */
+public class PoolKeyspaceSettings extends AbstractKeyspaceSettings {
+
+    private String [] schema;
+    private SchemaChangeDetectionEnum schemaChangeDetection;
+    private boolean deferSchemaAgreement;
+    private int poolSize;
+    private int refillRate;
+    private int hashCode;
+
+    public PoolKeyspaceSettings(String keyspace,
+                                boolean isCaseSensitiveKeyspace,
+                                String[] schema,
+                                SchemaChangeDetectionEnum schemaChangeDetection,
+                                String[] protectedTables,
+                                boolean deferSchemaAgreement,
+                                int poolSize,
+                                int refillRate) {
+        super(keyspace, isCaseSensitiveKeyspace, true, protectedTables);
+
+        if (keyspace.isEmpty()) {
+            throw new CassandraTestException("CassandraPoolKeyspace requires a keyspace.");
+        }
+
+        if (poolSize < 1) {
+            throw new CassandraTestException("Keyspace pool size must be at least 1, but got %d", poolSize);
+        }
+
+        if (refillRate < 0) {
+            throw new CassandraTestException("Keyspace pool refill rate must not be negative, but got %d", refillRate);
+        }
+
+        this.schema = schema;
+        this.schemaChangeDetection = schemaChangeDetection;
+        this.deferSchemaAgreement = deferSchemaAgreement;
+        this.poolSize = poolSize;
+        this.refillRate = refillRate;
+        this.hashCode = new HashCodeBuilder(17, 37)
+                .append(keyspace)
+                .append(isCaseSensitiveKeyspace)
+                .append(schema)
+                .append(schemaChangeDetection.name())
+                .append(protectedTables)
+                .append(deferSchemaAgreement)
+                .append(poolSize)
+                .append(refillRate)
+                .toHashCode();
+    }
+
+    @Override
+    public void sync(TestRuntime runtime, KeyspaceStateManager keyspaceStateManager) {
+        if (!(runtime.getTestSettings().getRollbackSettings() instanceof PoolRollbackSettings)) {
+            throw new CassandraTestException("CassandraPoolKeyspace requires CassandraPoolRollback.");
+        }
+
+        getPool().lease(runtime);
+    }
+
+    /**
+     * Get the pool of these settings. Pools are shared by settings with the same keyspace. With
+     * {@link KeyspaceSharding}, each worker has its own pool.
+     *
+     * @return {@link KeyspacePool}
+     */
+    public KeyspacePool getPool() {
+        return KeyspacePool.forSettings(this);
+    }
+
+    /**
+     * Number of keyspaces in the pool.
+     *
+     * @return Pool size.
+     */
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
+    /**
+     * Max number of keyspaces recycled per second. If 0, the rate is not limited.
+     *
+     * @return Refill rate.
+     */
+    public int getRefillRate() {
+        return this.refillRate;
+    }
+
+    BasicKeyspaceSettings createMemberSettings(String keyspace) {
+        return new BasicKeyspaceSettings(
+                keyspace,
+                true,
+                true,
+                this.schema,
+                this.schemaChangeDetection,
+                getProtectedTables(),
+                this.deferSchemaAgreement ? new SchemaCqlResourceLoader() : new BasicCqlResourceLoader(),
+                KeyspaceSharding.NONE);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.state;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+
+/**
+ * Common code for {@link KeyspaceStateManager} implementations.
+ */
+public abstract class AbstractKeyspaceStateManager implements KeyspaceStateManager {
+
+    private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
+    private final ConcurrentMap<String, FutureTask<Void>> syncs = new ConcurrentHashMap<String, FutureTask<Void>>();
+
+    @Override
+    public boolean isTracked(String key) {
+        return getSchemaState(key) != null;
+    }
+
+    @Override
+    public boolean hasClusterSchemaVersionChanged(String key, UUID clusterSchemaVersion) {
+        SchemaState schemaState = getSchemaState(key);
+        return schemaState == null || ObjectUtils.notEqual(schemaState.getClusterSchemaVersion(), clusterSchemaVersion);
+    }
+
+    @Override
+    public boolean hasKeyspaceCqlSignatureChanged(String key, UUID keyspaceSchemaDigest) {
+        SchemaState schemaState = getSchemaState(key);
+        return schemaState == null || ObjectUtils.notEqual(schemaState.getKeyspaceSchemaDigest(), keyspaceSchemaDigest);
+    }
+
+    @Override
+    public void sync(final String keyspace, String key, final Runnable sync) {
+        FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                runSync(keyspace, sync);
+            }
+        }, null);
+        FutureTask<Void> running = this.syncs.putIfAbsent(key, task);
+
+        if (running == null) {
+            Lock lock = getLock(keyspace);
+
+            lock.lock();
+
+            try {
+                task.run();
+            } finally {
+                lock.unlock();
+                this.syncs.remove(key, task);
+            }
+
+            running = task;
+        }
+
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraTestException("Interrupted while waiting for keyspace '%s' to sync", keyspace, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error)e.getCause();
+            }
+
+            throw new CassandraTestException("Failed to sync keyspace '%s'", keyspace, e.getCause());
+        }
+    }
+
+    /**
+     * Run a keyspace sync. Called while holding the keyspace's lock, which only excludes syncs in this JVM.
+     * Implementations that share state with other JVMs override this to exclude their syncs too.
+     *
+     * @param keyspace Keyspace name.
+     * @param sync Sync to run.
+     */
+    protected void runSync(String keyspace, Runnable sync) {
+        sync.run();
+    }
+
+    /**
+     * Get the tracked schema state of a keyspace.
+     *
+     * @param key State key of the keyspace settings.
+     * @return {@link SchemaState} or null if the keyspace is not tracked.
+     */
+    protected abstract SchemaState getSchemaState(String key);
+
+    private Lock getLock(String keyspace) {
+        Lock lock = this.locks.get(keyspace);
+
+        if (lock == null) {
+            Lock newLock = new ReentrantLock();
+
+            lock = this.locks.putIfAbsent(keyspace, newLock);
+
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+
+        return lock;
+    }
+
+    /**
+     * Schema state recorded by {@link #track(String, UUID, UUID)}.
+     */
+    protected static class SchemaState {
+        private final UUID keyspaceSchemaDigest;
+        private final UUID clusterSchemaVersion;
+
+        public SchemaState(UUID keyspaceSchemaDigest, UUID clusterSchemaVersion) {
+            this.keyspaceSchemaDigest = keyspaceSchemaDigest;
+            this.clusterSchemaVersion = clusterSchemaVersion;
+        }
+
+        public UUID getKeyspaceSchemaDigest() {
+            return this.keyspaceSchemaDigest;
+        }
+
+        public UUID getClusterSchemaVersion() {
+            return this.clusterSchemaVersion;
+        }
+    }
+}
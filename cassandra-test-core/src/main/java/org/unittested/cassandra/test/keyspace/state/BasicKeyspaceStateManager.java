@@ -16,55 +16,25 @@
 
 package org.unittested.cassandra.test.keyspace.state;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class BasicKeyspaceStateManager implements KeyspaceStateManager {
+public class BasicKeyspaceStateManager extends AbstractKeyspaceStateManager {
 
-    private Map<Integer, SchemaState> schemaStateMap;
+    private Map<String, SchemaState> schemaStateMap;
 
     public BasicKeyspaceStateManager() {
-        this.schemaStateMap = new HashMap<Integer, SchemaState>();
+        this.schemaStateMap = new ConcurrentHashMap<String, SchemaState>();
     }
 
     @Override
-    public void track(Integer key, UUID clusterSchemaVersion, Integer keyspaceCqlSignature) {
-        this.schemaStateMap.put(key, new SchemaState(keyspaceCqlSignature, clusterSchemaVersion));
+    public void track(String key, UUID clusterSchemaVersion, UUID keyspaceSchemaDigest) {
+        this.schemaStateMap.put(key, new SchemaState(keyspaceSchemaDigest, clusterSchemaVersion));
     }
 
     @Override
-    public boolean isTracked(final Integer key) {
-        return this.schemaStateMap.containsKey(key);
-    }
-
-    @Override
-    public boolean hasClusterSchemaVersionChanged(Integer key, UUID latestClusterSchemaVersion) {
-        SchemaState schemaState = this.schemaStateMap.get(key);
-        return schemaState == null || !schemaState.getClusterSchemaVersion().equals(latestClusterSchemaVersion);
-    }
-
-    @Override
-    public boolean hasKeyspaceCqlSignatureChanged(Integer key, Integer latestKeyspaceSchemaSignature) {
-        SchemaState schemaState = this.schemaStateMap.get(key);
-        return schemaState == null || !schemaState.getKeyspaceSchemaSignature().equals(latestKeyspaceSchemaSignature);
-    }
-
-    private static class SchemaState {
-        private final Integer keyspaceSchemaSignature;
-        private final UUID clusterSchemaVersion;
-
-        public SchemaState(Integer keyspaceSchemaSignature, UUID clusterSchemaVersion) {
-            this.keyspaceSchemaSignature = keyspaceSchemaSignature;
-            this.clusterSchemaVersion = clusterSchemaVersion;
-        }
-
-        public Integer getKeyspaceSchemaSignature() {
-            return this.keyspaceSchemaSignature;
-        }
-
-        public UUID getClusterSchemaVersion() {
-            return this.clusterSchemaVersion;
-        }
+    protected SchemaState getSchemaState(String key) {
+        return this.schemaStateMap.get(key);
     }
 }
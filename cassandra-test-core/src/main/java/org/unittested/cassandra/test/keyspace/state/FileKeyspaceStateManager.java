@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.state;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link KeyspaceStateManager} that persists keyspace state to a file.
+ * <p>
+ * Keyspace state survives across JVMs, so a keyspace installed by a previous test run or by another surefire fork
+ * is reused if its schema has not changed. Reads and writes lock a companion lock file, which also holds a version
+ * counter that every write increments, so the state file is only re-read after it changed and concurrent JVMs
+ * sharing the file do not lose each other's updates or see a partly replaced file. Syncs of a keyspace also hold a
+ * per keyspace lock file, so only one JVM checks, drops and installs a keyspace at a time.
+ * <p>
+ * With schema change detection NONE, a keyspace tracked by a previous run is trusted as long as it exists.
+ */
+public class FileKeyspaceStateManager extends AbstractKeyspaceStateManager {
+
+    /**
+     * Property naming the state file. If set, Cassandra Test uses a FileKeyspaceStateManager by default.
+     */
+    public static final String STATE_FILE_PROPERTY = "cassandra.test.keyspace.state.file";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileKeyspaceStateManager.class);
+    private static final String SEPARATOR = ",";
+
+    // A JVM can hold only one FileLock per file, so threads and manager instances take this lock first.
+    private static final ConcurrentMap<String, Lock> SYNC_LOCKS = new ConcurrentHashMap<String, Lock>();
+
+    private final File file;
+    private final File lockFile;
+    private Map<String, SchemaState> schemaStateMap = new HashMap<String, SchemaState>();
+    private long version = -1;
+
+    public FileKeyspaceStateManager(File file) {
+        this.file = file.getAbsoluteFile();
+        this.lockFile = new File(this.file.getPath() + ".lock");
+    }
+
+    @Override
+    public synchronized void track(String key, UUID clusterSchemaVersion, UUID keyspaceSchemaDigest) {
+        synchronized (FileKeyspaceStateManager.class) {
+            FileLock lock = null;
+            RandomAccessFile lockAccess = null;
+
+            try {
+                createParent();
+                lockAccess = new RandomAccessFile(this.lockFile, "rw");
+                lock = lockAccess.getChannel().lock();
+
+                Properties properties = read();
+                properties.setProperty(key, encode(new SchemaState(keyspaceSchemaDigest, clusterSchemaVersion)));
+                write(properties);
+
+                long newVersion = readVersion(lockAccess) + 1;
+                lockAccess.seek(0);
+                lockAccess.writeLong(newVersion);
+                update(properties, newVersion);
+            } catch (IOException e) {
+                throw new CassandraTestException("Failed to write keyspace state file %s", this.file, e);
+            } finally {
+                release(lock, lockAccess);
+            }
+        }
+    }
+
+    @Override
+    protected synchronized SchemaState getSchemaState(String key) {
+        if (this.lockFile.isFile() || this.file.isFile()) {
+            synchronized (FileKeyspaceStateManager.class) {
+                FileLock lock = null;
+                RandomAccessFile lockAccess = null;
+
+                try {
+                    createParent();
+                    lockAccess = new RandomAccessFile(this.lockFile, "rw");
+                    lock = lockAccess.getChannel().lock(0, Long.MAX_VALUE, true);
+
+                    long currentVersion = readVersion(lockAccess);
+
+                    if (currentVersion != this.version) {
+                        update(read(), currentVersion);
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Failed to read keyspace state file {}", this.file, e);
+                } finally {
+                    release(lock, lockAccess);
+                }
+            }
+        }
+
+        return this.schemaStateMap.get(key);
+    }
+
+    @Override
+    protected void runSync(String keyspace, Runnable sync) {
+        File syncLockFile = new File(this.file.getPath() + "." + keyspace + ".lock");
+        Lock syncLock = getSyncLock(syncLockFile.getPath());
+        FileLock lock = null;
+        RandomAccessFile lockAccess = null;
+
+        syncLock.lock();
+
+        try {
+            createParent();
+            lockAccess = new RandomAccessFile(syncLockFile, "rw");
+            lock = lockAccess.getChannel().lock();
+            sync.run();
+        } catch (IOException e) {
+            throw new CassandraTestException("Failed to lock keyspace state file %s", syncLockFile, e);
+        } finally {
+            release(lock, lockAccess);
+            syncLock.unlock();
+        }
+    }
+
+    private void createParent() throws IOException {
+        File parent = this.file.getParentFile();
+
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+    }
+
+    private Properties read() throws IOException {
+        Properties properties = new Properties();
+
+        if (!this.file.isFile()) {
+            return properties;
+        }
+
+        InputStream in = new FileInputStream(this.file);
+
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        return properties;
+    }
+
+    private void write(Properties properties) throws IOException {
+        File temp = File.createTempFile(this.file.getName(), ".tmp", this.file.getParentFile());
+        OutputStream out = new FileOutputStream(temp);
+
+        try {
+            properties.store(out, "Cassandra Test keyspace state");
+            out.flush();
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(this.file)) {
+            // Windows cannot rename over an existing file. Readers hold the lock file, so they never see it missing.
+            if (!this.file.delete() || !temp.renameTo(this.file)) {
+                temp.delete();
+                throw new IOException("Cannot replace " + this.file);
+            }
+        }
+    }
+
+    private void update(Properties properties, long newVersion) {
+        Map<String, SchemaState> schemaStates = new HashMap<String, SchemaState>();
+
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                schemaStates.put(name, decode(properties.getProperty(name)));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ignoring invalid keyspace state entry '{}' in {}", name, this.file);
+            }
+        }
+
+        this.schemaStateMap = schemaStates;
+        this.version = newVersion;
+    }
+
+    private static long readVersion(RandomAccessFile lockAccess) throws IOException {
+        if (lockAccess.length() < 8) {
+            // Lock file of an older version or of a state file that has never been written.
+            return 0;
+        }
+
+        lockAccess.seek(0);
+        return lockAccess.readLong();
+    }
+
+    private static void release(FileLock lock, RandomAccessFile lockAccess) {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+
+            if (lockAccess != null) {
+                lockAccess.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static Lock getSyncLock(String path) {
+        Lock lock = SYNC_LOCKS.get(path);
+
+        if (lock == null) {
+            Lock newLock = new ReentrantLock();
+
+            lock = SYNC_LOCKS.putIfAbsent(path, newLock);
+
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+
+        return lock;
+    }
+
+    private static String encode(SchemaState schemaState) {
+        return (schemaState.getClusterSchemaVersion() == null ? "" : schemaState.getClusterSchemaVersion().toString())
+                + SEPARATOR
+                + (schemaState.getKeyspaceSchemaDigest() == null ? "" : schemaState.getKeyspaceSchemaDigest().toString());
+    }
+
+    private static SchemaState decode(String value) {
+        String [] parts = value.split(SEPARATOR, -1);
+
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(value);
+        }
+
+        return new SchemaState(
+                parts[1].isEmpty() ? null : UUID.fromString(parts[1]),
+                parts[0].isEmpty() ? null : UUID.fromString(parts[0]));
+    }
+}
@@ -24,45 +24,64 @@ import java.util.UUID;
  * Keyspace schema state is tracked at the cluster and the keyspace. Cluster schema state uses the system.local.schema_version
  * UUID to track changes. If the UUID changes, Cassandra Test assumes that the schema for the test keyspace has changed.
  * Even though this change detection produces false positives, it is sufficient for most test cases. Keyspace schema state
- * uses a hash code of the keyspace schema (exported as a list of CQL strings). If the UUID changes, Cassandra Test assumes
+ * uses a 128-bit digest of the keyspace schema ({@link org.unittested.cassandra.test.Keyspace#getSchemaDigest()}). If the digest changes, Cassandra Test assumes
  * that the schema for the test keyspace has changed.
  * <p>
  * Tests can configure which keyspace schema change method to use in keyspace setting annotations.
+ * <p>
+ * Keyspace state is keyed by a string provided by the keyspace settings. Settings that install a schema include a
+ * fingerprint of the schema content in the key, so a schema edit results in a new, untracked key.
+ * <p>
+ * Implementations must be thread safe, as test classes can run in parallel.
  */
 public interface KeyspaceStateManager {
 
     /**
      * Records schema information associated with a keyspace.
      *
-     * @param key Hash code of keyspace settings.
+     * @param key State key of the keyspace settings.
      * @param clusterSchemaVersion The current schema_version UUID of the Cassandra cluster.
-     * @param keyspaceCqlSignature The current hash code of keyspace schema.
+     * @param keyspaceSchemaDigest The current digest of keyspace schema.
      */
-    void track(Integer key, UUID clusterSchemaVersion, Integer keyspaceCqlSignature);
+    void track(String key, UUID clusterSchemaVersion, UUID keyspaceSchemaDigest);
 
     /**
-     * Checks if {@link #track(Integer, UUID, Integer)} has been called for the keyspace.
+     * Checks if {@link #track(String, UUID, UUID)} has been called for the keyspace.
      *
-     * @param key Hash code of keyspace settings.
+     * @param key State key of the keyspace settings.
      * @return {@link Boolean}
      */
-    boolean isTracked(Integer key);
+    boolean isTracked(String key);
 
     /**
      * Checks if the cluster schema_version has changed.
      *
-     * @param key Hash code of keyspace settings.
+     * @param key State key of the keyspace settings.
      * @param clusterSchemaVersion The current schema_version UUID of the Cassandra cluster.
      * @return {@link Boolean}
      */
-    boolean hasClusterSchemaVersionChanged(Integer key, UUID clusterSchemaVersion);
+    boolean hasClusterSchemaVersionChanged(String key, UUID clusterSchemaVersion);
 
     /**
      * Checks if the keyspace schema has changed.
      *
-     * @param key Hash code of keyspace settings.
-     * @param keyspaceSchemaSignature The current hash code of keyspace schema.
+     * @param key State key of the keyspace settings.
+     * @param keyspaceSchemaDigest The current digest of keyspace schema.
      * @return {@link Boolean}
      */
-    boolean hasKeyspaceCqlSignatureChanged(Integer key, Integer keyspaceSchemaSignature);
+    boolean hasKeyspaceCqlSignatureChanged(String key, UUID keyspaceSchemaDigest);
+
+    /**
+     * Run a keyspace sync, such as the check and install of keyspace schema, so that parallel tests do not drop and
+     * install a keyspace underneath each other.
+     * <p>
+     * Syncs of the same keyspace run one at a time. Syncs of different keyspaces run in parallel. If a sync with the
+     * same state key is already running, the sync is not run again. Instead, this method waits for the running sync
+     * and rethrows its failure.
+     *
+     * @param keyspace Keyspace name.
+     * @param key State key of the keyspace settings.
+     * @param sync Sync to run.
+     */
+    void sync(String keyspace, String key, Runnable sync);
 }
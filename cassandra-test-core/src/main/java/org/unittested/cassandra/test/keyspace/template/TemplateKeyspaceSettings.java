@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.template;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.SchemaCloner;
+import org.unittested.cassandra.test.keyspace.basic.BasicKeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.unittested.cassandra.test.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+/**
+ * {@link BasicKeyspaceSettings} that installs schema by cloning a template keyspace.
+ * <p>
+ * The schema resources are installed once into a template keyspace named after the schema fingerprint. The template's
+ * schema is exported from the driver's keyspace metadata, parsed once and cached for the life of the JVM. Installing
+ * schema into a test keyspace replays the cached statements with the keyspace name rewritten, so schema resources
+ * are neither read nor parsed again. Test keyspaces with the same schema content share a template.
+ * <p>
+ * Templates are kept between test runs and shared by all test JVMs. The install state of each template is stored in
+ * the cassandra_test_templates keyspace, which is created with the replication of the
+ * {@value #REGISTRY_REPLICATION_PROPERTY} property. Only one JVM installs a template, while the others wait for it to
+ * finish.
+ * An installed template is never dropped by Cassandra Test. Use {@link #dropTemplates(Session)} to drop templates of
+ * old schema.
+ * <p>
+ * Schema resources must not refer to the test keyspace by name. Use unqualified table names and let Cassandra Test
+ * create the keyspace.
+ */
+public class TemplateKeyspaceSettings extends BasicKeyspaceSettings {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateKeyspaceSettings.class);
+
+    /**
+     * Prefix of template keyspace names.
+     */
+    public static final String TEMPLATE_PREFIX = "cassandra_test_template_";
+
+    /**
+     * Property with the replication map of the cassandra_test_templates keyspace. Only used when the keyspace is
+     * created.
+     */
+    public static final String REGISTRY_REPLICATION_PROPERTY = "cassandra.test.template.replication";
+
+    /**
+     * Default replication of the cassandra_test_templates keyspace.
+     */
+    public static final String DEFAULT_REGISTRY_REPLICATION = "{'class': 'SimpleStrategy', 'replication_factor': '1'}";
+
+    private static final int TEMPLATE_FINGERPRINT_LENGTH = 24;
+    private static final long INSTALL_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long CLAIM_RENEW_INTERVAL_SECONDS = TemplateRegistry.CLAIM_TTL_SECONDS / 4;
+
+    private static final ScheduledExecutorService CLAIM_RENEWER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "cassandra-test-template-claim");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // Exported template schema by template keyspace name, shared by all settings.
+    private static final ConcurrentMap<String, List<String>> TEMPLATES = new ConcurrentHashMap<String, List<String>>();
+    private static final Object TEMPLATE_LOCK = new Object();
+
+    private BasicCqlResourceLoader cqlResourceLoader;
+    private int hashCode;
+
+    public TemplateKeyspaceSettings(String keyspace,
+                                    boolean isCaseSensitiveKeyspace,
+                                    String[] schema,
+                                    SchemaChangeDetectionEnum schemaChangeDetection,
+                                    String[] protectedTables,
+                                    BasicCqlResourceLoader cqlResourceLoader) {
+        super(keyspace, isCaseSensitiveKeyspace, true, schema, schemaChangeDetection, protectedTables, cqlResourceLoader);
+        this.cqlResourceLoader = cqlResourceLoader;
+        this.hashCode = new HashCodeBuilder(17, 37)
+                .append(super.hashCode())
+                .append(TEMPLATE_PREFIX)
+                .toHashCode();
+    }
+
+    @Override
+    protected void installSchema(TestRuntime runtime,
+                                 KeyspaceStateManager keyspaceStateManager,
+                                 List<Resource> schemaResources) {
+        Keyspace keyspace = runtime.getKeyspace();
+        String fingerprint = getSchemaFingerprint(schemaResources);
+        String templateName = getTemplateName(fingerprint);
+        List<String> template = getTemplate(runtime, keyspaceStateManager, schemaResources, templateName, fingerprint);
+
+        this.cqlResourceLoader.loadStatements(runtime,
+                SchemaCloner.cloneSchema(template, templateName, keyspace.getName(), keyspace.exists()));
+        keyspace.use();
+    }
+
+    /**
+     * Get the name of the template keyspace for a schema fingerprint.
+     *
+     * @param fingerprint Hex schema fingerprint.
+     * @return Template keyspace name.
+     */
+    static String getTemplateName(String fingerprint) {
+        return TEMPLATE_PREFIX + StringUtils.left(fingerprint, TEMPLATE_FINGERPRINT_LENGTH).toLowerCase();
+    }
+
+    /**
+     * Drop template keyspaces that this JVM does not use.
+     * <p>
+     * A schema change leaves the template of the old schema behind. Call this method when no other test JVM uses the
+     * cluster, as templates used by other JVMs are dropped as well.
+     *
+     * @param session {@link Session}
+     */
+    public static void dropTemplates(Session session) {
+        TemplateRegistry registry = TemplateRegistry.open(session);
+
+        for (KeyspaceMetadata keyspaceMetadata : session.getCluster().getMetadata().getKeyspaces()) {
+            String name = keyspaceMetadata.getName();
+
+            if (name.startsWith(TEMPLATE_PREFIX) && !TEMPLATES.containsKey(name)) {
+                LOG.debug("Dropping template keyspace {}.", name);
+                new Keyspace(session, name).drop();
+                registry.remove(name);
+            }
+        }
+    }
+
+    private List<String> getTemplate(TestRuntime runtime,
+                                     KeyspaceStateManager keyspaceStateManager,
+                                     List<Resource> schemaResources,
+                                     String templateName,
+                                     String fingerprint) {
+        List<String> template = TEMPLATES.get(templateName);
+
+        if (template != null) {
+            return template;
+        }
+
+        synchronized (TEMPLATE_LOCK) {
+            template = TEMPLATES.get(templateName);
+
+            if (template == null) {
+                template = exportTemplate(runtime, keyspaceStateManager, schemaResources, templateName, fingerprint);
+                TEMPLATES.put(templateName, template);
+            }
+        }
+
+        return template;
+    }
+
+    private List<String> exportTemplate(TestRuntime runtime,
+                                        KeyspaceStateManager keyspaceStateManager,
+                                        List<Resource> schemaResources,
+                                        String templateName,
+                                        String fingerprint) {
+        Keyspace templateKeyspace = new Keyspace(runtime.getKeyspace().getSession(), templateName);
+        TemplateRegistry registry = TemplateRegistry.open(templateKeyspace.getSession());
+        UUID installer = UUID.randomUUID();
+        long deadline = System.currentTimeMillis() + INSTALL_TIMEOUT_MILLIS;
+        Row state;
+
+        while ((state = registry.get(templateName)) == null || !state.getBool("installed")) {
+            if (state == null && registry.claim(templateName, fingerprint, installer)) {
+                installTemplate(runtime, keyspaceStateManager, schemaResources, templateKeyspace, registry, installer, fingerprint);
+            } else if (System.currentTimeMillis() > deadline) {
+                throw new CassandraTestException("Timed out waiting for template keyspace '%s' to be installed.", templateName);
+            } else {
+                sleep(templateName);
+            }
+        }
+
+        if (!fingerprint.equals(state.getString("fingerprint"))) {
+            throw new CassandraTestException("Template keyspace '%s' was installed for other schema. "
+                    + "Drop it with TemplateKeyspaceSettings.dropTemplates().", templateName);
+        }
+
+        if (!templateKeyspace.exists()) {
+            // Dropped outside of Cassandra Test. Install it again.
+            registry.remove(templateName);
+            return exportTemplate(runtime, keyspaceStateManager, schemaResources, templateName, fingerprint);
+        }
+
+        return SchemaCloner.exportSchema(templateKeyspace, this.cqlResourceLoader);
+    }
+
+    private void installTemplate(TestRuntime runtime,
+                                 KeyspaceStateManager keyspaceStateManager,
+                                 List<Resource> schemaResources,
+                                 Keyspace templateKeyspace,
+                                 TemplateRegistry registry,
+                                 UUID installer,
+                                 String fingerprint) {
+        String templateName = templateKeyspace.getName();
+        ClaimRenewer renewer = new ClaimRenewer(registry, templateName, fingerprint, installer);
+
+        LOG.debug("Installing template keyspace {}.", templateName);
+
+        try {
+            // Left over from an install that did not finish. Nobody uses a template before it is installed.
+            templateKeyspace.dropIfExists();
+            templateKeyspace.create();
+            templateKeyspace.use();
+            super.installSchema(runtime, keyspaceStateManager, schemaResources);
+            renewer.stop();
+
+            if (!registry.installed(templateName, fingerprint, installer)) {
+                throw new CassandraTestException(
+                        "Lost the install claim of template keyspace '%s' while installing it.", templateName);
+            }
+        } catch (RuntimeException e) {
+            renewer.stop();
+            registry.release(templateName, installer);
+            throw e;
+        }
+    }
+
+    private static void sleep(String templateName) {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraTestException("Interrupted while waiting for template keyspace '%s'", templateName, e);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    /**
+     * Keeps a claim from expiring while the template is installed.
+     */
+    private static class ClaimRenewer implements Runnable {
+
+        private final TemplateRegistry registry;
+        private final String templateName;
+        private final String fingerprint;
+        private final UUID installer;
+        private final ScheduledFuture<?> future;
+        private boolean stopped;
+
+        ClaimRenewer(TemplateRegistry registry, String templateName, String fingerprint, UUID installer) {
+            this.registry = registry;
+            this.templateName = templateName;
+            this.fingerprint = fingerprint;
+            this.installer = installer;
+            this.future = CLAIM_RENEWER.scheduleWithFixedDelay(
+                    this, CLAIM_RENEW_INTERVAL_SECONDS, CLAIM_RENEW_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (this.stopped) {
+                return;
+            }
+
+            try {
+                if (!this.registry.renew(this.templateName, this.fingerprint, this.installer)) {
+                    LOG.warn("Lost the install claim of template keyspace {}.", this.templateName);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to renew the install claim of template keyspace {}.", this.templateName, e);
+            }
+        }
+
+        /**
+         * Stop renewing. Returns after a running renewal has finished, so it cannot overwrite a later update.
+         */
+        synchronized void stop() {
+            this.stopped = true;
+            this.future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.template;
+
+import java.lang.annotation.Annotation;
+
+import org.unittested.cassandra.test.annotation.CassandraTemplateKeyspace;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.data.cql.CqlStatementCache;
+import org.unittested.cassandra.test.data.cql.SchemaCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
+
+public class TemplateKeyspaceSettingsFactory implements KeyspaceSettingsFactory {
+
+    @Override
+    public KeyspaceSettings create(Annotation annotation, PropertyResolver propertyResolver) {
+        if (!(annotation instanceof CassandraTemplateKeyspace)) {
+            throw new CassandraTestException("Expected annotation of type @CassandraTemplateKeyspace, but got %s", annotation);
+        }
+
+        CassandraTemplateKeyspace cassandraKeyspace = (CassandraTemplateKeyspace)annotation;
+        boolean deferSchemaAgreement = Boolean.parseBoolean(
+                propertyResolver.resolveReferences(cassandraKeyspace.deferSchemaAgreement()));
+        int schemaParallelism = Integer.parseInt(
+                propertyResolver.resolveReferences(cassandraKeyspace.schemaParallelism()));
+
+        return new TemplateKeyspaceSettings(
+                propertyResolver.resolveReferences(cassandraKeyspace.value()),
+                Boolean.parseBoolean(propertyResolver.resolveReferences(cassandraKeyspace.isCaseSensitiveKeyspace())),
+                propertyResolver.resolveReferences(cassandraKeyspace.schema()),
+                SchemaChangeDetectionEnum.valueOf(propertyResolver.resolveReferences(cassandraKeyspace.schemaChangeDetection())),
+                propertyResolver.resolveReferences(cassandraKeyspace.protectedTables()),
+                deferSchemaAgreement
+                        ? new SchemaCqlResourceLoader(CqlStatementCache.SHARED, schemaParallelism) : new BasicCqlResourceLoader());
+    }
+}
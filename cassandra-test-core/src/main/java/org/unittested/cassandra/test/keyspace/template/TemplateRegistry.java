@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.unittested.cassandra.test.keyspace.template;
+
+import java.util.UUID;
+
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+/**
+ * Install state of template keyspaces, stored in Cassandra so that every test JVM sees it.
+ * <p>
+ * A JVM claims a template with a lightweight transaction before installing it, so only one JVM installs a template
+ * while the others wait for it. The installing JVM renews its claim while it installs. A claim that is not renewed
+ * expires after two minutes, so a template whose installing JVM died is installed again. All updates of a claimed
+ * template are conditional on the installer, so a JVM that lost its claim cannot overwrite another JVM's claim.
+ */
+final class TemplateRegistry {
+
+    /**
+     * Keyspace holding the install state of template keyspaces.
+     */
+    static final String KEYSPACE = "cassandra_test_templates";
+
+    /**
+     * Time after which a claim expires unless it is renewed.
+     */
+    static final int CLAIM_TTL_SECONDS = 120;
+
+    private final Session session;
+
+    private TemplateRegistry(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Create the registry table, if it does not exist yet. The registry keyspace is created with the replication of the
+     * {@value TemplateKeyspaceSettings#REGISTRY_REPLICATION_PROPERTY} property.
+     *
+     * @param session {@link Session}
+     * @return {@link TemplateRegistry}
+     */
+    static TemplateRegistry open(Session session) {
+        String replication = PropertiesPropertyResolver.DEFAULT.getProperty(
+                TemplateKeyspaceSettings.REGISTRY_REPLICATION_PROPERTY,
+                TemplateKeyspaceSettings.DEFAULT_REGISTRY_REPLICATION).trim();
+
+        session.execute("CREATE KEYSPACE IF NOT EXISTS " + KEYSPACE + " WITH replication = " + replication);
+        session.execute("CREATE TABLE IF NOT EXISTS " + KEYSPACE + ".template"
+                + " (name text PRIMARY KEY, fingerprint text, installer uuid, installed boolean)");
+
+        return new TemplateRegistry(session);
+    }
+
+    /**
+     * Get the install state of a template.
+     *
+     * @param template Template keyspace name.
+     * @return Row with fingerprint, installer and installed columns or null if the template is not claimed.
+     */
+    Row get(String template) {
+        return this.session.execute("SELECT fingerprint, installer, installed FROM " + KEYSPACE + ".template"
+                + " WHERE name = ?", template).one();
+    }
+
+    /**
+     * Claim a template for installing.
+     *
+     * @param template Template keyspace name.
+     * @param fingerprint Full schema fingerprint.
+     * @param installer Id of the installing JVM.
+     * @return True if the template was claimed, false if another installer holds it.
+     */
+    boolean claim(String template, String fingerprint, UUID installer) {
+        return this.session.execute("INSERT INTO " + KEYSPACE + ".template (name, fingerprint, installer, installed)"
+                + " VALUES (?, ?, ?, false) IF NOT EXISTS USING TTL " + CLAIM_TTL_SECONDS,
+                template, fingerprint, installer).one().getBool("[applied]");
+    }
+
+    /**
+     * Extend a claim by another {@link #CLAIM_TTL_SECONDS}.
+     *
+     * @param template Template keyspace name.
+     * @param fingerprint Full schema fingerprint.
+     * @param installer Id of the installing JVM.
+     * @return True if the claim was renewed, false if the installer no longer holds it.
+     */
+    boolean renew(String template, String fingerprint, UUID installer) {
+        return this.session.execute("UPDATE " + KEYSPACE + ".template USING TTL " + CLAIM_TTL_SECONDS
+                + " SET fingerprint = ?, installer = ?, installed = false WHERE name = ? IF installer = ?",
+                fingerprint, installer, template, installer).one().getBool("[applied]");
+    }
+
+    /**
+     * Mark a claimed template as installed. The installed state does not expire.
+     *
+     * @param template Template keyspace name.
+     * @param fingerprint Full schema fingerprint.
+     * @param installer Id of the installing JVM.
+     * @return True if the template was marked installed, false if the installer no longer holds the claim.
+     */
+    boolean installed(String template, String fingerprint, UUID installer) {
+        return this.session.execute("UPDATE " + KEYSPACE + ".template"
+                + " SET fingerprint = ?, installer = ?, installed = true WHERE name = ? IF installer = ?",
+                fingerprint, installer, template, installer).one().getBool("[applied]");
+    }
+
+    /**
+     * Give up a claim after a failed install.
+     *
+     * @param template Template keyspace name.
+     * @param installer Id of the installing JVM.
+     */
+    void release(String template, UUID installer) {
+        this.session.execute("DELETE FROM " + KEYSPACE + ".template WHERE name = ? IF installer = ?",
+                template, installer);
+    }
+
+    /**
+     * Forget the install state of a template, such as after its keyspace was dropped.
+     *
+     * @param template Template keyspace name.
+     */
+    void remove(String template) {
+        this.session.execute("DELETE FROM " + KEYSPACE + ".template WHERE name = ?", template);
+    }
+}
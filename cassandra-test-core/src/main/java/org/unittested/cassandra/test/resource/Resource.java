@@ -28,8 +28,12 @@ import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.unittested.cassandra.test.exception.CassandraTestException;
@@ -44,6 +48,9 @@ import org.unittested.cassandra.test.util.Utils;
  * The content type of the resource is assumed to be a text resource. In most cases, Cassandra Test interprets the
  * text resource as CQL statements. {@link org.unittested.cassandra.test.resource.Resource.ContentType#CQL}
  * <p>
+ * Resources with a .csv extension or a format=csv URL parameter are CSV rows of a table.
+ * {@link org.unittested.cassandra.test.resource.Resource.ContentType#CSV}
+ * <p>
  * Supported Protocols
  * <ul>
  *     <li>file:[path] or file://[path] - Filesystem file.</li>
@@ -51,6 +58,9 @@ import org.unittested.cassandra.test.util.Utils;
  * </ul>
  * The resource URL format uses URL encoded spaces, but literal spaces are supported as well. For example, file://path/to/my file.txt
  * will point to path/to/my file.txt on the filesystem.
+ * <p>
+ * URL parameters follow the path, as in classpath:users.txt?format=csv&amp;table=ks.users. Text sources do not have
+ * parameters.
  */
 public class Resource {
 
@@ -58,6 +68,8 @@ public class Resource {
 
     private Source source;
     private String path;
+    private ContentType contentType = ContentType.CQL;
+    private Map<String, String> parameters = Collections.emptyMap();
 
     /**
      * Create a {@link Resource} from a CQL statement or resource URL.
@@ -84,6 +96,10 @@ public class Resource {
     public Resource(Source source, String path) {
         this.source = source;
         this.path = path;
+
+        if (source != Source.TEXT && StringUtils.endsWithIgnoreCase(path, ".csv")) {
+            this.contentType = ContentType.CSV;
+        }
     }
 
     /**
@@ -101,7 +117,17 @@ public class Resource {
      * @return {@link ContentType}
      */
     public ContentType getContentType() {
-        return ContentType.CQL;
+        return this.contentType;
+    }
+
+    /**
+     * Get a URL parameter.
+     *
+     * @param name Parameter name.
+     * @return Decoded parameter value or null if the URL does not have the parameter.
+     */
+    public String getParameter(String name) {
+        return this.parameters.get(name);
     }
 
     /**
@@ -133,6 +159,26 @@ public class Resource {
         return this.source.getReader(this.path);
     }
 
+    /**
+     * Get the last modified time of this resource.
+     *
+     * @return Last modified time in milliseconds or 0 if the resource does not have a modification time.
+     * @throws IOException if the resource cannot be found.
+     */
+    public long getLastModified() throws IOException {
+        return this.source.getLastModified(this.path);
+    }
+
+    /**
+     * Get the length of this resource.
+     *
+     * @return Length in bytes or -1 if the length is not known.
+     * @throws IOException if the resource cannot be found.
+     */
+    public long getLength() throws IOException {
+        return this.source.getLength(this.path);
+    }
+
     private void parseUrl(String url) {
         // Handle text "URI"s as a special case. Do not decode.
         if (url.startsWith("text:")) {
@@ -184,8 +230,43 @@ public class Resource {
             throw new CassandraTestException("Path is blank. URL = '%s", url);
         }
 
+        Map<String, String> urlParameters = parseParameters(StringUtils.substringAfter(uri.getRawSchemeSpecificPart(), "?"), url);
+        String format = urlParameters.get("format");
+        ContentType urlContentType;
+
+        if (format != null) {
+            try {
+                urlContentType = ContentType.valueOf(format.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new CassandraTestException("Unsupported format '%s'. URL = '%s'", format, url, e);
+            }
+        } else {
+            urlContentType = StringUtils.endsWithIgnoreCase(urlPath, ".csv") ? ContentType.CSV : ContentType.CQL;
+        }
+
         this.source = urlSource;
         this.path = urlPath;
+        this.contentType = urlContentType;
+        this.parameters = urlParameters;
+    }
+
+    private static Map<String, String> parseParameters(String query, String url) {
+        if (query.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+
+        for (String parameter : StringUtils.split(query, '&')) {
+            try {
+                parameters.put(URLDecoder.decode(StringUtils.substringBefore(parameter, "="), UTF_8.name()),
+                        URLDecoder.decode(StringUtils.substringAfter(parameter, "="), UTF_8.name()));
+            } catch (Exception e) {
+                throw new CassandraTestException("Failed to decode parameter in URL. URL = '%s'", url, e);
+            }
+        }
+
+        return Collections.unmodifiableMap(parameters);
     }
 
     @Override
@@ -196,6 +277,8 @@ public class Resource {
         Resource resource = (Resource)o;
 
         if (source != resource.source) return false;
+        if (contentType != resource.contentType) return false;
+        if (parameters != null ? !parameters.equals(resource.parameters) : resource.parameters != null) return false;
         return !(path != null ? !path.equals(resource.path) : resource.path != null);
 
     }
@@ -204,6 +287,8 @@ public class Resource {
     public int hashCode() {
         int result = source != null ? source.hashCode() : 0;
         result = 31 * result + (path != null ? path.hashCode() : 0);
+        result = 31 * result + (contentType != null ? contentType.hashCode() : 0);
+        result = 31 * result + (parameters != null ? parameters.hashCode() : 0);
         return result;
     }
 
@@ -218,11 +303,7 @@ public class Resource {
         CLASSPATH {
             @Override
             public InputStream getStream(final String path) throws IOException {
-                URL resource = getClass().getClassLoader().getResource(path);
-
-                if (resource == null) {
-                    throw new FileNotFoundException("Could not find file '" + path + "' in classpath.");
-                }
+                URL resource = getUrl(path);
 
                 if (resource.getProtocol().equals("file")) {
                     File file;
@@ -241,6 +322,62 @@ public class Resource {
 
                 return resource.openStream();
             }
+
+            @Override
+            long getLastModified(final String path) throws IOException {
+                URL resource = getUrl(path);
+
+                if (resource.getProtocol().equals("file")) {
+                    try {
+                        return new File(resource.toURI()).lastModified();
+                    } catch (URISyntaxException e) {
+                        throw new IOException("Failed to load file '" + path + "' in classpath.", e);
+                    }
+                }
+
+                URLConnection connection = resource.openConnection();
+
+                connection.setUseCaches(false);
+
+                try {
+                    return connection.getLastModified();
+                } finally {
+                    connection.getInputStream().close();
+                }
+            }
+
+            @Override
+            long getLength(final String path) throws IOException {
+                URL resource = getUrl(path);
+
+                if (resource.getProtocol().equals("file")) {
+                    try {
+                        return new File(resource.toURI()).length();
+                    } catch (URISyntaxException e) {
+                        throw new IOException("Failed to load file '" + path + "' in classpath.", e);
+                    }
+                }
+
+                URLConnection connection = resource.openConnection();
+
+                connection.setUseCaches(false);
+
+                try {
+                    return connection.getContentLength();
+                } finally {
+                    connection.getInputStream().close();
+                }
+            }
+
+            private URL getUrl(final String path) throws FileNotFoundException {
+                URL resource = getClass().getClassLoader().getResource(path);
+
+                if (resource == null) {
+                    throw new FileNotFoundException("Could not find file '" + path + "' in classpath.");
+                }
+
+                return resource;
+            }
         },
 
         /**
@@ -258,6 +395,28 @@ public class Resource {
 
                 return new FileInputStream(path);
             }
+
+            @Override
+            long getLastModified(final String path) throws IOException {
+                File file = new File(path);
+
+                if (!file.isFile()) {
+                    throw new FileNotFoundException("Could not find file '" + path + "'.");
+                }
+
+                return file.lastModified();
+            }
+
+            @Override
+            long getLength(final String path) throws IOException {
+                File file = new File(path);
+
+                if (!file.isFile()) {
+                    throw new FileNotFoundException("Could not find file '" + path + "'.");
+                }
+
+                return file.length();
+            }
         },
 
         /**
@@ -277,6 +436,14 @@ public class Resource {
 
         abstract InputStream getStream(String path) throws IOException;
 
+        long getLastModified(final String path) throws IOException {
+            return 0;
+        }
+
+        long getLength(final String path) throws IOException {
+            return -1;
+        }
+
         Reader getReader(final String path) throws IOException {
             return new InputStreamReader(getStream(path));
         }
@@ -294,6 +461,19 @@ public class Resource {
          * contains legal CQL statements delimited by &quot;;&quot;, including batch statments. The consistency command
          * from cqlsh is also supported. Line and block comments supported by cqlsh are also legal.
          */
-        CQL
+        CQL,
+
+        /**
+         * CSV rows of a table.
+         * <p>
+         * The first record is a header of column names, in the CQL form: unquoted names are case insensitive and
+         * quoted names are case sensitive. Each following record is a row, inserted with a prepared statement.
+         * Values are converted to the column types of the table's metadata. An unquoted empty value is null and a
+         * quoted empty value ("") is the empty string. Quoted values follow RFC 4180.
+         * <p>
+         * The table is the table URL parameter, optionally qualified with a keyspace, or the resource's file name
+         * without the extension. Unqualified tables belong to the test keyspace.
+         */
+        CSV
     }
 }
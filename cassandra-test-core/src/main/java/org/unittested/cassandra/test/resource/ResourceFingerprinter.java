@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Computes SHA-256 fingerprints of {@link Resource} content.
+ * <p>
+ * Resource content is streamed through the digest, so large resources are not held in memory. Fingerprints of
+ * file and class path resources are cached and reused until the last modified time or length of the resource changes.
+ */
+public class ResourceFingerprinter {
+
+    /**
+     * Process-wide fingerprinter.
+     */
+    public static final ResourceFingerprinter DEFAULT = new ResourceFingerprinter();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char [] HEX = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ConcurrentMap<Resource, Fingerprint> cache = new ConcurrentHashMap<Resource, Fingerprint>();
+
+    /**
+     * Get the fingerprint of a resource's content.
+     *
+     * @param resource Resource.
+     * @return Hex encoded SHA-256 of the resource content.
+     * @throws IOException if the resource cannot be read or found.
+     */
+    public String fingerprint(Resource resource) throws IOException {
+        if (resource.getSource() == Resource.Source.TEXT) {
+            return toHex(createDigest().digest(resource.getPath().getBytes(UTF_8)));
+        }
+
+        long lastModified = resource.getLastModified();
+        long length = resource.getLength();
+        Fingerprint cached = this.cache.get(resource);
+
+        if (cached != null && lastModified != 0 && cached.lastModified == lastModified && cached.length == length) {
+            return cached.value;
+        }
+
+        MessageDigest digest = createDigest();
+        InputStream in = resource.getStream();
+
+        try {
+            byte [] buffer = new byte[BUFFER_SIZE];
+            int count;
+
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+
+        String value = toHex(digest.digest());
+
+        if (lastModified != 0) {
+            this.cache.put(resource, new Fingerprint(lastModified, length, value));
+        }
+
+        return value;
+    }
+
+    /**
+     * Get a combined fingerprint of the content of several resources.
+     * <p>
+     * The combined fingerprint depends on the content and order of the resources, not on where the resources are
+     * located.
+     *
+     * @param resources Resources.
+     * @return Hex encoded SHA-256 of the resource fingerprints.
+     * @throws IOException if a resource cannot be read or found.
+     */
+    public String fingerprint(Iterable<Resource> resources) throws IOException {
+        MessageDigest digest = createDigest();
+
+        for (Resource resource : resources) {
+            digest.update(fingerprint(resource).getBytes(UTF_8));
+            digest.update((byte)'\n');
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Discard cached fingerprints.
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+        }
+    }
+
+    private static String toHex(byte [] bytes) {
+        char [] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+
+        return new String(chars);
+    }
+
+    private static class Fingerprint {
+        private final long lastModified;
+        private final long length;
+        private final String value;
+
+        Fingerprint(long lastModified, long length, String value) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.value = value;
+        }
+    }
+}
@@ -19,7 +19,6 @@ package org.unittested.cassandra.test.rollback;
 import java.lang.annotation.Annotation;
 
 import org.unittested.cassandra.test.properties.PropertyResolver;
-import org.unittested.cassandra.test.rollback.basic.BasicRollbackSettings;
 
 /**
  * Creates a {@link RollbackSettings} instance from a rollback annotation.
@@ -34,5 +33,5 @@ public interface RollbackSettingsFactory {
      * @param propertyResolver Resolves property references in annotation strings.
      * @return {@link RollbackSettings}
      */
-    BasicRollbackSettings create(Annotation annotation, PropertyResolver propertyResolver);
+    RollbackSettings create(Annotation annotation, PropertyResolver propertyResolver);
 }
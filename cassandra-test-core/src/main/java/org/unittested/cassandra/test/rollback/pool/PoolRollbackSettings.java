@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.rollback.pool;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.pool.PoolKeyspaceSettings;
+import org.unittested.cassandra.test.rollback.RollbackSettings;
+import org.unittested.cassandra.test.rollback.RollbackStrategy;
+
+/**
+ * Rollback settings for {@link PoolKeyspaceSettings}.
+ * <p>
+ * Rolling back returns the leased keyspace to its pool, where it is truncated, or dropped and re-created for
+ * {@link RollbackStrategy#DROP}, in the background. The next test method leases a clean keyspace. With
+ * {@link RollbackStrategy#NONE} after each method, the test class keeps its keyspace until all test methods have run.
+ */
+public class PoolRollbackSettings implements RollbackSettings {
+
+    private RollbackStrategy afterMethod;
+    private RollbackStrategy afterClass;
+
+    public PoolRollbackSettings() {
+        this(RollbackStrategy.TRUNCATE, RollbackStrategy.TRUNCATE);
+    }
+
+    public PoolRollbackSettings(RollbackStrategy afterMethod, RollbackStrategy afterClass) {
+        if (afterClass == RollbackStrategy.NONE) {
+            throw new CassandraTestException("Pooled keyspaces must be returned after the test class.");
+        }
+
+        this.afterMethod = afterMethod;
+        this.afterClass = afterClass;
+    }
+
+    @Override
+    public String[] getTableInclusions() {
+        return ArrayUtils.EMPTY_STRING_ARRAY;
+    }
+
+    @Override
+    public String[] getTableExclusions() {
+        return ArrayUtils.EMPTY_STRING_ARRAY;
+    }
+
+    @Override
+    public RollbackStrategy getAfterClass() {
+        return this.afterClass;
+    }
+
+    @Override
+    public RollbackStrategy getAfterMethod() {
+        return this.afterMethod;
+    }
+
+    @Override
+    public void rollbackAfterMethod(TestRuntime runtime) {
+        rollback(runtime, this.afterMethod);
+    }
+
+    @Override
+    public void rollbackAfterClass(TestRuntime runtime) {
+        rollback(runtime, this.afterClass);
+    }
+
+    private void rollback(TestRuntime runtime, RollbackStrategy rollbackStrategy) {
+        if (rollbackStrategy == RollbackStrategy.NONE) {
+            return;
+        }
+
+        KeyspaceSettings keyspaceSettings = runtime.getTestSettings().getKeyspaceSettings();
+
+        if (!(keyspaceSettings instanceof PoolKeyspaceSettings)) {
+            throw new CassandraTestException("CassandraPoolRollback requires CassandraPoolKeyspace.");
+        }
+
+        ((PoolKeyspaceSettings)keyspaceSettings).getPool().release(runtime, rollbackStrategy == RollbackStrategy.DROP);
+    }
+}
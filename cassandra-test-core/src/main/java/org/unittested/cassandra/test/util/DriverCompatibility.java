@@ -16,9 +16,19 @@
 
 package org.unittested.cassandra.test.util;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
 
 import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.QueryOptions;
 import com.datastax.driver.core.Statement;
 
@@ -29,10 +39,136 @@ import com.datastax.driver.core.Statement;
  */
 public final class DriverCompatibility {
 
+    private static final ConcurrentMap<String, Object> NETTY_OPTIONS = new ConcurrentHashMap<String, Object>();
+
     private DriverCompatibility() {
 
     }
 
+    /**
+     * Set a process wide NettyOptions instance on a {@link Cluster.Builder}.
+     * <p>
+     * One instance of the NettyOptions class is created per JVM and shared by every cluster, so the class can hand
+     * out a shared event loop group and timer. NettyOptions requires driver 2.1.6 or later.
+     *
+     * @param builder {@link Cluster.Builder}
+     * @param nettyOptionsClassName Name of a com.datastax.driver.core.NettyOptions subclass.
+     * @return Passed in builder for chaining
+     */
+    public static Cluster.Builder setNettyOptions(Cluster.Builder builder, String nettyOptionsClassName) {
+        Method withNettyOptions = null;
+
+        for (Method method : Cluster.Builder.class.getMethods()) {
+            if (method.getName().equals("withNettyOptions") && method.getParameterTypes().length == 1) {
+                withNettyOptions = method;
+                break;
+            }
+        }
+
+        if (withNettyOptions == null) {
+            throw new CassandraTestException("NettyOptions is not supported by this driver version.");
+        }
+
+        Object nettyOptions = NETTY_OPTIONS.get(nettyOptionsClassName);
+
+        if (nettyOptions == null) {
+            try {
+                Class<?> nettyOptionsClass = Class.forName(nettyOptionsClassName);
+
+                if (!withNettyOptions.getParameterTypes()[0].isAssignableFrom(nettyOptionsClass)) {
+                    throw new CassandraTestException("%s is not a NettyOptions class.", nettyOptionsClassName);
+                }
+
+                nettyOptions = nettyOptionsClass.newInstance();
+            } catch (CassandraTestException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CassandraTestException("Failed to create NettyOptions %s", nettyOptionsClassName, e);
+            }
+
+            Object existing = NETTY_OPTIONS.putIfAbsent(nettyOptionsClassName, nettyOptions);
+
+            if (existing != null) {
+                nettyOptions = existing;
+            }
+        }
+
+        try {
+            withNettyOptions.invoke(builder, nettyOptions);
+        } catch (Exception e) {
+            throw new CassandraTestException("Failed to set NettyOptions %s", nettyOptionsClassName, e);
+        }
+
+        return builder;
+    }
+
+    /**
+     * Set the max time the driver waits for schema agreement after a schema altering statement.
+     * <p>
+     * The wait can only be changed on driver 3.0 or later. Older drivers always wait after each schema altering
+     * statement. The driver does not allow a wait of 0 when building a cluster, so the setting is changed on the open
+     * cluster. The change applies to every session of the cluster. Only change it on a cluster nobody else uses.
+     *
+     * @param cluster {@link Cluster}
+     * @param maxSchemaAgreementWaitSeconds Max wait in seconds. 0 disables the wait.
+     * @return The previous max wait or null if the wait cannot be changed.
+     */
+    public static Integer setMaxSchemaAgreementWaitSeconds(Cluster cluster, int maxSchemaAgreementWaitSeconds) {
+        try {
+            Object protocolOptions = cluster.getConfiguration().getProtocolOptions();
+            Field field = protocolOptions.getClass().getDeclaredField("maxSchemaAgreementWaitSeconds");
+            field.setAccessible(true);
+
+            Integer previous = (Integer)field.get(protocolOptions);
+            field.set(protocolOptions, maxSchemaAgreementWaitSeconds);
+
+            return previous;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the max time the driver waits for schema agreement after a schema altering statement.
+     *
+     * @param cluster {@link Cluster}
+     * @return Max wait in seconds or null if the wait cannot be changed (requires driver 3.0 or later).
+     */
+    public static Integer getMaxSchemaAgreementWaitSeconds(Cluster cluster) {
+        try {
+            Object protocolOptions = cluster.getConfiguration().getProtocolOptions();
+            Method getMaxSchemaAgreementWaitSeconds = protocolOptions.getClass().getMethod("getMaxSchemaAgreementWaitSeconds");
+
+            return (Integer)getMaxSchemaAgreementWaitSeconds.invoke(protocolOptions);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if the nodes of a cluster agree on the schema version.
+     *
+     * @param cluster {@link Cluster}
+     * @return Schema agreement or null if the driver cannot check schema agreement (requires driver 3.0 or later).
+     */
+    public static Boolean checkSchemaAgreement(Cluster cluster) {
+        Method checkSchemaAgreement;
+
+        try {
+            checkSchemaAgreement = Metadata.class.getMethod("checkSchemaAgreement");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        try {
+            return (Boolean)checkSchemaAgreement.invoke(cluster.getMetadata());
+        } catch (InvocationTargetException e) {
+            throw new CassandraTestException("Failed to check schema agreement.", e.getCause());
+        } catch (Exception e) {
+            throw new CassandraTestException("Failed to check schema agreement.", e);
+        }
+    }
+
     /**
      * Set refresh schema interval on {@link QueryOptions}.
      *
@@ -53,6 +189,80 @@ public final class DriverCompatibility {
         return queryOptions;
     }
 
+    /**
+     * Set the core and max connections per host on {@link PoolingOptions}.
+     * <p>
+     * Values less than 1 leave the driver default unchanged.
+     *
+     * @param poolingOptions {@link PoolingOptions}
+     * @param distance Host distance.
+     * @param core Core connections per host.
+     * @param max Max connections per host.
+     * @return Passed in PoolingOptions for chaining
+     */
+    public static PoolingOptions setConnectionsPerHost(PoolingOptions poolingOptions, HostDistance distance, int core, int max) {
+        try {
+            if (core > 0 && max > 0) {
+                try {
+                    // Driver 3.x validates core against max on each call. Set both at once.
+                    Method setConnectionsPerHost = PoolingOptions.class.getDeclaredMethod(
+                            "setConnectionsPerHost", HostDistance.class, int.class, int.class);
+                    setConnectionsPerHost.invoke(poolingOptions, distance, core, max);
+                } catch (NoSuchMethodException e) {
+                    if (core > poolingOptions.getMaxConnectionsPerHost(distance)) {
+                        poolingOptions.setMaxConnectionsPerHost(distance, max);
+                        poolingOptions.setCoreConnectionsPerHost(distance, core);
+                    } else {
+                        poolingOptions.setCoreConnectionsPerHost(distance, core);
+                        poolingOptions.setMaxConnectionsPerHost(distance, max);
+                    }
+                }
+            } else if (core > 0) {
+                poolingOptions.setCoreConnectionsPerHost(distance, core);
+            } else if (max > 0) {
+                poolingOptions.setMaxConnectionsPerHost(distance, max);
+            }
+        } catch (InvocationTargetException e) {
+            throw new CassandraTestException("Invalid connections per host: core = %d, max = %d", core, max, e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new CassandraTestException("Invalid connections per host: core = %d, max = %d", core, max, e);
+        } catch (IllegalArgumentException e) {
+            throw new CassandraTestException("Invalid connections per host: core = %d, max = %d", core, max, e);
+        }
+
+        return poolingOptions;
+    }
+
+    /**
+     * Set the max requests per connection on {@link PoolingOptions}.
+     * <p>
+     * Driver 2.x does not have a hard limit, so the max simultaneous requests per connection threshold is set instead.
+     *
+     * @param poolingOptions {@link PoolingOptions}
+     * @param distance Host distance.
+     * @param maxRequestsPerConnection Max requests per connection.
+     * @return Passed in PoolingOptions for chaining
+     */
+    public static PoolingOptions setMaxRequestsPerConnection(PoolingOptions poolingOptions, HostDistance distance, int maxRequestsPerConnection) {
+        try {
+            Method setMaxRequestsPerConnection = PoolingOptions.class.getDeclaredMethod(
+                    "setMaxRequestsPerConnection", HostDistance.class, int.class);
+            setMaxRequestsPerConnection.invoke(poolingOptions, distance, maxRequestsPerConnection);
+        } catch (NoSuchMethodException e) {
+            try {
+                Method setMaxSimultaneousRequestsPerConnectionThreshold = PoolingOptions.class.getDeclaredMethod(
+                        "setMaxSimultaneousRequestsPerConnectionThreshold", HostDistance.class, int.class);
+                setMaxSimultaneousRequestsPerConnectionThreshold.invoke(poolingOptions, distance, maxRequestsPerConnection);
+            } catch (Exception ex) {
+                throw new CassandraTestException("Invalid max requests per connection: %d", maxRequestsPerConnection, ex);
+            }
+        } catch (Exception e) {
+            throw new CassandraTestException("Invalid max requests per connection: %d", maxRequestsPerConnection, e);
+        }
+
+        return poolingOptions;
+    }
+
     /**
      * Set the read timeout for a {@link Statement}.
      *
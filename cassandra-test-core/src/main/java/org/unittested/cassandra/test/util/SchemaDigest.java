@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.util;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.datastax.driver.core.KeyspaceMetadata;
+
+/**
+ * 128-bit keyspace schema digest.
+ * <p>
+ * The digest is built from per-element digests of the tables, user types, materialized views, functions and
+ * aggregates of a keyspace. The driver replaces an element's metadata object when the element changes, so the digest
+ * of an element is cached until its metadata object is replaced. When nothing has changed, computing the digest does
+ * not export any CQL.
+ */
+public final class SchemaDigest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // KeyspaceMetadata getters for schema elements. Everything but tables requires driver 3.0 or later.
+    private static final String [] ELEMENT_GETTERS = {
+            "getTables", "getUserTypes", "getMaterializedViews", "getFunctions", "getAggregates"
+    };
+
+    private static final List<Method> ELEMENT_METHODS = getElementMethods();
+    private static final ConcurrentMap<String, Element[]> ELEMENT_DIGESTS = new ConcurrentHashMap<String, Element[]>();
+
+    private SchemaDigest() {
+
+    }
+
+    /**
+     * Compute the schema digest of a keyspace.
+     *
+     * @param keyspaceMetadata Keyspace metadata.
+     * @return 128-bit digest or null if keyspaceMetadata is null.
+     */
+    public static UUID digest(KeyspaceMetadata keyspaceMetadata) {
+        if (keyspaceMetadata == null) {
+            return null;
+        }
+
+        String keyspace = keyspaceMetadata.getName();
+        long high = 0;
+        long low = 0;
+        long count = 0;
+
+        for (Method method : ELEMENT_METHODS) {
+            Collection<?> elements = getElements(keyspaceMetadata, method);
+            String cacheKey = keyspace + '\0' + method.getName();
+            Element [] cached = ELEMENT_DIGESTS.get(cacheKey);
+            Element [] current = (cached != null && cached.length == elements.size())
+                    ? cached : new Element[elements.size()];
+            boolean changed = (current != cached);
+            int i = 0;
+
+            for (Object element : elements) {
+                Element entry = current[i];
+
+                if (entry == null || entry.get() != element) {
+                    entry = new Element(element);
+                    current[i] = entry;
+                    changed = true;
+                }
+
+                // Sum element digests, so the result does not depend on iteration order.
+                long sumLow = low + entry.low;
+                high += entry.high + ((sumLow ^ Long.MIN_VALUE) < (low ^ Long.MIN_VALUE) ? 1 : 0);
+                low = sumLow;
+                count++;
+                i++;
+            }
+
+            if (changed) {
+                ELEMENT_DIGESTS.put(cacheKey, current);
+            }
+        }
+
+        MessageDigest digest = createDigest();
+
+        digest.update(keyspaceMetadata.asCQLQuery().getBytes(UTF_8));
+        update(digest, high);
+        update(digest, low);
+        update(digest, count);
+
+        return toUUID(digest.digest());
+    }
+
+    private static Collection<?> getElements(KeyspaceMetadata keyspaceMetadata, Method method) {
+        try {
+            return (Collection<?>)method.invoke(keyspaceMetadata);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read keyspace metadata.", e);
+        }
+    }
+
+    private static List<Method> getElementMethods() {
+        List<Method> methods = new ArrayList<Method>(ELEMENT_GETTERS.length);
+
+        for (String getter : ELEMENT_GETTERS) {
+            try {
+                methods.add(KeyspaceMetadata.class.getMethod(getter));
+            } catch (NoSuchMethodException e) {
+                // Not supported by this driver version.
+            }
+        }
+
+        return methods;
+    }
+
+    private static String exportAsString(Object element) {
+        try {
+            return (String)element.getClass().getMethod("exportAsString").invoke(element);
+        } catch (NoSuchMethodException e) {
+            return element.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to export schema of " + element, e);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported by this JVM.", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte)(value >>> shift));
+        }
+    }
+
+    private static UUID toUUID(byte [] bytes) {
+        long high = 0;
+        long low = 0;
+
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (bytes[i] & 0xFF);
+            low = (low << 8) | (bytes[i + 8] & 0xFF);
+        }
+
+        return new UUID(high, low);
+    }
+
+    private static class Element extends WeakReference<Object> {
+        private final long high;
+        private final long low;
+
+        Element(Object element) {
+            super(element);
+            UUID digest = toUUID(createDigest().digest(exportAsString(element).getBytes(UTF_8)));
+            this.high = digest.getMostSignificantBits();
+            this.low = digest.getLeastSignificantBits();
+        }
+    }
+}
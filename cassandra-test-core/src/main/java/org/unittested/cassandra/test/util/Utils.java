@@ -18,22 +18,19 @@ package org.unittested.cassandra.test.util;
 
 import java.util.ArrayList;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.unittested.cassandra.test.data.cql.CqlStatementKind;
 
+import com.datastax.driver.core.KeyspaceMetadata;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TableMetadata;
 
 /**
  * Internal utilities.
  */
 public final class Utils {
 
-    private static final Pattern CQL = Pattern.compile("^\\s*(?:ALTER|BEGIN|CONSISTENCY|CREATE|DELETE|DROP|GRANT|INSERT|LIST|REVOKE|SELECT|SERIAL|TRUNCATE|UPDATE|USE)\\s",
-            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-    private static final Pattern EMPTY_STATEMENT = Pattern.compile("^\\s*;\\s*$", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
     private Utils() {
 
     }
@@ -51,14 +48,76 @@ public final class Utils {
                 .getUUID("schema_version");
     }
 
+    /**
+     * Get the driver metadata of a table.
+     *
+     * @param session {@link Session}
+     * @param keyspace Keyspace as it appears in CQL or null for the session's logged keyspace.
+     * @param table Table as it appears in CQL.
+     * @return {@link TableMetadata} or null if the keyspace or table is not known.
+     */
+    public static TableMetadata getTableMetadata(Session session, String keyspace, String table) {
+        if (keyspace == null) {
+            if (session.getLoggedKeyspace() == null) {
+                return null;
+            }
+
+            keyspace = quote(session.getLoggedKeyspace());
+        }
+
+        KeyspaceMetadata keyspaceMetadata = session.getCluster().getMetadata().getKeyspace(keyspace);
+
+        return (keyspaceMetadata != null) ? keyspaceMetadata.getTable(table) : null;
+    }
+
     /**
      * Checks if a string kinda looks like a CQL statement.
+     * <p>
+     * The string is CQL like if it is an empty statement (";") or a line starts with a statement keyword followed by
+     * whitespace.
      *
      * @param str String to check
      * @return {@link Boolean}
      */
     public static boolean isCqlLike(String str) {
-        return (EMPTY_STATEMENT.matcher(str).matches() || CQL.matcher(str).find());
+        if (str.trim().equals(";")) {
+            return true;
+        }
+
+        boolean atLineStart = true;
+        int i = 0;
+
+        while (i < str.length()) {
+            char ch = str.charAt(i);
+
+            if (atLineStart && Character.isLetter(ch)) {
+                int start = i;
+
+                while (i < str.length() && Character.isLetter(str.charAt(i))) {
+                    i++;
+                }
+
+                if (i < str.length() && Character.isWhitespace(str.charAt(i))) {
+                    CqlStatementKind kind = CqlStatementKind.fromKeyword(str.substring(start, i));
+
+                    if (kind != CqlStatementKind.UNKNOWN && kind != CqlStatementKind.APPLY_BATCH) {
+                        return true;
+                    }
+                }
+
+                atLineStart = false;
+            } else {
+                if (ch == '\n' || ch == '\r') {
+                    atLineStart = true;
+                } else if (!Character.isWhitespace(ch)) {
+                    atLineStart = false;
+                }
+
+                i++;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -8,12 +8,18 @@ import org.unittested.cassandra.test.annotation.CassandraData;
 import org.unittested.cassandra.test.annotation.CassandraImportKeyspace;
 import org.unittested.cassandra.test.annotation.CassandraRollback;
 import org.unittested.cassandra.test.annotation.CassandraKeyspace;
+import org.unittested.cassandra.test.annotation.CassandraPoolKeyspace;
+import org.unittested.cassandra.test.annotation.CassandraPoolRollback;
+import org.unittested.cassandra.test.annotation.CassandraTemplateKeyspace;
 import org.unittested.cassandra.test.rollback.RollbackStrategy;
 
 @CassandraConnect(username = "cassandra", password = "cassandra")
 @CassandraKeyspace(value = "test", autoCreateKeyspace = "true", schema = "classpath-cql:schema.cql", protectedTables = "p")
 @CassandraImportKeyspace(value = "test", protectedTables = "p")
+@CassandraTemplateKeyspace(value = "test", schema = "classpath-cql:schema.cql", protectedTables = "p")
 @CassandraRollback(tableInclusions = "i", afterMethod = RollbackStrategy.NONE, afterClass = RollbackStrategy.TRUNCATE)
+@CassandraPoolKeyspace(value = "test", poolSize = "3", refillRate = "5", protectedTables = "p")
+@CassandraPoolRollback(afterMethod = RollbackStrategy.NONE, afterClass = RollbackStrategy.DROP)
 @CassandraData("d")
 public class FactoryTestAnnotations {
 
@@ -22,6 +22,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.UUID;
 
 import org.hamcrest.Matcher;
 import org.mockito.Matchers;
@@ -235,6 +236,22 @@ public class KeyspaceTest extends AbstractCassandraTest {
         assertThat(after, is(not(before)));
     }
 
+    @Test
+    public void getSchemaDigest() throws Exception {
+        // given
+        UUID before = getKeyspace().getSchemaDigest();
+
+        getKeyspace().getTable("test_table").drop();
+
+        // when
+        UUID after = getKeyspace().getSchemaDigest();
+
+        // then
+        assertThat(before, notNullValue());
+        assertThat(after, is(not(before)));
+        assertThat(getKeyspace().getSchemaDigest(), is(after));
+    }
+
     @Test
     public void getSchemaSignatureForNullKeyspace() throws Exception {
         Session session = null;
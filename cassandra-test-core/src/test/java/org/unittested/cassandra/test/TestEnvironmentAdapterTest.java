@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Method;
+import java.util.Properties;
 
 import org.mockito.Matchers;
 import org.testng.Assert;
@@ -28,10 +29,14 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.unittested.cassandra.test.annotation.CassandraBean;
 import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.pool.LazySession;
 import org.unittested.cassandra.test.data.DataSettings;
 import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.state.BasicKeyspaceStateManager;
+import org.unittested.cassandra.test.keyspace.state.FileKeyspaceStateManager;
 import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
 import org.unittested.cassandra.test.rollback.RollbackSettings;
 
 import com.datastax.driver.core.Cluster;
@@ -54,6 +59,7 @@ public class TestEnvironmentAdapterTest {
         adapter.onBeforeClass(MockTest.class);
 
         // then
+        verify(testSettings.getConnectSettings(), times(1)).isLazy();
         verify(testSettings.getConnectSettings(), times(1)).connect();
         verifyNoMoreInteractions(testSettings.getConnectSettings());
 
@@ -67,6 +73,73 @@ public class TestEnvironmentAdapterTest {
         assertThat(MockTest.class.equals(adapter.getRuntime().getTestClass()), is(true));
     }
 
+    @Test
+    public void onBeforeClassLazy() throws Exception {
+        // given
+        TestSettings testSettings = createSettings();
+        TestEnvironmentAdapter adapter = new TestEnvironmentAdapter(testSettings);
+
+        when(testSettings.getConnectSettings().isLazy()).thenReturn(true);
+
+        // when
+        adapter.onBeforeClass(MockTest.class);
+
+        // then
+        verify(testSettings.getConnectSettings(), never()).connect();
+        assertThat(adapter.getRuntime().getKeyspace().getSession(), notNullValue());
+        assertThat(LazySession.isResolved(adapter.getRuntime().getKeyspace().getSession()), is(false));
+    }
+
+    @Test
+    public void onBeforeMethodLazy() throws Exception {
+        // given
+        TestSettings testSettings = createSettings();
+        TestEnvironmentAdapter adapter = new TestEnvironmentAdapter(testSettings);
+        MockTest test = new MockTest();
+        Cluster cluster = mock(Cluster.class);
+        Session session = mock(Session.class);
+
+        when(session.getCluster()).thenReturn(cluster);
+        when(testSettings.getConnectSettings().isLazy()).thenReturn(true);
+        when(testSettings.getConnectSettings().connect()).thenReturn(session);
+        when(testSettings.getKeyspaceSettings().getKeyspace()).thenReturn("test");
+
+        adapter.onBeforeClass(MockTest.class);
+        adapter.onPrepareTestInstance(test);
+        verify(testSettings.getConnectSettings(), never()).connect();
+        assertThat(test.cluster, nullValue());
+
+        // when
+        adapter.onBeforeMethod(test, test.getMethod());
+
+        // then
+        verify(testSettings.getConnectSettings(), times(1)).connect();
+        verify(session, times(1)).execute("use \"test\"");
+        assertThat(test.cluster, is(cluster));
+        assertThat(LazySession.unwrap(test.session), is(session));
+    }
+
+    @Test
+    public void onAfterClassLazy() throws Exception {
+        // given
+        TestSettings testSettings = createSettings();
+        TestEnvironmentAdapter adapter = new TestEnvironmentAdapter(testSettings);
+        MockTest test = new MockTest();
+
+        when(testSettings.getConnectSettings().isLazy()).thenReturn(true);
+
+        adapter.onBeforeClass(MockTest.class);
+        adapter.onPrepareTestInstance(test);
+
+        // when
+        adapter.onAfterClass(MockTest.class);
+
+        // then
+        verify(testSettings.getConnectSettings(), never()).connect();
+        verifyZeroInteractions(testSettings.getRollbackSettings());
+        assertThat(adapter.getRuntime(), nullValue());
+    }
+
     @Test
     public void onPrepareTestInstance() throws Exception {
         // given
@@ -304,6 +377,23 @@ public class TestEnvironmentAdapterTest {
         // no exception on uninitialized adapter (onBeforeClass not called).
     }
 
+    @Test
+    public void createKeyspaceStateManager() throws Exception {
+        // given
+        Properties properties = new Properties();
+
+        // when
+        KeyspaceStateManager inMemory = TestEnvironmentAdapter.createKeyspaceStateManager(
+                new PropertiesPropertyResolver(properties));
+        properties.setProperty(FileKeyspaceStateManager.STATE_FILE_PROPERTY, "target/keyspace-state.properties");
+        KeyspaceStateManager persistent = TestEnvironmentAdapter.createKeyspaceStateManager(
+                new PropertiesPropertyResolver(properties));
+
+        // then
+        assertThat(inMemory, instanceOf(BasicKeyspaceStateManager.class));
+        assertThat(persistent, instanceOf(FileKeyspaceStateManager.class));
+    }
+
     private TestSettings createSettings() {
         return new TestSettings(
                 mock(ConnectSettings.class),
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class ContactPointProbeTest {
+
+    private ServerSocket serverSocket;
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        if (this.serverSocket != null) {
+            this.serverSocket.close();
+            this.serverSocket = null;
+        }
+    }
+
+    @Test
+    public void probe() throws Exception {
+        // given
+        ContactPointProbe probe = new ContactPointProbe(60000);
+        List<InetSocketAddress> contactPoints = startServer(0x82);
+
+        // when
+        probe.probe(contactPoints, 5000);
+
+        // then
+        // no exception
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void probeNoResponse() throws Exception {
+        // given
+        ContactPointProbe probe = new ContactPointProbe(60000);
+        List<InetSocketAddress> contactPoints = startServer(-1);
+
+        // when
+        probe.probe(contactPoints, 200);
+
+        // then
+        // CassandraTestException
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void probeNotCassandra() throws Exception {
+        // given
+        ContactPointProbe probe = new ContactPointProbe(60000);
+        List<InetSocketAddress> contactPoints = startServer('H');
+
+        // when
+        probe.probe(contactPoints, 5000);
+
+        // then
+        // CassandraTestException
+    }
+
+    @Test
+    public void probeUnreachableFailsFast() throws Exception {
+        // given
+        ContactPointProbe probe = new ContactPointProbe(60000);
+        List<InetSocketAddress> contactPoints = startServer(-1);
+
+        try {
+            probe.probe(contactPoints, 200);
+            Assert.fail("Expected probe to fail.");
+        } catch (CassandraTestException e) {
+            // expected
+        }
+
+        // when
+        long start = System.currentTimeMillis();
+
+        try {
+            probe.probe(contactPoints, 5000);
+            Assert.fail("Expected probe to fail.");
+        } catch (CassandraTestException e) {
+            // then
+            assertThat(e.getMessage(), containsString("Probe failed less than"));
+            assertThat(System.currentTimeMillis() - start, lessThan(200L));
+        }
+    }
+
+    @Test
+    public void probeRetryAfterReset() throws Exception {
+        // given
+        ContactPointProbe probe = new ContactPointProbe(60000);
+        List<InetSocketAddress> contactPoints = startServer(0x82);
+        probe.reset();
+
+        // when
+        probe.probe(contactPoints, 5000);
+
+        // then
+        // no exception
+    }
+
+    private List<InetSocketAddress> startServer(final int response) throws IOException {
+        this.serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final ServerSocket server = this.serverSocket;
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!server.isClosed()) {
+                        Socket socket = server.accept();
+                        socket.getInputStream().read(new byte[8]);
+
+                        if (response >= 0) {
+                            socket.getOutputStream().write(response);
+                            socket.getOutputStream().flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        return Collections.singletonList(new InetSocketAddress("127.0.0.1", this.serverSocket.getLocalPort()));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.testng.annotations.Test;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.Timer;
+
+public class SharedNettyOptionsTest {
+
+    private static final ThreadFactory THREAD_FACTORY = Executors.defaultThreadFactory();
+
+    @Test
+    public void eventLoopGroup() throws Exception {
+        // given
+        SharedNettyOptions first = new SharedNettyOptions();
+        SharedNettyOptions second = new SharedNettyOptions();
+
+        // when
+        EventLoopGroup firstGroup = first.eventLoopGroup(THREAD_FACTORY);
+        EventLoopGroup secondGroup = second.eventLoopGroup(THREAD_FACTORY);
+        first.onClusterClose(firstGroup);
+        boolean shutdownAfterFirstClose = firstGroup.isShuttingDown();
+        second.onClusterClose(secondGroup);
+        EventLoopGroup nextGroup = first.eventLoopGroup(THREAD_FACTORY);
+        first.onClusterClose(nextGroup);
+
+        // then
+        assertThat(secondGroup, sameInstance(firstGroup));
+        assertThat(shutdownAfterFirstClose, is(false));
+        assertThat(firstGroup.isShuttingDown(), is(true));
+        assertThat(nextGroup, not(sameInstance(firstGroup)));
+        assertThat(nextGroup.isShuttingDown(), is(true));
+    }
+
+    @Test
+    public void timer() throws Exception {
+        // given
+        SharedNettyOptions first = new SharedNettyOptions();
+        SharedNettyOptions second = new SharedNettyOptions();
+
+        // when
+        Timer firstTimer = first.timer(THREAD_FACTORY);
+        Timer secondTimer = second.timer(THREAD_FACTORY);
+        first.onClusterClose(firstTimer);
+        Timer sharedTimer = second.timer(THREAD_FACTORY);
+        second.onClusterClose(secondTimer);
+        second.onClusterClose(sharedTimer);
+        Timer nextTimer = first.timer(THREAD_FACTORY);
+        first.onClusterClose(nextTimer);
+
+        // then
+        assertThat(secondTimer, sameInstance(firstTimer));
+        assertThat(sharedTimer, sameInstance(firstTimer));
+        assertThat(nextTimer, not(sameInstance(firstTimer)));
+    }
+}
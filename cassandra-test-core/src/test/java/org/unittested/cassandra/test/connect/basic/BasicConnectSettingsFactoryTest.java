@@ -19,6 +19,7 @@ package org.unittested.cassandra.test.connect.basic;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 
 import java.lang.annotation.Annotation;
 import java.net.InetSocketAddress;
@@ -32,6 +33,8 @@ import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.datastax.driver.core.Configuration;
+import com.datastax.driver.core.HostDistance;
 import com.datastax.driver.core.PlainTextAuthProvider;
 import com.datastax.driver.core.ProtocolOptions;
 
@@ -53,6 +56,45 @@ public class BasicConnectSettingsFactoryTest {
                 contains(new InetSocketAddress("127.0.0.1", ProtocolOptions.DEFAULT_PORT)));
         assertThat(basicConnectSettings.getClusterBuilder().getConfiguration().getProtocolOptions().getAuthProvider(),
                 instanceOf(PlainTextAuthProvider.class));
+        assertThat(basicConnectSettings.getKeepAlive(), is(BasicConnectSettings.DEFAULT_KEEP_ALIVE));
+        assertThat(basicConnectSettings.isLazy(), is(false));
+    }
+
+    @Test
+    public void createWithDriverTuning() throws Exception {
+        // given
+        ConnectSettingsFactory connectSettingsFactory = new BasicConnectSettingsFactory();
+        CassandraConnect cassandraConnect = DriverTuning.class.getAnnotation(CassandraConnect.class);
+
+        // when
+        ConnectSettings connectSettings = connectSettingsFactory.create(cassandraConnect, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        Configuration configuration = connectSettings.getClusterBuilder().getConfiguration();
+        assertThat(configuration.getProtocolOptions().getCompression(), is(ProtocolOptions.Compression.NONE));
+        assertThat(configuration.getPoolingOptions().getCoreConnectionsPerHost(HostDistance.LOCAL), is(1));
+        assertThat(configuration.getPoolingOptions().getMaxConnectionsPerHost(HostDistance.LOCAL), is(3));
+        assertThat(configuration.getSocketOptions().getConnectTimeoutMillis(), is(500));
+        assertThat(connectSettings, is((ConnectSettings)new BasicConnectSettings()
+                .withConnectionsPerHost(1, 3)
+                .withMaxRequestsPerConnection(100)
+                .withConnectTimeoutMillis(500)
+                .withReadTimeoutMillis(600)
+                .withJMXReporting(false)
+                .withMetrics(false)));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidCompression() throws Exception {
+        // given
+        ConnectSettingsFactory connectSettingsFactory = new BasicConnectSettingsFactory();
+        CassandraConnect cassandraConnect = InvalidCompression.class.getAnnotation(CassandraConnect.class);
+
+        // when
+        connectSettingsFactory.create(cassandraConnect, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        // CassandraTestException
     }
 
     @DataProvider
@@ -74,4 +116,16 @@ public class BasicConnectSettingsFactoryTest {
         // then
         // expect IllegalArgumentException
     }
+
+    @CassandraConnect(compression = "none", coreConnectionsPerHost = "1", maxConnectionsPerHost = "3",
+            maxRequestsPerConnection = "100", connectTimeoutMillis = "500", readTimeoutMillis = "600",
+            jmxReporting = "false", metrics = "false")
+    private static class DriverTuning {
+
+    }
+
+    @CassandraConnect(compression = "zip")
+    private static class InvalidCompression {
+
+    }
 }
@@ -22,20 +22,28 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.*;
 
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 
 import org.unittested.cassandra.test.connect.ConnectSettings;
 import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.testng.SkipException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.datastax.driver.core.AuthProvider;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Configuration;
+import com.datastax.driver.core.HostDistance;
 import com.datastax.driver.core.PlainTextAuthProvider;
 import com.datastax.driver.core.Session;
 
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+
 public class BasicConnectSettingsTest {
 
     @DataProvider
@@ -79,6 +87,90 @@ public class BasicConnectSettingsTest {
         }
     }
 
+    @Test
+    public void driverTuning() throws Exception {
+        // given
+        ConnectSettings connectSettings = new BasicConnectSettings()
+                .withConnectionsPerHost(2, 4)
+                .withMaxRequestsPerConnection(256)
+                .withConnectTimeoutMillis(1000)
+                .withReadTimeoutMillis(2000)
+                .withJMXReporting(false)
+                .withMetrics(false);
+
+        // when
+        Configuration configuration = connectSettings.getClusterBuilder().getConfiguration();
+
+        // then
+        assertThat(configuration.getPoolingOptions().getCoreConnectionsPerHost(HostDistance.LOCAL), is(2));
+        assertThat(configuration.getPoolingOptions().getMaxConnectionsPerHost(HostDistance.LOCAL), is(4));
+        assertThat(configuration.getSocketOptions().getConnectTimeoutMillis(), is(1000));
+        assertThat(configuration.getSocketOptions().getReadTimeoutMillis(), is(2000));
+        assertThat(configuration.getMetricsOptions() == null || !configuration.getMetricsOptions().isJMXReportingEnabled(), is(true));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void driverTuningInvalidConnectionsPerHost() throws Exception {
+        // given
+        ConnectSettings connectSettings = new BasicConnectSettings().withConnectionsPerHost(4, 2);
+
+        // when
+        connectSettings.getClusterBuilder();
+
+        // then
+        // CassandraTestException
+    }
+
+    @Test
+    public void sharedNettyOptions() throws Exception {
+        // given
+        Method getNettyOptions = getNettyOptionsMethod();
+        ConnectSettings connectSettings = new BasicConnectSettings()
+                .withNettyOptions("com.datastax.driver.core.NettyOptions");
+
+        // when
+        Object first = getNettyOptions.invoke(connectSettings.getClusterBuilder().getConfiguration());
+        Object second = getNettyOptions.invoke(connectSettings.getClusterBuilder().getConfiguration());
+
+        // then
+        assertThat(first, notNullValue());
+        assertThat(first, sameInstance(second));
+    }
+
+    @Test
+    public void builtInSharedNettyOptions() throws Exception {
+        // given
+        Method getNettyOptions = getNettyOptionsMethod();
+        ConnectSettings connectSettings = new BasicConnectSettings()
+                .withNettyOptions(BasicConnectSettings.SHARED_NETTY_OPTIONS);
+
+        // when
+        Object nettyOptions = getNettyOptions.invoke(connectSettings.getClusterBuilder().getConfiguration());
+
+        // then
+        assertThat(nettyOptions.getClass().getName(), is("org.unittested.cassandra.test.connect.SharedNettyOptions"));
+    }
+
+    @DataProvider
+    public Object[][] invalidNettyOptions() {
+        return new Object[][] {
+                { "org.unittested.cassandra.test.DoesNotExist" },
+                { "java.lang.Object" },
+        };
+    }
+
+    @Test(dataProvider = "invalidNettyOptions", expectedExceptions = CassandraTestException.class)
+    public void invalidNettyOptions(String nettyOptions) throws Exception {
+        // given
+        ConnectSettings connectSettings = new BasicConnectSettings().withNettyOptions(nettyOptions);
+
+        // when
+        connectSettings.getClusterBuilder();
+
+        // then
+        // CassandraTestException
+    }
+
     @Test
     public void connect() throws Exception {
         // given
@@ -107,6 +199,19 @@ public class BasicConnectSettingsTest {
         // CassandraTestException
     }
 
+    @Test(expectedExceptions = CassandraTestException.class, timeOut = 2000)
+    public void connectFailureWithProbe() throws Exception {
+        // given
+        ConnectSettings connectSettings = new BasicConnectSettings("1.1.1.1", 1111, "", "")
+                .withProbeTimeoutMillis(200);
+
+        // when
+        connectSettings.connect();
+
+        // then
+        // CassandraTestException
+    }
+
     @Test(expectedExceptions = CassandraTestException.class)
     public void connectFailureAndClose() throws Exception {
         Cluster cluster = mock(Cluster.class);
@@ -138,6 +243,23 @@ public class BasicConnectSettingsTest {
         }
     }
 
+    @Test
+    public void equalsAndHashCode() throws Exception {
+        EqualsVerifier.forClass(BasicConnectSettings.class)
+                .usingGetClass()
+                .allFieldsShouldBeUsed()
+                .suppress(Warning.NONFINAL_FIELDS)
+                .verify();
+    }
+
+    private static Method getNettyOptionsMethod() {
+        try {
+            return Configuration.class.getMethod("getNettyOptions");
+        } catch (NoSuchMethodException e) {
+            throw new SkipException("NettyOptions is not supported by this driver version.");
+        }
+    }
+
     private ConnectSettings createConnectSettings(Cluster mockCluster) {
         final Cluster.Builder builder = mock(Cluster.Builder.class);
 
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+
+public class BasicSessionPoolTest {
+
+    private Cluster cluster;
+    private Session session;
+    private Session session2;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.cluster = mock(Cluster.class);
+        this.session = mock(Session.class);
+        this.session2 = mock(Session.class);
+        doReturn(this.cluster).when(this.session).getCluster();
+        doReturn(this.cluster).when(this.session2).getCluster();
+        doReturn(this.session2).when(this.cluster).connect();
+    }
+
+    @Test
+    public void acquireAndReleaseWithoutKeepAlive() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(0);
+
+        // when
+        Session acquired = sessionPool.acquire(connectSettings);
+        sessionPool.release(acquired);
+
+        // then
+        assertThat(acquired, sameInstance(this.session));
+        verify(connectSettings, times(1)).connect();
+        verify(this.cluster, times(1)).close();
+    }
+
+    @Test
+    public void acquireReusesReleasedSession() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(-1);
+
+        // when
+        Session first = sessionPool.acquire(connectSettings);
+        sessionPool.release(first);
+        Session second = sessionPool.acquire(connectSettings);
+
+        // then
+        assertThat(second, sameInstance(first));
+        verify(connectSettings, times(1)).connect();
+        verify(this.cluster, never()).close();
+    }
+
+    @Test
+    public void concurrentAcquireSharesCluster() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(0);
+
+        // when
+        Session first = sessionPool.acquire(connectSettings);
+        Session second = sessionPool.acquire(connectSettings);
+
+        // then
+        assertThat(first, sameInstance(this.session));
+        assertThat(second, sameInstance(this.session2));
+        verify(connectSettings, times(1)).connect();
+        verify(this.cluster, times(1)).connect();
+
+        sessionPool.release(first);
+        verify(this.cluster, never()).close();
+        sessionPool.release(second);
+        verify(this.cluster, times(1)).close();
+    }
+
+    @Test
+    public void releaseWithKeepAlive() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(50);
+        final CountDownLatch closed = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                closed.countDown();
+                return null;
+            }
+        }).when(this.cluster).close();
+
+        // when
+        sessionPool.release(sessionPool.acquire(connectSettings));
+
+        // then
+        assertThat(closed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(sessionPool.acquire(connectSettings), is(this.session));
+        verify(connectSettings, times(2)).connect();
+    }
+
+    @Test
+    public void releaseUnknownSession() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+
+        // when
+        sessionPool.release(this.session);
+
+        // then
+        verify(this.cluster, times(1)).close();
+    }
+
+    @Test
+    public void close() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        sessionPool.release(sessionPool.acquire(createConnectSettings(-1)));
+
+        // when
+        sessionPool.close();
+
+        // then
+        verify(this.cluster, times(1)).close();
+    }
+
+    @Test
+    public void acquirePrewarmedSession() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(0);
+        sessionPool.prewarm(connectSettings);
+
+        // when
+        Session acquired = sessionPool.acquire(connectSettings);
+
+        // then
+        assertThat(acquired, sameInstance(this.session));
+        verify(connectSettings, times(1)).connect();
+        verify(this.cluster, never()).connect();
+    }
+
+    @Test
+    public void prewarmFailure() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = createConnectSettings(0);
+        final CountDownLatch prewarmed = new CountDownLatch(1);
+        when(connectSettings.connect()).thenAnswer(new Answer<Session>() {
+            @Override
+            public Session answer(InvocationOnMock invocation) throws Throwable {
+                prewarmed.countDown();
+                throw new CassandraTestException("Failed to connect to Cassandra");
+            }
+        }).thenReturn(this.session);
+        sessionPool.prewarm(connectSettings);
+        assertThat(prewarmed.await(5, TimeUnit.SECONDS), is(true));
+
+        // when
+        Session acquired = sessionPool.acquire(connectSettings);
+
+        // then
+        assertThat(acquired, sameInstance(this.session));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void acquireFailure() throws Exception {
+        // given
+        SessionPool sessionPool = new BasicSessionPool();
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        doThrow(new CassandraTestException("Failed to connect to Cassandra")).when(connectSettings).connect();
+
+        // when
+        sessionPool.acquire(connectSettings);
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private ConnectSettings createConnectSettings(long keepAlive) {
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        doReturn(keepAlive).when(connectSettings).getKeepAlive();
+        doReturn(this.session).when(connectSettings).connect();
+        return connectSettings;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.*;
+
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Session;
+
+public class LazySessionTest {
+
+    @Test
+    public void create() throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+
+        // when
+        Session lazySession = LazySession.create(sessionPool, connectSettings);
+
+        // then
+        assertThat(LazySession.isResolved(lazySession), is(false));
+        assertThat(LazySession.unwrap(lazySession), nullValue());
+        assertThat(lazySession.equals(lazySession), is(true));
+        verifyZeroInteractions(sessionPool, connectSettings);
+    }
+
+    @Test
+    public void connectOnFirstUse() throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        Session session = mock(Session.class);
+        when(sessionPool.acquire(connectSettings)).thenReturn(session);
+        when(session.getLoggedKeyspace()).thenReturn("test");
+        Session lazySession = LazySession.create(sessionPool, connectSettings);
+
+        // when
+        String loggedKeyspace = lazySession.getLoggedKeyspace();
+        lazySession.getLoggedKeyspace();
+
+        // then
+        assertThat(loggedKeyspace, is("test"));
+        assertThat(LazySession.isResolved(lazySession), is(true));
+        assertThat(LazySession.unwrap(lazySession), sameInstance(session));
+        verify(sessionPool, times(1)).acquire(connectSettings);
+    }
+
+    @Test
+    public void resolve() throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        Session session = mock(Session.class);
+        when(sessionPool.acquire(connectSettings)).thenReturn(session);
+
+        // when
+        Session resolved = LazySession.resolve(LazySession.create(sessionPool, connectSettings));
+
+        // then
+        assertThat(resolved, sameInstance(session));
+    }
+
+    @Test
+    public void notLazy() throws Exception {
+        // given
+        Session session = mock(Session.class);
+
+        // when
+        boolean resolved = LazySession.isResolved(session);
+
+        // then
+        assertThat(resolved, is(true));
+        assertThat(LazySession.unwrap(session), sameInstance(session));
+        assertThat(LazySession.resolve(session), sameInstance(session));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.connect.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+import java.util.Properties;
+
+import org.unittested.cassandra.test.annotation.CassandraConnect;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.connect.basic.BasicConnectSettings;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.properties.PropertyResolver;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SessionPoolPrewarmerTest {
+
+    @DataProvider
+    public static Object[][] disabledValues() {
+        return new Object[][] {
+                { null },
+                { "" },
+                { "false" },
+                { "org.unittested.cassandra.test.DoesNotExist" },
+        };
+    }
+
+    @Test(dataProvider = "disabledValues")
+    public void startDisabled(String value) throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+
+        // when
+        boolean started = SessionPoolPrewarmer.start(sessionPool, createPropertyResolver(value));
+
+        // then
+        assertThat(started, is(false));
+        verifyZeroInteractions(sessionPool);
+    }
+
+    @Test
+    public void startWithDefaults() throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+
+        // when
+        boolean started = SessionPoolPrewarmer.start(sessionPool, createPropertyResolver("true"));
+
+        // then
+        assertThat(started, is(true));
+        verify(sessionPool, times(1)).prewarm(new BasicConnectSettings());
+    }
+
+    @Test
+    public void startWithTestClass() throws Exception {
+        // given
+        SessionPool sessionPool = mock(SessionPool.class);
+        ArgumentCaptor<ConnectSettings> connectSettings = ArgumentCaptor.forClass(ConnectSettings.class);
+
+        // when
+        boolean started = SessionPoolPrewarmer.start(sessionPool, createPropertyResolver(PrewarmTest.class.getName()));
+
+        // then
+        assertThat(started, is(true));
+        verify(sessionPool, times(1)).prewarm(connectSettings.capture());
+        assertThat(connectSettings.getValue().getKeepAlive(), is(-1L));
+    }
+
+    private static PropertyResolver createPropertyResolver(String value) {
+        Properties properties = new Properties();
+
+        if (value != null) {
+            properties.setProperty(SessionPoolPrewarmer.PREWARM_PROPERTY, value);
+        }
+
+        return new PropertiesPropertyResolver(properties);
+    }
+
+    @CassandraConnect(keepAlive = "-1")
+    public static class PrewarmTest {
+
+    }
+}
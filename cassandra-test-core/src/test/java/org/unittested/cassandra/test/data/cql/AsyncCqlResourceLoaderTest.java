@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.resource.Resource;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+public class AsyncCqlResourceLoaderTest {
+
+    @Test
+    public void loadCqlResource() throws Exception {
+        // given
+        AsyncCqlResourceLoader loader = new AsyncCqlResourceLoader(null, 2);
+        Recorder recorder = new Recorder();
+        TestRuntime runtime = recorder.createRuntime();
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl(
+                "insert into a (x) values (1);insert into a (x) values (2);insert into a (x) values (3);"));
+
+        // then
+        assertThat(recorder.events, org.hamcrest.Matchers.contains(
+                "async insert into a (x) values (1);",
+                "async insert into a (x) values (2);",
+                "get insert into a (x) values (1);",
+                "async insert into a (x) values (3);",
+                "get insert into a (x) values (2);",
+                "get insert into a (x) values (3);"));
+        assertThat(recorder.maxInFlight, is(2));
+    }
+
+    @Test
+    public void loadCqlResourceWithBarriers() throws Exception {
+        // given
+        AsyncCqlResourceLoader loader = new AsyncCqlResourceLoader(null, 8);
+        Recorder recorder = new Recorder();
+        TestRuntime runtime = recorder.createRuntime();
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl(
+                "insert into a (x) values (1);"
+                + "truncate a;"
+                + "insert into a (x) values (2);"
+                + "begin batch insert into a (x) values (3); apply batch;"
+                + "insert into a (x) values (4);"
+                + "consistency ALL;"
+                + "insert into a (x) values (5);"));
+
+        // then
+        assertThat(recorder.events, org.hamcrest.Matchers.contains(
+                "async insert into a (x) values (1);",
+                "get insert into a (x) values (1);",
+                "execute truncate a;",
+                "async insert into a (x) values (2);",
+                "get insert into a (x) values (2);",
+                "execute batch",
+                "async insert into a (x) values (4);",
+                "get insert into a (x) values (4);",
+                "async insert into a (x) values (5);",
+                "get insert into a (x) values (5);"));
+        assertThat(recorder.consistencyLevels.get(recorder.consistencyLevels.size() - 1), is(ConsistencyLevel.ALL));
+    }
+
+    @Test
+    public void loadCqlResourceWithFailure() throws Exception {
+        // given
+        AsyncCqlResourceLoader loader = new AsyncCqlResourceLoader(null, 4);
+        Recorder recorder = new Recorder();
+        TestRuntime runtime = recorder.createRuntime();
+        CassandraTestException failure = null;
+        recorder.failures.add("insert into a (x) values (2);");
+        recorder.failures.add("insert into a (x) values (3);");
+
+        // when
+        try {
+            loader.loadCqlResource(runtime, Resource.fromCqlOrUrl(
+                    "insert into a (x) values (1);insert into a (x) values (2);insert into a (x) values (3);"));
+        } catch (CassandraTestException e) {
+            failure = e;
+        }
+
+        // then
+        assertThat(failure, notNullValue());
+        assertThat(failure.getMessage(), containsString("insert into a (x) values (2);"));
+        assertThat(recorder.events, hasItem("get insert into a (x) values (3);"));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidWindow() throws Exception {
+        // given
+        int window = 0;
+
+        // when
+        new AsyncCqlResourceLoader(window);
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static class Recorder {
+
+        private final List<String> events = new ArrayList<String>();
+        private final List<String> failures = new ArrayList<String>();
+        private final List<ConsistencyLevel> consistencyLevels = new ArrayList<ConsistencyLevel>();
+        private int inFlight;
+        private int maxInFlight;
+
+        TestRuntime createRuntime() {
+            TestRuntime runtime = mock(TestRuntime.class);
+            Keyspace keyspace = mock(Keyspace.class);
+            Session session = mock(Session.class);
+
+            when(runtime.getKeyspace()).thenReturn(keyspace);
+            when(keyspace.getSession()).thenReturn(session);
+            when(session.executeAsync(Matchers.any(Statement.class))).thenAnswer(new Answer<ResultSetFuture>() {
+                @Override
+                public ResultSetFuture answer(InvocationOnMock invocation) throws Throwable {
+                    return executeAsync((Statement)invocation.getArguments()[0]);
+                }
+            });
+            when(session.execute(Matchers.any(Statement.class))).thenAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(InvocationOnMock invocation) throws Throwable {
+                    Statement statement = (Statement)invocation.getArguments()[0];
+                    events.add("execute " + (statement instanceof BatchStatement ? "batch" : cql(statement)));
+                    return null;
+                }
+            });
+
+            return runtime;
+        }
+
+        private ResultSetFuture executeAsync(Statement statement) {
+            final String cql = cql(statement);
+            ResultSetFuture future = mock(ResultSetFuture.class);
+
+            this.events.add("async " + cql);
+            this.consistencyLevels.add(statement.getConsistencyLevel());
+            this.maxInFlight = Math.max(this.maxInFlight, ++this.inFlight);
+
+            when(future.getUninterruptibly()).thenAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(InvocationOnMock invocation) throws Throwable {
+                    events.add("get " + cql);
+                    inFlight--;
+
+                    if (failures.contains(cql)) {
+                        throw new IllegalStateException("Failed " + cql);
+                    }
+
+                    return null;
+                }
+            });
+
+            return future;
+        }
+
+        private static String cql(Statement statement) {
+            return ((RegularStatement)statement).getQueryString();
+        }
+    }
+}
@@ -20,12 +20,14 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.StringReader;
 import java.util.Collections;
 import java.util.List;
 
@@ -37,9 +39,17 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.unittested.cassandra.test.resource.Resource;
 
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ColumnMetadata;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
 
 public class BasicCqlResourceLoaderTest {
 
@@ -211,6 +221,45 @@ public class BasicCqlResourceLoaderTest {
         // CqlException
     }
 
+    @Test
+    public void loadCsvResource() throws Exception {
+        // given
+        BasicCqlResourceLoader basicCqlResourceLoader = new BasicCqlResourceLoader();
+        ArgumentCaptor<Statement> statements = ArgumentCaptor.forClass(Statement.class);
+        TestRuntime runtime = createRuntime(statements);
+        Session session = runtime.getKeyspace().getSession();
+        Resource resource = spy(new Resource("classpath:t.csv"));
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        BoundStatement bound = mock(BoundStatement.class);
+        TableMetadata table = mock(TableMetadata.class);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        ColumnMetadata column = mock(ColumnMetadata.class);
+
+        doReturn(new StringReader("k\n1\n2\n3\n")).when(resource).getReader();
+        when(session.getCluster()).thenReturn(mock(Cluster.class));
+        when(session.getCluster().getMetadata()).thenReturn(mock(Metadata.class));
+        when(session.getLoggedKeyspace()).thenReturn("ks");
+        when(session.getCluster().getMetadata().getKeyspace("\"ks\"")).thenReturn(keyspace);
+        when(keyspace.getName()).thenReturn("ks");
+        when(keyspace.getTable("t")).thenReturn(table);
+        when(table.getKeyspace()).thenReturn(keyspace);
+        when(table.getName()).thenReturn("t");
+        when(table.getColumn("k")).thenReturn(column);
+        when(column.getName()).thenReturn("k");
+        when(column.getType()).thenReturn(DataType.cint());
+        when(session.prepare("INSERT INTO \"ks\".\"t\" (\"k\") VALUES (?)")).thenReturn(prepared);
+        when(prepared.bind(Matchers.anyVararg())).thenReturn(bound);
+
+        // when
+        basicCqlResourceLoader.loadCqlResource(runtime, resource);
+
+        // then
+        verify(session, times(3)).execute(bound);
+        verify(prepared).bind(1);
+        verify(prepared).bind(2);
+        verify(prepared).bind(3);
+    }
+
     private TestRuntime createRuntime() {
         ArgumentCaptor<Statement> statements = ArgumentCaptor.forClass(Statement.class);
         return createRuntime(statements);
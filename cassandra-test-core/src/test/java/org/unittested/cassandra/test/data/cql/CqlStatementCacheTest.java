@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Properties;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.resource.Resource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Statement;
+
+public class CqlStatementCacheTest {
+
+    private File file;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.file = File.createTempFile("cql-cache", ".cql", new File("target"));
+    }
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        this.file.delete();
+    }
+
+    @Test
+    public void getText() throws Exception {
+        // given
+        CqlStatementCache cache = new CqlStatementCache();
+        Resource resource = spy(new Resource(Resource.Source.TEXT, "select * from a;select * from b;"));
+
+        // when
+        Collection<Statement> first = cache.get(resource);
+        Collection<Statement> second = cache.get(resource);
+
+        // then
+        assertThat(first.size(), is(2));
+        assertThat(second, sameInstance(first));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getWeight(), greaterThan(0L));
+        verify(resource, times(1)).getReader();
+    }
+
+    @Test
+    public void getEditedFile() throws Exception {
+        // given
+        CqlStatementCache cache = new CqlStatementCache();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("select * from a;", 1000000L);
+        cache.get(resource);
+        write("select * from b;", 2000000L);
+
+        // when
+        Collection<Statement> statements = cache.get(resource);
+
+        // then
+        assertThat(queryString(statements), is("select * from b;"));
+        assertThat(cache.getMisses(), is(2L));
+        assertThat(cache.getHits(), is(0L));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void getEditedFileWithSameLastModified() throws Exception {
+        // given
+        CqlStatementCache cache = new CqlStatementCache();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("select * from a;", 1000000L);
+        cache.get(resource);
+        write("select * from abc;", 1000000L);
+
+        // when
+        Collection<Statement> statements = cache.get(resource);
+
+        // then
+        assertThat(queryString(statements), is("select * from abc;"));
+        assertThat(cache.getMisses(), is(2L));
+        assertThat(cache.getHits(), is(0L));
+    }
+
+    @Test
+    public void getTouchedFile() throws Exception {
+        // given
+        CqlStatementCache cache = new CqlStatementCache();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("select * from a;", 1000000L);
+        Collection<Statement> before = cache.get(resource);
+        write("select * from a;", 2000000L);
+
+        // when
+        Collection<Statement> after = cache.get(resource);
+        Collection<Statement> again = cache.get(resource);
+
+        // then
+        assertThat(after, sameInstance(before));
+        assertThat(again, sameInstance(before));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHits(), is(2L));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        // given
+        Resource a = new Resource(Resource.Source.TEXT, "select * from a;");
+        Resource b = new Resource(Resource.Source.TEXT, "select * from b;");
+        Resource c = new Resource(Resource.Source.TEXT, "select * from c;");
+        CqlStatementCache cache = new CqlStatementCache(2 * weigh(a));
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+
+        // when
+        cache.get(c);
+
+        // then
+        assertThat(cache.getEvictions(), is(1L));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getWeight(), is(2 * weigh(a)));
+        cache.get(a);
+        assertThat(cache.getHits(), is(2L));
+        cache.get(b);
+        assertThat(cache.getMisses(), is(4L));
+    }
+
+    @Test
+    public void getOversizedResource() throws Exception {
+        // given
+        Resource resource = new Resource(Resource.Source.TEXT, "select * from a;");
+        CqlStatementCache cache = new CqlStatementCache(weigh(resource) - 1);
+
+        // when
+        cache.get(resource);
+        cache.get(resource);
+
+        // then
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getWeight(), is(0L));
+        assertThat(cache.getMisses(), is(2L));
+        assertThat(cache.getEvictions(), is(0L));
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        // given
+        CqlStatementCache cache = new CqlStatementCache();
+        Resource resource = new Resource(Resource.Source.TEXT, "select * from a;");
+        cache.get(resource);
+
+        // when
+        cache.invalidate(resource);
+
+        // then
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getWeight(), is(0L));
+    }
+
+    @Test
+    public void fromProperties() throws Exception {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CqlStatementCache.CACHE_SIZE_PROPERTY, "1024");
+
+        // when
+        CqlStatementCache cache = CqlStatementCache.fromProperties(new PropertiesPropertyResolver(properties));
+
+        // then
+        assertThat(cache.getMaxWeight(), is(1024L));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void fromPropertiesWithInvalidSize() throws Exception {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CqlStatementCache.CACHE_SIZE_PROPERTY, "big");
+
+        // when
+        CqlStatementCache.fromProperties(new PropertiesPropertyResolver(properties));
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static long weigh(Resource resource) throws IOException {
+        CqlStatementCache cache = new CqlStatementCache();
+        cache.get(resource);
+        return cache.getWeight();
+    }
+
+    private static String queryString(Collection<Statement> statements) {
+        return ((RegularStatement)statements.iterator().next()).getQueryString();
+    }
+
+    private void write(String content, long lastModified) throws IOException {
+        OutputStream out = new FileOutputStream(this.file);
+
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        assertThat(this.file.setLastModified(lastModified), is(true));
+    }
+}
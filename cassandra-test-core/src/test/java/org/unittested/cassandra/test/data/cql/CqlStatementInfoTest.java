@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.SimpleStatement;
+
+public class CqlStatementInfoTest {
+
+    @DataProvider
+    public Object[][] targets() {
+        return new Object[][] {
+                { "SELECT * FROM ks.t WHERE k = 1;", CqlStatementKind.SELECT, "ks", "t" },
+                { "insert into t (k) values (1);", CqlStatementKind.INSERT, null, "t" },
+                { "UPDATE \"Ks\".\"T\" SET v = 1 WHERE k = 1;", CqlStatementKind.UPDATE, "\"Ks\"", "\"T\"" },
+                { "DELETE v FROM t WHERE k = 1;", CqlStatementKind.DELETE, null, "t" },
+                { "TRUNCATE TABLE ks.t;", CqlStatementKind.TRUNCATE, "ks", "t" },
+                { "TRUNCATE t;", CqlStatementKind.TRUNCATE, null, "t" },
+                { "USE ks;", CqlStatementKind.USE, "ks", null },
+                { "CREATE KEYSPACE IF NOT EXISTS ks WITH replication = {};", CqlStatementKind.CREATE, "ks", null },
+                { "CREATE TABLE ks.t (k int PRIMARY KEY);", CqlStatementKind.CREATE, "ks", "t" },
+                { "ALTER TABLE t ADD v int;", CqlStatementKind.ALTER, null, "t" },
+                { "DROP TABLE IF EXISTS ks.t;", CqlStatementKind.DROP, "ks", "t" },
+                { "CREATE INDEX i ON ks.t (v);", CqlStatementKind.CREATE, "ks", "t" },
+                { "CREATE CUSTOM INDEX ON t (v) USING 'x';", CqlStatementKind.CREATE, null, "t" },
+                { "DROP INDEX ks.i;", CqlStatementKind.DROP, "ks", null },
+                { "CREATE OR REPLACE FUNCTION ks.f (x int) CALLED ON NULL INPUT RETURNS int LANGUAGE java AS 'return x;';",
+                        CqlStatementKind.CREATE, "ks", null },
+                { "CREATE TRIGGER tr ON ks.t USING 'x';", CqlStatementKind.CREATE, "ks", "t" },
+                { "GRANT SELECT ON ks.t TO bob;", CqlStatementKind.GRANT, null, null },
+                { "x = 1;", CqlStatementKind.UNKNOWN, null, null },
+        };
+    }
+
+    @Test(dataProvider = "targets")
+    public void classify(String cql, CqlStatementKind expectedKind, String expectedKeyspace, String expectedTable) throws Exception {
+        // when
+        CqlStatementInfo info = CqlStatementInfo.classify(cql);
+
+        // then
+        assertThat(info.getKind(), is(expectedKind));
+        assertThat(info.getKeyspace(), is(expectedKeyspace));
+        assertThat(info.getTable(), is(expectedTable));
+    }
+
+    @DataProvider
+    public Object[][] categories() {
+        return new Object[][] {
+                { "SELECT * FROM t;", false, true, false, false },
+                { "INSERT INTO t (k) VALUES (1);", false, true, false, true },
+                { "BEGIN BATCH;", false, true, false, true },
+                { "CREATE TABLE t (k int PRIMARY KEY);", true, false, false, false },
+                { "TRUNCATE t;", true, false, false, false },
+                { "USE ks;", true, false, false, false },
+                { "CREATE USER bob WITH PASSWORD 'x';", false, false, true, false },
+                { "DROP ROLE bob;", false, false, true, false },
+                { "REVOKE ALL ON KEYSPACE ks FROM bob;", false, false, true, false },
+                { "LIST USERS;", false, false, true, false },
+                { "CONSISTENCY ONE;", false, false, false, false },
+        };
+    }
+
+    @Test(dataProvider = "categories")
+    public void categories(String cql, boolean expectedDdl, boolean expectedDml, boolean expectedDcl, boolean expectedWrite)
+            throws Exception {
+        // when
+        CqlStatementInfo info = CqlStatementInfo.classify(cql);
+
+        // then
+        assertThat(info.isDdl(), is(expectedDdl));
+        assertThat(info.isDml(), is(expectedDml));
+        assertThat(info.isDcl(), is(expectedDcl));
+        assertThat(info.isWrite(), is(expectedWrite));
+    }
+
+    @DataProvider
+    public Object[][] schemaObjects() {
+        return new Object[][] {
+                { "CREATE SCHEMA ks WITH replication = {};", CqlStatementInfo.SchemaObject.KEYSPACE },
+                { "CREATE COLUMNFAMILY t (k int PRIMARY KEY);", CqlStatementInfo.SchemaObject.TABLE },
+                { "CREATE TYPE ks.address (street text);", CqlStatementInfo.SchemaObject.TYPE },
+                { "DROP AGGREGATE ks.a;", CqlStatementInfo.SchemaObject.AGGREGATE },
+                { "CREATE MATERIALIZED VIEW ks.v AS SELECT * FROM t;", CqlStatementInfo.SchemaObject.MATERIALIZED_VIEW },
+                { "ALTER ROLE bob WITH LOGIN = true;", CqlStatementInfo.SchemaObject.ROLE },
+                { "CREATE x;", null },
+                { "SELECT * FROM t;", null },
+        };
+    }
+
+    @Test(dataProvider = "schemaObjects")
+    public void schemaObject(String cql, CqlStatementInfo.SchemaObject expectedSchemaObject) throws Exception {
+        // when
+        CqlStatementInfo info = CqlStatementInfo.classify(cql);
+
+        // then
+        assertThat(info.getSchemaObject(), is(expectedSchemaObject));
+    }
+
+    @DataProvider
+    public Object[][] batches() {
+        return new Object[][] {
+                { "BEGIN BATCH;", BatchStatement.Type.LOGGED, null, ";" },
+                { "begin unlogged batch; insert into t (k) values (1);", BatchStatement.Type.UNLOGGED, null, "insert into t (k) values (1);" },
+                { "BEGIN COUNTER BATCH USING TIMESTAMP 10\nUPDATE t SET c = c + 1 WHERE k = 1;", BatchStatement.Type.COUNTER, 10L, "UPDATE t SET c = c + 1 WHERE k = 1;" },
+                { "BEGIN BATCH", BatchStatement.Type.LOGGED, null, null },
+                { "BEGIN BATCH USING TIMESTAMP -1;", BatchStatement.Type.LOGGED, null, null },
+        };
+    }
+
+    @Test(dataProvider = "batches")
+    public void batch(String cql, BatchStatement.Type expectedType, Long expectedTimestamp, String expectedBody) throws Exception {
+        // when
+        CqlStatementInfo info = CqlStatementInfo.classify(cql);
+
+        // then
+        assertThat(info.getKind(), is(CqlStatementKind.BATCH));
+        assertThat(info.getBatchType(), is(expectedType));
+        assertThat(info.getTimestamp(), is(expectedTimestamp));
+        assertThat(info.getBatchBody(), is(expectedBody));
+    }
+
+    @DataProvider
+    public Object[][] commands() {
+        return new Object[][] {
+                { "APPLY BATCH;", CqlStatementKind.APPLY_BATCH, null },
+                { "apply\nbatch", CqlStatementKind.APPLY_BATCH, null },
+                { "APPLY BATCH x;", CqlStatementKind.UNKNOWN, null },
+                { "CONSISTENCY local_quorum;", CqlStatementKind.CONSISTENCY, ConsistencyLevel.LOCAL_QUORUM },
+                { "CONSISTENCY ONE TWO;", CqlStatementKind.CONSISTENCY, null },
+                { "SERIAL CONSISTENCY SERIAL;", CqlStatementKind.SERIAL_CONSISTENCY, null },
+        };
+    }
+
+    @Test(dataProvider = "commands")
+    public void command(String cql, CqlStatementKind expectedKind, ConsistencyLevel expectedConsistencyLevel) throws Exception {
+        // when
+        CqlStatementInfo info = CqlStatementInfo.classify(cql);
+
+        // then
+        assertThat(info.getKind(), is(expectedKind));
+        assertThat(info.getConsistencyLevel(), is(expectedConsistencyLevel));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void getConsistencyLevelUnknown() throws Exception {
+        // given
+        CqlStatementInfo info = CqlStatementInfo.classify("CONSISTENCY xxx;");
+
+        // when
+        info.getConsistencyLevel();
+    }
+
+    @Test
+    public void ofClassifiedStatement() throws Exception {
+        // given
+        CqlStatementInfo info = CqlStatementInfo.classify("INSERT INTO t (k) VALUES (1);");
+
+        // when
+        CqlStatementInfo result = CqlStatementInfo.of(new ClassifiedStatement("INSERT INTO t (k) VALUES (1);", info));
+
+        // then
+        assertThat(result, sameInstance(info));
+    }
+
+    @Test
+    public void ofStatement() throws Exception {
+        // when
+        CqlStatementInfo simple = CqlStatementInfo.of(new SimpleStatement("DELETE FROM ks.t WHERE k = 1;"));
+        CqlStatementInfo batch = CqlStatementInfo.of(new BatchStatement());
+        CqlStatementInfo consistency = CqlStatementInfo.of(new ConsistencyStatement(ConsistencyLevel.ONE));
+
+        // then
+        assertThat(simple.getKind(), is(CqlStatementKind.DELETE));
+        assertThat(simple.getTable(), is("t"));
+        assertThat(batch.getKind(), is(CqlStatementKind.BATCH));
+        assertThat(consistency.getKind(), is(CqlStatementKind.UNKNOWN));
+    }
+}
@@ -21,6 +21,7 @@ import static org.hamcrest.MatcherAssert.*;
 
 import java.io.StringReader;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
@@ -546,6 +547,34 @@ public class CqlStatementReaderTest {
         return ((RegularStatement)statement).getQueryString();
     }
 
+    @DataProvider
+    public Object[][] smallBufferData() {
+        List<Object[]> data = new ArrayList<Object[]>();
+
+        data.addAll(Arrays.asList(singleStatementsData()));
+        data.addAll(Arrays.asList(validCommentData()));
+        data.addAll(Arrays.asList(escapeInQuotesData()));
+        data.add(new Object[] { "delete from t where id = 123e4567-e89b-12d3-a456-426655440000; -- comment",
+                "delete from t where id = 123e4567-e89b-12d3-a456-426655440000;" });
+
+        return data.toArray(new Object[data.size()][]);
+    }
+
+    @Test(dataProvider = "smallBufferData")
+    public void smallBuffer(String input, String expectedCql) throws Exception {
+        for (int bufferSize = 1; bufferSize <= 4; bufferSize++) {
+            // given
+            testee = new CqlStatementReader(new StringReader(input), bufferSize);
+
+            // when
+            Collection<Statement> statements = testee.all();
+
+            // then
+            assertThat(statements.size(), is(1));
+            assertThat(getQueryString(statements.iterator().next()), is(expectedCql));
+        }
+    }
+
     private CqlStatementReader statementParser(String input) {
         return new CqlStatementReader(new StringReader(input));
     }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.UUID;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TableMetadata;
+
+public class CsvInsertTest {
+
+    private static final String INSERT = "INSERT INTO \"ks\".\"t\" (\"k\", \"V\") VALUES (?, ?)";
+
+    private Session session;
+    private KeyspaceMetadata keyspace;
+    private TableMetadata table;
+    private PreparedStatement prepared;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.session = mock(Session.class);
+        this.keyspace = mock(KeyspaceMetadata.class);
+        this.table = mock(TableMetadata.class);
+        this.prepared = mock(PreparedStatement.class);
+
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+        ColumnMetadata k = mock(ColumnMetadata.class);
+        ColumnMetadata v = mock(ColumnMetadata.class);
+
+        when(this.session.getCluster()).thenReturn(cluster);
+        when(this.session.getLoggedKeyspace()).thenReturn("ks");
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(metadata.getKeyspace("\"ks\"")).thenReturn(this.keyspace);
+        when(metadata.getKeyspace("ks")).thenReturn(this.keyspace);
+        when(this.keyspace.getName()).thenReturn("ks");
+        when(this.keyspace.getTable("t")).thenReturn(this.table);
+        when(this.table.getKeyspace()).thenReturn(this.keyspace);
+        when(this.table.getName()).thenReturn("t");
+        when(this.table.getColumn("k")).thenReturn(k);
+        when(this.table.getColumn("\"V\"")).thenReturn(v);
+        when(k.getName()).thenReturn("k");
+        when(k.getType()).thenReturn(DataType.cint());
+        when(v.getName()).thenReturn("V");
+        when(v.getType()).thenReturn(DataType.text());
+        when(this.session.prepare(INSERT)).thenReturn(this.prepared);
+        when(this.prepared.bind(anyVararg())).thenReturn(mock(BoundStatement.class));
+    }
+
+    @DataProvider
+    public Object[][] tables() {
+        return new Object[][] {
+                { "t" },
+                { "ks.t" },
+        };
+    }
+
+    @Test(dataProvider = "tables")
+    public void bind(String table) throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache();
+        CsvInsert insert = CsvInsert.prepare(this.session, cache, table, new String[] { "k", " \"V\" " });
+        ArgumentCaptor<Object> values = ArgumentCaptor.forClass(Object.class);
+
+        // when
+        insert.bind(new String[] { " 1 ", "a" }, 2);
+        insert.bind(new String[] { "2", null }, 3);
+
+        // then
+        verify(this.session, times(1)).prepare(INSERT);
+        verify(this.prepared, times(2)).bind(values.capture(), values.capture());
+        assertThat(values.getAllValues(), org.hamcrest.Matchers.<Object>contains(1, "a", 2, null));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void prepareWithUnknownColumn() throws Exception {
+        // given, when
+        CsvInsert.prepare(this.session, new PreparedStatementCache(), "t", new String[] { "k", "v" });
+
+        // then
+        // CassandraTestException
+    }
+
+    @DataProvider
+    public Object[][] invalidTables() {
+        return new Object[][] {
+                { "x" },
+                { "ks.t x" },
+                { "" },
+        };
+    }
+
+    @Test(dataProvider = "invalidTables", expectedExceptions = CassandraTestException.class)
+    public void prepareWithInvalidTable(String table) throws Exception {
+        // given, when
+        CsvInsert.prepare(this.session, new PreparedStatementCache(), table, new String[] { "k" });
+
+        // then
+        // CassandraTestException
+    }
+
+    @DataProvider
+    public Object[][] invalidRecords() {
+        return new Object[][] {
+                { new String[] { "1" } },
+                { new String[] { "1", "a", "b" } },
+                { new String[] { "x", "a" } },
+        };
+    }
+
+    @Test(dataProvider = "invalidRecords", expectedExceptions = CassandraTestException.class)
+    public void bindWithInvalidRecord(String[] record) throws Exception {
+        // given
+        CsvInsert insert = CsvInsert.prepare(this.session, new PreparedStatementCache(), "t", new String[] { "k", "\"V\"" });
+
+        // when
+        insert.bind(record, 2);
+
+        // then
+        // CassandraTestException
+    }
+
+    @DataProvider
+    public Object[][] values() throws Exception {
+        return new Object[][] {
+                { " x ", DataType.varchar(), " x " },
+                { "-5", DataType.bigint(), -5L },
+                { "12345678901234567890", DataType.varint(), new BigInteger("12345678901234567890") },
+                { "1.5", DataType.cdouble(), 1.5d },
+                { "1.5", DataType.cfloat(), 1.5f },
+                { "1.50", DataType.decimal(), new BigDecimal("1.50") },
+                { "TRUE", DataType.cboolean(), true },
+                { "00000000-0000-0000-0000-000000000001", DataType.uuid(), UUID.fromString("00000000-0000-0000-0000-000000000001") },
+                { "1000", DataType.timestamp(), new Date(1000) },
+                { "1970-01-01", DataType.timestamp(), new Date(0) },
+                { "1970-01-01 00:00:01", DataType.timestamp(), new Date(1000) },
+                { "1970-01-01T00:00:01.500Z", DataType.timestamp(), new Date(1500) },
+                { "1970-01-01T01:00:00+01:00", DataType.timestamp(), new Date(0) },
+                { "0xCAFE", DataType.blob(), ByteBuffer.wrap(new byte[] { (byte)0xCA, (byte)0xFE }) },
+                { "127.0.0.1", DataType.inet(), InetAddress.getByName("127.0.0.1") },
+        };
+    }
+
+    @Test(dataProvider = "values")
+    public void convert(String value, DataType type, Object expectedValue) throws Exception {
+        // given
+        CsvInsert insert = CsvInsert.prepare(this.session, new PreparedStatementCache(), "t", new String[] { "k" });
+
+        // when
+        Object result = insert.convert(value, type);
+
+        // then
+        assertThat(result, is(expectedValue));
+    }
+
+    @DataProvider
+    public Object[][] invalidValues() {
+        return new Object[][] {
+                { "1.5", DataType.cint() },
+                { "yes", DataType.cboolean() },
+                { "2016-13-01", DataType.timestamp() },
+                { "0xCAF", DataType.blob() },
+                { "0xZZ", DataType.blob() },
+                { "[1]", DataType.list(DataType.cint()) },
+        };
+    }
+
+    @Test(dataProvider = "invalidValues", expectedExceptions = IllegalArgumentException.class)
+    public void convertWithInvalidValue(String value, DataType type) throws Exception {
+        // given
+        CsvInsert insert = CsvInsert.prepare(this.session, new PreparedStatementCache(), "t", new String[] { "k" });
+
+        // when
+        insert.convert(value, type);
+
+        // then
+        // IllegalArgumentException
+    }
+}
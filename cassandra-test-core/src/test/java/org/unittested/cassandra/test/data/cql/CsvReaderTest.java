@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+
+public class CsvReaderTest {
+
+    @DataProvider
+    public Object[][] records() {
+        return new Object[][] {
+                { "", new String[0][] },
+                { "a,b\n1,2\n", new String[][] { { "a", "b" }, { "1", "2" } } },
+                { "a,b\r\n1,2", new String[][] { { "a", "b" }, { "1", "2" } } },
+                { "\uFEFFa\n\n\r\nb\n", new String[][] { { "a" }, { "b" } } },
+                { "a,,\"\"\n", new String[][] { { "a", null, "" } } },
+                { ",\n", new String[][] { { null, null } } },
+                { "\"x, \"\"y\"\"\nz\",w\n", new String[][] { { "x, \"y\"\nz", "w" } } },
+                { " a , b ", new String[][] { { " a ", " b " } } },
+                { "\"\"\"\"", new String[][] { { "\"" } } },
+        };
+    }
+
+    @Test(dataProvider = "records")
+    public void next(String csv, String[][] expectedRecords) throws Exception {
+        for (int bufferSize : new int[] { 1, 2, 3, CsvReader.DEFAULT_BUFFER_SIZE }) {
+            // given
+            CsvReader reader = new CsvReader(new StringReader(csv), bufferSize);
+            List<List<String>> records = new ArrayList<List<String>>();
+            String[] record;
+
+            // when
+            while ((record = reader.next()) != null) {
+                records.add(Arrays.asList(record));
+            }
+
+            // then
+            assertThat(records.size(), is(expectedRecords.length));
+            assertThat(reader.getRecordNumber(), is((long)expectedRecords.length));
+
+            for (int i = 0; i < expectedRecords.length; i++) {
+                assertThat(records.get(i), is(Arrays.asList(expectedRecords[i])));
+            }
+        }
+    }
+
+    @DataProvider
+    public Object[][] invalidRecords() {
+        return new Object[][] {
+                { "a,\"b" },
+                { "a,\"b\"c\n" },
+        };
+    }
+
+    @Test(dataProvider = "invalidRecords", expectedExceptions = CassandraTestException.class)
+    public void nextWithInvalidRecord(String csv) throws Exception {
+        // given
+        CsvReader reader = new CsvReader(new StringReader(csv));
+
+        // when
+        reader.next();
+
+        // then
+        // CassandraTestException
+    }
+}
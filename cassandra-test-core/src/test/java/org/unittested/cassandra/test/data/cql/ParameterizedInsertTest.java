@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.UUID;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+
+public class ParameterizedInsertTest {
+
+    @DataProvider
+    public Object[][] shapes() {
+        return new Object[][] {
+                { "INSERT INTO t (a) VALUES (1);", "INSERT INTO t (a) VALUES (?)", null, "t" },
+                { "insert into ks.t(a,b) values('x',2)", "INSERT INTO ks.t (a, b) VALUES (?, ?)", "ks", "t" },
+                { "INSERT INTO \"Ks\".\"T\" (\"A\", b) VALUES (-1.5e3, null) IF NOT EXISTS;",
+                        "INSERT INTO \"Ks\".\"T\" (\"A\", b) VALUES (?, null) IF NOT EXISTS", "\"Ks\"", "\"T\"" },
+                { "INSERT INTO t (a, b, c) VALUES (true, 0xcafe, 123e4567-e89b-12d3-a456-426655440000)\n  USING   TTL 10;",
+                        "INSERT INTO t (a, b, c) VALUES (?, ?, ?) USING TTL 10", null, "t" },
+                { "INSERT INTO t (a) VALUES ($$it's$$);", "INSERT INTO t (a) VALUES (?)", null, "t" },
+        };
+    }
+
+    @Test(dataProvider = "shapes")
+    public void parse(String cql, String expectedShape, String expectedKeyspace, String expectedTable) throws Exception {
+        // given
+        String statement = cql;
+
+        // when
+        ParameterizedInsert insert = ParameterizedInsert.parse(statement);
+
+        // then
+        assertThat(insert.getShape(), is(expectedShape));
+        assertThat(insert.getKeyspace(), is(expectedKeyspace));
+        assertThat(insert.getTable(), is(expectedTable));
+    }
+
+    @DataProvider
+    public Object[][] unsupported() {
+        return new Object[][] {
+                { "SELECT * FROM t;" },
+                { "UPDATE t SET a = 1 WHERE k = 1;" },
+                { "INSERT INTO t JSON '{\"a\": 1}';" },
+                { "INSERT INTO t (a) VALUES ([1, 2]);" },
+                { "INSERT INTO t (a) VALUES ({'x': 1});" },
+                { "INSERT INTO t (a) VALUES (now());" },
+                { "INSERT INTO t (a) VALUES (?);" },
+                { "INSERT INTO t (a) VALUES (:a);" },
+                { "INSERT INTO t (a) VALUES (NaN);" },
+                { "INSERT INTO t (a) VALUES (12ab);" },
+                { "INSERT INTO t (a, b) VALUES (1);" },
+                { "INSERT INTO t (a) VALUES ('x') USING TTL ?;" },
+                { "INSERT INTO t (a) VALUES ('x;" },
+        };
+    }
+
+    @Test(dataProvider = "unsupported")
+    public void parseUnsupported(String cql) throws Exception {
+        // given
+        String statement = cql;
+
+        // when
+        ParameterizedInsert insert = ParameterizedInsert.parse(statement);
+
+        // then
+        assertThat(insert, nullValue());
+    }
+
+    @Test
+    public void bind() throws Exception {
+        // given
+        ParameterizedInsert insert = ParameterizedInsert.parse("INSERT INTO t (a, b, c, d, e, f, g, h) "
+                + "VALUES ('it''s', 1, 2, 3, 1.5, true, 123e4567-e89b-12d3-a456-426655440000, 0xcafe);");
+        ColumnDefinitions variables = variables(DataType.text(), DataType.cint(), DataType.bigint(),
+                DataType.timestamp(), DataType.decimal(), DataType.cboolean(), DataType.uuid(), DataType.blob());
+
+        // when
+        Object[] values = insert.bind(variables);
+
+        // then
+        assertThat(values, arrayContaining((Object)"it's", 1, 2L, new Date(3), new BigDecimal("1.5"), true,
+                UUID.fromString("123e4567-e89b-12d3-a456-426655440000"), ByteBuffer.wrap(new byte[] { (byte)0xca, (byte)0xfe })));
+    }
+
+    @DataProvider
+    public Object[][] mismatchedTypes() {
+        return new Object[][] {
+                { "'2016-01-01'", DataType.timestamp() },
+                { "1.5", DataType.cint() },
+                { "3000000000", DataType.cint() },
+                { "'x'", DataType.inet() },
+                { "0xcaf", DataType.blob() },
+                { "true", DataType.text() },
+        };
+    }
+
+    @Test(dataProvider = "mismatchedTypes")
+    public void bindMismatchedType(String literal, DataType type) throws Exception {
+        // given
+        ParameterizedInsert insert = ParameterizedInsert.parse("INSERT INTO t (a) VALUES (" + literal + ");");
+
+        // when
+        Object[] values = insert.bind(variables(type));
+
+        // then
+        assertThat(values, nullValue());
+    }
+
+    private static ColumnDefinitions variables(DataType... types) {
+        ColumnDefinitions variables = mock(ColumnDefinitions.class);
+
+        when(variables.size()).thenReturn(types.length);
+
+        for (int i = 0; i < types.length; i++) {
+            when(variables.getType(i)).thenReturn(types[i]);
+        }
+
+        return variables;
+    }
+}
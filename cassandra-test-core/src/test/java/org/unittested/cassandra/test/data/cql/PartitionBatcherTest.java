@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+
+public class PartitionBatcherTest {
+
+    private Session session;
+    private List<String> executed;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.session = mock(Session.class);
+        this.executed = new ArrayList<String>();
+
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        TableMetadata table = WriteStatementTest.table("k");
+        TableMetadata counterTable = WriteStatementTest.table("k");
+        ColumnMetadata counter = mock(ColumnMetadata.class);
+        ColumnMetadata clustering = mock(ColumnMetadata.class);
+
+        when(this.session.getCluster()).thenReturn(cluster);
+        when(this.session.getLoggedKeyspace()).thenReturn("ks");
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(metadata.getKeyspace("\"ks\"")).thenReturn(keyspace);
+        when(keyspace.getName()).thenReturn("ks");
+        when(keyspace.getTable("t")).thenReturn(table);
+        when(keyspace.getTable("c")).thenReturn(counterTable);
+        when(table.getKeyspace()).thenReturn(keyspace);
+        when(table.getName()).thenReturn("t");
+        when(table.getColumns()).thenReturn(Collections.<ColumnMetadata>emptyList());
+        when(table.getClusteringColumns()).thenReturn(Collections.singletonList(clustering));
+        when(clustering.getName()).thenReturn("c");
+        when(counterTable.getKeyspace()).thenReturn(keyspace);
+        when(counterTable.getName()).thenReturn("c");
+        when(counterTable.getColumns()).thenReturn(Collections.singletonList(counter));
+        when(counter.getType()).thenReturn(DataType.counter());
+    }
+
+    @Test
+    public void add() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(3);
+
+        // when
+        add(batcher,
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "INSERT INTO t (k, c) VALUES (1, 2);",
+                "UPDATE t SET v = 1 WHERE k = 1 AND c = 3;",
+                "DELETE FROM t WHERE k = 1 AND c = 4;",
+                "INSERT INTO t (k, c) VALUES (2, 1);",
+                "INSERT INTO t (k, c) VALUES (3, 1);",
+                "INSERT INTO t (k, c) VALUES (3, 2);");
+        batcher.flush();
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "UNLOGGED[INSERT INTO t (k, c) VALUES (1, 1);, INSERT INTO t (k, c) VALUES (1, 2);, UPDATE t SET v = 1 WHERE k = 1 AND c = 3;]",
+                "DELETE FROM t WHERE k = 1 AND c = 4;",
+                "INSERT INTO t (k, c) VALUES (2, 1);",
+                "UNLOGGED[INSERT INTO t (k, c) VALUES (3, 1);, INSERT INTO t (k, c) VALUES (3, 2);]"));
+    }
+
+    @Test
+    public void addKeepsOrderOfRowWrites() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(10);
+
+        // when
+        add(batcher,
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "DELETE FROM t WHERE k = 1 AND c = 1;",
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "UPDATE t SET v = 1 WHERE k = 1 AND c = 2;",
+                "UPDATE t SET v = 2 WHERE k = 1 AND c = 2;",
+                "DELETE FROM t WHERE k = 1 AND c = 3;",
+                "DELETE FROM t WHERE k = 1 AND c = 4;",
+                "DELETE FROM t WHERE k = 1;");
+        batcher.flush();
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "DELETE FROM t WHERE k = 1 AND c = 1;",
+                "UNLOGGED[INSERT INTO t (k, c) VALUES (1, 1);, UPDATE t SET v = 1 WHERE k = 1 AND c = 2;]",
+                "UPDATE t SET v = 2 WHERE k = 1 AND c = 2;",
+                "UNLOGGED[DELETE FROM t WHERE k = 1 AND c = 3;, DELETE FROM t WHERE k = 1 AND c = 4;]",
+                "DELETE FROM t WHERE k = 1;"));
+    }
+
+    @Test
+    public void addCounterUpdates() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(10);
+
+        // when
+        add(batcher,
+                "UPDATE c SET n = n + 1 WHERE k = 1;",
+                "UPDATE c SET n = n + 2 WHERE k = 1;",
+                "DELETE FROM c WHERE k = 1;");
+        batcher.flush();
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "COUNTER[UPDATE c SET n = n + 1 WHERE k = 1;, UPDATE c SET n = n + 2 WHERE k = 1;]",
+                "DELETE FROM c WHERE k = 1;"));
+    }
+
+    @Test
+    public void addNonWrites() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(10);
+        BatchStatement explicitBatch = new BatchStatement();
+        explicitBatch.add(new SimpleStatement("INSERT INTO t (k, c) VALUES (1, 3);"));
+
+        // when
+        add(batcher, "INSERT INTO t (k, c) VALUES (1, 1);", "INSERT INTO t (k, c) VALUES (1, 2);");
+        batcher.add(explicitBatch);
+        add(batcher,
+                "INSERT INTO t (k, c) VALUES (1, 4);",
+                "INSERT INTO t (k, c) VALUES (1, 5) IF NOT EXISTS;",
+                "INSERT INTO t (k, c) VALUES (1, 6);",
+                "INSERT INTO unknown (k, c) VALUES (1, 7);",
+                "SELECT * FROM t;");
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "UNLOGGED[INSERT INTO t (k, c) VALUES (1, 1);, INSERT INTO t (k, c) VALUES (1, 2);]",
+                "EXPLICIT[INSERT INTO t (k, c) VALUES (1, 3);]",
+                "INSERT INTO t (k, c) VALUES (1, 4);",
+                "INSERT INTO t (k, c) VALUES (1, 5) IF NOT EXISTS;",
+                "INSERT INTO t (k, c) VALUES (1, 6);",
+                "INSERT INTO unknown (k, c) VALUES (1, 7);",
+                "SELECT * FROM t;"));
+    }
+
+    @Test
+    public void addWithConsistencyChange() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(10);
+        Statement one = new SimpleStatement("INSERT INTO t (k, c) VALUES (1, 1);");
+        Statement two = new SimpleStatement("INSERT INTO t (k, c) VALUES (1, 2);");
+        Statement three = new SimpleStatement("INSERT INTO t (k, c) VALUES (1, 3);");
+        two.setConsistencyLevel(ConsistencyLevel.ALL);
+        three.setConsistencyLevel(ConsistencyLevel.ALL);
+
+        // when
+        batcher.add(one);
+        batcher.add(two);
+        batcher.add(three);
+        batcher.flush();
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "UNLOGGED[INSERT INTO t (k, c) VALUES (1, 2);, INSERT INTO t (k, c) VALUES (1, 3);]@ALL"));
+    }
+
+    @Test
+    public void addWithBatchingDisabled() throws Exception {
+        // given
+        PartitionBatcher batcher = createBatcher(1);
+
+        // when
+        add(batcher, "INSERT INTO t (k, c) VALUES (1, 1);", "INSERT INTO t (k, c) VALUES (1, 2);");
+
+        // then
+        assertThat(this.executed, org.hamcrest.Matchers.contains(
+                "INSERT INTO t (k, c) VALUES (1, 1);",
+                "INSERT INTO t (k, c) VALUES (1, 2);"));
+        verify(this.session, never()).getCluster();
+    }
+
+    private PartitionBatcher createBatcher(int maxBatchSize) {
+        return new PartitionBatcher(this.session, maxBatchSize, null) {
+            @Override
+            protected void execute(Statement statement) {
+                executed.add(describe(statement));
+            }
+        };
+    }
+
+    private static void add(PartitionBatcher batcher, String... cql) {
+        for (String statement : cql) {
+            batcher.add(new SimpleStatement(statement));
+        }
+    }
+
+    private static String describe(Statement statement) {
+        if (statement instanceof RegularStatement) {
+            return ((RegularStatement)statement).getQueryString();
+        }
+
+        BatchStatement batch = (BatchStatement)statement;
+        List<String> statements = new ArrayList<String>();
+
+        for (Statement child : batch.getStatements()) {
+            statements.add(describe(child));
+        }
+
+        String type = (batch instanceof PartitionBatcher.PartitionBatch)
+                ? ((PartitionBatcher.PartitionBatch)batch).getType().name() : "EXPLICIT";
+
+        return type + statements + (batch.getConsistencyLevel() != null ? "@" + batch.getConsistencyLevel() : "");
+    }
+}
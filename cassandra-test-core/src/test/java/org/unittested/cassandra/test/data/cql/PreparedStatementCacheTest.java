@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+
+public class PreparedStatementCacheTest {
+
+    private static final String SHAPE = "INSERT INTO t (a) VALUES (?)";
+
+    private Session session;
+    private KeyspaceMetadata keyspace;
+    private PreparedStatement prepared;
+    private BoundStatement bound;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.session = mock(Session.class);
+        this.keyspace = mock(KeyspaceMetadata.class);
+        this.prepared = mock(PreparedStatement.class);
+        this.bound = mock(BoundStatement.class);
+
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+        ColumnDefinitions variables = mock(ColumnDefinitions.class);
+
+        when(this.session.getCluster()).thenReturn(cluster);
+        when(this.session.getLoggedKeyspace()).thenReturn("ks");
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(metadata.getKeyspace("\"ks\"")).thenReturn(this.keyspace);
+        when(this.keyspace.getTable("t")).thenReturn(mock(TableMetadata.class));
+        when(this.session.prepare(SHAPE)).thenReturn(this.prepared);
+        when(this.prepared.getVariables()).thenReturn(variables);
+        when(this.prepared.bind(anyVararg())).thenReturn(this.bound);
+        when(variables.size()).thenReturn(1);
+        when(variables.getType(0)).thenReturn(DataType.cint());
+    }
+
+    @Test
+    public void bind() throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache();
+        Statement first = new SimpleStatement("INSERT INTO t (a) VALUES (1);");
+        Statement second = new SimpleStatement("INSERT INTO t (a) VALUES (2);");
+        Statement third = new SimpleStatement("insert into t(a) values (3)");
+        second.setConsistencyLevel(ConsistencyLevel.ALL);
+
+        // when
+        Statement firstResult = cache.bind(this.session, first);
+        Statement secondResult = cache.bind(this.session, second);
+        Statement thirdResult = cache.bind(this.session, third);
+
+        // then
+        assertThat(firstResult, sameInstance(first));
+        assertThat(secondResult, sameInstance((Statement)this.bound));
+        assertThat(thirdResult, sameInstance((Statement)this.bound));
+        verify(this.session, times(1)).prepare(SHAPE);
+        verify(this.prepared).bind(2);
+        verify(this.prepared).bind(3);
+        verify(this.bound).setConsistencyLevel(ConsistencyLevel.ALL);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getPrepares(), is(1L));
+    }
+
+    @Test
+    public void bindAfterTableChange() throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache();
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (1);"));
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (2);"));
+        when(this.keyspace.getTable("t")).thenReturn(mock(TableMetadata.class));
+
+        // when
+        Statement result = cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (3);"));
+
+        // then
+        assertThat(result, sameInstance((Statement)this.bound));
+        verify(this.session, times(2)).prepare(SHAPE);
+    }
+
+    @Test
+    public void bindWithPrepareFailure() throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache();
+        Statement statement = new SimpleStatement("INSERT INTO t (a) VALUES (3);");
+        when(this.session.prepare(SHAPE)).thenThrow(new IllegalStateException("unconfigured table t"));
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (1);"));
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (2);"));
+
+        // when
+        Statement result = cache.bind(this.session, statement);
+
+        // then
+        assertThat(result, sameInstance(statement));
+        verify(this.session, times(1)).prepare(SHAPE);
+    }
+
+    @Test
+    public void bindUnsupported() throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache();
+        Statement statement = new SimpleStatement("INSERT INTO t (a) VALUES ('x');");
+
+        // when
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES ('y');"));
+        Statement result = cache.bind(this.session, statement);
+
+        // then
+        assertThat(result, sameInstance(statement));
+        verify(this.prepared, never()).bind(anyVararg());
+    }
+
+    @Test
+    public void bindEvictsLeastRecentlyUsed() throws Exception {
+        // given
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        // when
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (a) VALUES (1);"));
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (b) VALUES (1);"));
+        cache.bind(this.session, new SimpleStatement("INSERT INTO t (c) VALUES (1);"));
+
+        // then
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void forSession() throws Exception {
+        // given
+        Session otherSession = mock(Session.class);
+
+        // when
+        PreparedStatementCache cache = PreparedStatementCache.forSession(this.session);
+
+        // then
+        assertThat(PreparedStatementCache.forSession(this.session), sameInstance(cache));
+        assertThat(PreparedStatementCache.forSession(otherSession), not(sameInstance(cache)));
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.TestSettings;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.util.DriverCompatibility;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Configuration;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.ProtocolOptions;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+
+public class SchemaCqlResourceLoaderTest {
+
+    @DataProvider
+    public static Object[][] schemaLevels() {
+        return new Object[][] {
+                { "CREATE KEYSPACE ks WITH replication = {}", 0 },
+                { "create schema if not exists ks", 0 },
+                { "DROP KEYSPACE ks", 0 },
+                { "CREATE TYPE ks.address (street text)", 1 },
+                { "CREATE OR REPLACE FUNCTION f(x int)", 2 },
+                { "CREATE AGGREGATE a(int)", 3 },
+                { "CREATE TABLE a (x int PRIMARY KEY)", 4 },
+                { "create columnfamily a(x int PRIMARY KEY)", 4 },
+                { "ALTER TABLE a ADD y int", 4 },
+                { "CREATE INDEX ON a (y)", 5 },
+                { "CREATE CUSTOM INDEX ON a (y) USING 'x'", 5 },
+                { "CREATE MATERIALIZED VIEW v AS SELECT", 5 },
+                { "INSERT INTO a (x) VALUES (1)", 6 },
+                { "CREATE USER bob", 6 },
+                { "", 6 },
+        };
+    }
+
+    @Test(dataProvider = "schemaLevels")
+    public void getSchemaLevel(String cql, int expectedLevel) throws Exception {
+        // when
+        int level = SchemaCqlResourceLoader.getSchemaLevel(CqlStatementInfo.classify(cql));
+
+        // then
+        assertThat(level, is(expectedLevel));
+    }
+
+    @DataProvider
+    public static Object[][] schemaAgreementWaits() {
+        return new Object[][] {
+                // no schema statements
+                { "INSERT INTO a (x) VALUES (1);", 0 },
+                // tables of one keyspace, wait once at the end
+                { "CREATE TABLE a (x int PRIMARY KEY); CREATE TABLE b (x int PRIMARY KEY);", 1 },
+                // keyspace, then tables
+                { "CREATE KEYSPACE ks WITH replication = {}; CREATE TABLE ks.a (x int PRIMARY KEY); "
+                        + "CREATE TABLE ks.b (x int PRIMARY KEY);", 2 },
+                // keyspace, types one at a time, tables, indexes and data
+                { "CREATE KEYSPACE ks WITH replication = {}; CREATE TYPE ks.t (x int); CREATE TYPE ks.u (x int); "
+                        + "CREATE TABLE ks.a (x int PRIMARY KEY); CREATE TABLE ks.b (x int PRIMARY KEY); "
+                        + "CREATE INDEX ON ks.a (x); INSERT INTO ks.a (x) VALUES (1);", 5 },
+                // alter after create
+                { "CREATE TABLE a (x int PRIMARY KEY); ALTER TABLE a ADD y int;", 2 },
+                // create after drop
+                { "DROP TABLE a; CREATE TABLE a (x int PRIMARY KEY);", 2 },
+        };
+    }
+
+    @Test(dataProvider = "schemaAgreementWaits")
+    public void loadCqlResource(String cql, int expectedWaits) throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false);
+        TestRuntime runtime = createRuntime();
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:" + cql));
+
+        // then
+        assertThat(loader.getSchemaAgreementWaits(), is(expectedWaits));
+        assertThat(loader.getSchemaAgreementWaitMillis(), greaterThanOrEqualTo(0L));
+        verify(runtime.getKeyspace().getSession(), times(StringUtils.countMatches(cql, ";")))
+                .execute(Matchers.any(Statement.class));
+    }
+
+    @Test(expectedExceptions = InvalidQueryException.class)
+    public void loadCqlResourceWithInvalidQuery() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false);
+        TestRuntime runtime = createRuntime();
+
+        when(runtime.getKeyspace().getSession().execute(Matchers.any(Statement.class)))
+                .thenThrow(new InvalidQueryException("bad"));
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:CREATE TABLE a (x int PRIMARY KEY);"));
+
+        // then
+        // InvalidQueryException
+    }
+
+    @Test
+    public void loadCqlResourceInParallel() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false, 2);
+        TestRuntime runtime = createRuntime();
+        Session session = runtime.getKeyspace().getSession();
+        ResultSetFuture future = mock(ResultSetFuture.class);
+        ArgumentCaptor<Statement> statements = ArgumentCaptor.forClass(Statement.class);
+
+        when(session.executeAsync(Matchers.any(Statement.class))).thenReturn(future);
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:"
+                + "CREATE KEYSPACE ks WITH replication = {};"
+                + "CREATE TYPE ks.t (x int);"
+                + "CREATE TABLE ks.a (x int PRIMARY KEY);"
+                + "CREATE TABLE ks.b (x int PRIMARY KEY);"
+                + "CREATE TABLE ks.c (x int PRIMARY KEY);"
+                + "CREATE INDEX ON ks.a (x);"
+                + "INSERT INTO ks.a (x) VALUES (1);"));
+
+        // then
+        verify(session, times(6)).executeAsync(statements.capture());
+        verify(session, times(1)).execute(Matchers.any(Statement.class));
+        verify(future, times(6)).getUninterruptibly();
+        assertThat(loader.getSchemaAgreementWaits(), is(4));
+        assertThat(getQueryStrings(statements), contains(
+                "CREATE KEYSPACE ks WITH replication = {}",
+                "CREATE TYPE ks.t (x int)",
+                "CREATE TABLE ks.a (x int PRIMARY KEY)",
+                "CREATE TABLE ks.b (x int PRIMARY KEY)",
+                "CREATE TABLE ks.c (x int PRIMARY KEY)",
+                "CREATE INDEX ON ks.a (x)"));
+    }
+
+    @Test
+    public void loadCqlResourceInParallelWithTypeChain() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false, 4);
+        TestRuntime runtime = createRuntime();
+        Session session = runtime.getKeyspace().getSession();
+        ResultSetFuture future = mock(ResultSetFuture.class);
+        InOrder inOrder = inOrder(session, future);
+
+        when(session.executeAsync(Matchers.any(Statement.class))).thenReturn(future);
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:"
+                + "CREATE TYPE ks.t (x int);"
+                + "CREATE TYPE ks.u (y frozen<t>);"
+                + "CREATE TYPE ks.v (z frozen<u>);"
+                + "CREATE TABLE ks.a (x int PRIMARY KEY);"));
+
+        // then
+        for (int i = 0; i < 4; i++) {
+            inOrder.verify(session).executeAsync(Matchers.any(Statement.class));
+            inOrder.verify(future).getUninterruptibly();
+        }
+
+        assertThat(loader.getSchemaAgreementWaits(), is(4));
+    }
+
+    @Test(expectedExceptions = InvalidQueryException.class)
+    public void loadCqlResourceInParallelWithInvalidQuery() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false, 4);
+        TestRuntime runtime = createRuntime();
+        Session session = runtime.getKeyspace().getSession();
+        ResultSetFuture future = mock(ResultSetFuture.class);
+        ResultSetFuture failedFuture = mock(ResultSetFuture.class);
+
+        when(failedFuture.getUninterruptibly()).thenThrow(new InvalidQueryException("unknown type ks.t"));
+        when(session.executeAsync(Matchers.any(Statement.class)))
+                .thenReturn(future)
+                .thenReturn(failedFuture)
+                .thenReturn(future);
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:"
+                + "CREATE TABLE ks.a (x int PRIMARY KEY);"
+                + "CREATE TABLE ks.b (y frozen<t>);"
+                + "CREATE TABLE ks.c (x int PRIMARY KEY);"));
+
+        // then
+        // InvalidQueryException
+    }
+
+    @Test
+    public void loadCqlResourceWithInstallCluster() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false);
+        TestRuntime runtime = createRuntime();
+        Session session = runtime.getKeyspace().getSession();
+        Metadata metadata = session.getCluster().getMetadata();
+        Configuration configuration = mock(Configuration.class);
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        Session pooledSession = mock(Session.class);
+        Session installSession = mock(Session.class);
+        Cluster installCluster = mock(Cluster.class);
+
+        when(session.getCluster().getConfiguration()).thenReturn(configuration);
+        when(configuration.getProtocolOptions()).thenReturn(new ProtocolOptions());
+        when(session.getLoggedKeyspace()).thenReturn("ks");
+        when(runtime.getTestSettings()).thenReturn(new TestSettings(connectSettings, null, null, null));
+        when(connectSettings.connect()).thenReturn(pooledSession);
+        when(pooledSession.getCluster()).thenReturn(installCluster);
+        when(installSession.getCluster()).thenReturn(installCluster);
+        when(installCluster.connect("ks")).thenReturn(installSession);
+        when(installCluster.getMetadata()).thenReturn(metadata);
+
+        if (DriverCompatibility.getMaxSchemaAgreementWaitSeconds(session.getCluster()) == null) {
+            throw new SkipException("Schema agreement wait cannot be changed with this driver version.");
+        }
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:CREATE TABLE a (x int PRIMARY KEY);"));
+
+        // then
+        verify(installSession, times(1)).execute(Matchers.any(Statement.class));
+        verify(installSession, times(1)).close();
+        verify(installCluster, times(1)).close();
+        verify(session, never()).execute(Matchers.any(Statement.class));
+        assertThat(loader.getSchemaAgreementWaits(), is(1));
+    }
+
+    @Test
+    public void loadCqlResourceWaitsForTestClusterMetadata() throws Exception {
+        // given
+        SchemaCqlResourceLoader loader = new SchemaCqlResourceLoader(false);
+        TestRuntime runtime = createRuntime();
+        Session session = runtime.getKeyspace().getSession();
+        Metadata testMetadata = session.getCluster().getMetadata();
+        Metadata installMetadata = createMetadata();
+        Configuration configuration = mock(Configuration.class);
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        Session pooledSession = mock(Session.class);
+        Session installSession = mock(Session.class);
+        Cluster installCluster = mock(Cluster.class);
+        KeyspaceMetadata installed = mock(KeyspaceMetadata.class);
+        KeyspaceMetadata stale = mock(KeyspaceMetadata.class);
+
+        when(session.getCluster().getConfiguration()).thenReturn(configuration);
+        when(configuration.getProtocolOptions()).thenReturn(new ProtocolOptions());
+        when(session.getLoggedKeyspace()).thenReturn("ks");
+        when(runtime.getTestSettings()).thenReturn(new TestSettings(connectSettings, null, null, null));
+        when(connectSettings.connect()).thenReturn(pooledSession);
+        when(pooledSession.getCluster()).thenReturn(installCluster);
+        when(installSession.getCluster()).thenReturn(installCluster);
+        when(installSession.getLoggedKeyspace()).thenReturn("ks");
+        when(installCluster.connect("ks")).thenReturn(installSession);
+        when(installCluster.getMetadata()).thenReturn(installMetadata);
+        when(installMetadata.getKeyspace("ks")).thenReturn(installed);
+        when(installed.exportAsString()).thenReturn("CREATE TABLE ks.a");
+        when(stale.exportAsString()).thenReturn("");
+        when(testMetadata.getKeyspace("ks")).thenReturn(stale, stale, installed);
+
+        if (DriverCompatibility.getMaxSchemaAgreementWaitSeconds(session.getCluster()) == null) {
+            throw new SkipException("Schema agreement wait cannot be changed with this driver version.");
+        }
+
+        // when
+        loader.loadCqlResource(runtime, Resource.fromCqlOrUrl("text:CREATE TABLE a (x int PRIMARY KEY);"));
+
+        // then
+        verify(testMetadata, times(3)).getKeyspace("ks");
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void invalidParallelism() throws Exception {
+        // when
+        new SchemaCqlResourceLoader(false, 0);
+
+        // then
+        // CassandraTestException
+    }
+
+    private static List<String> getQueryStrings(ArgumentCaptor<Statement> statements) {
+        List<String> queryStrings = new ArrayList<String>();
+
+        for (Statement statement : statements.getAllValues()) {
+            queryStrings.add(StringUtils.removeEnd(((RegularStatement)statement).getQueryString().trim(), ";"));
+        }
+
+        return queryStrings;
+    }
+
+    private static TestRuntime createRuntime() {
+        TestRuntime runtime = mock(TestRuntime.class);
+        Keyspace keyspace = mock(Keyspace.class);
+        Session session = mock(Session.class);
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = createMetadata();
+
+        when(runtime.getKeyspace()).thenReturn(keyspace);
+        when(keyspace.getSession()).thenReturn(session);
+        when(session.getCluster()).thenReturn(cluster);
+        when(cluster.getMetadata()).thenReturn(metadata);
+
+        return runtime;
+    }
+
+    private static Metadata createMetadata() {
+        // Schema is always in agreement.
+        return mock(Metadata.class, new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getMethod().getReturnType() == boolean.class
+                        ? Boolean.TRUE : RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.data.cql;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.TableMetadata;
+
+public class WriteStatementTest {
+
+    @DataProvider
+    public Object[][] writes() {
+        return new Object[][] {
+                { "INSERT INTO t (k, c, v) VALUES (1, 'a', [1, 2]);", WriteStatement.Kind.INSERT, null, "t" },
+                { "insert into ks.t (v, c, k) values (now(), 'a', 1) using ttl 10;", WriteStatement.Kind.INSERT, "ks", "t" },
+                { "UPDATE t USING TTL 5 SET v = {'x': 'y'} WHERE k = 1 AND c = 'a';", WriteStatement.Kind.UPDATE, null, "t" },
+                { "UPDATE \"Ks\".t SET v = v + 1 WHERE c IN ('a', 'b') AND k = 1;", WriteStatement.Kind.UPDATE, "\"Ks\"", "t" },
+                { "DELETE v FROM t USING TIMESTAMP 10 WHERE k = 1 AND c > 'a';", WriteStatement.Kind.DELETE, null, "t" },
+                { "DELETE FROM t WHERE \"K\" = 1 AND k = 1;", WriteStatement.Kind.DELETE, null, "t" },
+        };
+    }
+
+    @Test(dataProvider = "writes")
+    public void parse(String cql, WriteStatement.Kind expectedKind, String expectedKeyspace, String expectedTable) throws Exception {
+        // given
+        TableMetadata table = table("k");
+
+        // when
+        WriteStatement write = WriteStatement.parse(cql);
+
+        // then
+        assertThat(write.getKind(), is(expectedKind));
+        assertThat(write.getKeyspace(), is(expectedKeyspace));
+        assertThat(write.getTable(), is(expectedTable));
+        assertThat(write.getPartitionKey(table), is("INTEGER:1\u0000"));
+    }
+
+    @DataProvider
+    public Object[][] unsupported() {
+        return new Object[][] {
+                { "SELECT * FROM t WHERE k = 1;" },
+                { "TRUNCATE t;" },
+                { "INSERT INTO t (k) VALUES (1) IF NOT EXISTS;" },
+                { "UPDATE t SET v = 1 WHERE k = 1 IF v = 0;" },
+                { "DELETE FROM t WHERE k = 1 IF EXISTS;" },
+                { "INSERT INTO t (k, v) VALUES (1);" },
+                { "INSERT INTO t JSON '{}';" },
+                { "UPDATE t SET v = 1;" },
+        };
+    }
+
+    @Test(dataProvider = "unsupported")
+    public void parseUnsupported(String cql) throws Exception {
+        // given
+        String statement = cql;
+
+        // when
+        WriteStatement write = WriteStatement.parse(statement);
+
+        // then
+        assertThat(write, nullValue());
+    }
+
+    @Test
+    public void getPartitionKey() throws Exception {
+        // given
+        TableMetadata table = table("a", "B");
+
+        // when
+        String key = WriteStatement.parse("INSERT INTO t (\"B\", a, c) VALUES ('x''y', 0xff, 1);").getPartitionKey(table);
+        String sameKey = WriteStatement.parse("UPDATE t SET c = 2 WHERE A = 0xff AND \"B\" = 'x''y';").getPartitionKey(table);
+        String otherKey = WriteStatement.parse("UPDATE t SET c = 2 WHERE a = 0xff AND \"B\" = 'x';").getPartitionKey(table);
+
+        // then
+        assertThat(key, is("BLOB:ff\u0000STRING:x'y\u0000"));
+        assertThat(sameKey, is(key));
+        assertThat(otherKey, not(key));
+    }
+
+    @Test
+    public void getPrimaryKey() throws Exception {
+        // given
+        TableMetadata table = table("k");
+        ColumnMetadata clustering = mock(ColumnMetadata.class);
+
+        when(clustering.getName()).thenReturn("c");
+        when(table.getClusteringColumns()).thenReturn(Collections.singletonList(clustering));
+
+        // when
+        String key = WriteStatement.parse("INSERT INTO t (k, c, v) VALUES (1, 'a', 2);").getPrimaryKey(table);
+        String sameKey = WriteStatement.parse("DELETE FROM t WHERE k = 1 AND c = 'a';").getPrimaryKey(table);
+        String partitionDelete = WriteStatement.parse("DELETE FROM t WHERE k = 1;").getPrimaryKey(table);
+
+        // then
+        assertThat(key, is("INTEGER:1\u0000STRING:a\u0000"));
+        assertThat(sameKey, is(key));
+        assertThat(partitionDelete, nullValue());
+    }
+
+    @Test
+    public void getPartitionKeyUnknown() throws Exception {
+        // given
+        TableMetadata table = table("k");
+
+        // when
+        String key = WriteStatement.parse("INSERT INTO t (k) VALUES (uuid());").getPartitionKey(table);
+        String inKey = WriteStatement.parse("DELETE FROM t WHERE k IN (1, 2);").getPartitionKey(table);
+
+        // then
+        assertThat(key, nullValue());
+        assertThat(inKey, nullValue());
+    }
+
+    static TableMetadata table(String... partitionKey) {
+        TableMetadata table = mock(TableMetadata.class);
+        ColumnMetadata[] columns = new ColumnMetadata[partitionKey.length];
+
+        for (int i = 0; i < partitionKey.length; i++) {
+            columns[i] = mock(ColumnMetadata.class);
+            when(columns[i].getName()).thenReturn(partitionKey[i]);
+        }
+
+        when(table.getPartitionKey()).thenReturn(Arrays.asList(columns));
+
+        return table;
+    }
+}
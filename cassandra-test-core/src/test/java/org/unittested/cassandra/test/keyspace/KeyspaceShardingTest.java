@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class KeyspaceShardingTest {
+
+    @DataProvider
+    public static Object[][] fixedShards() {
+        return new Object[][] {
+                { "", null, "orders" },
+                { "none", "3", "orders" },
+                { "fork", "3", "orders_3" },
+                { "fork", null, "orders" },
+                { "executor-7", null, "orders_executor_7" },
+        };
+    }
+
+    @Test(dataProvider = "fixedShards")
+    public void shard(String shard, String forkNumber, String expectedKeyspace) throws Exception {
+        // given
+        KeyspaceSharding keyspaceSharding = KeyspaceSharding.fromProperties(properties(shard, forkNumber));
+
+        // when
+        String keyspace = keyspaceSharding.shard("orders");
+
+        // then
+        assertThat(keyspace, is(expectedKeyspace));
+        assertThat(keyspaceSharding.isEnabled(), is(!keyspace.equals("orders")));
+    }
+
+    @Test
+    public void shardByThread() throws Exception {
+        // given
+        final KeyspaceSharding keyspaceSharding = KeyspaceSharding.fromProperties(properties("thread", null));
+        final AtomicReference<String> otherKeyspace = new AtomicReference<String>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                otherKeyspace.set(keyspaceSharding.shard("orders"));
+            }
+        });
+
+        // when
+        String keyspace = keyspaceSharding.shard("orders");
+        thread.start();
+        thread.join();
+
+        // then
+        assertThat(keyspace, startsWith("orders_"));
+        assertThat(otherKeyspace.get(), startsWith("orders_"));
+        assertThat(otherKeyspace.get(), not(keyspace));
+        assertThat(keyspaceSharding.shard("orders"), is(keyspace));
+    }
+
+    @Test
+    public void shardEmptyKeyspace() throws Exception {
+        // given
+        KeyspaceSharding keyspaceSharding = KeyspaceSharding.fromProperties(properties("fork", "1"));
+
+        // when
+        String keyspace = keyspaceSharding.shard("");
+
+        // then
+        assertThat(keyspace, is(""));
+    }
+
+    private static PropertiesPropertyResolver properties(String shard, String forkNumber) {
+        Properties properties = new Properties();
+
+        properties.setProperty(KeyspaceSharding.SHARD_PROPERTY, shard);
+
+        if (forkNumber != null) {
+            properties.setProperty(KeyspaceSharding.FORK_NUMBER_PROPERTY, forkNumber);
+        }
+
+        return new PropertiesPropertyResolver(properties);
+    }
+}
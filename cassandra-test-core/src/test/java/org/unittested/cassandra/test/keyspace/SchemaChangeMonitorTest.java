@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.TableMetadata;
+
+public class SchemaChangeMonitorTest {
+
+    @Test
+    public void markClean() throws Exception {
+        // given
+        SchemaChangeMonitor monitor = new SchemaChangeMonitor();
+        assertThat(monitor.isClean("ks"), is(false));
+
+        // when
+        monitor.markClean("ks", monitor.getVersion("ks"));
+
+        // then
+        assertThat(monitor.isClean("ks"), is(true));
+    }
+
+    @Test
+    public void keyspaceEvent() throws Exception {
+        // given
+        SchemaChangeMonitor monitor = new SchemaChangeMonitor();
+        monitor.markClean("ks", monitor.getVersion("ks"));
+        monitor.markClean("other", monitor.getVersion("other"));
+
+        // when
+        monitor.onSchemaChange(createKeyspace("ks"));
+
+        // then
+        assertThat(monitor.isClean("ks"), is(false));
+        assertThat(monitor.isClean("other"), is(true));
+    }
+
+    @Test
+    public void tableEvent() throws Exception {
+        // given
+        SchemaChangeMonitor monitor = new SchemaChangeMonitor();
+        TableMetadata table = mock(TableMetadata.class);
+        KeyspaceMetadata keyspace = createKeyspace("ks");
+        when(table.getKeyspace()).thenReturn(keyspace);
+        monitor.markClean("ks", monitor.getVersion("ks"));
+        monitor.markClean("other", monitor.getVersion("other"));
+
+        // when
+        monitor.onSchemaChange(table);
+
+        // then
+        assertThat(monitor.isClean("ks"), is(false));
+        assertThat(monitor.isClean("other"), is(true));
+    }
+
+    @Test
+    public void unknownEvent() throws Exception {
+        // given
+        SchemaChangeMonitor monitor = new SchemaChangeMonitor();
+        monitor.markClean("ks", monitor.getVersion("ks"));
+
+        // when
+        monitor.onSchemaChange(new Object());
+
+        // then
+        assertThat(monitor.isClean("ks"), is(false));
+    }
+
+    @Test
+    public void eventDuringCheck() throws Exception {
+        // given
+        SchemaChangeMonitor monitor = new SchemaChangeMonitor();
+        long version = monitor.getVersion("ks");
+
+        // when
+        monitor.onSchemaChange(createKeyspace("ks"));
+        monitor.markClean("ks", version);
+
+        // then
+        assertThat(monitor.isClean("ks"), is(false));
+    }
+
+    @Test
+    public void forCluster() throws Exception {
+        // given
+        Cluster cluster = mock(Cluster.class);
+        Cluster otherCluster = mock(Cluster.class);
+
+        // when
+        SchemaChangeMonitor monitor;
+
+        try {
+            monitor = SchemaChangeMonitor.forCluster(cluster);
+        } catch (CassandraTestException e) {
+            throw new SkipException("SchemaChangeListener is not supported by this driver version.");
+        }
+
+        // then
+        assertThat(SchemaChangeMonitor.forCluster(cluster), sameInstance(monitor));
+        assertThat(SchemaChangeMonitor.forCluster(otherCluster), not(sameInstance(monitor)));
+    }
+
+    private static KeyspaceMetadata createKeyspace(String name) {
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+
+        when(keyspace.getName()).thenReturn(name);
+
+        return keyspace;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+public class SchemaClonerTest {
+
+    private static final List<String> SCHEMA = Arrays.asList(
+            "CREATE KEYSPACE source WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'} AND durable_writes = true",
+            "CREATE TYPE source.address (street text)",
+            "CREATE TABLE source.a (x int PRIMARY KEY, source text, source_y frozen<source.address>)",
+            "CREATE INDEX a_source ON \"source\" . a (source)");
+
+    @Test
+    public void cloneSchema() throws Exception {
+        // given
+        String keyspace = "Clone_KS";
+
+        // when
+        List<Statement> statements = SchemaCloner.cloneSchema(SCHEMA, "source", keyspace, false);
+
+        // then
+        assertThat(queryStrings(statements), org.hamcrest.Matchers.contains(
+                "CREATE KEYSPACE \"Clone_KS\" WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'} AND durable_writes = true",
+                "CREATE TYPE \"Clone_KS\".address (street text)",
+                "CREATE TABLE \"Clone_KS\".a (x int PRIMARY KEY, source text, source_y frozen<\"Clone_KS\".address>)",
+                "CREATE INDEX a_source ON \"Clone_KS\" . a (source)"));
+    }
+
+    @Test
+    public void cloneSchemaIntoExistingKeyspace() throws Exception {
+        // given
+        String keyspace = "clone_ks";
+
+        // when
+        List<Statement> statements = SchemaCloner.cloneSchema(SCHEMA, "source", keyspace, true);
+
+        // then
+        assertThat(queryStrings(statements).get(0), is("CREATE TYPE \"clone_ks\".address (street text)"));
+        assertThat(statements.size(), is(SCHEMA.size() - 1));
+    }
+
+    @Test
+    public void cloneSchemaCreateKeyspaceIfNotExists() throws Exception {
+        // given
+        List<String> schema = Arrays.asList("create keyspace if not exists \"source\" with replication = {}");
+
+        // when
+        List<Statement> statements = SchemaCloner.cloneSchema(schema, "source", "clone_ks", false);
+
+        // then
+        assertThat(queryStrings(statements), org.hamcrest.Matchers.contains(
+                "create keyspace if not exists \"clone_ks\" with replication = {}"));
+    }
+
+    @Test
+    public void exportSchema() throws Exception {
+        // given
+        Keyspace keyspace = mockKeyspace("source",
+                "CREATE KEYSPACE source WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};\n\n"
+                + "CREATE TABLE source.a (\n    x int PRIMARY KEY\n);\n");
+
+        // when
+        List<String> schema = SchemaCloner.exportSchema(keyspace, new BasicCqlResourceLoader(false));
+
+        // then
+        assertThat(schema.size(), is(2));
+        assertThat(schema.get(0), org.hamcrest.Matchers.startsWith("CREATE KEYSPACE source WITH"));
+        assertThat(schema.get(1), org.hamcrest.Matchers.startsWith("CREATE TABLE source.a"));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void exportSchemaOfMissingKeyspace() throws Exception {
+        // given
+        Keyspace keyspace = mockKeyspace("source", null);
+
+        // when
+        SchemaCloner.exportSchema(keyspace, new BasicCqlResourceLoader(false));
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static Keyspace mockKeyspace(String name, String export) {
+        Session session = mock(Session.class);
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+
+        when(session.getCluster()).thenReturn(cluster);
+        when(cluster.getMetadata()).thenReturn(metadata);
+
+        if (export != null) {
+            KeyspaceMetadata keyspaceMetadata = mock(KeyspaceMetadata.class);
+
+            when(metadata.getKeyspace("\"" + name + "\"")).thenReturn(keyspaceMetadata);
+            when(keyspaceMetadata.exportAsString()).thenReturn(export);
+        }
+
+        return new Keyspace(session, name);
+    }
+
+    private static List<String> queryStrings(List<Statement> statements) {
+        String [] queryStrings = new String[statements.size()];
+
+        for (int i = 0; i < queryStrings.length; i++) {
+            queryStrings[i] = ((RegularStatement)statements.get(i)).getQueryString();
+        }
+
+        return Arrays.asList(queryStrings);
+    }
+}
@@ -19,6 +19,7 @@ package org.unittested.cassandra.test.keyspace.basic;
 import java.util.UUID;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.unittested.cassandra.test.AbstractCassandraTest;
 import org.unittested.cassandra.test.TestSettings;
 import org.unittested.cassandra.test.TestRuntime;
@@ -31,6 +32,7 @@ import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.unittested.cassandra.test.rollback.RollbackStrategy;
 import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
 import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.state.BasicKeyspaceStateManager;
 import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
 import org.mockito.Matchers;
 import org.testng.annotations.DataProvider;
@@ -39,6 +41,7 @@ import org.testng.annotations.Test;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
+import static org.unittested.cassandra.test.keyspace.state.KeyspaceStateManagerMocks.mockKeyspaceStateManager;
 import static org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum.*;
 
 @CassandraKeyspace(value = "basic_schema_settings")
@@ -108,15 +111,15 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
                      int expectedClusterSignatureCalls) throws Exception {
         // given
         TestRuntime runtime = createRuntime(getKeyspace(), autoCreateKeyspace, schemaChangeDetection);
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
 
         when(keyspaceStateManager.hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt()))
+                Matchers.anyString(), Matchers.any(UUID.class)))
             .thenReturn(keyspaceSignatureResult);
         when(keyspaceStateManager.hasClusterSchemaVersionChanged(
-                Matchers.anyInt(), Matchers.any(UUID.class)))
+                Matchers.anyString(), Matchers.any(UUID.class)))
             .thenReturn(clusterSignatureResult);
-        when(keyspaceStateManager.isTracked(Matchers.anyInt()))
+        when(keyspaceStateManager.isTracked(Matchers.anyString()))
             .thenReturn(isRegistered);
 
         if (dropKeyspaceBeforeSync) {
@@ -129,12 +132,12 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
         // then
         assertThat(getKeyspace().exists(), is(expectedKeyspaceExists));
         verify(keyspaceStateManager, times(expectedTrackCalls)).track(
-                Matchers.anyInt(), Matchers.any(UUID.class), Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedClusterSignatureCalls)).hasClusterSchemaVersionChanged(
-                Matchers.anyInt(), Matchers.any(UUID.class));
+                Matchers.anyString(), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedKeyspaceSignatureCalls)).hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt());
-        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class));
+        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyString());
     }
 
     @Test
@@ -142,9 +145,9 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
         // given
         Keyspace keyspace = new Keyspace(getCluster().connect(), Keyspace.NULL);
         TestRuntime runtime = createRuntime(keyspace, true, KEYSPACE);
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
         when(keyspaceStateManager.hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt()))
+                Matchers.anyString(), Matchers.any(UUID.class)))
                 .thenReturn(true);
 
         // when
@@ -159,7 +162,7 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
         // given
         Keyspace keyspace = getKeyspace();
         TestRuntime runtime = createRuntime(keyspace, true, KEYSPACE, ArrayUtils.toArray("file://does_not_exist"));
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
 
         // when
         runtime.getTestSettings().getKeyspaceSettings().sync(runtime, keyspaceStateManager);
@@ -168,6 +171,43 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
         // CassandraTestException
     }
 
+    @Test
+    public void syncReinstallsChangedTableOptions() throws Exception {
+        // given
+        Keyspace keyspace = getKeyspace();
+        TestRuntime runtime = createRuntime(keyspace, true, KEYSPACE, ArrayUtils.toArray(SCHEMA[1]));
+        KeyspaceStateManager keyspaceStateManager = new BasicKeyspaceStateManager();
+        keyspace.drop();
+        runtime.getTestSettings().getKeyspaceSettings().sync(runtime, keyspaceStateManager);
+        UUID installedDigest = keyspace.getSchemaDigest();
+        keyspace.getSession().execute("alter table basic_schema_settings.a with gc_grace_seconds = 60");
+        assertThat(keyspace.getSchemaDigest(), not(installedDigest));
+
+        // when
+        runtime.getTestSettings().getKeyspaceSettings().sync(runtime, keyspaceStateManager);
+
+        // then
+        assertThat(keyspace.getSchemaDigest(), is(installedDigest));
+    }
+
+    @Test
+    public void getStateKey() throws Exception {
+        // given
+        BasicKeyspaceSettings text = createSettings("text:" + SCHEMA[1]);
+        BasicKeyspaceSettings classpath = createSettings("classpath:cql/sample-schema.cql");
+        BasicKeyspaceSettings file = createSettings("file:target/test-classes/cql/sample-schema.cql");
+
+        // when
+        String stateKey = classpath.getStateKey();
+
+        // then
+        assertThat(stateKey, org.hamcrest.Matchers.startsWith("basic_schema_settings:"));
+        assertThat(stateKey, is(file.getStateKey()));
+        assertThat(stateKey, not(text.getStateKey()));
+        assertThat(classpath.getStateKey("shard_ks"),
+                is("shard_ks:" + StringUtils.substringAfter(stateKey, ":")));
+    }
+
     private TestRuntime createRuntime(Keyspace keyspace,
                                       boolean autoCreateKeyspace,
                                       SchemaChangeDetectionEnum schemaChangeDetection) throws Exception {
@@ -196,4 +236,15 @@ public class BasicKeyspaceSettingsTest extends AbstractCassandraTest {
 
         return runtime;
     }
+
+    private BasicKeyspaceSettings createSettings(String schema) {
+        return new BasicKeyspaceSettings(
+                "basic_schema_settings",
+                false,
+                true,
+                ArrayUtils.toArray(schema),
+                KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY,
+                new BasicCqlResourceLoader());
+    }
 }
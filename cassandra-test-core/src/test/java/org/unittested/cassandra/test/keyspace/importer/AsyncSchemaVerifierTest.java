@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.importer;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+
+public class AsyncSchemaVerifierTest {
+
+    @Test
+    public void verify() throws Exception {
+        // given
+        QueueExecutor executor = new QueueExecutor();
+        AsyncSchemaVerifier verifier = new AsyncSchemaVerifier(executor);
+        CountingVerification verification = new CountingVerification(false);
+
+        // when
+        verifier.verify(verification);
+        executor.runAll();
+        verifier.throwFailure();
+
+        // then
+        assertThat(verification.count.get(), is(1));
+    }
+
+    @Test
+    public void verifyWhilePending() throws Exception {
+        // given
+        QueueExecutor executor = new QueueExecutor();
+        AsyncSchemaVerifier verifier = new AsyncSchemaVerifier(executor);
+        CountingVerification verification = new CountingVerification(false);
+
+        // when
+        verifier.verify(verification);
+        verifier.verify(verification);
+        executor.runAll();
+        verifier.verify(verification);
+        executor.runAll();
+
+        // then
+        assertThat(verification.count.get(), is(2));
+    }
+
+    @Test
+    public void throwFailureOnce() throws Exception {
+        // given
+        QueueExecutor executor = new QueueExecutor();
+        AsyncSchemaVerifier verifier = new AsyncSchemaVerifier(executor);
+        CassandraTestException failure = null;
+
+        verifier.verify(new CountingVerification(true));
+        executor.runAll();
+
+        // when
+        try {
+            verifier.throwFailure();
+        } catch (CassandraTestException e) {
+            failure = e;
+        }
+
+        // then
+        assertThat(failure, notNullValue());
+        assertThat(failure.getMessage(), is("Immutable schema has been modified."));
+        verifier.throwFailure();
+    }
+
+    @Test
+    public void verifyIgnoresDriverError() throws Exception {
+        // given
+        QueueExecutor executor = new QueueExecutor();
+        AsyncSchemaVerifier verifier = new AsyncSchemaVerifier(executor);
+
+        // when
+        verifier.verify(new Runnable() {
+            @Override
+            public void run() {
+                throw new NoHostAvailableException(Collections.<InetSocketAddress, Throwable>emptyMap());
+            }
+        });
+        executor.runAll();
+
+        // then
+        verifier.throwFailure();
+    }
+
+    private static class CountingVerification implements Runnable {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final boolean fail;
+
+        CountingVerification(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void run() {
+            this.count.incrementAndGet();
+
+            if (this.fail) {
+                throw new CassandraTestException("Immutable schema has been modified.");
+            }
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> queue = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.queue.add(command);
+        }
+
+        void runAll() {
+            for (Runnable command : this.queue) {
+                command.run();
+            }
+
+            this.queue.clear();
+        }
+    }
+}
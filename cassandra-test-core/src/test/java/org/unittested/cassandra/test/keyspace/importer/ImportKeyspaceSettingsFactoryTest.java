@@ -34,6 +34,8 @@ public class ImportKeyspaceSettingsFactoryTest {
         assertThat(importKeyspaceSettings.getKeyspace(), is("test"));
         assertThat(importKeyspaceSettings.canDropKeyspace(), is(false));
         assertThat(importKeyspaceSettings.getProtectedTables(), arrayContaining("p"));
+        assertThat(importKeyspaceSettings.getSchemaVerification(), is(SchemaVerificationEnum.METHOD));
+        assertThat(importKeyspaceSettings.getSchemaVerificationInterval(), is(1));
     }
 
     @DataProvider
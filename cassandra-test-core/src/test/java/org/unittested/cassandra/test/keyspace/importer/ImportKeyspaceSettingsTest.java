@@ -6,6 +6,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.unittested.cassandra.test.keyspace.state.KeyspaceStateManagerMocks.mockKeyspaceStateManager;
 import static org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum.*;
 
 import java.util.UUID;
@@ -55,13 +56,13 @@ public class ImportKeyspaceSettingsTest extends AbstractCassandraTest {
                      int expectedClusterSignatureCalls) throws Exception {
         // given
         TestRuntime runtime = createRuntime(getKeyspace(), schemaChangeDetection);
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
 
-        when(keyspaceStateManager.hasKeyspaceCqlSignatureChanged(Matchers.anyInt(), Matchers.anyInt()))
+        when(keyspaceStateManager.hasKeyspaceCqlSignatureChanged(Matchers.anyString(), Matchers.any(UUID.class)))
                 .thenReturn(keyspaceSignatureResult);
-        when(keyspaceStateManager.hasClusterSchemaVersionChanged(Matchers.anyInt(), Matchers.any(UUID.class)))
+        when(keyspaceStateManager.hasClusterSchemaVersionChanged(Matchers.anyString(), Matchers.any(UUID.class)))
                 .thenReturn(clusterSignatureResult);
-        when(keyspaceStateManager.isTracked(Matchers.anyInt()))
+        when(keyspaceStateManager.isTracked(Matchers.anyString()))
                 .thenReturn(isTracked);
 
         // when
@@ -70,12 +71,12 @@ public class ImportKeyspaceSettingsTest extends AbstractCassandraTest {
         // then
         assertThat(getKeyspace().exists(), is(true));
         verify(keyspaceStateManager, times(expectedTrackCalls)).track(
-                Matchers.anyInt(), Matchers.any(UUID.class), Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedClusterSignatureCalls)).hasClusterSchemaVersionChanged(
-                Matchers.anyInt(), Matchers.any(UUID.class));
+                Matchers.anyString(), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedKeyspaceSignatureCalls)).hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt());
-        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class));
+        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyString());
     }
 
     @DataProvider
@@ -94,15 +95,15 @@ public class ImportKeyspaceSettingsTest extends AbstractCassandraTest {
                      int expectedClusterSignatureCalls) throws Exception {
         // given
         TestRuntime runtime = createRuntime(getKeyspace(), schemaChangeDetection);
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
 
         when(keyspaceStateManager.hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt()))
+                Matchers.anyString(), Matchers.any(UUID.class)))
                 .thenReturn(keyspaceSignatureResult);
         when(keyspaceStateManager.hasClusterSchemaVersionChanged(
-                Matchers.anyInt(), Matchers.any(UUID.class)))
+                Matchers.anyString(), Matchers.any(UUID.class)))
                 .thenReturn(clusterSignatureResult);
-        when(keyspaceStateManager.isTracked(Matchers.anyInt()))
+        when(keyspaceStateManager.isTracked(Matchers.anyString()))
                 .thenReturn(true);
 
         // when
@@ -111,12 +112,12 @@ public class ImportKeyspaceSettingsTest extends AbstractCassandraTest {
         // then
         assertThat(getKeyspace().exists(), is(true));
         verify(keyspaceStateManager, times(0)).track(
-                Matchers.anyInt(), Matchers.any(UUID.class), Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedClusterSignatureCalls)).hasClusterSchemaVersionChanged(
-                Matchers.anyInt(), Matchers.any(UUID.class));
+                Matchers.anyString(), Matchers.any(UUID.class));
         verify(keyspaceStateManager, times(expectedKeyspaceSignatureCalls)).hasKeyspaceCqlSignatureChanged(
-                Matchers.anyInt(), Matchers.anyInt());
-        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyInt());
+                Matchers.anyString(), Matchers.any(UUID.class));
+        verify(keyspaceStateManager, times(1)).isTracked(Matchers.anyString());
     }
 
     @Test(expectedExceptions = CassandraTestException.class)
@@ -128,7 +129,7 @@ public class ImportKeyspaceSettingsTest extends AbstractCassandraTest {
     public void droppedKeyspace() throws Exception {
         // given
         TestRuntime runtime = createRuntime(getKeyspace(), KEYSPACE);
-        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        KeyspaceStateManager keyspaceStateManager = mockKeyspaceStateManager();
 
         getKeyspace().drop();
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.importer;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.TestSettings;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.KeyspaceSharding;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.mockito.Matchers;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SchemaVerificationTest {
+
+    @DataProvider
+    public static Object[][] verificationPoints() {
+        return new Object[][] {
+                { SchemaVerificationEnum.METHOD, 1, 7, 7 },
+                { SchemaVerificationEnum.METHOD, 3, 7, 3 },
+                { SchemaVerificationEnum.CLASS, 1, 7, 1 },
+        };
+    }
+
+    @Test(dataProvider = "verificationPoints")
+    public void sync(SchemaVerificationEnum schemaVerification,
+                     int interval,
+                     int methods,
+                     int expectedSyncCalls) throws Exception {
+        // given
+        ImportKeyspaceSettings settings = createSettings(schemaVerification, interval);
+        TestRuntime runtime = createRuntime(settings);
+        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+
+        // when
+        for (int i = 0; i < methods; i++) {
+            settings.sync(runtime, keyspaceStateManager);
+        }
+
+        // then
+        verify(keyspaceStateManager, times(expectedSyncCalls)).sync(
+                Matchers.eq("import_ks"), Matchers.anyString(), Matchers.any(Runnable.class));
+    }
+
+    @Test
+    public void syncEachClass() throws Exception {
+        // given
+        ImportKeyspaceSettings settings = createSettings(SchemaVerificationEnum.CLASS, 1);
+        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        TestRuntime firstClass = createRuntime(settings);
+        TestRuntime secondClass = createRuntime(settings);
+
+        // when
+        settings.sync(firstClass, keyspaceStateManager);
+        settings.sync(firstClass, keyspaceStateManager);
+        settings.sync(secondClass, keyspaceStateManager);
+        settings.sync(secondClass, keyspaceStateManager);
+
+        // then
+        verify(keyspaceStateManager, times(2)).sync(
+                Matchers.anyString(), Matchers.anyString(), Matchers.any(Runnable.class));
+    }
+
+    @Test
+    public void syncAsyncFailsNextMethod() throws Exception {
+        // given
+        ImportKeyspaceSettings settings = createSettings(SchemaVerificationEnum.ASYNC, 1);
+        TestRuntime runtime = createRuntime(settings);
+        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        CassandraTestException failure = null;
+
+        settings.sync(runtime, keyspaceStateManager);
+        doThrow(new CassandraTestException("Immutable schema has been modified.")).when(keyspaceStateManager).sync(
+                Matchers.anyString(), Matchers.anyString(), Matchers.any(Runnable.class));
+
+        // when
+        long deadline = System.currentTimeMillis() + 10000;
+
+        while (failure == null && System.currentTimeMillis() < deadline) {
+            try {
+                settings.sync(runtime, keyspaceStateManager);
+                Thread.sleep(10);
+            } catch (CassandraTestException e) {
+                failure = e;
+            }
+        }
+
+        // then
+        assertThat(failure, notNullValue());
+        assertThat(failure.getMessage(), is("Immutable schema has been modified."));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidInterval() throws Exception {
+        // given
+        int interval = 0;
+
+        // when
+        createSettings(SchemaVerificationEnum.METHOD, interval);
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static ImportKeyspaceSettings createSettings(SchemaVerificationEnum schemaVerification, int interval) {
+        return new ImportKeyspaceSettings("import_ks", false, SchemaChangeDetectionEnum.KEYSPACE, new String[0],
+                KeyspaceSharding.NONE, schemaVerification, interval);
+    }
+
+    private static TestRuntime createRuntime(ImportKeyspaceSettings settings) {
+        TestRuntime runtime = mock(TestRuntime.class);
+        TestSettings testSettings = mock(TestSettings.class);
+        Keyspace keyspace = mock(Keyspace.class);
+
+        when(keyspace.getName()).thenReturn("import_ks");
+        when(runtime.getKeyspace()).thenReturn(keyspace);
+        when(runtime.getTestSettings()).thenReturn(testSettings);
+        when(testSettings.getKeyspaceSettings()).thenReturn(settings);
+
+        return runtime;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.migration;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Statement;
+
+public class SchemaMigrationTest {
+
+    private static final List<String> LIVE_SCHEMA = Arrays.asList(
+            "CREATE KEYSPACE ks WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'} AND durable_writes = true",
+            "CREATE TYPE ks.address (\n    street text,\n    zip int\n)",
+            "CREATE TABLE ks.users (\n    id uuid,\n    ts timestamp,\n    home frozen<ks.address>,\n    name text,\n"
+                    + "    tags set<text>,\n    PRIMARY KEY (id, ts)\n) WITH CLUSTERING ORDER BY (ts DESC)\n"
+                    + "    AND bloom_filter_fp_chance = 0.01\n    AND caching = {'keys': 'ALL', 'rows_per_partition': 'NONE'}",
+            "CREATE INDEX users_name_idx ON ks.users (name)",
+            "CREATE INDEX users_tags_idx ON ks.users (values(tags))",
+            "CREATE TABLE ks.logs (\n    day text,\n    line text,\n    PRIMARY KEY ((day, line))\n) WITH comment = ''");
+
+    private static final List<String> SCHEMA = Arrays.asList(
+            "create type address (street varchar, zip int);",
+            "create table users (id uuid, ts timestamp, home frozen<address>, name text, tags set<text>, "
+                    + "primary key (id, ts)) with clustering order by (ts desc) and comment = 'users';",
+            "create index on users (name);",
+            "create index users_tags_idx on users (tags);",
+            "CREATE TABLE logs (day text, line text, PRIMARY KEY ((day, line)));");
+
+    @Test
+    public void diffUnchanged() throws Exception {
+        // given
+        List<String> schema = SCHEMA;
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", schema, LIVE_SCHEMA);
+
+        // then
+        assertThat(migration.getReason(), nullValue());
+        assertThat(migration.isFullReinstallRequired(), is(false));
+        assertThat(migration.getStatements(), empty());
+    }
+
+    @Test
+    public void diffColumns() throws Exception {
+        // given
+        List<String> schema = replace(SCHEMA, 1,
+                "create table users (id uuid, ts timestamp, home frozen<address>, tags set<text>, \"Email\" map<text, text> static, "
+                        + "primary key (id, ts)) with clustering order by (ts desc);");
+        schema.remove(2);
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", schema, LIVE_SCHEMA);
+
+        // then
+        assertThat(queryStrings(migration.getStatements()), org.hamcrest.Matchers.contains(
+                "DROP INDEX \"ks\".\"users_name_idx\"",
+                "ALTER TABLE \"ks\".\"users\" DROP \"name\"",
+                "ALTER TABLE \"ks\".\"users\" ADD \"Email\" map<text, text> static"));
+    }
+
+    @Test
+    public void diffTablesTypesAndIndexes() throws Exception {
+        // given
+        List<String> schema = new ArrayList<String>(SCHEMA.subList(0, 4));
+        schema.set(0, "create type address (street text, zip int, city text);");
+        schema.add("create type phone (number text);");
+        schema.add("create table events (id timeuuid primary key, body text);");
+        schema.add("create index events_body_idx on events (body);");
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", schema, LIVE_SCHEMA);
+
+        // then
+        assertThat(migration.isFullReinstallRequired(), is(false));
+        assertThat(queryStrings(migration.getStatements()), org.hamcrest.Matchers.contains(
+                "ALTER TYPE \"ks\".\"address\" ADD \"city\" text",
+                "create type phone (number text);",
+                "DROP TABLE \"ks\".\"logs\"",
+                "create table events (id timeuuid primary key, body text);",
+                "create index events_body_idx on events (body);"));
+    }
+
+    @Test
+    public void diffDroppedType() throws Exception {
+        // given
+        List<String> schema = Arrays.asList("CREATE TABLE logs (day text, line text, PRIMARY KEY ((day, line)));");
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", schema, LIVE_SCHEMA);
+
+        // then
+        assertThat(queryStrings(migration.getStatements()), org.hamcrest.Matchers.contains(
+                "DROP TABLE \"ks\".\"users\"",
+                "DROP TYPE \"ks\".\"address\""));
+    }
+
+    @DataProvider
+    public static Object[][] incompatibleChanges() {
+        return new Object[][] {
+                { 4, "CREATE TABLE logs (day text, line text, PRIMARY KEY (day, line));" },
+                { 4, "CREATE TABLE logs (day text, line int, PRIMARY KEY ((day, line)));" },
+                { 4, "CREATE TABLE logs (day text, line text, PRIMARY KEY ((day, line))) WITH COMPACT STORAGE;" },
+                { 1, "create table users (id uuid, ts timestamp, home frozen<address>, name text, tags set<text>, "
+                        + "primary key (id, ts));" },
+                { 1, "create table users (id uuid, ts timestamp, home frozen<address>, name int, tags set<text>, "
+                        + "primary key (id, ts)) with clustering order by (ts desc);" },
+                { 0, "create type address (street text);" },
+                { 0, "create keyspace ks with replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};" },
+                { 4, "insert into logs (day, line) values ('monday', 'hello');" },
+                { 4, "CREATE TABLE other.logs (day text, line text, PRIMARY KEY ((day, line)));" },
+                { 4, "CREATE FUNCTION f (x int) RETURNS NULL ON NULL INPUT RETURNS int LANGUAGE java AS 'return x;';" },
+        };
+    }
+
+    @Test(dataProvider = "incompatibleChanges")
+    public void diffIncompatible(int index, String cql) throws Exception {
+        // given
+        List<String> schema = replace(SCHEMA, index, cql);
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", schema, LIVE_SCHEMA);
+
+        // then
+        assertThat(migration.isFullReinstallRequired(), is(true));
+        assertThat(migration.getReason(), not(isEmptyOrNullString()));
+        assertThat(migration.getStatements(), empty());
+    }
+
+    @Test
+    public void diffUnsupportedLiveSchema() throws Exception {
+        // given
+        List<String> liveSchema = new ArrayList<String>(LIVE_SCHEMA);
+        liveSchema.add("CREATE MATERIALIZED VIEW ks.users_by_name AS SELECT * FROM ks.users WHERE name IS NOT NULL "
+                + "PRIMARY KEY (name, id, ts)");
+
+        // when
+        SchemaMigration migration = SchemaMigration.diff("ks", SCHEMA, liveSchema);
+
+        // then
+        assertThat(migration.isFullReinstallRequired(), is(true));
+    }
+
+    private static List<String> replace(List<String> schema, int index, String cql) {
+        List<String> copy = new ArrayList<String>(schema);
+        copy.set(index, cql);
+        return copy;
+    }
+
+    private static List<String> queryStrings(List<Statement> statements) {
+        List<String> queryStrings = new ArrayList<String>();
+
+        for (Statement statement : statements) {
+            queryStrings.add(((RegularStatement)statement).getQueryString());
+        }
+
+        return queryStrings;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.pool;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.TestSettings;
+import org.unittested.cassandra.test.connect.ConnectSettings;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.state.BasicKeyspaceStateManager;
+import org.unittested.cassandra.test.rollback.RollbackStrategy;
+import org.unittested.cassandra.test.rollback.basic.BasicRollbackSettings;
+import org.unittested.cassandra.test.rollback.pool.PoolRollbackSettings;
+import org.mockito.Matchers;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+public class KeyspacePoolTest {
+
+    @Test
+    public void leaseAndRelease() throws Exception {
+        // given
+        Cluster cluster = mockCluster();
+        PoolKeyspaceSettings settings = createSettings("pool_lease", 2);
+        TestRuntime first = createRuntime(cluster, settings);
+        TestRuntime second = createRuntime(cluster, settings);
+        TestRuntime third = createRuntime(cluster, settings);
+
+        // when
+        settings.sync(first, new BasicKeyspaceStateManager());
+        settings.sync(second, new BasicKeyspaceStateManager());
+        settings.sync(first, new BasicKeyspaceStateManager());
+        String firstKeyspace = first.getKeyspace().getName();
+        new PoolRollbackSettings().rollbackAfterMethod(first);
+        settings.sync(third, new BasicKeyspaceStateManager());
+
+        // then
+        assertThat(firstKeyspace, isOneOf("pool_lease_0", "pool_lease_1"));
+        assertThat(second.getKeyspace().getName(), isOneOf("pool_lease_0", "pool_lease_1"));
+        assertThat(second.getKeyspace().getName(), not(firstKeyspace));
+        assertThat(third.getKeyspace().getName(), is(firstKeyspace));
+        assertThat(settings.getPool().getLeases(), is(3));
+        assertThat(settings.getPool().getWaits(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void leaseWaitsForRecycledKeyspace() throws Exception {
+        // given
+        Cluster cluster = mockCluster();
+        final PoolKeyspaceSettings settings = createSettings("pool_wait", 1);
+        TestRuntime first = createRuntime(cluster, settings);
+        final TestRuntime second = createRuntime(cluster, settings);
+        settings.sync(first, new BasicKeyspaceStateManager());
+        int waits = settings.getPool().getWaits();
+
+        Thread lease = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                settings.sync(second, new BasicKeyspaceStateManager());
+            }
+        });
+
+        // when
+        lease.start();
+        while (lease.getState() != Thread.State.WAITING) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        settings.getPool().release(first, false);
+        lease.join(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(lease.isAlive(), is(false));
+        assertThat(second.getKeyspace().getName(), is("pool_wait_0"));
+        assertThat(settings.getPool().getWaits(), is(waits + 1));
+        assertThat(settings.getPool().getLeases(), is(2));
+    }
+
+    @Test
+    public void leaseAfterTestClusterClosed() throws Exception {
+        // given
+        Cluster poolCluster = mockCluster();
+        Cluster firstCluster = mockCluster();
+        Cluster secondCluster = mockCluster();
+        ConnectSettings connectSettings = mock(ConnectSettings.class);
+        PoolKeyspaceSettings settings = createSettings("pool_closed_cluster", 1);
+        TestRuntime first = createRuntime(firstCluster, settings, connectSettings);
+        TestRuntime second = createRuntime(secondCluster, settings, connectSettings);
+        Session pooledSession = mockSession(poolCluster);
+
+        when(connectSettings.connect()).thenReturn(pooledSession);
+        settings.sync(first, new BasicKeyspaceStateManager());
+
+        // when
+        settings.getPool().release(first, false);
+        when(firstCluster.connect()).thenThrow(new IllegalStateException("Cluster is closed"));
+        settings.sync(second, new BasicKeyspaceStateManager());
+
+        // then
+        assertThat(second.getKeyspace().getName(), is("pool_closed_cluster_0"));
+        verify(firstCluster, never()).connect();
+        verify(poolCluster, times(1)).connect();
+        verify(connectSettings, times(1)).connect();
+        verify(poolCluster, never()).close();
+        settings.getPool().close();
+        verify(poolCluster, times(1)).close();
+    }
+
+    @Test
+    public void leaseRecyclesFailedKeyspaceAgain() throws Exception {
+        // given
+        Cluster cluster = mockCluster();
+        Session workerSession = cluster.connect();
+        PoolKeyspaceSettings settings = createSettings("pool_retry", 1);
+        TestRuntime runtime = createRuntime(cluster, settings);
+
+        when(cluster.connect())
+                .thenThrow(new IllegalStateException("Cluster is closed"))
+                .thenReturn(workerSession);
+
+        // when
+        settings.sync(runtime, new BasicKeyspaceStateManager());
+
+        // then
+        assertThat(runtime.getKeyspace().getName(), is("pool_retry_0"));
+        verify(cluster, times(3)).connect();
+    }
+
+    @Test
+    public void close() throws Exception {
+        // given
+        PoolKeyspaceSettings settings = createSettings("pool_close", 1);
+        KeyspacePool pool = settings.getPool();
+        settings.sync(createRuntime(mockCluster(), settings), new BasicKeyspaceStateManager());
+
+        // when
+        pool.close();
+
+        // then
+        assertThat(settings.getPool(), not(sameInstance(pool)));
+    }
+
+    @Test
+    public void releaseWithoutLease() throws Exception {
+        // given
+        PoolKeyspaceSettings settings = createSettings("pool_release", 1);
+        TestRuntime runtime = createRuntime(mockCluster(), settings);
+
+        // when
+        settings.getPool().release(runtime, true);
+
+        // then
+        assertThat(settings.getPool().getLeases(), is(0));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void poolInUseWithDifferentSettings() throws Exception {
+        // given
+        createSettings("pool_conflict", 1).getPool();
+
+        // when
+        createSettings("pool_conflict", 2).getPool();
+
+        // then
+        // expect CassandraTestException
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void syncRequiresPoolRollback() throws Exception {
+        // given
+        PoolKeyspaceSettings settings = createSettings("pool_rollback", 1);
+        TestRuntime runtime = new TestRuntime(KeyspacePoolTest.class, null, mock(Session.class),
+                new TestSettings(null, settings, null,
+                        new BasicRollbackSettings(ArrayUtils.EMPTY_STRING_ARRAY, ArrayUtils.EMPTY_STRING_ARRAY,
+                                RollbackStrategy.TRUNCATE, RollbackStrategy.NONE)));
+
+        // when
+        settings.sync(runtime, new BasicKeyspaceStateManager());
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static PoolKeyspaceSettings createSettings(String keyspace, int poolSize) {
+        return new PoolKeyspaceSettings(keyspace, false, ArrayUtils.EMPTY_STRING_ARRAY, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, false, poolSize, 0);
+    }
+
+    private static TestRuntime createRuntime(Cluster cluster, PoolKeyspaceSettings settings) {
+        return createRuntime(cluster, settings, null);
+    }
+
+    private static TestRuntime createRuntime(Cluster cluster, PoolKeyspaceSettings settings, ConnectSettings connectSettings) {
+        return new TestRuntime(KeyspacePoolTest.class, null, mockSession(cluster),
+                new TestSettings(connectSettings, settings, null, new PoolRollbackSettings()));
+    }
+
+    private static Cluster mockCluster() {
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+        Session workerSession = mockSession(cluster);
+
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(cluster.connect()).thenReturn(workerSession);
+
+        return cluster;
+    }
+
+    private static Session mockSession(Cluster cluster) {
+        Session session = mock(Session.class);
+        ResultSet resultSet = mock(ResultSet.class);
+
+        when(session.getCluster()).thenReturn(cluster);
+        when(session.execute(Matchers.anyString())).thenReturn(resultSet);
+        when(resultSet.one()).thenReturn(mock(Row.class));
+
+        return session;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.annotation.Annotation;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.unittested.cassandra.test.FactoryTestAnnotations;
+import org.unittested.cassandra.test.annotation.CassandraKeyspace;
+import org.unittested.cassandra.test.annotation.CassandraPoolKeyspace;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettings;
+import org.unittested.cassandra.test.keyspace.KeyspaceSettingsFactory;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class PoolKeyspaceSettingsFactoryTest {
+
+    @Test
+    public void create() throws Exception {
+        // given
+        KeyspaceSettingsFactory keyspaceSettingsFactory = new PoolKeyspaceSettingsFactory();
+        CassandraPoolKeyspace cassandraPoolKeyspace = FactoryTestAnnotations.class.getAnnotation(CassandraPoolKeyspace.class);
+
+        // when
+        KeyspaceSettings keyspaceSettings = keyspaceSettingsFactory.create(cassandraPoolKeyspace, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        assertThat(keyspaceSettings, instanceOf(PoolKeyspaceSettings.class));
+        PoolKeyspaceSettings poolKeyspaceSettings = (PoolKeyspaceSettings)keyspaceSettings;
+        assertThat(poolKeyspaceSettings.getKeyspace(), is("test"));
+        assertThat(poolKeyspaceSettings.getPoolSize(), is(3));
+        assertThat(poolKeyspaceSettings.getRefillRate(), is(5));
+        assertThat(poolKeyspaceSettings.canDropKeyspace(), is(true));
+        assertThat(poolKeyspaceSettings.getProtectedTables(), arrayContaining("p"));
+    }
+
+    @DataProvider
+    public Object[][] invalidAnnotations() {
+        return new Object[][] {
+                { null },
+                { FactoryTestAnnotations.createStubAnnotation() },
+                { FactoryTestAnnotations.class.getAnnotation(CassandraKeyspace.class) },
+        };
+    }
+
+    @Test(dataProvider = "invalidAnnotations", expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidAnnotations(Annotation annotation) throws Exception {
+        // given
+        KeyspaceSettingsFactory keyspaceSettingsFactory = new PoolKeyspaceSettingsFactory();
+
+        // when
+        keyspaceSettingsFactory.create(annotation, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        // expect CassandraTestException
+    }
+
+    @DataProvider
+    public Object[][] invalidSettings() {
+        return new Object[][] {
+                { "", 1, 0 },
+                { "ks", 0, 0 },
+                { "ks", 1, -1 },
+        };
+    }
+
+    @Test(dataProvider = "invalidSettings", expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidSettings(String keyspace, int poolSize, int refillRate) throws Exception {
+        // given
+        String [] schema = ArrayUtils.EMPTY_STRING_ARRAY;
+
+        // when
+        new PoolKeyspaceSettings(keyspace, false, schema, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, false, poolSize, refillRate);
+
+        // then
+        // expect CassandraTestException
+    }
+}
@@ -17,10 +17,14 @@
 package org.unittested.cassandra.test.keyspace.state;
 
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 
+import org.unittested.cassandra.test.exception.CassandraTestException;
 import org.testng.annotations.Test;
 
 public class BasicKeyspaceStateManagerTest {
@@ -30,17 +34,17 @@ public class BasicKeyspaceStateManagerTest {
         // given
         KeyspaceStateManager manager = new BasicKeyspaceStateManager();
         UUID schemaVersion = UUID.randomUUID();
-        int keyspaceSignature = 9999;
+        UUID keyspaceDigest = UUID.randomUUID();
 
         // when
-        manager.track(1, schemaVersion, keyspaceSignature);
+        manager.track("1", schemaVersion, keyspaceDigest);
 
         // then
-        assertThat(manager.isTracked(1), is(true));
-        assertThat(manager.hasKeyspaceCqlSignatureChanged(1, keyspaceSignature), is(false));
-        assertThat(manager.hasKeyspaceCqlSignatureChanged(1, 44), is(true));
-        assertThat(manager.hasClusterSchemaVersionChanged(1, schemaVersion), is(false));
-        assertThat(manager.hasClusterSchemaVersionChanged(1, UUID.randomUUID()), is(true));
+        assertThat(manager.isTracked("1"), is(true));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", keyspaceDigest), is(false));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", UUID.randomUUID()), is(true));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", schemaVersion), is(false));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", UUID.randomUUID()), is(true));
     }
 
     @Test
@@ -49,7 +53,155 @@ public class BasicKeyspaceStateManagerTest {
         KeyspaceStateManager manager = new BasicKeyspaceStateManager();
 
         // when, then
-        assertThat(manager.hasKeyspaceCqlSignatureChanged(1, 44), is(true));
-        assertThat(manager.hasClusterSchemaVersionChanged(1, UUID.randomUUID()), is(true));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", UUID.randomUUID()), is(true));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", UUID.randomUUID()), is(true));
+    }
+
+    @Test
+    public void syncSingleFlight() throws Exception {
+        // given
+        final KeyspaceStateManager manager = new BasicKeyspaceStateManager();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger syncs = new AtomicInteger();
+        Thread first = startSync(manager, "ks", "ks:1", new Runnable() {
+            @Override
+            public void run() {
+                syncs.incrementAndGet();
+                started.countDown();
+                await(release);
+            }
+        });
+        started.await();
+        Thread second = startSync(manager, "ks", "ks:1", new Runnable() {
+            @Override
+            public void run() {
+                syncs.incrementAndGet();
+            }
+        });
+
+        // when
+        waitUntilBlocked(second);
+        release.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(10));
+        second.join(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(first.isAlive(), is(false));
+        assertThat(second.isAlive(), is(false));
+        assertThat(syncs.get(), is(1));
+    }
+
+    @Test
+    public void syncSameKeyspaceDifferentKey() throws Exception {
+        // given
+        final KeyspaceStateManager manager = new BasicKeyspaceStateManager();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger syncs = new AtomicInteger();
+        final AtomicInteger syncsBeforeSecond = new AtomicInteger(-1);
+        Thread first = startSync(manager, "ks", "ks:1", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                await(release);
+                syncs.incrementAndGet();
+            }
+        });
+        started.await();
+        Thread second = startSync(manager, "ks", "ks:2", new Runnable() {
+            @Override
+            public void run() {
+                syncsBeforeSecond.set(syncs.getAndIncrement());
+            }
+        });
+
+        // when
+        waitUntilBlocked(second);
+        release.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(10));
+        second.join(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(syncs.get(), is(2));
+        assertThat(syncsBeforeSecond.get(), is(1));
+    }
+
+    @Test
+    public void syncDifferentKeyspaces() throws Exception {
+        // given
+        final KeyspaceStateManager manager = new BasicKeyspaceStateManager();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger syncs = new AtomicInteger();
+        Thread first = startSync(manager, "ks1", "ks1:1", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                await(release);
+            }
+        });
+        started.await();
+
+        // when
+        manager.sync("ks2", "ks2:1", new Runnable() {
+            @Override
+            public void run() {
+                syncs.incrementAndGet();
+            }
+        });
+
+        // then
+        assertThat(syncs.get(), is(1));
+        assertThat(first.isAlive(), is(true));
+        release.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void syncFailure() throws Exception {
+        // given
+        KeyspaceStateManager manager = new BasicKeyspaceStateManager();
+
+        // when
+        manager.sync("ks", "ks:1", new Runnable() {
+            @Override
+            public void run() {
+                throw new CassandraTestException("sync failed");
+            }
+        });
+
+        // then
+        // expect CassandraTestException
+    }
+
+    private static Thread startSync(final KeyspaceStateManager manager,
+                                    final String keyspace,
+                                    final String key,
+                                    final Runnable sync) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                manager.sync(keyspace, key, sync);
+            }
+        });
+
+        thread.start();
+
+        return thread;
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
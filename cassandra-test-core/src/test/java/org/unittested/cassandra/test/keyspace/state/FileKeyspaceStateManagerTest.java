@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.state;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.UUID;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class FileKeyspaceStateManagerTest {
+
+    private File stateFile;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.stateFile = File.createTempFile("keyspace-state", ".properties");
+        this.stateFile.delete();
+    }
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        this.stateFile.delete();
+        new File(this.stateFile.getPath() + ".lock").delete();
+        new File(this.stateFile.getPath() + ".ks.lock").delete();
+    }
+
+    @Test
+    public void track() throws Exception {
+        // given
+        KeyspaceStateManager manager = new FileKeyspaceStateManager(this.stateFile);
+        UUID schemaVersion = UUID.randomUUID();
+        UUID keyspaceDigest = UUID.randomUUID();
+
+        // when
+        manager.track("1", schemaVersion, keyspaceDigest);
+
+        // then
+        assertThat(this.stateFile.isFile(), is(true));
+        assertThat(manager.isTracked("1"), is(true));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", keyspaceDigest), is(false));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", UUID.randomUUID()), is(true));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", schemaVersion), is(false));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", UUID.randomUUID()), is(true));
+    }
+
+    @Test
+    public void notTracked() throws Exception {
+        // given
+        KeyspaceStateManager manager = new FileKeyspaceStateManager(this.stateFile);
+
+        // when, then
+        assertThat(manager.isTracked("1"), is(false));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("1", UUID.randomUUID()), is(true));
+        assertThat(manager.hasClusterSchemaVersionChanged("1", UUID.randomUUID()), is(true));
+    }
+
+    @Test
+    public void trackAcrossInstances() throws Exception {
+        // given
+        KeyspaceStateManager first = new FileKeyspaceStateManager(this.stateFile);
+        KeyspaceStateManager second = new FileKeyspaceStateManager(this.stateFile);
+        UUID schemaVersion = UUID.randomUUID();
+        UUID firstDigest = UUID.randomUUID();
+        UUID secondDigest = UUID.randomUUID();
+        assertThat(second.isTracked("1"), is(false));
+
+        // when
+        first.track("1", schemaVersion, firstDigest);
+        second.track("2", schemaVersion, secondDigest);
+
+        // then
+        KeyspaceStateManager third = new FileKeyspaceStateManager(this.stateFile);
+        assertThat(third.isTracked("1"), is(true));
+        assertThat(third.isTracked("2"), is(true));
+        assertThat(third.hasKeyspaceCqlSignatureChanged("1", firstDigest), is(false));
+        assertThat(third.hasKeyspaceCqlSignatureChanged("2", secondDigest), is(false));
+        assertThat(first.isTracked("2"), is(true));
+    }
+
+    @Test
+    public void reloadSameLengthRewrite() throws Exception {
+        // given
+        KeyspaceStateManager first = new FileKeyspaceStateManager(this.stateFile);
+        KeyspaceStateManager second = new FileKeyspaceStateManager(this.stateFile);
+        UUID schemaVersion = UUID.randomUUID();
+        UUID newDigest = UUID.randomUUID();
+        first.track("1", schemaVersion, UUID.randomUUID());
+        long lastModified = this.stateFile.lastModified();
+        assertThat(second.isTracked("1"), is(true));
+
+        // when
+        first.track("1", schemaVersion, newDigest);
+        this.stateFile.setLastModified(lastModified);
+
+        // then
+        assertThat(second.hasKeyspaceCqlSignatureChanged("1", newDigest), is(false));
+    }
+
+    @Test
+    public void syncHoldsKeyspaceLockFile() throws Exception {
+        // given
+        final FileKeyspaceStateManager manager = new FileKeyspaceStateManager(this.stateFile);
+        final File syncLockFile = new File(this.stateFile.getPath() + ".ks.lock");
+        final boolean[] locked = new boolean[1];
+
+        // when
+        manager.sync("ks", "1", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    RandomAccessFile lockAccess = new RandomAccessFile(syncLockFile, "rw");
+
+                    try {
+                        lockAccess.getChannel().tryLock();
+                    } catch (OverlappingFileLockException e) {
+                        locked[0] = true;
+                    } finally {
+                        lockAccess.close();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        // then
+        assertThat(locked[0], is(true));
+    }
+
+    @Test
+    public void invalidEntriesIgnored() throws Exception {
+        // given
+        UUID keyspaceDigest = UUID.randomUUID();
+        OutputStream out = new FileOutputStream(this.stateFile);
+        out.write(("bad=entry\nold=,42\n3=," + keyspaceDigest + "\n").getBytes("ISO-8859-1"));
+        out.close();
+
+        // when
+        KeyspaceStateManager manager = new FileKeyspaceStateManager(this.stateFile);
+
+        // then
+        assertThat(manager.isTracked("bad"), is(false));
+        assertThat(manager.isTracked("old"), is(false));
+        assertThat(manager.isTracked("3"), is(true));
+        assertThat(manager.hasKeyspaceCqlSignatureChanged("3", keyspaceDigest), is(false));
+        assertThat(manager.hasClusterSchemaVersionChanged("3", null), is(false));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.state;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Mock {@link KeyspaceStateManager} that runs syncs in the calling thread.
+ */
+public class KeyspaceStateManagerMocks {
+
+    public static KeyspaceStateManager mockKeyspaceStateManager() {
+        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Runnable)invocation.getArguments()[2]).run();
+                return null;
+            }
+        }).when(keyspaceStateManager).sync(Matchers.anyString(), Matchers.anyString(), Matchers.any(Runnable.class));
+
+        return keyspaceStateManager;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.keyspace.template;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.unittested.cassandra.test.Keyspace;
+import org.unittested.cassandra.test.TestRuntime;
+import org.unittested.cassandra.test.data.cql.BasicCqlResourceLoader;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.keyspace.SchemaChangeDetectionEnum;
+import org.unittested.cassandra.test.keyspace.state.KeyspaceStateManager;
+import org.unittested.cassandra.test.resource.Resource;
+import org.unittested.cassandra.test.resource.ResourceFingerprinter;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+public class TemplateKeyspaceSettingsTest {
+
+    private static final String TEMPLATE = TemplateKeyspaceSettings.TEMPLATE_PREFIX + "0123456789abcdef01234567";
+
+    @Test
+    public void getTemplateName() throws Exception {
+        // given
+        String fingerprint = "0123456789ABCDEF0123456789ABCDEF0123456789ABCDEF0123456789ABCDEF";
+
+        // when
+        String templateName = TemplateKeyspaceSettings.getTemplateName(fingerprint);
+
+        // then
+        assertThat(templateName, is(TEMPLATE));
+        assertThat(templateName.length(), lessThanOrEqualTo(48));
+    }
+
+    @Test
+    public void installSchemaFromInstalledTemplate() throws Exception {
+        // given
+        String [] schema = { "create table a (x int primary key, y text);" };
+        TemplateKeyspaceSettings settings = new TemplateKeyspaceSettings(
+                "template_clone_ks", false, schema, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, new BasicCqlResourceLoader(false));
+        String fingerprint = ResourceFingerprinter.DEFAULT.fingerprint(Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+        String templateName = TemplateKeyspaceSettings.getTemplateName(fingerprint);
+        Session session = mock(Session.class);
+        Metadata metadata = mockMetadata(session);
+        KeyspaceMetadata templateMetadata = mock(KeyspaceMetadata.class);
+        KeyspaceStateManager keyspaceStateManager = mock(KeyspaceStateManager.class);
+        TestRuntime runtime = mock(TestRuntime.class);
+
+        when(runtime.getKeyspace()).thenReturn(new Keyspace(session, "template_clone_ks"));
+        when(metadata.getKeyspace("\"" + templateName + "\"")).thenReturn(templateMetadata);
+        when(templateMetadata.exportAsString()).thenReturn(
+                "CREATE KEYSPACE " + templateName + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};\n\n"
+                + "CREATE TABLE " + templateName + ".a (\n    x int PRIMARY KEY,\n    y text\n);\n");
+        mockRegistry(session, installedState(fingerprint));
+
+        // when
+        settings.installSchema(runtime, keyspaceStateManager, Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+        settings.installSchema(runtime, keyspaceStateManager, Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+
+        // then
+        ArgumentCaptor<Statement> captor = ArgumentCaptor.forClass(Statement.class);
+        verify(session, times(4)).execute(captor.capture());
+        List<String> queryStrings = queryStrings(captor.getAllValues());
+        assertThat(queryStrings.get(0), org.hamcrest.Matchers.startsWith("CREATE KEYSPACE \"template_clone_ks\" WITH"));
+        assertThat(queryStrings.get(1), containsString("CREATE TABLE \"template_clone_ks\".a"));
+        assertThat(queryStrings.subList(2, 4), is(queryStrings.subList(0, 2)));
+        verify(templateMetadata, times(1)).exportAsString();
+        verify(keyspaceStateManager, never()).track(anyString(), Matchers.any(UUID.class), Matchers.any(UUID.class));
+        verify(session, times(2)).execute("use \"template_clone_ks\"");
+        verify(session, never()).execute(Matchers.startsWith("drop keyspace"));
+        verify(session, never()).execute(Matchers.startsWith("INSERT"), Matchers.<Object>anyVararg());
+    }
+
+    @Test
+    public void installSchemaInstallsMissingTemplate() throws Exception {
+        // given
+        String [] schema = { "create table b (x int primary key);" };
+        TemplateKeyspaceSettings settings = new TemplateKeyspaceSettings(
+                "template_install_ks", false, schema, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, new BasicCqlResourceLoader(false));
+        String fingerprint = ResourceFingerprinter.DEFAULT.fingerprint(Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+        String templateName = TemplateKeyspaceSettings.getTemplateName(fingerprint);
+        Session session = mock(Session.class);
+        Metadata metadata = mockMetadata(session);
+        KeyspaceMetadata templateMetadata = mock(KeyspaceMetadata.class);
+        TestRuntime runtime = mock(TestRuntime.class);
+
+        when(runtime.getKeyspace()).thenReturn(new Keyspace(session, "template_install_ks"));
+        when(metadata.getKeyspace("\"" + templateName + "\"")).thenReturn(null, templateMetadata);
+        when(templateMetadata.exportAsString()).thenReturn(
+                "CREATE KEYSPACE " + templateName + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};\n\n"
+                + "CREATE TABLE " + templateName + ".b (\n    x int PRIMARY KEY\n);\n");
+        mockRegistry(session, null, installedState(fingerprint));
+        mockClaim(session, true);
+        mockInstalled(session, true);
+
+        // when
+        settings.installSchema(runtime, mock(KeyspaceStateManager.class), Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+
+        // then
+        verify(session, times(1)).execute(Matchers.startsWith("create keyspace \"" + templateName + "\""));
+        verify(session, times(1)).execute(Matchers.contains("false) IF NOT EXISTS"),
+                Matchers.eq(templateName), Matchers.eq(fingerprint), Matchers.any(UUID.class));
+        verify(session, times(1)).execute(Matchers.contains("installed = true WHERE name = ? IF installer = ?"),
+                Matchers.eq(fingerprint), Matchers.any(UUID.class), Matchers.eq(templateName), Matchers.any(UUID.class));
+        verify(session, never()).execute(Matchers.startsWith("drop keyspace"));
+    }
+
+    @Test
+    public void installSchemaFailsWhenClaimLost() throws Exception {
+        // given
+        String [] schema = { "create table d (x int primary key);" };
+        TemplateKeyspaceSettings settings = new TemplateKeyspaceSettings(
+                "template_lost_ks", false, schema, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, new BasicCqlResourceLoader(false));
+        String fingerprint = ResourceFingerprinter.DEFAULT.fingerprint(Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+        String templateName = TemplateKeyspaceSettings.getTemplateName(fingerprint);
+        Session session = mock(Session.class);
+        TestRuntime runtime = mock(TestRuntime.class);
+
+        mockMetadata(session);
+        when(runtime.getKeyspace()).thenReturn(new Keyspace(session, "template_lost_ks"));
+        mockRegistry(session, null, installedState(fingerprint));
+        mockClaim(session, true);
+        mockInstalled(session, false);
+
+        // when
+        try {
+            settings.installSchema(runtime, mock(KeyspaceStateManager.class),
+                    Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+            Assert.fail("Expected install to fail.");
+        } catch (CassandraTestException e) {
+            // then
+            assertThat(e.getMessage(), containsString(templateName));
+        }
+
+        verify(session, times(1)).execute(Matchers.startsWith("DELETE"),
+                Matchers.eq(templateName), Matchers.any(UUID.class));
+    }
+
+    @Test
+    public void installSchemaWaitsForOtherInstaller() throws Exception {
+        // given
+        String [] schema = { "create table c (x int primary key);" };
+        TemplateKeyspaceSettings settings = new TemplateKeyspaceSettings(
+                "template_wait_ks", false, schema, SchemaChangeDetectionEnum.KEYSPACE,
+                ArrayUtils.EMPTY_STRING_ARRAY, new BasicCqlResourceLoader(false));
+        String fingerprint = ResourceFingerprinter.DEFAULT.fingerprint(Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+        String templateName = TemplateKeyspaceSettings.getTemplateName(fingerprint);
+        Session session = mock(Session.class);
+        Metadata metadata = mockMetadata(session);
+        KeyspaceMetadata templateMetadata = mock(KeyspaceMetadata.class);
+        TestRuntime runtime = mock(TestRuntime.class);
+        Row installing = installedState(fingerprint);
+
+        when(installing.getBool("installed")).thenReturn(false);
+        when(runtime.getKeyspace()).thenReturn(new Keyspace(session, "template_wait_ks"));
+        when(metadata.getKeyspace("\"" + templateName + "\"")).thenReturn(templateMetadata);
+        when(templateMetadata.exportAsString()).thenReturn(
+                "CREATE KEYSPACE " + templateName + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};\n\n"
+                + "CREATE TABLE " + templateName + ".c (\n    x int PRIMARY KEY\n);\n");
+        mockRegistry(session, installing, installing, installedState(fingerprint));
+
+        // when
+        settings.installSchema(runtime, mock(KeyspaceStateManager.class), Arrays.asList(Resource.fromCqlOrUrl(schema[0])));
+
+        // then
+        verify(session, times(3)).execute(Matchers.startsWith("SELECT"), Matchers.<Object>anyVararg());
+        verify(session, never()).execute(Matchers.startsWith("INSERT"), Matchers.<Object>anyVararg());
+        verify(session, never()).execute(Matchers.startsWith("drop keyspace"));
+        verify(session, never()).execute(Matchers.startsWith("create keyspace"));
+    }
+
+    @Test
+    public void dropTemplates() throws Exception {
+        // given
+        String templateName = TemplateKeyspaceSettings.TEMPLATE_PREFIX + "ffffffffffffffffffffffff";
+        Session session = mock(Session.class);
+        Metadata metadata = mockMetadata(session);
+        KeyspaceMetadata templateMetadata = mock(KeyspaceMetadata.class);
+        KeyspaceMetadata otherMetadata = mock(KeyspaceMetadata.class);
+
+        when(templateMetadata.getName()).thenReturn(templateName);
+        when(otherMetadata.getName()).thenReturn(TemplateRegistry.KEYSPACE);
+        when(metadata.getKeyspaces()).thenReturn(Arrays.asList(templateMetadata, otherMetadata));
+
+        // when
+        TemplateKeyspaceSettings.dropTemplates(session);
+
+        // then
+        verify(session, times(1)).execute("drop keyspace \"" + templateName + "\"");
+        verify(session, times(1)).execute(Matchers.startsWith("DELETE"), Matchers.eq(templateName));
+        verify(session, never()).execute("drop keyspace \"" + TemplateRegistry.KEYSPACE + "\"");
+    }
+
+    private static Row installedState(String fingerprint) {
+        Row row = mock(Row.class);
+
+        when(row.getBool("installed")).thenReturn(true);
+        when(row.getString("fingerprint")).thenReturn(fingerprint);
+
+        return row;
+    }
+
+    private static void mockRegistry(Session session, Row state, Row... states) {
+        ResultSet resultSet = mock(ResultSet.class);
+
+        when(resultSet.one()).thenReturn(state, states);
+        when(session.execute(Matchers.startsWith("SELECT"), Matchers.<Object>anyVararg())).thenReturn(resultSet);
+    }
+
+    private static void mockClaim(Session session, boolean applied) {
+        ResultSet resultSet = mock(ResultSet.class);
+        Row row = mock(Row.class);
+
+        when(row.getBool("[applied]")).thenReturn(applied);
+        when(resultSet.one()).thenReturn(row);
+        when(session.execute(Matchers.contains("IF NOT EXISTS"), Matchers.<Object>anyVararg())).thenReturn(resultSet);
+    }
+
+    private static void mockInstalled(Session session, boolean applied) {
+        ResultSet resultSet = mock(ResultSet.class);
+        Row row = mock(Row.class);
+
+        when(row.getBool("[applied]")).thenReturn(applied);
+        when(resultSet.one()).thenReturn(row);
+        when(session.execute(Matchers.contains("installed = true"), Matchers.<Object>anyVararg())).thenReturn(resultSet);
+    }
+
+    private static Metadata mockMetadata(Session session) {
+        Cluster cluster = mock(Cluster.class);
+        Metadata metadata = mock(Metadata.class);
+
+        when(session.getCluster()).thenReturn(cluster);
+        when(cluster.getMetadata()).thenReturn(metadata);
+
+        return metadata;
+    }
+
+    private static List<String> queryStrings(List<Statement> statements) {
+        String [] queryStrings = new String[statements.size()];
+
+        for (int i = 0; i < queryStrings.length; i++) {
+            queryStrings[i] = ((RegularStatement)statements.get(i)).getQueryString();
+        }
+
+        return Arrays.asList(queryStrings);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.resource;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResourceFingerprinterTest {
+
+    private static final String ABC_SHA_256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private File file;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        this.file = File.createTempFile("fingerprint", ".cql", new File("target"));
+    }
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        this.file.delete();
+    }
+
+    @Test
+    public void fingerprintText() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+
+        // when
+        String fingerprint = fingerprinter.fingerprint(new Resource(Resource.Source.TEXT, "abc"));
+
+        // then
+        assertThat(fingerprint, is(ABC_SHA_256));
+    }
+
+    @Test
+    public void fingerprintFile() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        write("abc", 1000000L);
+
+        // when
+        String fingerprint = fingerprinter.fingerprint(new Resource("file:" + this.file.getPath()));
+
+        // then
+        assertThat(fingerprint, is(ABC_SHA_256));
+    }
+
+    @Test
+    public void fingerprintFileChanged() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("abc", 1000000L);
+        String before = fingerprinter.fingerprint(resource);
+
+        // when
+        write("abcd", 2000000L);
+        String after = fingerprinter.fingerprint(resource);
+
+        // then
+        assertThat(after, not(before));
+        assertThat(after, is(fingerprinter.fingerprint(new Resource(Resource.Source.TEXT, "abcd"))));
+    }
+
+    @Test
+    public void fingerprintFileChangedLength() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("abc", 1000000L);
+        String before = fingerprinter.fingerprint(resource);
+
+        // when
+        write("abcd", 1000000L);
+        String after = fingerprinter.fingerprint(resource);
+
+        // then
+        assertThat(after, not(before));
+        assertThat(after, is(fingerprinter.fingerprint(new Resource(Resource.Source.TEXT, "abcd"))));
+    }
+
+    @Test
+    public void fingerprintFileCached() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        Resource resource = new Resource("file:" + this.file.getPath());
+        write("abc", 1000000L);
+        String before = fingerprinter.fingerprint(resource);
+
+        // when
+        write("xyz", 1000000L);
+        String cached = fingerprinter.fingerprint(resource);
+        fingerprinter.clear();
+        String after = fingerprinter.fingerprint(resource);
+
+        // then
+        assertThat(cached, is(before));
+        assertThat(after, not(before));
+    }
+
+    @Test
+    public void fingerprintClasspath() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        Resource classpath = new Resource("classpath:cql/sample-schema.cql");
+        Resource file = new Resource("file:target/test-classes/cql/sample-schema.cql");
+
+        // when
+        String fingerprint = fingerprinter.fingerprint(classpath);
+
+        // then
+        assertThat(fingerprint, is(fingerprinter.fingerprint(file)));
+    }
+
+    @Test
+    public void fingerprintResources() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+        Resource a = new Resource(Resource.Source.TEXT, "a");
+        Resource b = new Resource(Resource.Source.TEXT, "b");
+        write("a", 1000000L);
+
+        // when
+        String fingerprint = fingerprinter.fingerprint(Arrays.asList(a, b));
+
+        // then
+        assertThat(fingerprint, is(fingerprinter.fingerprint(
+                Arrays.asList(new Resource("file:" + this.file.getPath()), b))));
+        assertThat(fingerprint, not(fingerprinter.fingerprint(Arrays.asList(b, a))));
+    }
+
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void fingerprintMissingFile() throws Exception {
+        // given
+        ResourceFingerprinter fingerprinter = new ResourceFingerprinter();
+
+        // when
+        fingerprinter.fingerprint(new Resource("file:does_not_exist.cql"));
+
+        // then
+        // FileNotFoundException
+    }
+
+    private void write(String content, long lastModified) throws IOException {
+        OutputStream out = new FileOutputStream(this.file);
+
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        assertThat(this.file.setLastModified(lastModified), is(true));
+    }
+}
@@ -21,6 +21,7 @@ import static org.unittested.cassandra.test.resource.Resource.ContentType.*;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 
 import org.unittested.cassandra.test.exception.CassandraTestException;
@@ -82,6 +83,49 @@ public class ResourceTest {
         assertThat(resource.getPath(), is(expectedPath));
     }
 
+    @DataProvider
+    public static Object[][] contentTypes() {
+        return new Object[][] {
+                { "classpath:data.cql", CQL, null },
+                { "classpath:users.csv", CSV, null },
+                { "file://path/to/Users.CSV", CSV, null },
+                { "classpath:users.txt?format=csv&table=ks.users", CSV, "ks.users" },
+                { "file:users.csv?format=CQL", CQL, null },
+                { "classpath:users.csv?table=%22Users%22", CSV, "\"Users\"" },
+                { "text:INSERT INTO t (k) VALUES ('a.csv')", CQL, null },
+        };
+    }
+
+    @Test(dataProvider = "contentTypes")
+    public void getContentType(String url, Resource.ContentType expectedContentType, String expectedTable) throws Exception {
+        // when
+        Resource resource = new Resource(url);
+
+        // then
+        assertThat(resource.getContentType(), is(expectedContentType));
+        assertThat(resource.getParameter("table"), is(expectedTable));
+    }
+
+    @Test
+    public void getLength() throws Exception {
+        // given
+        long length = new File("target/test-classes/cql/sample-schema.cql").length();
+
+        // when, then
+        assertThat(new Resource("classpath:cql/sample-schema.cql").getLength(), is(length));
+        assertThat(new Resource("file:target/test-classes/cql/sample-schema.cql").getLength(), is(length));
+        assertThat(new Resource(TEXT, "select * from a;").getLength(), is(-1L));
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void getContentTypeWithUnsupportedFormat() throws Exception {
+        // given, when
+        new Resource("classpath:users.txt?format=json");
+
+        // then
+        // CassandraTestException
+    }
+
     @DataProvider
     public static Object[][] invalidCqlOrUrlInput() {
         return new Object[][] {
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.rollback.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.annotation.Annotation;
+
+import org.unittested.cassandra.test.FactoryTestAnnotations;
+import org.unittested.cassandra.test.annotation.CassandraPoolRollback;
+import org.unittested.cassandra.test.annotation.CassandraRollback;
+import org.unittested.cassandra.test.exception.CassandraTestException;
+import org.unittested.cassandra.test.properties.PropertiesPropertyResolver;
+import org.unittested.cassandra.test.rollback.RollbackSettings;
+import org.unittested.cassandra.test.rollback.RollbackSettingsFactory;
+import org.unittested.cassandra.test.rollback.RollbackStrategy;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class PoolRollbackSettingsFactoryTest {
+
+    @Test
+    public void create() throws Exception {
+        // given
+        RollbackSettingsFactory rollbackSettingsFactory = new PoolRollbackSettingsFactory();
+        CassandraPoolRollback rollback = FactoryTestAnnotations.class.getAnnotation(CassandraPoolRollback.class);
+
+        // when
+        RollbackSettings rollbackSettings = rollbackSettingsFactory.create(rollback, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        assertThat(rollbackSettings, instanceOf(PoolRollbackSettings.class));
+        assertThat(rollbackSettings.getTableExclusions().length, is(0));
+        assertThat(rollbackSettings.getTableInclusions().length, is(0));
+        assertThat(rollbackSettings.getAfterClass(), is(RollbackStrategy.DROP));
+        assertThat(rollbackSettings.getAfterMethod(), is(RollbackStrategy.NONE));
+    }
+
+    @DataProvider
+    public Object[][] invalidAnnotations() {
+        return new Object[][] {
+                { null },
+                { FactoryTestAnnotations.createStubAnnotation() },
+                { FactoryTestAnnotations.class.getAnnotation(CassandraRollback.class) },
+        };
+    }
+
+    @Test(dataProvider = "invalidAnnotations", expectedExceptions = CassandraTestException.class)
+    public void createWithInvalidAnnotations(Annotation annotation) throws Exception {
+        // given
+        RollbackSettingsFactory rollbackSettingsFactory = new PoolRollbackSettingsFactory();
+
+        // when
+        rollbackSettingsFactory.create(annotation, PropertiesPropertyResolver.DEFAULT);
+
+        // then
+        // expect CassandraTestException
+    }
+
+    @Test(expectedExceptions = CassandraTestException.class)
+    public void createWithoutAfterClassRollback() throws Exception {
+        // given
+        RollbackStrategy afterClass = RollbackStrategy.NONE;
+
+        // when
+        new PoolRollbackSettings(RollbackStrategy.TRUNCATE, afterClass);
+
+        // then
+        // expect CassandraTestException
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.util;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.TableMetadata;
+
+public class SchemaDigestTest {
+
+    @Test
+    public void digest() throws Exception {
+        // given
+        TableMetadata a = createTable("CREATE TABLE digest_ks.a (x int PRIMARY KEY);");
+        TableMetadata b = createTable("CREATE TABLE digest_ks.b (x int PRIMARY KEY);");
+        KeyspaceMetadata keyspaceMetadata = createKeyspace("digest_ks", a, b);
+
+        // when
+        UUID first = SchemaDigest.digest(keyspaceMetadata);
+        UUID second = SchemaDigest.digest(keyspaceMetadata);
+
+        // then
+        assertThat(first, notNullValue());
+        assertThat(second, is(first));
+        verify(a, times(1)).exportAsString();
+        verify(b, times(1)).exportAsString();
+    }
+
+    @Test
+    public void digestIgnoresTableOrder() throws Exception {
+        // given
+        TableMetadata a = createTable("CREATE TABLE digest_order_ks.a (x int PRIMARY KEY);");
+        TableMetadata b = createTable("CREATE TABLE digest_order_ks.b (x int PRIMARY KEY);");
+
+        // when
+        UUID forward = SchemaDigest.digest(createKeyspace("digest_order_ks", a, b));
+        UUID reverse = SchemaDigest.digest(createKeyspace("digest_order_ks", b, a));
+
+        // then
+        assertThat(reverse, is(forward));
+    }
+
+    @Test
+    public void digestTableChanged() throws Exception {
+        // given
+        TableMetadata a = createTable("CREATE TABLE digest_change_ks.a (x int PRIMARY KEY);");
+        TableMetadata b = createTable("CREATE TABLE digest_change_ks.b (x int PRIMARY KEY);");
+        TableMetadata changed = createTable("CREATE TABLE digest_change_ks.b (x int PRIMARY KEY, y int);");
+        UUID before = SchemaDigest.digest(createKeyspace("digest_change_ks", a, b));
+
+        // when
+        UUID after = SchemaDigest.digest(createKeyspace("digest_change_ks", a, changed));
+        UUID restored = SchemaDigest.digest(createKeyspace("digest_change_ks", a, b));
+
+        // then
+        assertThat(after, not(before));
+        assertThat(restored, is(before));
+        verify(a, times(1)).exportAsString();
+    }
+
+    @Test
+    public void digestTableDropped() throws Exception {
+        // given
+        TableMetadata a = createTable("CREATE TABLE digest_drop_ks.a (x int PRIMARY KEY);");
+        TableMetadata b = createTable("CREATE TABLE digest_drop_ks.b (x int PRIMARY KEY);");
+        UUID before = SchemaDigest.digest(createKeyspace("digest_drop_ks", a, b));
+
+        // when
+        UUID after = SchemaDigest.digest(createKeyspace("digest_drop_ks", a));
+
+        // then
+        assertThat(after, not(before));
+    }
+
+    @Test
+    public void digestNullKeyspace() throws Exception {
+        // when
+        UUID digest = SchemaDigest.digest(null);
+
+        // then
+        assertThat(digest, nullValue());
+    }
+
+    private static KeyspaceMetadata createKeyspace(String name, TableMetadata... tables) {
+        KeyspaceMetadata keyspaceMetadata = mock(KeyspaceMetadata.class);
+
+        when(keyspaceMetadata.getName()).thenReturn(name);
+        when(keyspaceMetadata.asCQLQuery()).thenReturn("CREATE KEYSPACE " + name
+                + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': '1'};");
+        when(keyspaceMetadata.getTables()).thenReturn(Arrays.asList(tables));
+
+        return keyspaceMetadata;
+    }
+
+    private static TableMetadata createTable(String cql) {
+        TableMetadata tableMetadata = mock(TableMetadata.class);
+
+        when(tableMetadata.exportAsString()).thenReturn(cql);
+
+        return tableMetadata;
+    }
+}
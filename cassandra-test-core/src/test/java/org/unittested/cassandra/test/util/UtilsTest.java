@@ -54,6 +54,28 @@ public class UtilsTest extends AbstractCassandraTest {
         assertThat(Utils.expandCommaDelimitedEntries(input), arrayContaining(output));
     }
 
+    @DataProvider
+    public static Object[][] cqlLike() {
+        return new Object[][] {
+                { "SELECT * FROM t;", true },
+                { "  insert into t (k) values (1)", true },
+                { "// comment\n  Use ks;", true },
+                { " ; ", true },
+                { "BEGIN\tBATCH", true },
+                { "SELECT", false },
+                { "SELECTED x", false },
+                { "x SELECT y", false },
+                { "APPLY BATCH;", false },
+                { "classpath:data.cql", false },
+                { "", false },
+        };
+    }
+
+    @Test(dataProvider = "cqlLike")
+    public void isCqlLike(String str, boolean expectedResult) throws Exception {
+        assertThat(Utils.isCqlLike(str), is(expectedResult));
+    }
+
     @DataProvider(name = "quoteParameters")
     public static Object[][] quoteParameters() {
         String quotedText = "\"Test\"";
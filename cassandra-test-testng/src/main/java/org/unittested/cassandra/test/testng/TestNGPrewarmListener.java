@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 Daniel Anderson.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.unittested.cassandra.test.testng;
+
+import org.unittested.cassandra.test.connect.pool.SessionPoolPrewarmer;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Starts connection pre-warming when a TestNG suite starts.
+ * <p>
+ * Registered through {@link java.util.ServiceLoader}. Pre-warming is disabled unless the
+ * {@value SessionPoolPrewarmer#PREWARM_PROPERTY} property is set.
+ */
+public class TestNGPrewarmListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        SessionPoolPrewarmer.start();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+
+    }
+}